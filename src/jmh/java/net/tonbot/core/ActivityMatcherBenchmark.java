@@ -0,0 +1,112 @@
+package net.tonbot.core;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.tonbot.common.Activity;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityMatcherBenchmark {
+
+	@Param({ "100", "500" })
+	private int activityCount;
+
+	private ActivityMatcher activityMatcher;
+
+	private String routeMessage;
+	private String aliasMessage;
+	private String missMessage;
+	private TokenizedMessage routeTokens;
+
+	@Setup
+	public void setUp() {
+		Set<Activity> activities = new HashSet<>();
+		Map<String, String> aliasToCanonicalRoutes = new HashMap<>();
+
+		// Routes of one to three tokens, in plugins of ten activities each, with every
+		// other activity also reachable through a single token alias.
+		for (int i = 0; i < activityCount; i++) {
+			String route;
+			switch (i % 3) {
+			case 0:
+				route = "plugin" + (i / 10);
+				break;
+			case 1:
+				route = "plugin" + (i / 10) + " command" + i;
+				break;
+			default:
+				route = "plugin" + (i / 10) + " group" + (i % 7) + " command" + i;
+				break;
+			}
+
+			activities.add(BenchmarkFixtures.activity(route));
+
+			if (i % 2 == 0) {
+				aliasToCanonicalRoutes.put("alias" + i, route);
+			}
+		}
+
+		Aliases aliases = new AliasesImpl(aliasToCanonicalRoutes, activities);
+		this.activityMatcher = new ActivityMatcher(activities, aliases);
+
+		// The last activity with a three token route.
+		int last = activityCount - 1;
+		while (last % 3 != 2) {
+			last--;
+		}
+		this.routeMessage = "t,plugin" + (last / 10) + " group" + (last % 7) + " command" + last
+				+ " some arguments <@123456789> \"quoted\" 42";
+		this.aliasMessage = "t,alias0 some arguments";
+		this.missMessage = "t,nothing matches this message at all";
+		this.routeTokens = tokenize(routeMessage);
+	}
+
+	@Benchmark
+	public Optional<ActivityMatch> tokenizeAndMatchRoute() {
+		return match(routeMessage);
+	}
+
+	@Benchmark
+	public Optional<ActivityMatch> tokenizeAndMatchAlias() {
+		return match(aliasMessage);
+	}
+
+	@Benchmark
+	public Optional<ActivityMatch> tokenizeAndMiss() {
+		return match(missMessage);
+	}
+
+	@Benchmark
+	public Optional<ActivityMatch> matchTokenizedRoute() {
+		return activityMatcher.matchActivity(routeTokens);
+	}
+
+	private Optional<ActivityMatch> match(String message) {
+		return activityMatcher.matchActivity(tokenize(message));
+	}
+
+	private TokenizedMessage tokenize(String message) {
+		return TokenizedMessage.tokenize(message, 2, Math.max(1, activityMatcher.getMaxRouteLength()));
+	}
+}
@@ -0,0 +1,182 @@
+package net.tonbot.core;
+
+import java.lang.reflect.Proxy;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import net.tonbot.common.Activity;
+import net.tonbot.common.ActivityDescriptor;
+import sx.blah.discord.api.IDiscordClient;
+import sx.blah.discord.handle.obj.IChannel;
+import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IRole;
+import sx.blah.discord.handle.obj.IUser;
+import sx.blah.discord.handle.obj.Permissions;
+
+/**
+ * Synthetic fixtures for the benchmarks, so that they run without a connection
+ * to Discord. The Discord4J objects are proxies which only answer the methods
+ * that Tonbot calls on the hot paths.
+ */
+public final class BenchmarkFixtures {
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * Creates an activity with the given route.
+	 *
+	 * @param route
+	 *            The route, with tokens separated by spaces. Non-null.
+	 * @return An {@link Activity}.
+	 */
+	public static Activity activity(String route) {
+		Preconditions.checkNotNull(route, "route must be non-null.");
+
+		ActivityDescriptor descriptor = ActivityDescriptor.builder().route(route).description("Benchmark activity.")
+				.build();
+
+		return () -> descriptor;
+	}
+
+	/**
+	 * Creates a role.
+	 *
+	 * @param id
+	 *            The ID of the role.
+	 * @param permissions
+	 *            The permissions of the role. Non-null.
+	 * @return An {@link IRole}.
+	 */
+	public static IRole role(long id, EnumSet<Permissions> permissions) {
+		Preconditions.checkNotNull(permissions, "permissions must be non-null.");
+
+		return proxy(IRole.class, ImmutableMap.of("getLongID", args -> id, "getPermissions", args -> permissions));
+	}
+
+	/**
+	 * Creates a guild without members, roles other than the everyone role, or
+	 * channels.
+	 *
+	 * @param id
+	 *            The ID of the guild.
+	 * @param ownerId
+	 *            The ID of the guild's owner.
+	 * @param everyoneRole
+	 *            The guild's everyone role. Non-null.
+	 * @return An {@link IGuild}.
+	 */
+	public static IGuild guild(long id, long ownerId, IRole everyoneRole) {
+		return guild(id, ownerId, everyoneRole, ImmutableList.of(), ImmutableList.of(everyoneRole),
+				ImmutableList.of());
+	}
+
+	/**
+	 * Creates a guild.
+	 *
+	 * @param id
+	 *            The ID of the guild.
+	 * @param ownerId
+	 *            The ID of the guild's owner.
+	 * @param everyoneRole
+	 *            The guild's everyone role. Non-null.
+	 * @param users
+	 *            The members of the guild. Non-null.
+	 * @param roles
+	 *            The roles of the guild, including the everyone role. Non-null.
+	 * @param channels
+	 *            The channels of the guild. Non-null.
+	 * @return An {@link IGuild}.
+	 */
+	public static IGuild guild(long id, long ownerId, IRole everyoneRole, List<IUser> users, List<IRole> roles,
+			List<IChannel> channels) {
+		Preconditions.checkNotNull(everyoneRole, "everyoneRole must be non-null.");
+		Preconditions.checkNotNull(users, "users must be non-null.");
+		Preconditions.checkNotNull(roles, "roles must be non-null.");
+		Preconditions.checkNotNull(channels, "channels must be non-null.");
+
+		// The entity cache loads the users, roles and channels of a guild the first
+		// time that one of them is mentioned.
+		return proxy(IGuild.class, ImmutableMap.<String, Function<Object[], Object>>builder()
+				.put("getLongID", args -> id)
+				.put("getOwnerLongID", args -> ownerId)
+				.put("getEveryoneRole", args -> everyoneRole)
+				.put("getName", args -> "Benchmark Guild " + id)
+				.put("getUsers", args -> users)
+				.put("getRoles", args -> roles)
+				.put("getChannels", args -> channels)
+				.build());
+	}
+
+	/**
+	 * Creates a client which knows about the given guilds, users and roles.
+	 *
+	 * @param guilds
+	 *            Guilds by ID. Non-null.
+	 * @param users
+	 *            Users by ID. Non-null.
+	 * @param roles
+	 *            Roles by ID. Non-null.
+	 * @return An {@link IDiscordClient}.
+	 */
+	public static IDiscordClient client(Map<Long, IGuild> guilds, Map<Long, IUser> users, Map<Long, IRole> roles) {
+		Preconditions.checkNotNull(guilds, "guilds must be non-null.");
+		Preconditions.checkNotNull(users, "users must be non-null.");
+		Preconditions.checkNotNull(roles, "roles must be non-null.");
+
+		return proxy(IDiscordClient.class, ImmutableMap.of("getGuildByID", args -> guilds.get(args[0]),
+				"getUserByID", args -> users.get(args[0]), "getRoleByID", args -> roles.get(args[0])));
+	}
+
+	/**
+	 * Creates a user who has the same roles in every guild.
+	 *
+	 * @param id
+	 *            The ID of the user.
+	 * @param client
+	 *            A function which returns the client that the user belongs to,
+	 *            so that users and clients can refer to each other. Non-null.
+	 * @param roles
+	 *            The roles of the user. Non-null.
+	 * @return An {@link IUser}.
+	 */
+	public static IUser user(long id, Function<IUser, IDiscordClient> client, List<IRole> roles) {
+		Preconditions.checkNotNull(client, "client must be non-null.");
+		Preconditions.checkNotNull(roles, "roles must be non-null.");
+
+		IUser[] user = new IUser[1];
+		user[0] = proxy(IUser.class, ImmutableMap.of("getLongID", args -> id, "getName", args -> "User " + id,
+				"getRolesForGuild", args -> roles, "getClient", args -> client.apply(user[0]), "isBot", args -> false));
+
+		return user[0];
+	}
+
+	private static <T> T proxy(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+		Object proxy = Proxy.newProxyInstance(BenchmarkFixtures.class.getClassLoader(), new Class<?>[] { type },
+				(self, method, args) -> {
+					switch (method.getName()) {
+					case "equals":
+						return self == args[0];
+					case "hashCode":
+						return System.identityHashCode(self);
+					case "toString":
+						return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+					default:
+						Function<Object[], Object> answer = answers.get(method.getName());
+						if (answer == null) {
+							throw new UnsupportedOperationException(
+									type.getSimpleName() + "." + method.getName() + " is not part of the fixture.");
+						}
+						return answer.apply(args);
+					}
+				});
+
+		return type.cast(proxy);
+	}
+}
@@ -0,0 +1,57 @@
+package net.tonbot.core.permission;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathExpressionBenchmark {
+
+	private final List<String> path = ImmutableList.of("music", "queue", "remove", "all");
+
+	private final PathExpression exact = new PathExpression("music queue remove all");
+	private final PathExpression wildcard = new PathExpression("music * remove *");
+	private final PathExpression doubleWildcard = new PathExpression("music **");
+	private final PathExpression mismatch = new PathExpression("music queue add");
+
+	@Benchmark
+	public boolean matchExact() {
+		return exact.matches(path);
+	}
+
+	@Benchmark
+	public boolean matchWildcard() {
+		return wildcard.matches(path);
+	}
+
+	@Benchmark
+	public boolean matchDoubleWildcard() {
+		return doubleWildcard.matches(path);
+	}
+
+	@Benchmark
+	public boolean matchMismatch() {
+		return mismatch.matches(path);
+	}
+
+	@Benchmark
+	public boolean matchString() {
+		return exact.matches("music queue remove all");
+	}
+}
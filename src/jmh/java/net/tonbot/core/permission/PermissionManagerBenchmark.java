@@ -0,0 +1,119 @@
+package net.tonbot.core.permission;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+
+import net.tonbot.common.Activity;
+import net.tonbot.core.BenchmarkFixtures;
+import sx.blah.discord.api.IDiscordClient;
+import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IRole;
+import sx.blah.discord.handle.obj.IUser;
+import sx.blah.discord.handle.obj.Permissions;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionManagerBenchmark {
+
+	private static final long GUILD_ID = 1000L;
+	private static final long OWNER_ID = 1L;
+	private static final long MEMBER_ID = 2L;
+	private static final long MEMBER_ROLE_ID = 2000L;
+
+	@Param({ "10", "1000" })
+	private int ruleCount;
+
+	private Path permissionsDirectory;
+	private AccessDecisionCache decisionCache;
+	private PermissionManagerImpl permissionManager;
+
+	private Activity activity;
+	private IUser owner;
+	private IUser member;
+	private IGuild guild;
+
+	@Setup
+	public void setUp() throws IOException {
+		IRole everyoneRole = BenchmarkFixtures.role(GUILD_ID, EnumSet.noneOf(Permissions.class));
+		IRole memberRole = BenchmarkFixtures.role(MEMBER_ROLE_ID, EnumSet.of(Permissions.SEND_MESSAGES));
+		this.guild = BenchmarkFixtures.guild(GUILD_ID, OWNER_ID, everyoneRole);
+
+		IDiscordClient client = BenchmarkFixtures.client(ImmutableMap.of(GUILD_ID, guild), ImmutableMap.of(),
+				ImmutableMap.of());
+		this.owner = BenchmarkFixtures.user(OWNER_ID, u -> client, ImmutableList.of(everyoneRole));
+		this.member = BenchmarkFixtures.user(MEMBER_ID, u -> client, ImmutableList.of(everyoneRole, memberRole));
+
+		this.activity = BenchmarkFixtures.activity("music queue remove");
+
+		this.permissionsDirectory = Files.createTempDirectory("permissions");
+		File permissionsFile = permissionsDirectory.resolve("permissions.json").toFile();
+		this.decisionCache = new AccessDecisionCache();
+		this.permissionManager = new PermissionManagerImpl(ImmutableList.of(), ImmutableList.of(), permissionsFile,
+				new ObjectMapper(), decisionCache, TimeUnit.HOURS.toMillis(1));
+
+		// Every rule but the last one misses, either on its path or on its role, so
+		// that the whole list is scanned.
+		List<Rule> rules = new ArrayList<>();
+		for (int i = 0; i < ruleCount - 1; i++) {
+			if (i % 2 == 0) {
+				rules.add(new RoleRule(ImmutableList.of("plugin" + i, "**"), GUILD_ID, MEMBER_ROLE_ID, false));
+			} else {
+				rules.add(new RoleRule(ImmutableList.of("music", "*", "remove"), GUILD_ID, 5000L + i, false));
+			}
+		}
+		rules.add(new RoleRule(ImmutableList.of("music", "**"), GUILD_ID, MEMBER_ROLE_ID, true));
+		permissionManager.addAll(rules);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		permissionManager.destroy();
+		MoreFiles.deleteRecursively(permissionsDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+	}
+
+	@Benchmark
+	public boolean checkMember() {
+		return permissionManager.checkAccessibility(activity, member, guild);
+	}
+
+	@Benchmark
+	public boolean checkMemberUncached() {
+		// Invalidating the guild forces the rules to be evaluated again.
+		decisionCache.invalidate(GUILD_ID);
+		return permissionManager.checkAccessibility(activity, member, guild);
+	}
+
+	@Benchmark
+	public boolean checkOwner() {
+		return permissionManager.checkAccessibility(activity, owner, guild);
+	}
+}
@@ -0,0 +1,121 @@
+package net.tonbot.core.request;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import lombok.Data;
+import net.tonbot.common.Param;
+import net.tonbot.core.BenchmarkFixtures;
+import net.tonbot.core.request.parsing.ParserModule;
+import sx.blah.discord.api.IDiscordClient;
+import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IRole;
+import sx.blah.discord.handle.obj.IUser;
+import sx.blah.discord.handle.obj.Permissions;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestMapperBenchmark {
+
+	private static final long GUILD_ID = 1000L;
+	private static final long ROLE_ID = 2000L;
+	private static final long USER_ID = 3000L;
+
+	private RequestMapper requestMapper;
+	private Context context;
+
+	@Setup
+	public void setUp() {
+		IRole everyoneRole = BenchmarkFixtures.role(GUILD_ID, EnumSet.noneOf(Permissions.class));
+		IRole role = BenchmarkFixtures.role(ROLE_ID, EnumSet.noneOf(Permissions.class));
+		IGuild guild = BenchmarkFixtures.guild(GUILD_ID, USER_ID + 1, everyoneRole);
+
+		IDiscordClient[] client = new IDiscordClient[1];
+		IUser user = BenchmarkFixtures.user(USER_ID, u -> client[0], ImmutableList.of(role));
+		client[0] = BenchmarkFixtures.client(ImmutableMap.of(GUILD_ID, guild), ImmutableMap.of(USER_ID, user),
+				ImmutableMap.of(ROLE_ID, role, GUILD_ID, everyoneRole));
+
+		Injector injector = Guice.createInjector(new ParserModule(),
+				binder -> binder.bind(IDiscordClient.class).toInstance(client[0]));
+
+		this.requestMapper = injector.getInstance(RequestMapper.class);
+		this.context = new Context(guild);
+	}
+
+	@Benchmark
+	public EmptyRequest mapEmpty() {
+		return requestMapper.map("", EmptyRequest.class, context);
+	}
+
+	@Benchmark
+	public TextRequest mapRemainingText() {
+		return requestMapper.map("t,say   hello there, this is the rest of the line", 5, TextRequest.class, context);
+	}
+
+	@Benchmark
+	public NumbersRequest mapNumbers() {
+		return requestMapper.map("42 1234567890123 3.14159", NumbersRequest.class, context);
+	}
+
+	@Benchmark
+	public MentionsRequest mapMentions() {
+		return requestMapper.map("<@3000> <@&2000> \"a quoted reason\"", MentionsRequest.class, context);
+	}
+
+	@Data
+	static class EmptyRequest {
+	}
+
+	@Data
+	static class TextRequest {
+
+		@Param(name = "text", ordinal = 0, captureRemaining = true)
+		private String text;
+	}
+
+	@Data
+	static class NumbersRequest {
+
+		@Param(name = "count", ordinal = 0)
+		private Integer count;
+
+		@Param(name = "id", ordinal = 1)
+		private Long id;
+
+		@Param(name = "ratio", ordinal = 2)
+		private Double ratio;
+	}
+
+	@Data
+	static class MentionsRequest {
+
+		@Param(name = "user", ordinal = 0)
+		private IUser user;
+
+		@Param(name = "role", ordinal = 1)
+		private IRole role;
+
+		@Param(name = "reason", ordinal = 2)
+		private String reason;
+	}
+}
@@ -0,0 +1,76 @@
+package net.tonbot.core.request.parsing;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Guice;
+
+import net.tonbot.core.BenchmarkFixtures;
+import net.tonbot.core.request.Context;
+import sx.blah.discord.api.IDiscordClient;
+import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IRole;
+import sx.blah.discord.handle.obj.IUser;
+import sx.blah.discord.handle.obj.Permissions;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LineParserBenchmark {
+
+	private static final String MIXED_LINE = "<@3000> \"a quoted string with spaces\" 42 -17 3.5 <@&2000> trailing words";
+	private static final List<Class<?>> MIXED_TYPES = ImmutableList.of(IUser.class, String.class, Integer.class,
+			Long.class, Double.class, IRole.class, String.class);
+
+	private static final String NUMBERS_LINE = "1 22 333 4444 55555 666666 7777777 88888888";
+	private static final List<Class<?>> NUMBERS_TYPES = ImmutableList.of(Integer.class, Integer.class, Integer.class,
+			Integer.class, Long.class, Long.class, Long.class, Long.class);
+
+	private LineParser lineParser;
+	private Context context;
+
+	@Setup
+	public void setUp() {
+		IRole everyoneRole = BenchmarkFixtures.role(1000L, EnumSet.noneOf(Permissions.class));
+		IRole role = BenchmarkFixtures.role(2000L, EnumSet.noneOf(Permissions.class));
+
+		IDiscordClient[] client = new IDiscordClient[1];
+		IUser user = BenchmarkFixtures.user(3000L, u -> client[0], ImmutableList.of(role));
+		IGuild guild = BenchmarkFixtures.guild(1000L, 1L, everyoneRole, ImmutableList.of(user),
+				ImmutableList.of(everyoneRole, role), ImmutableList.of());
+		client[0] = BenchmarkFixtures.client(ImmutableMap.of(1000L, guild), ImmutableMap.of(3000L, user),
+				ImmutableMap.of(2000L, role));
+
+		this.lineParser = Guice
+				.createInjector(new ParserModule(), binder -> binder.bind(IDiscordClient.class).toInstance(client[0]))
+				.getInstance(LineParser.class);
+		this.context = new Context(guild);
+	}
+
+	@Benchmark
+	public List<Object> parseMixed() {
+		return lineParser.parse(MIXED_LINE, MIXED_TYPES, true, context);
+	}
+
+	@Benchmark
+	public List<Object> parseNumbers() {
+		return lineParser.parse(NUMBERS_LINE, NUMBERS_TYPES, false, context);
+	}
+}
@@ -0,0 +1,99 @@
+package net.tonbot.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A weighted mix of the commands which the load generator sends. A mix is
+ * written as comma separated {@code command=weight} pairs, such as
+ * {@code ping=4,echo=3,unknown=1}.
+ */
+class CommandMix {
+
+	static final String DEFAULT_MIX = "ping=4,echo=3,roll=2,work=1,unknown=1";
+
+	/**
+	 * The command which doesn't match any activity.
+	 */
+	static final String UNKNOWN = "unknown";
+
+	// The arguments of each command, from the point after the prefix.
+	private static final Map<String, String> COMMAND_LINES = ImmutableMap.of(
+			"ping", "ping",
+			"echo", "echo the quick brown fox jumps over the lazy dog",
+			"roll", "roll 20",
+			"work", "work",
+			UNKNOWN, "frobnicate the widgets");
+
+	private final List<String> commands;
+	private final int[] cumulativeWeights;
+
+	/**
+	 * Parses a mix.
+	 * 
+	 * @param mix
+	 *            The mix. Non-null.
+	 * @throws IllegalArgumentException
+	 *             if the mix is malformed, or names an unknown command.
+	 */
+	public CommandMix(String mix) {
+		Preconditions.checkNotNull(mix, "mix must be non-null.");
+
+		this.commands = new ArrayList<>();
+		List<Integer> weights = new ArrayList<>();
+		int totalWeight = 0;
+		for (Map.Entry<String, String> entry : Splitter.on(',').trimResults().omitEmptyStrings()
+				.withKeyValueSeparator('=').split(mix).entrySet()) {
+			Preconditions.checkArgument(COMMAND_LINES.containsKey(entry.getKey()),
+					"Unknown command '%s'. The commands are %s.", entry.getKey(), COMMAND_LINES.keySet());
+			Preconditions.checkArgument(StringUtils.isNumeric(entry.getValue()),
+					"The weight of command '%s' must be a non-negative integer.", entry.getKey());
+
+			int weight = Integer.parseInt(entry.getValue());
+			totalWeight += weight;
+
+			commands.add(entry.getKey());
+			weights.add(totalWeight);
+		}
+		Preconditions.checkArgument(totalWeight > 0, "The mix must have a positive total weight.");
+
+		this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Picks a command at random, according to the weights.
+	 * 
+	 * @param random
+	 *            The source of randomness. Non-null.
+	 * @return The name of the command.
+	 */
+	public String next(Random random) {
+		int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (r < cumulativeWeights[i]) {
+				return commands.get(i);
+			}
+		}
+
+		throw new IllegalStateException("Unreachable.");
+	}
+
+	/**
+	 * Gets the line of a command, without the prefix.
+	 * 
+	 * @param command
+	 *            The name of the command. Non-null.
+	 * @return The command line.
+	 */
+	public String lineOf(String command) {
+		return COMMAND_LINES.get(command);
+	}
+}
@@ -0,0 +1,81 @@
+package net.tonbot.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the end-to-end latency of synthetic commands, from the time that
+ * their messages were meant to be sent until their activities finished.<br/>
+ * 
+ * Send times are kept in a ring indexed by message ID. A command which is still
+ * in flight after more than {@link #RING_SIZE} later messages have been sent
+ * is recorded with a wrong latency, which is far beyond any useful run.
+ */
+class CompletionRecorder {
+
+	private static final int RING_SIZE = 1 << 20;
+	private static final int RING_MASK = RING_SIZE - 1;
+
+	private final AtomicLongArray intendedSendTimes = new AtomicLongArray(RING_SIZE);
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private final LongAdder completedCount = new LongAdder();
+
+	private volatile long firstMeasuredId = Long.MAX_VALUE;
+
+	/**
+	 * Records that a message is about to be sent.
+	 * 
+	 * @param messageId
+	 *            The ID of the message.
+	 * @param intendedSendNanos
+	 *            The {@link System#nanoTime()} at which the message was scheduled
+	 *            to be sent, which may be earlier than when it actually is.
+	 */
+	public void sent(long messageId, long intendedSendNanos) {
+		intendedSendTimes.set((int) (messageId & RING_MASK), intendedSendNanos);
+	}
+
+	/**
+	 * Records that the activity of a message has finished.
+	 * 
+	 * @param messageId
+	 *            The ID of the message.
+	 */
+	public void completed(long messageId) {
+		if (messageId < firstMeasuredId) {
+			return;
+		}
+
+		latencies.record(System.nanoTime() - intendedSendTimes.get((int) (messageId & RING_MASK)));
+		completedCount.increment();
+	}
+
+	/**
+	 * Starts measuring. Commands of messages with smaller IDs, such as the ones
+	 * sent during warmup, are ignored.
+	 * 
+	 * @param firstMeasuredId
+	 *            The ID of the first message to be measured.
+	 */
+	public void startMeasuring(long firstMeasuredId) {
+		this.firstMeasuredId = firstMeasuredId;
+	}
+
+	/**
+	 * Gets the number of measured commands which have finished.
+	 * 
+	 * @return The number of finished commands.
+	 */
+	public long getCompletedCount() {
+		return completedCount.sum();
+	}
+
+	/**
+	 * Gets the end-to-end latencies of the measured commands.
+	 * 
+	 * @return A {@link LatencySnapshot}.
+	 */
+	public LatencySnapshot getLatencies() {
+		return latencies.snapshot();
+	}
+}
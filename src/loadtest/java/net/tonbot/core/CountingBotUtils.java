@@ -0,0 +1,108 @@
+package net.tonbot.core;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+
+import net.tonbot.common.BotUtils;
+import sx.blah.discord.api.internal.json.objects.EmbedObject;
+import sx.blah.discord.handle.obj.IChannel;
+import sx.blah.discord.handle.obj.IMessage;
+
+/**
+ * A {@link BotUtils} which sends nothing, and only counts how often each of
+ * its methods is called.
+ */
+class CountingBotUtils implements BotUtils {
+
+	private final SyntheticDiscord discord;
+	private final Map<String, LongAdder> callCounts = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param discord
+	 *            The {@link SyntheticDiscord} which replies are created in.
+	 *            Non-null.
+	 */
+	public CountingBotUtils(SyntheticDiscord discord) {
+		this.discord = Preconditions.checkNotNull(discord, "discord must be non-null.");
+	}
+
+	/**
+	 * Gets the number of calls of each method so far.
+	 * 
+	 * @return The number of calls, by method name.
+	 */
+	public Map<String, Long> getCallCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		callCounts.forEach((method, count) -> counts.put(method, count.sum()));
+
+		return counts;
+	}
+
+	@Override
+	public void sendMessage(IChannel channel, String message) {
+		count("sendMessage");
+	}
+
+	@Override
+	public void sendMessage(IChannel channel, String message, long duration, TimeUnit timeUnit) {
+		count("sendMessage");
+	}
+
+	@Override
+	public IMessage sendMessageSync(IChannel channel, String message) {
+		count("sendMessageSync");
+		return discord.botMessage(message, channel);
+	}
+
+	@Override
+	public void sendEmbed(IChannel channel, EmbedObject embedObj) {
+		count("sendEmbed");
+	}
+
+	@Override
+	public IMessage sendEmbedSync(IChannel channel, EmbedObject embedObj) {
+		count("sendEmbedSync");
+		return discord.botMessage("", channel);
+	}
+
+	@Override
+	public void sendEmbed(IChannel channel, EmbedObject embedObj, InputStream imageFileStream, String fileName) {
+		count("sendEmbed");
+	}
+
+	@Override
+	public void sendEmbed(IChannel channel, EmbedObject embedObj, long duration, TimeUnit timeUnit) {
+		count("sendEmbed");
+	}
+
+	@Override
+	public IMessage sendEmbedSync(IChannel channel, EmbedObject embedObj, InputStream imageFileStream,
+			String fileName) {
+		count("sendEmbedSync");
+		return discord.botMessage("", channel);
+	}
+
+	@Override
+	public void deleteMessagesQuietly(List<IMessage> messages) {
+		count("deleteMessagesQuietly");
+	}
+
+	@Override
+	public void deleteMessagesQuietly(IMessage... messages) {
+		deleteMessagesQuietly(Arrays.asList(messages));
+	}
+
+	private void count(String method) {
+		callCounts.computeIfAbsent(method, m -> new LongAdder()).increment();
+	}
+}
@@ -0,0 +1,268 @@
+package net.tonbot.core;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+
+import net.tonbot.core.permission.PermissionManager;
+import net.tonbot.core.permission.PermissionPlugin;
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
+import sx.blah.discord.handle.obj.IChannel;
+import sx.blah.discord.handle.obj.IUser;
+
+/**
+ * Replays a {@link CommandJournal} through the {@link EventDispatcher} of a
+ * real Tonbot object graph, without a connection to Discord, at the original
+ * speed or faster. The latencies of each pipeline stage during the replay are
+ * reported next to the latencies which were journaled, so that a new build can
+ * be compared against the one that recorded the journal.<br/>
+ *
+ * With a config directory, the configured plugins are loaded, so that
+ * production traffic matches the same activities. Their calls to Discord are
+ * answered by a {@link SyntheticDiscord}, which may make some of them fail.
+ * Without one, the {@link LoadTestPlugin} is used, which matches the journals
+ * recorded by the {@link LoadGenerator}.
+ */
+public class JournalReplayer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JournalReplayer.class);
+
+	private static final long EXECUTOR_SHUTDOWN_SECONDS = 30;
+	private static final long LOAD_TEST_WORK_MS = 50;
+
+	private final List<Path> journalFiles;
+	private final double speed;
+	private final SyntheticDiscord discord;
+	private final CountingBotUtils botUtils;
+	private final CompletionRecorder recorder;
+	private final Injector injector;
+	private final EventDispatcher eventDispatcher;
+	private final PermissionManager permissionManager;
+
+	private final Set<Long> initializedGuildIds = new HashSet<>();
+	private final Map<PipelineStage, LatencyHistogram> journaledLatencies = new EnumMap<>(PipelineStage.class);
+	private final Map<String, Long> journaledOutcomes = new TreeMap<>();
+	private long dispatchErrors = 0;
+
+	public static void main(String[] args) {
+		CommandLine cmd = parseCommandLineArgs(args);
+
+		Path workDir;
+		try {
+			workDir = Files.createTempDirectory("tonbot-replay");
+			Files.createDirectories(workDir.resolve("plugins").resolve(PermissionPlugin.class.getName()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to create the working directory.", e);
+		}
+
+		Config config = cmd.hasOption("configDir") ? new ConfigManager(cmd.getOptionValue("configDir")).readConfig()
+				: null;
+		LoggingConfig loggingConfig = config != null ? config.getLogging() : LoggingConfig.defaults();
+		LoggerConfigurator.configureLog4j(workDir.resolve("logs"), loggingConfig);
+		System.out.println("Working directory: " + workDir);
+
+		RateLimitConfig rateLimitConfig = cmd.hasOption("noRateLimits")
+				? new RateLimitConfig(false, null, null, null, null, null)
+				: config != null ? config.getRateLimits() : RateLimitConfig.defaults();
+
+		// The replay itself is never journaled.
+		SyntheticDiscord discord = new SyntheticDiscord(0, 1, 0);
+		CountingBotUtils botUtils = new CountingBotUtils(discord);
+		CompletionRecorder recorder = new CompletionRecorder();
+		recorder.startMeasuring(Long.MIN_VALUE);
+
+		Module tonbotModule;
+		Module overrides;
+		if (config != null) {
+			tonbotModule = new TonbotModule("", config.getPrefix(), config.getPluginNames(),
+					cmd.getOptionValue("configDir"), config.getAliases(), config.getColor(), config.getDispatch(),
+					rateLimitConfig, loggingConfig, JournalConfig.defaults());
+			overrides = new LoadTestModule(discord, botUtils);
+		} else {
+			tonbotModule = new TonbotModule("", LoadGenerator.PREFIX, ImmutableList.of(), workDir.toString(),
+					ImmutableMap.of(), Color.WHITE, DispatchConfig.defaults(), rateLimitConfig, loggingConfig,
+					JournalConfig.defaults());
+			overrides = Modules.combine(new LoadTestModule(discord, botUtils),
+					new LoadTestPluginModule(recorder, LOAD_TEST_WORK_MS));
+		}
+		Injector injector = Guice.createInjector(Modules.override(tonbotModule).with(overrides));
+
+		List<Path> journalFiles;
+		try {
+			Path journal = Paths.get(cmd.getOptionValue("journal"));
+			journalFiles = Files.isDirectory(journal) ? CommandJournal.listFiles(journal) : ImmutableList.of(journal);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to list the journal files.", e);
+		}
+
+		JournalReplayer replayer = new JournalReplayer(journalFiles, Double.parseDouble(cmd.getOptionValue("speed", "1")),
+				discord, botUtils, recorder, injector);
+		try {
+			replayer.run();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read the journal.", e);
+		}
+
+		// Activity and deadline threads may linger.
+		System.exit(0);
+	}
+
+	JournalReplayer(List<Path> journalFiles, double speed, SyntheticDiscord discord, CountingBotUtils botUtils,
+			CompletionRecorder recorder, Injector injector) {
+		this.journalFiles = Preconditions.checkNotNull(journalFiles, "journalFiles must be non-null.");
+		Preconditions.checkArgument(speed >= 0, "speed must be non-negative.");
+		this.speed = speed;
+		this.discord = Preconditions.checkNotNull(discord, "discord must be non-null.");
+		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
+		this.recorder = Preconditions.checkNotNull(recorder, "recorder must be non-null.");
+		this.injector = Preconditions.checkNotNull(injector, "injector must be non-null.");
+
+		this.eventDispatcher = injector.getInstance(EventDispatcher.class);
+		this.permissionManager = injector.getInstance(PermissionManager.class);
+
+		for (PipelineStage stage : PipelineStage.values()) {
+			journaledLatencies.put(stage, new LatencyHistogram());
+		}
+	}
+
+	void run() throws IOException {
+		System.out.printf("Replaying %d journal files at %s.%n", journalFiles.size(),
+				speed == 0 ? "full speed" : speed + "x speed");
+
+		long start = System.nanoTime();
+		long firstTimestamp = Long.MIN_VALUE;
+		long replayed = 0;
+
+		for (Path journalFile : journalFiles) {
+			try (CommandJournalReader reader = new CommandJournalReader(journalFile)) {
+				JournalEntry entry;
+				while ((entry = reader.read()) != null) {
+					if (firstTimestamp == Long.MIN_VALUE) {
+						firstTimestamp = entry.getTimestamp();
+					}
+
+					long intendedSend = start;
+					if (speed > 0) {
+						intendedSend += (long) (TimeUnit.MILLISECONDS.toNanos(entry.getTimestamp() - firstTimestamp)
+								/ speed);
+						long delay = intendedSend - System.nanoTime();
+						if (delay > 0) {
+							LockSupport.parkNanos(delay);
+						}
+					} else {
+						intendedSend = System.nanoTime();
+					}
+
+					replay(entry, intendedSend);
+					replayed++;
+				}
+			}
+		}
+
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+		injector.getInstance(ActivityExecutor.class).shutdown(EXECUTOR_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+		injector.getInstance(Key.get(ActivityExecutor.class, CoreActivities.class))
+				.shutdown(EXECUTOR_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+
+		report(replayed, elapsedSeconds);
+	}
+
+	private void replay(JournalEntry entry, long intendedSend) {
+		for (PipelineStage stage : PipelineStage.values()) {
+			long nanos = entry.getStageNanos(stage);
+			if (nanos >= 0) {
+				journaledLatencies.get(stage).record(nanos);
+			}
+		}
+		journaledOutcomes.merge(String.valueOf(entry.getOutcome()), 1L, Long::sum);
+
+		if (entry.getGuildId() != 0 && initializedGuildIds.add(entry.getGuildId())) {
+			permissionManager.initializeForGuild(discord.getGuild(entry.getGuildId()));
+		}
+
+		IChannel channel = discord.getChannel(entry.getGuildId(), entry.getChannelId());
+		IUser author = discord.getUser(entry.getUserId());
+		MessageReceivedEvent event = new MessageReceivedEvent(
+				discord.message(entry.getMessageId(), entry.getContent(), author, channel));
+
+		recorder.sent(entry.getMessageId(), intendedSend);
+		try {
+			eventDispatcher.onMessageReceived(event);
+		} catch (Exception e) {
+			dispatchErrors++;
+			LOG.debug("Dispatcher threw an exception.", e);
+		}
+	}
+
+	private void report(long replayed, double elapsedSeconds) {
+		System.out.println();
+		System.out.printf("Replayed:   %d commands in %.1f s (%.1f/s).%n", replayed, elapsedSeconds,
+				replayed / elapsedSeconds);
+		System.out.printf("Errors:     %d thrown by the dispatcher.%n", dispatchErrors);
+		System.out.println("Journaled outcomes: " + journaledOutcomes);
+
+		System.out.println();
+		System.out.println("Latency (ms)                count        p50        p99      p99.9        max");
+		Map<String, LatencySnapshot> replayedLatencies = injector.getInstance(PipelineMetrics.class)
+				.getStageLatencies();
+		for (PipelineStage stage : PipelineStage.values()) {
+			LoadGenerator.printLatency(stage + " journaled", journaledLatencies.get(stage).snapshot());
+			LoadGenerator.printLatency(stage + " replayed", replayedLatencies.get(stage.name()));
+		}
+		if (recorder.getCompletedCount() > 0) {
+			LoadGenerator.printLatency("End to end replayed", recorder.getLatencies());
+		}
+
+		System.out.println();
+		System.out.println("BotUtils calls: " + botUtils.getCallCounts());
+	}
+
+	private static CommandLine parseCommandLineArgs(String[] args) {
+		Options options = new Options();
+		options.addOption(Option.builder().longOpt("journal").hasArg().required()
+				.desc("a journal file, or a directory of journal files").build());
+		options.addOption(Option.builder().longOpt("speed").hasArg()
+				.desc("how many times faster than recorded to replay, or 0 for as fast as possible (default 1)")
+				.build());
+		options.addOption(Option.builder().longOpt("configDir").hasArg()
+				.desc("load the plugins and settings of this config directory").build());
+		options.addOption(Option.builder().longOpt("noRateLimits").desc("disable the rate limits").build());
+
+		try {
+			return new DefaultParser().parse(options, args);
+		} catch (ParseException e) {
+			new HelpFormatter().printHelp("gradlew replay -PreplayArgs=\"...\"", options);
+			throw new IllegalArgumentException("Could not parse command line arguments.", e);
+		}
+	}
+}
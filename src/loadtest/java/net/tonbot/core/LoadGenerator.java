@@ -0,0 +1,349 @@
+package net.tonbot.core;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.util.Modules;
+
+import net.tonbot.common.Activity;
+import net.tonbot.core.permission.PermissionManager;
+import net.tonbot.core.permission.PermissionPlugin;
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
+import sx.blah.discord.handle.obj.IChannel;
+import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IUser;
+
+/**
+ * Drives the {@link EventDispatcher} of a real Tonbot object graph with
+ * synthetic traffic, without a connection to Discord, and reports the
+ * sustained throughput, latencies, rejections and outbound {@code BotUtils}
+ * calls.<br/>
+ * 
+ * Messages are sent on an open-loop schedule at the target rate. Latencies are
+ * measured from when a message was scheduled to be sent, so a dispatcher which
+ * falls behind shows up in the latencies rather than in a lower send rate.
+ */
+public class LoadGenerator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+
+	static final String PREFIX = "t,";
+	private static final String CHAT_LINE = "has anyone seen the new trailer? it looks pretty good";
+	private static final long DRAIN_POLL_MS = 200;
+	private static final long EXECUTOR_SHUTDOWN_SECONDS = 10;
+
+	private final LoadProfile profile;
+	private final SyntheticDiscord discord;
+	private final CommandMix commandMix;
+	private final CountingBotUtils botUtils;
+	private final CompletionRecorder recorder;
+	private final Injector injector;
+	private final EventDispatcher eventDispatcher;
+	private final ActivityGuard activityGuard;
+	private final Set<Activity> activities;
+
+	private final AtomicLong nextMessageId = new AtomicLong(1);
+	private volatile long firstMeasuredId = Long.MAX_VALUE;
+
+	private final LongAdder commandsSent = new LongAdder();
+	private final LongAdder unknownCommandsSent = new LongAdder();
+	private final LongAdder chatSent = new LongAdder();
+	private final LongAdder dispatchErrors = new LongAdder();
+	private final LatencyHistogram dispatchLatencies = new LatencyHistogram();
+
+	public static void main(String[] args) {
+		LoadProfile profile = parseCommandLineArgs(args);
+
+		Path workDir;
+		try {
+			workDir = Files.createTempDirectory("tonbot-loadtest");
+			Files.createDirectories(workDir.resolve("plugins").resolve(PermissionPlugin.class.getName()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to create the working directory.", e);
+		}
+
+		LoggerConfigurator.configureLog4j(workDir.resolve("logs"), profile.getLogging());
+		System.out.println("Working directory: " + workDir);
+
+		LoadGenerator loadGenerator = new LoadGenerator(profile, workDir);
+		loadGenerator.run();
+
+		// Activity and deadline threads may linger.
+		System.exit(0);
+	}
+
+	LoadGenerator(LoadProfile profile, Path workDir) {
+		this.profile = profile;
+		this.discord = new SyntheticDiscord(profile.getGuilds(), profile.getChannelsPerGuild(), profile.getUsers());
+		this.commandMix = new CommandMix(profile.getCommandMix());
+		this.botUtils = new CountingBotUtils(discord);
+		this.recorder = new CompletionRecorder();
+
+		TonbotModule tonbotModule = new TonbotModule("", PREFIX, ImmutableList.of(), workDir.toString(),
+				ImmutableMap.of(), Color.WHITE, profile.getDispatch(), profile.getRateLimits(), profile.getLogging(),
+				profile.getJournal());
+		this.injector = Guice.createInjector(Modules.override(tonbotModule).with(new LoadTestModule(discord, botUtils),
+				new LoadTestPluginModule(recorder, profile.getWorkMs())));
+
+		this.eventDispatcher = injector.getInstance(EventDispatcher.class);
+		this.activityGuard = injector.getInstance(ActivityGuard.class);
+		this.activities = injector.getInstance(Key.get(new TypeLiteral<Set<Activity>>() {
+		}));
+
+		PermissionManager permissionManager = injector.getInstance(PermissionManager.class);
+		discord.getGuilds().forEach(permissionManager::initializeForGuild);
+	}
+
+	void run() {
+		System.out.printf("Sending %.0f messages/s (%.0f%% commands) from %d users in %d guilds for %d s, after %d s of warmup.%n",
+				profile.getRate(), profile.getCommandRatio() * 100, profile.getUsers(), profile.getGuilds(),
+				profile.getDurationSeconds(), profile.getWarmupSeconds());
+
+		long start = System.nanoTime();
+		long measureStart = start + TimeUnit.SECONDS.toNanos(profile.getWarmupSeconds());
+		long end = measureStart + TimeUnit.SECONDS.toNanos(profile.getDurationSeconds());
+
+		List<Thread> senders = new ArrayList<>();
+		for (int i = 0; i < profile.getSenders(); i++) {
+			Thread sender = new Thread(() -> send(start, end), "Load Generator Sender " + i);
+			sender.setDaemon(true);
+			senders.add(sender);
+			sender.start();
+		}
+
+		// Warm up, then only count what is sent from here on.
+		LockSupport.parkNanos(measureStart - System.nanoTime());
+		this.firstMeasuredId = nextMessageId.get();
+		recorder.startMeasuring(firstMeasuredId);
+		Map<String, Long> warmupBotUtilsCalls = botUtils.getCallCounts();
+		long warmupRejections = getRejectionCount();
+
+		for (Thread sender : senders) {
+			try {
+				sender.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+
+		double measuredSeconds = (System.nanoTime() - measureStart) / 1e9;
+		long completedInWindow = recorder.getCompletedCount();
+
+		drain();
+
+		injector.getInstance(ActivityExecutor.class).shutdown(EXECUTOR_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+		injector.getInstance(Key.get(ActivityExecutor.class, CoreActivities.class))
+				.shutdown(EXECUTOR_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+
+		injector.getInstance(CommandJournal.class).close();
+
+		report(measuredSeconds, completedInWindow, warmupBotUtilsCalls, warmupRejections);
+	}
+
+	/**
+	 * Sends this thread's share of the messages until the end time. Each thread
+	 * keeps its own schedule, and sends late messages right away.
+	 */
+	private void send(long start, long end) {
+		long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) * profile.getSenders() / profile.getRate());
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		// Spread the threads' schedules over one interval.
+		long intendedSend = start + random.nextLong(intervalNanos);
+		while (intendedSend < end) {
+			long delay = intendedSend - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(delay);
+			}
+
+			sendOne(random, intendedSend);
+			intendedSend += intervalNanos;
+		}
+	}
+
+	private void sendOne(ThreadLocalRandom random, long intendedSend) {
+		int guildIndex = random.nextInt(profile.getGuilds());
+		IChannel channel = discord.getChannel(guildIndex, random.nextInt(profile.getChannelsPerGuild()));
+		IUser author = discord.getUser(random.nextInt(profile.getUsers()));
+
+		long messageId = nextMessageId.getAndIncrement();
+		boolean measured = messageId >= firstMeasuredId;
+
+		String content;
+		if (random.nextDouble() < profile.getCommandRatio()) {
+			String command = commandMix.next(random);
+			content = PREFIX + commandMix.lineOf(command);
+
+			if (measured) {
+				commandsSent.increment();
+				if (CommandMix.UNKNOWN.equals(command)) {
+					unknownCommandsSent.increment();
+				}
+			}
+		} else {
+			content = CHAT_LINE;
+
+			if (measured) {
+				chatSent.increment();
+			}
+		}
+
+		MessageReceivedEvent event = new MessageReceivedEvent(discord.message(messageId, content, author, channel));
+
+		recorder.sent(messageId, intendedSend);
+		long dispatchStart = System.nanoTime();
+		try {
+			eventDispatcher.onMessageReceived(event);
+		} catch (Exception e) {
+			dispatchErrors.increment();
+			LOG.debug("Dispatcher threw an exception.", e);
+		}
+
+		if (measured) {
+			dispatchLatencies.record(System.nanoTime() - dispatchStart);
+		}
+	}
+
+	/**
+	 * Waits for commands which are still in flight, until no more finish or the
+	 * drain timeout passes.
+	 */
+	private void drain() {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(profile.getDrainSeconds());
+		long completed = -1;
+		while (System.nanoTime() < deadline && completed != recorder.getCompletedCount()) {
+			completed = recorder.getCompletedCount();
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(DRAIN_POLL_MS));
+		}
+	}
+
+	private long getRejectionCount() {
+		return activities.stream().mapToLong(activityGuard::getRejectionCount).sum();
+	}
+
+	private void report(double measuredSeconds, long completedInWindow, Map<String, Long> warmupBotUtilsCalls,
+			long warmupRejections) {
+		long commands = commandsSent.sum();
+		long knownCommands = commands - unknownCommandsSent.sum();
+		long completed = recorder.getCompletedCount();
+		long rejected = getRejectionCount() - warmupRejections;
+
+		System.out.println();
+		System.out.printf("Measured for %.1f s.%n", measuredSeconds);
+		System.out.printf("Sent:       %d messages (%.1f/s): %d commands, of which %d unknown, and %d chat.%n",
+				commands + chatSent.sum(), (commands + chatSent.sum()) / measuredSeconds, commands,
+				unknownCommandsSent.sum(), chatSent.sum());
+		System.out.printf("Completed:  %d commands, %.1f/s sustained while sending.%n", completed,
+				completedInWindow / measuredSeconds);
+		System.out.printf("Rejected:   %d by bulkheads, %d throttled, shed, timed out or failed.%n", rejected,
+				Math.max(0, knownCommands - completed - rejected));
+		System.out.printf("Errors:     %d thrown by the dispatcher.%n", dispatchErrors.sum());
+
+		System.out.println();
+		System.out.println("Latency (ms)                count        p50        p99      p99.9        max");
+		printLatency("End to end", recorder.getLatencies());
+		printLatency("Dispatcher call", dispatchLatencies.snapshot());
+		injector.getInstance(PipelineMetrics.class).getStageLatencies()
+				.forEach((stage, snapshot) -> printLatency("Stage " + stage + " *", snapshot));
+		System.out.println("* Includes warmup.");
+
+		System.out.println();
+		System.out.println("BotUtils calls");
+		long totalCalls = 0;
+		for (Map.Entry<String, Long> entry : botUtils.getCallCounts().entrySet()) {
+			long calls = entry.getValue() - warmupBotUtilsCalls.getOrDefault(entry.getKey(), 0L);
+			totalCalls += calls;
+			System.out.printf("  %-24s %10d %10.1f/s%n", entry.getKey(), calls, calls / measuredSeconds);
+		}
+		System.out.printf("  %-24s %10d %10.1f/s%n", "Total", totalCalls, totalCalls / measuredSeconds);
+	}
+
+	static void printLatency(String name, LatencySnapshot snapshot) {
+		System.out.printf("  %-24s %10d %10.3f %10.3f %10.3f %10.3f%n", name, snapshot.getCount(),
+				snapshot.getP50Nanos() / 1e6, snapshot.getP99Nanos() / 1e6, snapshot.getP999Nanos() / 1e6,
+				snapshot.getMaxNanos() / 1e6);
+	}
+
+	private static LoadProfile parseCommandLineArgs(String[] args) {
+		Options options = new Options();
+		options.addOption(Option.builder().longOpt("rate").hasArg().desc("messages per second (default 500)").build());
+		options.addOption(Option.builder().longOpt("duration").hasArg().desc("seconds to measure for (default 60)").build());
+		options.addOption(Option.builder().longOpt("warmup").hasArg().desc("seconds to warm up for (default 10)").build());
+		options.addOption(Option.builder().longOpt("drain").hasArg()
+				.desc("seconds to wait for in-flight commands afterwards (default 10)").build());
+		options.addOption(Option.builder().longOpt("guilds").hasArg().desc("number of guilds (default 100)").build());
+		options.addOption(Option.builder().longOpt("channels").hasArg().desc("channels per guild (default 5)").build());
+		options.addOption(Option.builder().longOpt("users").hasArg().desc("number of users (default 10000)").build());
+		options.addOption(Option.builder().longOpt("commandRatio").hasArg()
+				.desc("fraction of messages which are commands (default 0.2)").build());
+		options.addOption(Option.builder().longOpt("mix").hasArg()
+				.desc("weighted command mix (default " + CommandMix.DEFAULT_MIX + ")").build());
+		options.addOption(Option.builder().longOpt("senders").hasArg().desc("sending threads (default 4)").build());
+		options.addOption(Option.builder().longOpt("workMs").hasArg()
+				.desc("milliseconds that the work command waits for (default 50)").build());
+		options.addOption(Option.builder().longOpt("configDir").hasArg()
+				.desc("read the dispatch, rate limit, logging and journal settings from this config directory")
+				.build());
+		options.addOption(Option.builder().longOpt("help").desc("print this message").build());
+
+		CommandLine cmd;
+		try {
+			cmd = new DefaultParser().parse(options, args);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("Could not parse command line arguments.", e);
+		}
+
+		if (cmd.hasOption("help")) {
+			new HelpFormatter().printHelp("gradlew loadtest -PloadtestArgs=\"...\"", options);
+			System.exit(0);
+		}
+
+		Config config = cmd.hasOption("configDir") ? new ConfigManager(cmd.getOptionValue("configDir")).readConfig()
+				: null;
+
+		return new LoadProfile(
+				Double.parseDouble(cmd.getOptionValue("rate", "500")),
+				Integer.parseInt(cmd.getOptionValue("duration", "60")),
+				Integer.parseInt(cmd.getOptionValue("warmup", "10")),
+				Integer.parseInt(cmd.getOptionValue("drain", "10")),
+				Integer.parseInt(cmd.getOptionValue("guilds", "100")),
+				Integer.parseInt(cmd.getOptionValue("channels", "5")),
+				Integer.parseInt(cmd.getOptionValue("users", "10000")),
+				Double.parseDouble(cmd.getOptionValue("commandRatio", "0.2")),
+				cmd.getOptionValue("mix", CommandMix.DEFAULT_MIX),
+				Integer.parseInt(cmd.getOptionValue("senders", "4")),
+				Long.parseLong(cmd.getOptionValue("workMs", "50")),
+				config != null ? config.getDispatch() : DispatchConfig.defaults(),
+				config != null ? config.getRateLimits() : RateLimitConfig.defaults(),
+				config != null ? config.getLogging() : LoggingConfig.defaults(),
+				config != null ? config.getJournal() : JournalConfig.defaults());
+	}
+}
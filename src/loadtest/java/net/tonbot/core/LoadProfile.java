@@ -0,0 +1,98 @@
+package net.tonbot.core;
+
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+
+/**
+ * The settings of a load test run.
+ */
+@Data
+class LoadProfile {
+
+	private final double rate;
+	private final int durationSeconds;
+	private final int warmupSeconds;
+	private final int drainSeconds;
+	private final int guilds;
+	private final int channelsPerGuild;
+	private final int users;
+	private final double commandRatio;
+	private final String commandMix;
+	private final int senders;
+	private final long workMs;
+	private final DispatchConfig dispatch;
+	private final RateLimitConfig rateLimits;
+	private final LoggingConfig logging;
+	private final JournalConfig journal;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param rate
+	 *            The number of messages sent per second. Must be positive.
+	 * @param durationSeconds
+	 *            How long to measure for. Must be positive.
+	 * @param warmupSeconds
+	 *            How long to send messages for before measuring. Must be
+	 *            non-negative.
+	 * @param drainSeconds
+	 *            How long to wait for in-flight commands after sending. Must be
+	 *            non-negative.
+	 * @param guilds
+	 *            The number of guilds. Must be positive.
+	 * @param channelsPerGuild
+	 *            The number of channels in each guild. Must be positive.
+	 * @param users
+	 *            The number of users. Must be positive.
+	 * @param commandRatio
+	 *            The fraction of messages which are commands. Must be between 0
+	 *            and 1.
+	 * @param commandMix
+	 *            The {@link CommandMix} of the commands. Non-null.
+	 * @param senders
+	 *            The number of sending threads. Must be positive.
+	 * @param workMs
+	 *            How long the {@code work} command waits for. Must be
+	 *            non-negative.
+	 * @param dispatch
+	 *            {@link DispatchConfig}. Non-null.
+	 * @param rateLimits
+	 *            {@link RateLimitConfig}. Non-null.
+	 * @param logging
+	 *            {@link LoggingConfig}. Non-null.
+	 * @param journal
+	 *            {@link JournalConfig}. Non-null.
+	 */
+	public LoadProfile(double rate, int durationSeconds, int warmupSeconds, int drainSeconds, int guilds,
+			int channelsPerGuild, int users, double commandRatio, String commandMix, int senders, long workMs,
+			DispatchConfig dispatch, RateLimitConfig rateLimits, LoggingConfig logging,
+			JournalConfig journal) {
+		Preconditions.checkArgument(rate > 0, "rate must be positive.");
+		Preconditions.checkArgument(durationSeconds > 0, "durationSeconds must be positive.");
+		Preconditions.checkArgument(warmupSeconds >= 0, "warmupSeconds must be non-negative.");
+		Preconditions.checkArgument(drainSeconds >= 0, "drainSeconds must be non-negative.");
+		Preconditions.checkArgument(guilds > 0, "guilds must be positive.");
+		Preconditions.checkArgument(channelsPerGuild > 0, "channelsPerGuild must be positive.");
+		Preconditions.checkArgument(users > 0, "users must be positive.");
+		Preconditions.checkArgument(commandRatio >= 0 && commandRatio <= 1, "commandRatio must be between 0 and 1.");
+		Preconditions.checkArgument(senders > 0, "senders must be positive.");
+		Preconditions.checkArgument(workMs >= 0, "workMs must be non-negative.");
+
+		this.rate = rate;
+		this.durationSeconds = durationSeconds;
+		this.warmupSeconds = warmupSeconds;
+		this.drainSeconds = drainSeconds;
+		this.guilds = guilds;
+		this.channelsPerGuild = channelsPerGuild;
+		this.users = users;
+		this.commandRatio = commandRatio;
+		this.commandMix = Preconditions.checkNotNull(commandMix, "commandMix must be non-null.");
+		this.senders = senders;
+		this.workMs = workMs;
+		this.dispatch = Preconditions.checkNotNull(dispatch, "dispatch must be non-null.");
+		this.rateLimits = Preconditions.checkNotNull(rateLimits, "rateLimits must be non-null.");
+		this.logging = Preconditions.checkNotNull(logging, "logging must be non-null.");
+		this.journal = Preconditions.checkNotNull(journal, "journal must be non-null.");
+	}
+}
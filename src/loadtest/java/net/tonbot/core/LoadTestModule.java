@@ -0,0 +1,40 @@
+package net.tonbot.core;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.AbstractModule;
+import com.google.inject.Scopes;
+
+import net.tonbot.common.BotUtils;
+import sx.blah.discord.api.IDiscordClient;
+
+/**
+ * Overrides the bindings of {@link TonbotModule} which would talk to Discord,
+ * so that the rest of the graph can be driven offline.
+ */
+class LoadTestModule extends AbstractModule {
+
+	private final SyntheticDiscord discord;
+	private final CountingBotUtils botUtils;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param discord
+	 *            {@link SyntheticDiscord}. Non-null.
+	 * @param botUtils
+	 *            {@link CountingBotUtils}. Non-null.
+	 */
+	public LoadTestModule(SyntheticDiscord discord, CountingBotUtils botUtils) {
+		this.discord = Preconditions.checkNotNull(discord, "discord must be non-null.");
+		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
+	}
+
+	@Override
+	protected void configure() {
+		bind(IDiscordClient.class).toInstance(discord.getClient());
+		bind(BotUtils.class).toInstance(botUtils);
+
+		// So that the load generator sees the same rejection counts as the dispatcher.
+		bind(ActivityGuard.class).in(Scopes.SINGLETON);
+	}
+}
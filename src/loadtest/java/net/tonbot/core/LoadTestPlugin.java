@@ -0,0 +1,195 @@
+package net.tonbot.core;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import lombok.Data;
+import net.tonbot.common.Activity;
+import net.tonbot.common.ActivityDescriptor;
+import net.tonbot.common.BotUtils;
+import net.tonbot.common.Enactable;
+import net.tonbot.common.Param;
+import net.tonbot.common.TonbotPlugin;
+import net.tonbot.common.TonbotPluginArgs;
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
+
+/**
+ * A plugin with a few cheap activities, which reply through {@link BotUtils}
+ * and report their completion to a {@link CompletionRecorder}.
+ */
+class LoadTestPlugin extends TonbotPlugin {
+
+	private final Set<Activity> activities;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param pluginArgs
+	 *            {@link TonbotPluginArgs}. Non-null.
+	 * @param recorder
+	 *            {@link CompletionRecorder}. Non-null.
+	 * @param workMs
+	 *            How long the {@code work} activity waits for, to simulate a
+	 *            call to a remote service. Must be non-negative.
+	 */
+	LoadTestPlugin(TonbotPluginArgs pluginArgs, CompletionRecorder recorder, long workMs) {
+		super(pluginArgs);
+
+		Preconditions.checkNotNull(recorder, "recorder must be non-null.");
+		Preconditions.checkArgument(workMs >= 0, "workMs must be non-negative.");
+
+		BotUtils botUtils = pluginArgs.getBotUtils();
+		this.activities = ImmutableSet.of(new PingActivity(botUtils, recorder), new EchoActivity(botUtils, recorder),
+				new RollActivity(botUtils, recorder), new WorkActivity(botUtils, recorder, workMs));
+	}
+
+	@Override
+	public String getActionDescription() {
+		return "Generate Load";
+	}
+
+	@Override
+	public String getFriendlyName() {
+		return "Load Test";
+	}
+
+	@Override
+	public Set<Activity> getActivities() {
+		return activities;
+	}
+
+	@Override
+	public boolean isHidden() {
+		return true;
+	}
+
+	static class PingActivity implements Activity {
+
+		private static final ActivityDescriptor ACTIVITY_DESCRIPTOR = ActivityDescriptor.builder().route("ping")
+				.description("Replies with pong.").build();
+
+		private final BotUtils botUtils;
+		private final CompletionRecorder recorder;
+
+		PingActivity(BotUtils botUtils, CompletionRecorder recorder) {
+			this.botUtils = botUtils;
+			this.recorder = recorder;
+		}
+
+		@Override
+		public ActivityDescriptor getDescriptor() {
+			return ACTIVITY_DESCRIPTOR;
+		}
+
+		@Enactable
+		public void enact(MessageReceivedEvent event) {
+			botUtils.sendMessage(event.getChannel(), "pong");
+			recorder.completed(event.getMessage().getLongID());
+		}
+	}
+
+	static class EchoActivity implements Activity {
+
+		private static final ActivityDescriptor ACTIVITY_DESCRIPTOR = ActivityDescriptor.builder().route("echo")
+				.parameters(ImmutableList.of("<text>")).description("Repeats the text.").build();
+
+		private final BotUtils botUtils;
+		private final CompletionRecorder recorder;
+
+		EchoActivity(BotUtils botUtils, CompletionRecorder recorder) {
+			this.botUtils = botUtils;
+			this.recorder = recorder;
+		}
+
+		@Override
+		public ActivityDescriptor getDescriptor() {
+			return ACTIVITY_DESCRIPTOR;
+		}
+
+		@Enactable
+		public void enact(MessageReceivedEvent event, EchoRequest request) {
+			botUtils.sendMessage(event.getChannel(), request.getText());
+			recorder.completed(event.getMessage().getLongID());
+		}
+	}
+
+	@Data
+	static class EchoRequest {
+
+		@Param(name = "text", ordinal = 0, description = "The text to repeat.", captureRemaining = true)
+		private String text;
+	}
+
+	static class RollActivity implements Activity {
+
+		private static final ActivityDescriptor ACTIVITY_DESCRIPTOR = ActivityDescriptor.builder().route("roll")
+				.parameters(ImmutableList.of("<sides>")).description("Rolls a die.").build();
+
+		private final BotUtils botUtils;
+		private final CompletionRecorder recorder;
+
+		RollActivity(BotUtils botUtils, CompletionRecorder recorder) {
+			this.botUtils = botUtils;
+			this.recorder = recorder;
+		}
+
+		@Override
+		public ActivityDescriptor getDescriptor() {
+			return ACTIVITY_DESCRIPTOR;
+		}
+
+		@Enactable
+		public void enact(MessageReceivedEvent event, RollRequest request) {
+			int roll = ThreadLocalRandom.current().nextInt(Math.max(1, request.getSides())) + 1;
+			botUtils.sendMessage(event.getChannel(), "You rolled a " + roll + ".");
+			recorder.completed(event.getMessage().getLongID());
+		}
+	}
+
+	@Data
+	static class RollRequest {
+
+		@Param(name = "sides", ordinal = 0, description = "The number of sides of the die.")
+		private Integer sides;
+	}
+
+	static class WorkActivity implements Activity {
+
+		private static final ActivityDescriptor ACTIVITY_DESCRIPTOR = ActivityDescriptor.builder().route("work")
+				.description("Waits, as if for a remote service, and then replies.").build();
+
+		private final BotUtils botUtils;
+		private final CompletionRecorder recorder;
+		private final long workMs;
+
+		WorkActivity(BotUtils botUtils, CompletionRecorder recorder, long workMs) {
+			this.botUtils = botUtils;
+			this.recorder = recorder;
+			this.workMs = workMs;
+		}
+
+		@Override
+		public ActivityDescriptor getDescriptor() {
+			return ACTIVITY_DESCRIPTOR;
+		}
+
+		@Enactable
+		public void enact(MessageReceivedEvent event) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(workMs);
+			} catch (InterruptedException e) {
+				// Interrupted by its deadline, so it never finishes.
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			botUtils.sendMessage(event.getChannel(), "Done.");
+			recorder.completed(event.getMessage().getLongID());
+		}
+	}
+}
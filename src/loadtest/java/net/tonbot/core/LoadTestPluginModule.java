@@ -0,0 +1,61 @@
+package net.tonbot.core;
+
+import java.awt.Color;
+import java.io.File;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+
+import net.tonbot.common.BotUtils;
+import net.tonbot.common.Prefix;
+import net.tonbot.common.TonbotPlugin;
+import net.tonbot.common.TonbotPluginArgs;
+import net.tonbot.core.permission.PermissionPlugin;
+import sx.blah.discord.api.IDiscordClient;
+
+/**
+ * Replaces the configured plugins with the {@link LoadTestPlugin}. The
+ * permission plugin is kept.
+ */
+class LoadTestPluginModule extends AbstractModule {
+
+	private final CompletionRecorder recorder;
+	private final long workMs;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param recorder
+	 *            {@link CompletionRecorder}. Non-null.
+	 * @param workMs
+	 *            How long the {@code work} activity waits for. Must be
+	 *            non-negative.
+	 */
+	public LoadTestPluginModule(CompletionRecorder recorder, long workMs) {
+		this.recorder = Preconditions.checkNotNull(recorder, "recorder must be non-null.");
+		Preconditions.checkArgument(workMs >= 0, "workMs must be non-negative.");
+		this.workMs = workMs;
+	}
+
+	@Override
+	protected void configure() {
+
+	}
+
+	@Provides
+	@Singleton
+	List<TonbotPlugin> plugins(PermissionPlugin permissionPlugin, IDiscordClient discordClient, BotUtils botUtils,
+			@Prefix String prefix, @ConfigDir String configDir, Color color) {
+		File pluginDir = new File(configDir + "/plugins/" + LoadTestPlugin.class.getName());
+
+		TonbotPluginArgs pluginArgs = TonbotPluginArgs.builder().discordClient(discordClient).prefix(prefix)
+				.configFile(new File(pluginDir, "config.json")).pluginDataDir(new File(pluginDir, "data"))
+				.botUtils(botUtils).color(color).build();
+
+		return ImmutableList.of(permissionPlugin, new LoadTestPlugin(pluginArgs, recorder, workMs));
+	}
+}
@@ -0,0 +1,300 @@
+package net.tonbot.core;
+
+import java.lang.reflect.Proxy;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import sx.blah.discord.api.IDiscordClient;
+import sx.blah.discord.handle.obj.IChannel;
+import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IMessage;
+import sx.blah.discord.handle.obj.IRole;
+import sx.blah.discord.handle.obj.IUser;
+import sx.blah.discord.handle.obj.Permissions;
+
+/**
+ * An in-process stand-in for Discord. It starts with a fixed set of guilds,
+ * channels and users, and creates any other guild, channel or user the first
+ * time it is asked for one, such as when a journal is replayed. Every user is
+ * a member of every guild, with only the everyone role, and no user owns a
+ * guild.<br/>
+ *
+ * The Discord4J objects are proxies which only answer the methods that Tonbot
+ * calls while dispatching messages. Any other method throws an
+ * {@link UnsupportedOperationException}.
+ */
+class SyntheticDiscord {
+
+	private static final long OWNER_ID = 1L;
+	private static final long BOT_USER_ID = 2L;
+	private static final long GUILD_ID_BASE = 1_000_000L;
+	private static final long CHANNEL_ID_BASE = 2_000_000L;
+	private static final long USER_ID_BASE = 3_000_000L;
+
+	private final Map<Long, IGuild> guildsById = new ConcurrentHashMap<>();
+	private final Map<Long, IChannel> channelsById = new ConcurrentHashMap<>();
+	private final Map<Long, IRole> rolesById = new ConcurrentHashMap<>();
+	private final Map<Long, IUser> usersById = new ConcurrentHashMap<>();
+
+	private final IUser botUser;
+	private final IDiscordClient client;
+	private final List<IGuild> guilds;
+	private final List<List<IChannel>> channelsByGuild;
+	private final List<IUser> users;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param guildCount
+	 *            The number of guilds to start with. Must be non-negative.
+	 * @param channelsPerGuild
+	 *            The number of text channels in each of those guilds. Must be
+	 *            positive.
+	 * @param userCount
+	 *            The number of users to start with. Must be non-negative.
+	 */
+	public SyntheticDiscord(int guildCount, int channelsPerGuild, int userCount) {
+		Preconditions.checkArgument(guildCount >= 0, "guildCount must be non-negative.");
+		Preconditions.checkArgument(channelsPerGuild > 0, "channelsPerGuild must be positive.");
+		Preconditions.checkArgument(userCount >= 0, "userCount must be non-negative.");
+
+		this.botUser = createUser(BOT_USER_ID, "Tonbot", true);
+		this.client = proxy(IDiscordClient.class, answers -> {
+			answers.put("getGuildByID", args -> guildsById.get(args[0]));
+			answers.put("getChannelByID", args -> channelsById.get(args[0]));
+			answers.put("getRoleByID", args -> rolesById.get(args[0]));
+			answers.put("getUserByID", args -> usersById.get(args[0]));
+			answers.put("getGuilds", args -> ImmutableList.copyOf(guildsById.values()));
+			answers.put("getOurUser", args -> botUser);
+			answers.put("getShardCount", args -> 1);
+		});
+
+		ImmutableList.Builder<IGuild> guildsBuilder = ImmutableList.builder();
+		ImmutableList.Builder<List<IChannel>> channelsBuilder = ImmutableList.builder();
+		for (int g = 0; g < guildCount; g++) {
+			long guildId = GUILD_ID_BASE + g;
+			guildsBuilder.add(getGuild(guildId));
+
+			ImmutableList.Builder<IChannel> guildChannelsBuilder = ImmutableList.builder();
+			for (int c = 0; c < channelsPerGuild; c++) {
+				guildChannelsBuilder.add(getChannel(guildId, CHANNEL_ID_BASE + (long) g * channelsPerGuild + c));
+			}
+			channelsBuilder.add(guildChannelsBuilder.build());
+		}
+		this.guilds = guildsBuilder.build();
+		this.channelsByGuild = channelsBuilder.build();
+
+		ImmutableList.Builder<IUser> usersBuilder = ImmutableList.builder();
+		for (int u = 0; u < userCount; u++) {
+			usersBuilder.add(getUser(USER_ID_BASE + u));
+		}
+		this.users = usersBuilder.build();
+	}
+
+	/**
+	 * Gets the client, which knows about every guild, channel, role and user.
+	 *
+	 * @return The {@link IDiscordClient}.
+	 */
+	public IDiscordClient getClient() {
+		return client;
+	}
+
+	/**
+	 * Gets the guilds that were created upon construction.
+	 *
+	 * @return The guilds.
+	 */
+	public List<IGuild> getGuilds() {
+		return guilds;
+	}
+
+	/**
+	 * Gets one of the channels that were created upon construction.
+	 *
+	 * @param guildIndex
+	 *            The index of the guild.
+	 * @param channelIndex
+	 *            The index of the channel within the guild.
+	 * @return The {@link IChannel}.
+	 */
+	public IChannel getChannel(int guildIndex, int channelIndex) {
+		return channelsByGuild.get(guildIndex).get(channelIndex);
+	}
+
+	/**
+	 * Gets one of the users that were created upon construction.
+	 *
+	 * @param userIndex
+	 *            The index of the user.
+	 * @return The {@link IUser}.
+	 */
+	public IUser getUser(int userIndex) {
+		return users.get(userIndex);
+	}
+
+	/**
+	 * Gets a guild, creating it if it doesn't exist yet.
+	 *
+	 * @param guildId
+	 *            The ID of the guild.
+	 * @return The {@link IGuild}.
+	 */
+	public IGuild getGuild(long guildId) {
+		return guildsById.computeIfAbsent(guildId, this::createGuild);
+	}
+
+	/**
+	 * Gets a channel, creating it if it doesn't exist yet.
+	 *
+	 * @param guildId
+	 *            The ID of the guild of the channel, or 0 for a private channel.
+	 * @param channelId
+	 *            The ID of the channel.
+	 * @return The {@link IChannel}.
+	 */
+	public IChannel getChannel(long guildId, long channelId) {
+		return channelsById.computeIfAbsent(channelId, id -> {
+			IGuild guild = guildId != 0 ? getGuild(guildId) : null;
+			String name = "channel-" + id;
+			return proxy(IChannel.class, answers -> {
+				answers.put("getLongID", args -> id);
+				answers.put("getName", args -> name);
+				answers.put("getGuild", args -> guild);
+				answers.put("isPrivate", args -> guild == null);
+				answers.put("getClient", args -> client);
+			});
+		});
+	}
+
+	/**
+	 * Gets a user, creating it if it doesn't exist yet.
+	 *
+	 * @param userId
+	 *            The ID of the user.
+	 * @return The {@link IUser}.
+	 */
+	public IUser getUser(long userId) {
+		return usersById.computeIfAbsent(userId, id -> createUser(id, "User " + id, false));
+	}
+
+	/**
+	 * Creates a message.
+	 *
+	 * @param id
+	 *            The ID of the message.
+	 * @param content
+	 *            The content. Non-null.
+	 * @param author
+	 *            The author. Non-null.
+	 * @param channel
+	 *            The channel that the message was sent to. Non-null.
+	 * @return The {@link IMessage}.
+	 */
+	public IMessage message(long id, String content, IUser author, IChannel channel) {
+		Preconditions.checkNotNull(content, "content must be non-null.");
+		Preconditions.checkNotNull(author, "author must be non-null.");
+		Preconditions.checkNotNull(channel, "channel must be non-null.");
+
+		return proxy(IMessage.class, answers -> {
+			answers.put("getLongID", args -> id);
+			answers.put("getContent", args -> content);
+			answers.put("getFormattedContent", args -> content);
+			answers.put("getAuthor", args -> author);
+			answers.put("getChannel", args -> channel);
+			answers.put("getGuild", args -> channel.getGuild());
+			answers.put("getClient", args -> client);
+			answers.put("isDeleted", args -> false);
+		});
+	}
+
+	/**
+	 * Creates a message sent by the bot itself, such as a reply.
+	 *
+	 * @param content
+	 *            The content. Non-null.
+	 * @param channel
+	 *            The channel that the message was sent to. Non-null.
+	 * @return The {@link IMessage}.
+	 */
+	public IMessage botMessage(String content, IChannel channel) {
+		return message(0, content, botUser, channel);
+	}
+
+	private IGuild createGuild(long guildId) {
+		IGuild[] guildRef = new IGuild[1];
+
+		// As in Discord, the everyone role has the same ID as its guild.
+		IRole everyoneRole = proxy(IRole.class, answers -> {
+			answers.put("getLongID", args -> guildId);
+			answers.put("getName", args -> "@everyone");
+			answers.put("getPermissions", args -> EnumSet.noneOf(Permissions.class));
+			answers.put("getGuild", args -> guildRef[0]);
+		});
+		rolesById.put(guildId, everyoneRole);
+
+		String name = "Guild " + guildId;
+		guildRef[0] = proxy(IGuild.class, answers -> {
+			answers.put("getLongID", args -> guildId);
+			answers.put("getName", args -> name);
+			answers.put("getOwnerLongID", args -> OWNER_ID);
+			answers.put("getEveryoneRole", args -> everyoneRole);
+			answers.put("getRoleByID", args -> args[0].equals(guildId) ? everyoneRole : null);
+			answers.put("getRoles", args -> ImmutableList.of(everyoneRole));
+			answers.put("getChannels", args -> channelsById.values().stream()
+					.filter(channel -> channel.getGuild() == guildRef[0]).collect(Collectors.toList()));
+			answers.put("getUsers", args -> ImmutableList.copyOf(usersById.values()));
+			answers.put("getClient", args -> client);
+		});
+
+		return guildRef[0];
+	}
+
+	private IUser createUser(long id, String name, boolean bot) {
+		return proxy(IUser.class, answers -> {
+			answers.put("getLongID", args -> id);
+			answers.put("getName", args -> name);
+			answers.put("getDisplayName", args -> name);
+			answers.put("mention", args -> "<@" + id + ">");
+			answers.put("isBot", args -> bot);
+			answers.put("getAvatarURL", args -> "https://cdn.discordapp.com/embed/avatars/0.png");
+			answers.put("getRolesForGuild", args -> ImmutableList.of(((IGuild) args[0]).getEveryoneRole()));
+			answers.put("getClient", args -> client);
+		});
+	}
+
+	private static <T> T proxy(Class<T> type, Consumer<Map<String, Function<Object[], Object>>> answerer) {
+		Map<String, Function<Object[], Object>> answers = new HashMap<>();
+		answerer.accept(answers);
+
+		Object proxy = Proxy.newProxyInstance(SyntheticDiscord.class.getClassLoader(), new Class<?>[] { type },
+				(self, method, args) -> {
+					switch (method.getName()) {
+					case "equals":
+						return self == args[0];
+					case "hashCode":
+						return System.identityHashCode(self);
+					case "toString":
+						return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+					default:
+						Function<Object[], Object> answer = answers.get(method.getName());
+						if (answer == null) {
+							throw new UnsupportedOperationException(
+									type.getSimpleName() + "." + method.getName() + " is not simulated.");
+						}
+						return answer.apply(args);
+					}
+				});
+
+		return type.cast(proxy);
+	}
+}
@@ -0,0 +1,34 @@
+package net.tonbot.core;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs activities away from the Discord event dispatch threads. Activities of
+ * the same channel are run in the order that they were submitted.
+ */
+interface ActivityExecutor {
+
+	/**
+	 * Submits an activity to be run.
+	 *
+	 * @param channelId
+	 *            The ID of the channel where the activity was requested.
+	 * @param activity
+	 *            The activity to run. Non-null.
+	 * @throws RejectedExecutionException
+	 *             if this executor has been shut down.
+	 */
+	void execute(long channelId, Runnable activity);
+
+	/**
+	 * Stops accepting activities and waits a while for running activities to
+	 * finish.
+	 *
+	 * @param timeout
+	 *            The maximum time to wait.
+	 * @param timeUnit
+	 *            The unit of {@code timeout}. Non-null.
+	 */
+	void shutdown(long timeout, TimeUnit timeUnit);
+}
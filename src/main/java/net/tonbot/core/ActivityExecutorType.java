@@ -0,0 +1,28 @@
+package net.tonbot.core;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The kinds of {@link ActivityExecutor}s.
+ */
+enum ActivityExecutorType {
+
+	/**
+	 * Use virtual threads if the runtime supports them. Otherwise, use platform
+	 * threads.
+	 */
+	@JsonProperty("auto")
+	AUTO,
+
+	/**
+	 * Use a fixed number of platform threads.
+	 */
+	@JsonProperty("platform")
+	PLATFORM,
+
+	/**
+	 * Use a virtual thread per activity. Requires Java 21 or later.
+	 */
+	@JsonProperty("virtual")
+	VIRTUAL
+}
@@ -0,0 +1,215 @@
+package net.tonbot.core;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+
+import net.tonbot.common.Activity;
+
+/**
+ * Enforces the concurrency limits (bulkheads) and deadlines of activities, as
+ * configured per activity class. Core activities are never limited, so that
+ * they stay responsive even if a plugin is degraded.
+ */
+class ActivityGuard {
+
+	private static final Permit NO_OP_PERMIT = () -> {
+	};
+
+	private static final Deadline NO_DEADLINE = () -> false;
+
+	private final Map<Activity, Limits> limitsByActivity;
+	private final ScheduledExecutorService deadlineScheduler;
+
+	@Inject
+	public ActivityGuard(Set<Activity> activities, @CoreActivities Set<Activity> coreActivities,
+			DispatchConfig dispatchConfig) {
+		Preconditions.checkNotNull(activities, "activities must be non-null.");
+		Preconditions.checkNotNull(coreActivities, "coreActivities must be non-null.");
+		Preconditions.checkNotNull(dispatchConfig, "dispatchConfig must be non-null.");
+
+		this.limitsByActivity = new IdentityHashMap<>();
+		for (Activity activity : activities) {
+			ActivityLimitConfig limitConfig;
+			if (coreActivities.contains(activity)) {
+				limitConfig = ActivityLimitConfig.unlimited();
+			} else {
+				limitConfig = dispatchConfig.getActivityLimits().getOrDefault(activity.getClass().getName(),
+						dispatchConfig.getDefaultActivityLimit());
+			}
+
+			limitsByActivity.put(activity, new Limits(limitConfig));
+		}
+
+		ThreadFactory tf = new ThreadFactoryBuilder().setNameFormat("Activity Deadline Thread %d").setDaemon(true)
+				.build();
+		this.deadlineScheduler = Executors.newSingleThreadScheduledExecutor(tf);
+	}
+
+	/**
+	 * Tries to reserve a slot in the activity's bulkhead. Does not block.
+	 *
+	 * @param activity
+	 *            {@link Activity}. Non-null.
+	 * @return A {@link Permit} which must be released once the activity has
+	 *         finished, or null if the bulkhead is full.
+	 */
+	public Permit tryAcquire(Activity activity) {
+		Limits limits = getLimits(activity);
+
+		if (limits.semaphore == null) {
+			return NO_OP_PERMIT;
+		}
+
+		if (!limits.semaphore.tryAcquire()) {
+			limits.rejections.increment();
+			return null;
+		}
+
+		return limits.semaphore::release;
+	}
+
+	/**
+	 * Starts the activity's deadline for the current thread. If the deadline
+	 * passes before {@link Deadline#finish()} is called, the current thread is
+	 * interrupted.
+	 *
+	 * @param activity
+	 *            {@link Activity}. Non-null.
+	 * @return The {@link Deadline}.
+	 */
+	public Deadline startDeadline(Activity activity) {
+		Limits limits = getLimits(activity);
+
+		if (limits.timeoutMs == null) {
+			return NO_DEADLINE;
+		}
+
+		ThreadDeadline deadline = new ThreadDeadline(Thread.currentThread(), limits.timeouts);
+		deadline.future = deadlineScheduler.schedule(deadline::expire, limits.timeoutMs, TimeUnit.MILLISECONDS);
+
+		return deadline;
+	}
+
+	/**
+	 * Gets the number of times that the activity was rejected because its bulkhead
+	 * was full.
+	 *
+	 * @param activity
+	 *            {@link Activity}. Non-null.
+	 * @return The number of rejections.
+	 */
+	public long getRejectionCount(Activity activity) {
+		return getLimits(activity).rejections.sum();
+	}
+
+	/**
+	 * Gets the number of times that the activity ran past its deadline.
+	 *
+	 * @param activity
+	 *            {@link Activity}. Non-null.
+	 * @return The number of timeouts.
+	 */
+	public long getTimeoutCount(Activity activity) {
+		return getLimits(activity).timeouts.sum();
+	}
+
+	private Limits getLimits(Activity activity) {
+		Limits limits = limitsByActivity.get(activity);
+		Preconditions.checkArgument(limits != null, "Unknown activity %s", activity);
+
+		return limits;
+	}
+
+	/**
+	 * A reserved slot in a bulkhead.
+	 */
+	@FunctionalInterface
+	interface Permit {
+
+		/**
+		 * Releases the slot. Must be called exactly once.
+		 */
+		void release();
+	}
+
+	/**
+	 * A running deadline.
+	 */
+	@FunctionalInterface
+	interface Deadline {
+
+		/**
+		 * Stops the deadline. Must be called by the thread which started it. Clears
+		 * the interrupt that the deadline may have caused.
+		 *
+		 * @return True if the deadline had passed.
+		 */
+		boolean finish();
+	}
+
+	private static class Limits {
+		private final Semaphore semaphore;
+		private final Long timeoutMs;
+		private final LongAdder rejections = new LongAdder();
+		private final LongAdder timeouts = new LongAdder();
+
+		private Limits(ActivityLimitConfig config) {
+			this.semaphore = config.getMaxConcurrency() != null ? new Semaphore(config.getMaxConcurrency()) : null;
+			this.timeoutMs = config.getTimeoutMs();
+		}
+	}
+
+	private static class ThreadDeadline implements Deadline {
+
+		private final Thread thread;
+		private final LongAdder timeouts;
+		private volatile ScheduledFuture<?> future;
+
+		// Guarded by this
+		private boolean finished;
+		private boolean expired;
+
+		private ThreadDeadline(Thread thread, LongAdder timeouts) {
+			this.thread = thread;
+			this.timeouts = timeouts;
+		}
+
+		private synchronized void expire() {
+			if (!finished) {
+				expired = true;
+				timeouts.increment();
+				thread.interrupt();
+			}
+		}
+
+		@Override
+		public boolean finish() {
+			boolean wasExpired;
+			synchronized (this) {
+				finished = true;
+				wasExpired = expired;
+			}
+
+			future.cancel(false);
+
+			if (wasExpired) {
+				// Don't leave the interrupt behind for whatever runs next on this thread.
+				Thread.interrupted();
+			}
+
+			return wasExpired;
+		}
+	}
+}
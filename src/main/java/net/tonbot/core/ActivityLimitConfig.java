@@ -0,0 +1,48 @@
+package net.tonbot.core;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+
+/**
+ * The limits placed on an activity class.
+ */
+@Data
+class ActivityLimitConfig {
+
+	private static final ActivityLimitConfig UNLIMITED = new ActivityLimitConfig(null, null);
+
+	private final Integer maxConcurrency;
+	private final Long timeoutMs;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxConcurrency
+	 *            The maximum number of invocations of the activity that may run
+	 *            at the same time. If null, there is no limit.
+	 * @param timeoutMs
+	 *            The number of milliseconds an invocation may run for before it is
+	 *            interrupted. If null, there is no limit.
+	 */
+	@JsonCreator
+	public ActivityLimitConfig(@JsonProperty("maxConcurrency") Integer maxConcurrency,
+			@JsonProperty("timeoutMs") Long timeoutMs) {
+		Preconditions.checkArgument(maxConcurrency == null || maxConcurrency > 0, "maxConcurrency must be positive.");
+		Preconditions.checkArgument(timeoutMs == null || timeoutMs > 0, "timeoutMs must be positive.");
+
+		this.maxConcurrency = maxConcurrency;
+		this.timeoutMs = timeoutMs;
+	}
+
+	/**
+	 * Gets an {@link ActivityLimitConfig} without any limits.
+	 *
+	 * @return An {@link ActivityLimitConfig} without any limits.
+	 */
+	public static ActivityLimitConfig unlimited() {
+		return UNLIMITED;
+	}
+}
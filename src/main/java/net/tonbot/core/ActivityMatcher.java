@@ -1,83 +1,73 @@
 package net.tonbot.core;
 
-import java.util.List;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 
 import net.tonbot.common.Activity;
-import net.tonbot.common.ActivityDescriptor;
 import net.tonbot.common.Route;
 
+/**
+ * Matches tokens to activities. The natural routes and the aliases are compiled
+ * into {@link RouteTrie}s once upon construction, so matching costs one trie
+ * step per token.
+ */
 class ActivityMatcher {
 
-	private final Set<Activity> activities;
-	private final Aliases aliases;
+	private final RouteTrie aliasTrie;
+	private final RouteTrie naturalRouteTrie;
 
 	@Inject
 	public ActivityMatcher(Set<Activity> activities, Aliases aliases) {
 		Preconditions.checkNotNull(activities, "activities must be non-null.");
-		this.activities = ImmutableSet.copyOf(activities);
+		Preconditions.checkNotNull(aliases, "aliases must be non-null.");
 
-		this.aliases = Preconditions.checkNotNull(aliases, "aliases must be non-null.");
+		RouteTrie.Builder aliasTrieBuilder = RouteTrie.builder();
+		for (Entry<Route, Activity> aliasEntry : aliases.getAliasMap().entrySet()) {
+			aliasTrieBuilder.add(aliasEntry.getKey(), aliasEntry.getValue());
+		}
+		this.aliasTrie = aliasTrieBuilder.build();
+
+		RouteTrie.Builder naturalRouteTrieBuilder = RouteTrie.builder();
+		for (Activity activity : activities) {
+			naturalRouteTrieBuilder.add(activity.getDescriptor().getRoute(), activity);
+		}
+		this.naturalRouteTrie = naturalRouteTrieBuilder.build();
 	}
 
 	/**
 	 * Tries to find the most appropriate activity to run.
-	 * 
+	 *
 	 * @param tokens
-	 * @return
+	 *            The tokens of the message, not including the prefix. Non-null.
+	 * @return The {@link ActivityMatch} with the longest route prefixing the
+	 *         tokens, if any.
 	 */
-	public Optional<ActivityMatch> matchActivity(List<String> tokens) {
+	public Optional<ActivityMatch> matchActivity(TokenizedMessage tokens) {
 		Preconditions.checkNotNull(tokens, "tokens must be non-null.");
 
-		// Find the activity to run. We will first match by the main route.
-		Route preliminaryRoute = Route.from(tokens);
-
 		// Route alias matching takes precedence of natural route matching.
-		ActivityMatch matchedActivity = findBestActivityByRouteAlias(preliminaryRoute);
+		Optional<ActivityMatch> match = aliasTrie.findLongestPrefix(tokens);
 
-		if (matchedActivity == null) {
+		if (!match.isPresent()) {
 			// Since no activity was matched, we'll fall back matching via the natural
 			// routes.
-			matchedActivity = findBestActivityByNaturalRoute(preliminaryRoute);
-		}
-
-		return Optional.ofNullable(matchedActivity);
-	}
-
-	private ActivityMatch findBestActivityByRouteAlias(Route preliminaryRoute) {
-		ActivityMatch match = null;
-
-		for (Activity activity : aliases.getKnownActivities()) {
-			List<Route> aliasesOfActivity = aliases.getAliasesOf(activity);
-			for (Route alias : aliasesOfActivity) {
-				if (preliminaryRoute.isPrefixedBy(alias)
-						&& (match == null || match.getMatchedRoute().getPath().size() < alias.getPath().size())) {
-					match = new ActivityMatch(activity, alias);
-				}
-			}
+			match = naturalRouteTrie.findLongestPrefix(tokens);
 		}
 
 		return match;
 	}
 
-	private ActivityMatch findBestActivityByNaturalRoute(Route preliminaryRoute) {
-		ActivityMatch matchedActivity = null;
-
-		for (Activity activity : activities) {
-			ActivityDescriptor descriptor = activity.getDescriptor();
-
-			Route route = descriptor.getRoute();
-			if (preliminaryRoute.isPrefixedBy(route) && (matchedActivity == null
-					|| matchedActivity.getMatchedRoute().getPath().size() < route.getPath().size())) {
-				matchedActivity = new ActivityMatch(activity, route);
-			}
-		}
-
-		return matchedActivity;
+	/**
+	 * Gets the number of tokens in the longest route or alias. Tokens beyond this
+	 * number never affect the match.
+	 *
+	 * @return The number of tokens in the longest route or alias.
+	 */
+	public int getMaxRouteLength() {
+		return Math.max(aliasTrie.getMaxDepth(), naturalRouteTrie.getMaxDepth());
 	}
 }
@@ -0,0 +1,151 @@
+package net.tonbot.core;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.inject.Inject;
+
+/**
+ * Decides whether a command may proceed, based on token buckets of its author
+ * and of its guild. This is meant to run before any other work is done for the
+ * command, so that spam and raids are shed as cheaply as possible.
+ */
+class AdmissionController {
+
+	private static final int STRIPES = 64;
+
+	private final boolean enabled;
+	private final TokenBucketLimiter userLimiter;
+	private final TokenBucketLimiter guildLimiter;
+	private final TokenBucketLimiter noticeLimiter;
+	private final TokenBucketLimiter busyNoticeLimiter;
+	private final TokenBucketLimiter suggestionLimiter;
+
+	@Inject
+	public AdmissionController(RateLimitConfig rateLimitConfig) {
+		this(rateLimitConfig, Ticker.systemTicker());
+	}
+
+	AdmissionController(RateLimitConfig rateLimitConfig, Ticker ticker) {
+		Preconditions.checkNotNull(rateLimitConfig, "rateLimitConfig must be non-null.");
+		Preconditions.checkNotNull(ticker, "ticker must be non-null.");
+
+		this.enabled = rateLimitConfig.isEnabled();
+
+		long idleEvictionMs = rateLimitConfig.getIdleEvictionMs();
+		this.userLimiter = createLimiter(rateLimitConfig.getUserBucket(), idleEvictionMs, ticker);
+		this.guildLimiter = createLimiter(rateLimitConfig.getGuildBucket(), idleEvictionMs, ticker);
+
+		long noticeIntervalMs = rateLimitConfig.getNoticeIntervalMs();
+		this.noticeLimiter = noticeIntervalMs > 0 ? new TokenBucketLimiter(1,
+				(double) TimeUnit.SECONDS.toMillis(1) / noticeIntervalMs, Math.max(noticeIntervalMs, idleEvictionMs),
+				TimeUnit.MILLISECONDS, STRIPES, ticker) : null;
+		this.busyNoticeLimiter = noticeIntervalMs > 0 ? new TokenBucketLimiter(1,
+				(double) TimeUnit.SECONDS.toMillis(1) / noticeIntervalMs, Math.max(noticeIntervalMs, idleEvictionMs),
+				TimeUnit.MILLISECONDS, STRIPES, ticker) : null;
+
+		long suggestionIntervalMs = rateLimitConfig.getSuggestionIntervalMs();
+		this.suggestionLimiter = suggestionIntervalMs > 0 ? new TokenBucketLimiter(1,
+				(double) TimeUnit.SECONDS.toMillis(1) / suggestionIntervalMs,
+				Math.max(suggestionIntervalMs, idleEvictionMs), TimeUnit.MILLISECONDS, STRIPES, ticker) : null;
+	}
+
+	/**
+	 * Takes a token from the buckets of the user and guild of a command. Tokens
+	 * are only taken if both buckets have one, so that users whose commands are
+	 * rejected because their guild is busy don't also use up their own buckets.
+	 *
+	 * @param userId
+	 *            The ID of the command's author.
+	 * @param guildId
+	 *            The ID of the command's guild, or 0 if it wasn't sent in a guild.
+	 * @return The {@link Admission}. Non-null.
+	 */
+	public Admission admit(long userId, long guildId) {
+		if (!enabled) {
+			return Admission.ADMITTED;
+		}
+
+		if (guildId == 0 || guildLimiter.canAcquire(guildId)) {
+			if (userLimiter.tryAcquire(userId)) {
+				if (guildId == 0 || guildLimiter.tryAcquire(guildId)) {
+					return Admission.ADMITTED;
+				}
+
+				// Another command took the guild's last token in the meantime.
+				userLimiter.release(userId);
+			}
+		}
+
+		if (noticeLimiter != null && noticeLimiter.tryAcquire(userId)) {
+			return Admission.THROTTLED_WITH_NOTICE;
+		}
+
+		return Admission.THROTTLED;
+	}
+
+	/**
+	 * Takes a token from the busy notice bucket of a channel. Like suggestions,
+	 * this limit applies even if rate limiting is disabled, so that an overloaded
+	 * activity doesn't also flood the channel, and Discord, with notices.
+	 *
+	 * @param channelId
+	 *            The ID of the channel that the notice would be sent to.
+	 * @return True if a notice that an activity is busy may be sent.
+	 */
+	public boolean admitBusyNotice(long channelId) {
+		return busyNoticeLimiter != null && busyNoticeLimiter.tryAcquire(channelId);
+	}
+
+	/**
+	 * Checks whether a suggestion could be sent to a channel, without taking a
+	 * token from its bucket. This lets the work of finding suggestions be skipped
+	 * when they would be suppressed anyway.
+	 *
+	 * @param channelId
+	 *            The ID of the channel that the suggestion would be sent to.
+	 * @return True if a suggestion may be sent.
+	 */
+	public boolean canSuggest(long channelId) {
+		return suggestionLimiter != null && suggestionLimiter.canAcquire(channelId);
+	}
+
+	/**
+	 * Takes a token from the suggestion bucket of a channel. Unlike the limits on
+	 * commands, this limit applies even if rate limiting is disabled, since it
+	 * only guards the channel against noise.
+	 *
+	 * @param channelId
+	 *            The ID of the channel that the suggestion would be sent to.
+	 * @return True if a suggestion may be sent.
+	 */
+	public boolean admitSuggestion(long channelId) {
+		return suggestionLimiter != null && suggestionLimiter.tryAcquire(channelId);
+	}
+
+	private static TokenBucketLimiter createLimiter(TokenBucketConfig bucketConfig, long idleEvictionMs,
+			Ticker ticker) {
+		return new TokenBucketLimiter(bucketConfig.getCapacity(), bucketConfig.getRefillPerSecond(), idleEvictionMs,
+				TimeUnit.MILLISECONDS, STRIPES, ticker);
+	}
+
+	enum Admission {
+
+		/**
+		 * The command may proceed.
+		 */
+		ADMITTED,
+
+		/**
+		 * The command must be dropped silently.
+		 */
+		THROTTLED,
+
+		/**
+		 * The command must be dropped, and the user should be told that they are
+		 * being rate limited.
+		 */
+		THROTTLED_WITH_NOTICE
+	}
+}
@@ -1,6 +1,7 @@
 package net.tonbot.core;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -29,4 +30,12 @@ interface Aliases {
 	 * @return The {@link Activity} which the given alias links to.
 	 */
 	Optional<Activity> getActivityAliasedBy(Route alias);
+
+	/**
+	 * Gets an immutable map of every alias to the {@link Activity} that it links
+	 * to.
+	 * 
+	 * @return A map of aliases to activities.
+	 */
+	Map<Route, Activity> getAliasMap();
 }
@@ -11,6 +11,7 @@ import java.util.Set;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 
 import lombok.Getter;
@@ -66,6 +67,11 @@ class AliasesImpl implements Aliases {
 		return Optional.ofNullable(activity);
 	}
 
+	@Override
+	public Map<Route, Activity> getAliasMap() {
+		return ImmutableMap.copyOf(aliasToActivityMap);
+	}
+
 	private Map<Route, Activity> createAliasToActivityMap(Map<String, String> aliasRouteToCanonicalRouteMap,
 			Collection<Activity> activities) {
 		Map<Route, Activity> aliasToActivityMap = new HashMap<>();
@@ -50,22 +50,21 @@ class BotUtilsImpl implements BotUtils {
 		Preconditions.checkNotNull(channel, "channel must be non-null.");
 		Preconditions.checkNotNull(message, "message must be non-null.");
 
-		new RequestBuilder(discordClient)
-			.shouldBufferRequests(true)
-			.setAsync(true)
-			.doAction(() -> {
-				channel.sendMessage(message);
-				return true;
-			})
-			.execute();
+		if (ReplyBatch.offer(channel, message)) {
+			return;
+		}
+
+		sendNow(channel, message);
 	}
-	
+
 	@Override
 	public void sendMessage(IChannel channel, String message, long delay, TimeUnit timeUnit) {
 		Preconditions.checkNotNull(channel, "channel must be non-null.");
 		Preconditions.checkNotNull(message, "message must be non-null.");
 		Preconditions.checkNotNull(timeUnit, "timeUnit must be non-null.");
 		
+		sendBatchedReplies(channel);
+
 		new RequestBuilder(discordClient)
 			.shouldBufferRequests(true)
 			.setAsync(true)
@@ -86,6 +85,8 @@ class BotUtilsImpl implements BotUtils {
 		Preconditions.checkNotNull(channel, "channel must be non-null.");
 		Preconditions.checkNotNull(message, "message must be non-null.");
 
+		sendBatchedReplies(channel);
+
 		Future<IMessage> sentMessage = RequestBuffer.request(() -> {
 			return channel.sendMessage(message);
 		});
@@ -102,6 +103,8 @@ class BotUtilsImpl implements BotUtils {
 		Preconditions.checkNotNull(channel, "channel must be non-null.");
 		Preconditions.checkNotNull(embedObj, "embedObj must be non-null.");
 
+		sendBatchedReplies(channel);
+
 		new RequestBuilder(discordClient)
 			.shouldBufferRequests(true)
 			.setAsync(true)
@@ -116,6 +119,8 @@ class BotUtilsImpl implements BotUtils {
 		Preconditions.checkNotNull(channel, "channel must be non-null.");
 		Preconditions.checkNotNull(embedObj, "embedObj must be non-null.");
 		
+		sendBatchedReplies(channel);
+
 		Future<IMessage> sentMessage = RequestBuffer.request(() -> {
 			return channel.sendMessage(embedObj);
 		});
@@ -134,6 +139,8 @@ class BotUtilsImpl implements BotUtils {
 		Preconditions.checkNotNull(imageFileStream, "imageFileStream must be non-null.");
 		Preconditions.checkNotNull(fileName, "fileName must be non-null.");
 
+		sendBatchedReplies(channel);
+
 		new RequestBuilder(discordClient)
 			.shouldBufferRequests(true)
 			.setAsync(true)
@@ -149,6 +156,8 @@ class BotUtilsImpl implements BotUtils {
 		Preconditions.checkNotNull(embedObj, "embedObj must be non-null.");
 		Preconditions.checkNotNull(timeUnit, "timeUnit must be non-null.");
 
+		sendBatchedReplies(channel);
+
 		new RequestBuilder(discordClient)
 			.shouldBufferRequests(true)
 			.setAsync(true)
@@ -171,6 +180,8 @@ class BotUtilsImpl implements BotUtils {
 		Preconditions.checkNotNull(imageFileStream, "imageFileStream must be non-null.");
 		Preconditions.checkNotNull(fileName, "fileName must be non-null.");
 
+		sendBatchedReplies(channel);
+
 		Future<IMessage> sentMessage = RequestBuffer.request(() -> {
 			return channel.sendFile(embedObj, imageFileStream, fileName);
 		});
@@ -225,4 +236,25 @@ class BotUtilsImpl implements BotUtils {
 		List<IMessage> messages = Arrays.asList(message);
 		deleteMessagesQuietly(messages);
 	}
+
+	/**
+	 * Sends the replies which are being batched for a channel on the current
+	 * thread, so that a message which can't be batched doesn't overtake them.
+	 */
+	private void sendBatchedReplies(IChannel channel) {
+		for (String reply : ReplyBatch.drain(channel)) {
+			sendNow(channel, reply);
+		}
+	}
+
+	private void sendNow(IChannel channel, String message) {
+		new RequestBuilder(discordClient)
+			.shouldBufferRequests(true)
+			.setAsync(true)
+			.doAction(() -> {
+				channel.sendMessage(message);
+				return true;
+			})
+			.execute();
+	}
 }
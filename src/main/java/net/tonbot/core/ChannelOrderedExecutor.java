@@ -0,0 +1,156 @@
+package net.tonbot.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Runs tasks on a shared pool of workers while keeping the tasks of each
+ * channel in order. Channels are hashed onto a fixed number of stripes. Each
+ * stripe runs its tasks one at a time in submission order, while different
+ * stripes run in parallel.
+ */
+class ChannelOrderedExecutor {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ChannelOrderedExecutor.class);
+
+	// The maximum number of tasks a stripe runs before yielding its worker to
+	// other stripes.
+	private static final int MAX_TASKS_PER_TURN = 16;
+
+	private final ExecutorService workers;
+	private final Stripe[] stripes;
+	private final int stripeMask;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param workers
+	 *            The pool of workers which run the tasks. This executor takes
+	 *            ownership of it. Non-null.
+	 * @param stripeCount
+	 *            The number of stripes. Must be a positive power of two.
+	 */
+	public ChannelOrderedExecutor(ExecutorService workers, int stripeCount) {
+		this.workers = Preconditions.checkNotNull(workers, "workers must be non-null.");
+		Preconditions.checkArgument(stripeCount > 0 && Integer.bitCount(stripeCount) == 1,
+				"stripeCount must be a positive power of two.");
+
+		this.stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe();
+		}
+		this.stripeMask = stripeCount - 1;
+	}
+
+	/**
+	 * Submits a task. It will run after every task previously submitted for the
+	 * same channel has finished.
+	 *
+	 * @param channelId
+	 *            The ID of the channel.
+	 * @param task
+	 *            The task. Non-null.
+	 * @throws RejectedExecutionException
+	 *             if this executor has been shut down.
+	 */
+	public void execute(long channelId, Runnable task) {
+		Preconditions.checkNotNull(task, "task must be non-null.");
+
+		if (workers.isShutdown()) {
+			throw new RejectedExecutionException("Executor has been shut down.");
+		}
+
+		stripes[stripeOf(channelId)].submit(task);
+	}
+
+	/**
+	 * Stops accepting tasks and waits a while for running tasks to finish.
+	 *
+	 * @param timeout
+	 *            The maximum time to wait.
+	 * @param timeUnit
+	 *            The unit of {@code timeout}. Non-null.
+	 */
+	public void shutdown(long timeout, TimeUnit timeUnit) {
+		Preconditions.checkNotNull(timeUnit, "timeUnit must be non-null.");
+
+		workers.shutdown();
+		try {
+			if (!workers.awaitTermination(timeout, timeUnit)) {
+				LOG.warn("Activities were still running after waiting {} {}.", timeout, timeUnit);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private int stripeOf(long channelId) {
+		// Snowflake IDs have a timestamp in their upper bits and low entropy in their
+		// lower bits, so mix all of them before masking.
+		long h = channelId * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & stripeMask;
+	}
+
+	private class Stripe implements Runnable {
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+		private void submit(Runnable task) {
+			tasks.add(task);
+			schedule();
+		}
+
+		private void schedule() {
+			if (scheduled.compareAndSet(false, true)) {
+				try {
+					workers.execute(this);
+				} catch (RejectedExecutionException e) {
+					scheduled.set(false);
+					throw e;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < MAX_TASKS_PER_TURN; i++) {
+					Runnable task = tasks.poll();
+					if (task == null) {
+						break;
+					}
+
+					try {
+						task.run();
+					} catch (Exception e) {
+						LOG.error("Uncaught exception while running task.", e);
+					}
+				}
+			} finally {
+				// Errors are left to the worker, but the stripe must not be left marked as
+				// scheduled, or its channels would never run again.
+				scheduled.set(false);
+
+				// A task may have been added after the last poll, but before the stripe was
+				// marked as unscheduled.
+				if (!tasks.isEmpty()) {
+					try {
+						schedule();
+					} catch (RejectedExecutionException e) {
+						LOG.warn("Dropped {} pending tasks because the executor has been shut down.", tasks.size());
+					}
+				}
+			}
+		}
+	}
+}
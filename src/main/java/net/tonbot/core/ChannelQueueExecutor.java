@@ -0,0 +1,138 @@
+package net.tonbot.core;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Runs tasks while keeping the tasks of each channel in order, with a queue per
+ * channel rather than per stripe. A channel's queue exists only while it has
+ * tasks, and it is drained by a single worker task which removes it once it is
+ * empty.
+ * Channels never wait on each other, so the number of channels whose tasks run
+ * at the same time is only bounded by the pool of workers. This is meant for
+ * workers which are cheap to start and to block, such as virtual threads.
+ */
+class ChannelQueueExecutor {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ChannelQueueExecutor.class);
+
+	private final ExecutorService workers;
+
+	// Each queue is only accessed within a compute of its own channel's entry.
+	private final Map<Long, ArrayDeque<Runnable>> queues = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param workers
+	 *            The pool of workers which drain the queues. This executor takes
+	 *            ownership of it. Non-null.
+	 */
+	public ChannelQueueExecutor(ExecutorService workers) {
+		this.workers = Preconditions.checkNotNull(workers, "workers must be non-null.");
+	}
+
+	/**
+	 * Submits a task. It will run after every task previously submitted for the
+	 * same channel has finished.
+	 *
+	 * @param channelId
+	 *            The ID of the channel.
+	 * @param task
+	 *            The task. Non-null.
+	 * @throws RejectedExecutionException
+	 *             if this executor has been shut down.
+	 */
+	public void execute(long channelId, Runnable task) {
+		Preconditions.checkNotNull(task, "task must be non-null.");
+
+		if (workers.isShutdown()) {
+			throw new RejectedExecutionException("Executor has been shut down.");
+		}
+
+		boolean[] created = new boolean[1];
+		ArrayDeque<Runnable> queue = queues.compute(channelId, (id, q) -> {
+			if (q == null) {
+				q = new ArrayDeque<>();
+				created[0] = true;
+			}
+			q.addLast(task);
+			return q;
+		});
+
+		if (created[0]) {
+			try {
+				workers.execute(() -> drain(channelId));
+			} catch (RejectedExecutionException e) {
+				queues.remove(channelId, queue);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting tasks and waits a while for running tasks to finish.
+	 *
+	 * @param timeout
+	 *            The maximum time to wait.
+	 * @param timeUnit
+	 *            The unit of {@code timeout}. Non-null.
+	 */
+	public void shutdown(long timeout, TimeUnit timeUnit) {
+		Preconditions.checkNotNull(timeUnit, "timeUnit must be non-null.");
+
+		workers.shutdown();
+		try {
+			if (!workers.awaitTermination(timeout, timeUnit)) {
+				LOG.warn("Activities were still running after waiting {} {}.", timeout, timeUnit);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Gets the number of channels which have tasks that are queued or running.
+	 *
+	 * @return The number of active channels.
+	 */
+	public int getActiveChannelCount() {
+		return queues.size();
+	}
+
+	private void drain(long channelId) {
+		Runnable task;
+		while ((task = next(channelId)) != null) {
+			try {
+				task.run();
+			} catch (Throwable e) {
+				// The queue would never be drained again if this worker died.
+				LOG.error("Uncaught exception while running task.", e);
+			}
+		}
+	}
+
+	/**
+	 * Takes the next task of a channel, removing the channel's queue instead if it
+	 * is empty. The queue stays in place while its last task runs, so that a task
+	 * which is submitted meanwhile is picked up by this worker rather than a new
+	 * one.
+	 */
+	private Runnable next(long channelId) {
+		Runnable[] next = new Runnable[1];
+		queues.compute(channelId, (id, q) -> {
+			next[0] = q.pollFirst();
+			return next[0] != null ? q : null;
+		});
+		return next[0];
+	}
+}
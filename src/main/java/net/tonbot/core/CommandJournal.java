@@ -0,0 +1,343 @@
+package net.tonbot.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * An append-only journal of the commands seen by the {@link EventDispatcher},
+ * which can be read with a {@link CommandJournalReader}.<br/>
+ *
+ * Records are encoded into a buffer and written to the file channel in
+ * batches, either when the buffer is full or when the flush interval passes. A
+ * new file is started when the current one would grow past the maximum size,
+ * and the oldest files are deleted so that at most the configured number of
+ * files are kept. If the journal can't be written, it logs an error and stops
+ * journaling rather than getting in the way of commands.<br/>
+ *
+ * A journal file starts with the magic number {@link #MAGIC} and the format
+ * {@link #VERSION} as an int and a short. It is followed by records, all in
+ * big-endian order:
+ * <ul>
+ * <li>int: the length of the rest of the record</li>
+ * <li>long: the timestamp in milliseconds since the epoch</li>
+ * <li>long: the guild ID, or 0 if there is no guild</li>
+ * <li>long: the channel ID</li>
+ * <li>long: the user ID</li>
+ * <li>long: the message ID</li>
+ * <li>byte: the {@link CommandOutcome} ordinal</li>
+ * <li>byte: the number of stages, followed by the latency of each stage in
+ * {@link PipelineStage} order as a long, in nanoseconds, or -1 if the stage
+ * wasn't reached</li>
+ * <li>short: the length of the matched activity's class name, followed by the
+ * class name in UTF-8. The length is 0 if no activity matched.</li>
+ * <li>int: the length of the content, followed by the content in UTF-8</li>
+ * </ul>
+ */
+class CommandJournal implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CommandJournal.class);
+
+	static final int MAGIC = 0x54424A4C;
+	static final short VERSION = 1;
+
+	private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+	// Includes the length prefix.
+	private static final int FIXED_RECORD_SIZE = Integer.BYTES + 5 * Long.BYTES + 2 * Byte.BYTES + Short.BYTES
+			+ Integer.BYTES;
+	private static final Pattern FILE_NAME_PATTERN = Pattern.compile("commands-(\\d+)\\.journal");
+	private static final byte[] NO_ACTIVITY = new byte[0];
+
+	private final boolean enabled;
+	private final Path directory;
+	private final long maxFileSize;
+	private final int maxFiles;
+	private final ScheduledExecutorService flusher;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// Guarded by lock.
+	private final ByteBuffer buffer;
+	private FileChannel channel;
+	private long fileIndex;
+	private long fileSize;
+	private boolean failed = false;
+
+	/**
+	 * Constructor. If the journal is enabled, a new journal file is started right
+	 * away.
+	 *
+	 * @param directory
+	 *            The directory of the journal files. It is created if it doesn't
+	 *            exist. Non-null.
+	 * @param journalConfig
+	 *            {@link JournalConfig}. Non-null.
+	 * @throws UncheckedIOException
+	 *             if the journal is enabled and its first file couldn't be
+	 *             created.
+	 */
+	public CommandJournal(Path directory, JournalConfig journalConfig) {
+		this.directory = Preconditions.checkNotNull(directory, "directory must be non-null.");
+		Preconditions.checkNotNull(journalConfig, "journalConfig must be non-null.");
+
+		this.enabled = journalConfig.isEnabled();
+		this.maxFileSize = journalConfig.getMaxFileSizeMb() * 1024L * 1024L;
+		this.maxFiles = journalConfig.getMaxFiles();
+
+		if (!enabled) {
+			this.buffer = null;
+			this.flusher = null;
+			return;
+		}
+
+		this.buffer = ByteBuffer.allocate(journalConfig.getBufferSizeKb() * 1024);
+
+		try {
+			Files.createDirectories(directory);
+			List<Path> files = listFiles(directory);
+			this.fileIndex = files.isEmpty() ? 0 : indexOf(files.get(files.size() - 1));
+			openNextFile();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to create the command journal.", e);
+		}
+
+		this.flusher = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactoryBuilder().setNameFormat("Command Journal Flusher").setDaemon(true).build());
+		flusher.scheduleWithFixedDelay(this::flush, journalConfig.getFlushIntervalMs(),
+				journalConfig.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+
+		LOG.info("Journaling commands to {}", directory);
+	}
+
+	/**
+	 * Whether commands should be journaled. Traces don't need to be collected if
+	 * this is false.
+	 *
+	 * @return True if commands should be journaled.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Appends a command to the journal. Does nothing if the journal is disabled
+	 * or has failed.
+	 *
+	 * @param trace
+	 *            The {@link CommandTrace} of the command, with its outcome.
+	 *            Non-null.
+	 */
+	public void append(CommandTrace trace) {
+		Preconditions.checkNotNull(trace, "trace must be non-null.");
+
+		if (!enabled) {
+			return;
+		}
+
+		// Encode the strings before taking the lock.
+		byte[] content = trace.getContent().getBytes(StandardCharsets.UTF_8);
+		byte[] activityName = trace.getActivityName() != null
+				? trace.getActivityName().getBytes(StandardCharsets.UTF_8)
+				: NO_ACTIVITY;
+		long[] stageNanos = trace.getStageNanos();
+		int recordSize = FIXED_RECORD_SIZE + stageNanos.length * Long.BYTES + activityName.length + content.length;
+
+		lock.lock();
+		try {
+			if (failed) {
+				return;
+			}
+
+			if (buffer.remaining() < recordSize) {
+				writeBuffer();
+			}
+
+			// A record which doesn't fit in the buffer at all is written by itself.
+			ByteBuffer target = recordSize <= buffer.capacity() ? buffer : ByteBuffer.allocate(recordSize);
+
+			target.putInt(recordSize - Integer.BYTES);
+			target.putLong(trace.getTimestamp());
+			target.putLong(trace.getGuildId());
+			target.putLong(trace.getChannelId());
+			target.putLong(trace.getUserId());
+			target.putLong(trace.getMessageId());
+			target.put((byte) trace.getOutcome().ordinal());
+			target.put((byte) stageNanos.length);
+			for (long nanos : stageNanos) {
+				target.putLong(nanos);
+			}
+			target.putShort((short) activityName.length);
+			target.put(activityName);
+			target.putInt(content.length);
+			target.put(content);
+
+			if (target != buffer) {
+				target.flip();
+				write(target);
+			}
+		} catch (IOException e) {
+			fail(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the buffered records to the journal file.
+	 */
+	public void flush() {
+		if (!enabled) {
+			return;
+		}
+
+		lock.lock();
+		try {
+			if (!failed) {
+				writeBuffer();
+			}
+		} catch (IOException e) {
+			fail(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the buffered records and closes the journal file. Records appended
+	 * afterwards are dropped.
+	 */
+	@Override
+	public void close() {
+		if (!enabled) {
+			return;
+		}
+
+		flusher.shutdown();
+		flush();
+
+		lock.lock();
+		try {
+			this.failed = true;
+			closeChannel();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Lists the journal files in a directory, from oldest to newest.
+	 *
+	 * @param directory
+	 *            The directory. Non-null.
+	 * @return The journal files.
+	 * @throws IOException
+	 *             if the directory couldn't be listed.
+	 */
+	public static List<Path> listFiles(Path directory) throws IOException {
+		Preconditions.checkNotNull(directory, "directory must be non-null.");
+
+		if (!Files.isDirectory(directory)) {
+			return ImmutableList.of();
+		}
+
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> FILE_NAME_PATTERN.matcher(file.getFileName().toString()).matches())
+					.sorted(Comparator.comparingLong(CommandJournal::indexOf)).collect(Collectors.toList());
+		}
+	}
+
+	private static long indexOf(Path file) {
+		Matcher matcher = FILE_NAME_PATTERN.matcher(file.getFileName().toString());
+		Preconditions.checkArgument(matcher.matches(), "%s is not a journal file.", file);
+		return Long.parseLong(matcher.group(1));
+	}
+
+	private void writeBuffer() throws IOException {
+		if (buffer.position() == 0) {
+			return;
+		}
+
+		buffer.flip();
+		try {
+			write(buffer);
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Writes whole records, starting a new file first if they would make the
+	 * current file too large.
+	 */
+	private void write(ByteBuffer records) throws IOException {
+		if (fileSize > HEADER_SIZE && fileSize + records.remaining() > maxFileSize) {
+			closeChannel();
+			openNextFile();
+		}
+
+		while (records.hasRemaining()) {
+			fileSize += channel.write(records);
+		}
+	}
+
+	private void openNextFile() throws IOException {
+		fileIndex++;
+		Path file = directory.resolve("commands-" + fileIndex + ".journal");
+
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION);
+		header.flip();
+		this.fileSize = 0;
+		while (header.hasRemaining()) {
+			fileSize += channel.write(header);
+		}
+
+		List<Path> files = listFiles(directory);
+		for (int i = 0; i < files.size() - maxFiles; i++) {
+			Files.deleteIfExists(files.get(i));
+		}
+	}
+
+	private void closeChannel() {
+		if (channel == null) {
+			return;
+		}
+
+		try {
+			channel.close();
+		} catch (IOException e) {
+			LOG.warn("Unable to close the command journal file.", e);
+		}
+		this.channel = null;
+	}
+
+	private void fail(IOException e) {
+		LOG.error("Unable to write to the command journal. No more commands will be journaled.", e);
+		this.failed = true;
+		buffer.clear();
+		closeChannel();
+	}
+}
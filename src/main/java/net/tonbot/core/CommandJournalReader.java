@@ -0,0 +1,111 @@
+package net.tonbot.core;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Reads the records of a journal file written by a {@link CommandJournal}.
+ */
+class CommandJournalReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final CommandOutcome[] OUTCOMES = CommandOutcome.values();
+
+	private final Path file;
+	private final DataInputStream in;
+
+	/**
+	 * Opens a journal file.
+	 *
+	 * @param file
+	 *            The journal file. Non-null.
+	 * @throws IOException
+	 *             if the file couldn't be opened, or isn't a journal file of a
+	 *             known version.
+	 */
+	public CommandJournalReader(Path file) throws IOException {
+		this.file = Preconditions.checkNotNull(file, "file must be non-null.");
+		this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+
+		try {
+			int magic = in.readInt();
+			short version = in.readShort();
+			if (magic != CommandJournal.MAGIC || version != CommandJournal.VERSION) {
+				throw new IOException(file + " is not a command journal of version " + CommandJournal.VERSION + ".");
+			}
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the next record.
+	 *
+	 * @return The next {@link JournalEntry}, or null if there are no more. A
+	 *         record which was cut short, such as by a crash while it was being
+	 *         written, counts as the end of the file.
+	 * @throws IOException
+	 *             if the file couldn't be read.
+	 */
+	public JournalEntry read() throws IOException {
+		byte[] record;
+		try {
+			int length = in.readInt();
+			if (length < 0) {
+				throw new IOException("Corrupt record in " + file + ".");
+			}
+
+			record = new byte[length];
+			in.readFully(record);
+		} catch (EOFException e) {
+			return null;
+		}
+
+		ByteBuffer bb = ByteBuffer.wrap(record);
+		long timestamp = bb.getLong();
+		long guildId = bb.getLong();
+		long channelId = bb.getLong();
+		long userId = bb.getLong();
+		long messageId = bb.getLong();
+
+		int outcomeOrdinal = bb.get();
+		CommandOutcome outcome = outcomeOrdinal >= 0 && outcomeOrdinal < OUTCOMES.length ? OUTCOMES[outcomeOrdinal]
+				: null;
+
+		// Stages which didn't exist when the record was written weren't reached.
+		int stageCount = bb.get();
+		long[] stageNanos = new long[Math.max(stageCount, PipelineStage.values().length)];
+		Arrays.fill(stageNanos, -1);
+		for (int i = 0; i < stageCount; i++) {
+			stageNanos[i] = bb.getLong();
+		}
+
+		String activityName = readString(bb, bb.getShort());
+		String content = readString(bb, bb.getInt());
+
+		return new JournalEntry(timestamp, guildId, channelId, userId, messageId, content,
+				activityName.isEmpty() ? null : activityName, outcome, stageNanos);
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private static String readString(ByteBuffer bb, int length) {
+		String s = new String(bb.array(), bb.position(), length, StandardCharsets.UTF_8);
+		bb.position(bb.position() + length);
+		return s;
+	}
+}
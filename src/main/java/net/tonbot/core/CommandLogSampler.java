@@ -0,0 +1,31 @@
+package net.tonbot.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+
+/**
+ * Picks which commands have their details logged, so that busy bots don't
+ * spend their time writing a log record for every single command.
+ */
+class CommandLogSampler {
+
+	private final int sampling;
+
+	@Inject
+	public CommandLogSampler(LoggingConfig loggingConfig) {
+		Preconditions.checkNotNull(loggingConfig, "loggingConfig must be non-null.");
+
+		this.sampling = loggingConfig.getCommandLogSampling();
+	}
+
+	/**
+	 * Decides whether the details of a command should be logged.
+	 *
+	 * @return True if the details should be logged.
+	 */
+	public boolean sample() {
+		return sampling == 1 || ThreadLocalRandom.current().nextInt(sampling) == 0;
+	}
+}
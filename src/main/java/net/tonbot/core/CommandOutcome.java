@@ -0,0 +1,73 @@
+package net.tonbot.core;
+
+/**
+ * What happened to a command. The ordinals are stored in the
+ * {@link CommandJournal}, so new outcomes must only ever be appended.
+ */
+enum CommandOutcome {
+
+	/**
+	 * The command was shed by a rate limit.
+	 */
+	THROTTLED,
+
+	/**
+	 * The message was longer than the maximum message length.
+	 */
+	TOO_LONG,
+
+	/**
+	 * The message had more than the maximum number of tokens.
+	 */
+	TOO_MANY_TOKENS,
+
+	/**
+	 * No activity matched the command.
+	 */
+	UNMATCHED,
+
+	/**
+	 * The user may not access the matched activity.
+	 */
+	DENIED,
+
+	/**
+	 * The activity was at its concurrency limit.
+	 */
+	BUSY,
+
+	/**
+	 * The activity executor had been shut down.
+	 */
+	REJECTED,
+
+	/**
+	 * The activity ran and finished normally.
+	 */
+	ENACTED,
+
+	/**
+	 * The arguments didn't fit the activity, so its usage was sent instead.
+	 */
+	USAGE_ERROR,
+
+	/**
+	 * The activity refused the request with a {@code TonbotBusinessException}.
+	 */
+	BUSINESS_ERROR,
+
+	/**
+	 * The activity passed its deadline.
+	 */
+	TIMED_OUT,
+
+	/**
+	 * The activity threw an unexpected exception.
+	 */
+	FAILED,
+
+	/**
+	 * The message had more than the maximum number of commands.
+	 */
+	TOO_MANY_COMMANDS
+}
@@ -0,0 +1,87 @@
+package net.tonbot.core;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+import net.tonbot.common.Activity;
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
+
+/**
+ * What is known about a command as it passes through the
+ * {@link EventDispatcher}, for the {@link CommandJournal}. A trace is filled in
+ * by the thread which receives the message and then by the thread which
+ * enacts its activity, never by both at once.
+ */
+@Data
+class CommandTrace {
+
+	private final long timestamp;
+	private final long guildId;
+	private final long channelId;
+	private final long userId;
+	private final long messageId;
+	private final String content;
+
+	// Indexed by PipelineStage ordinal. -1 for stages that weren't reached.
+	private final long[] stageNanos;
+
+	private String activityName;
+	private CommandOutcome outcome;
+
+	/**
+	 * Starts a trace of a command, at the current time.
+	 *
+	 * @param event
+	 *            The {@link MessageReceivedEvent} of the command. Non-null.
+	 */
+	public CommandTrace(MessageReceivedEvent event) {
+		this(event, event.getMessage().getContent());
+	}
+
+	/**
+	 * Starts a trace of one of the commands of a message, at the current time.
+	 *
+	 * @param event
+	 *            The {@link MessageReceivedEvent} of the message. Non-null.
+	 * @param content
+	 *            The command, including the prefix. Non-null.
+	 */
+	public CommandTrace(MessageReceivedEvent event, String content) {
+		Preconditions.checkNotNull(event, "event must be non-null.");
+		Preconditions.checkNotNull(content, "content must be non-null.");
+
+		this.timestamp = System.currentTimeMillis();
+		this.guildId = event.getGuild() != null ? event.getGuild().getLongID() : 0;
+		this.channelId = event.getChannel().getLongID();
+		this.userId = event.getAuthor().getLongID();
+		this.messageId = event.getMessage().getLongID();
+		this.content = content;
+
+		this.stageNanos = new long[PipelineStage.values().length];
+		Arrays.fill(stageNanos, -1);
+	}
+
+	/**
+	 * Sets the latency of a stage.
+	 *
+	 * @param stage
+	 *            {@link PipelineStage}. Non-null.
+	 * @param nanos
+	 *            The latency in nanoseconds.
+	 */
+	public void setStageNanos(PipelineStage stage, long nanos) {
+		stageNanos[stage.ordinal()] = nanos;
+	}
+
+	/**
+	 * Sets the activity which the command matched.
+	 *
+	 * @param activity
+	 *            The {@link Activity}. Non-null.
+	 */
+	public void setActivity(Activity activity) {
+		this.activityName = activity.getClass().getName();
+	}
+}
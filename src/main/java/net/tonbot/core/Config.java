@@ -24,6 +24,10 @@ class Config {
 	private final List<String> pluginNames;
 	private final Map<String, String> aliases;
 	private final Color color;
+	private final DispatchConfig dispatch;
+	private final RateLimitConfig rateLimits;
+	private final LoggingConfig logging;
+	private final JournalConfig journal;
 
 	/**
 	 * Constructor.
@@ -37,11 +41,24 @@ class Config {
 	 * @param aliases
 	 *            A mapping from alias routes to canonical activity routes.
 	 *            Non-null.
+	 * @param rgb
+	 *            The color used by the plugins, as a 6 digit hex RGB string.
+	 *            Non-null.
+	 * @param dispatch
+	 *            The {@link DispatchConfig}. If null, the defaults are used.
+	 * @param rateLimits
+	 *            The {@link RateLimitConfig}. If null, the defaults are used.
+	 * @param logging
+	 *            The {@link LoggingConfig}. If null, the defaults are used.
+	 * @param journal
+	 *            The {@link JournalConfig}. If null, the defaults are used.
 	 */
 	@JsonCreator
 	public Config(@JsonProperty("prefix") String prefix, @JsonProperty("discordBotToken") String discordBotToken,
 			@JsonProperty("plugins") List<String> pluginNames, @JsonProperty("aliases") Map<String, String> aliases,
-			@JsonProperty("color") String rgb) {
+			@JsonProperty("color") String rgb, @JsonProperty("dispatch") DispatchConfig dispatch,
+			@JsonProperty("rateLimits") RateLimitConfig rateLimits, @JsonProperty("logging") LoggingConfig logging,
+			@JsonProperty("journal") JournalConfig journal) {
 		this.prefix = Preconditions.checkNotNull(prefix, "prefix must be non-null.");
 		this.discordBotToken = Preconditions.checkNotNull(discordBotToken, "discordBotToken must be non-null.");
 
@@ -53,6 +70,11 @@ class Config {
 
 		Preconditions.checkNotNull(rgb, "rgb must be non-null.");
 		this.color = parseColorRgb(rgb);
+
+		this.dispatch = dispatch != null ? dispatch : DispatchConfig.defaults();
+		this.rateLimits = rateLimits != null ? rateLimits : RateLimitConfig.defaults();
+		this.logging = logging != null ? logging : LoggingConfig.defaults();
+		this.journal = journal != null ? journal : JournalConfig.defaults();
 	}
 
 	private Color parseColorRgb(String rgb) {
@@ -0,0 +1,146 @@
+package net.tonbot.core;
+
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.Data;
+
+/**
+ * Configuration of the {@link EventDispatcher}. Every property is optional and
+ * falls back to a default when omitted from the config file.
+ */
+@Data
+class DispatchConfig {
+
+	private static final int DEFAULT_MAX_MESSAGE_LENGTH = 4000;
+	private static final int DEFAULT_MAX_TOKENS = 1024;
+	private static final int DEFAULT_ACTIVITY_THREADS = Runtime.getRuntime().availableProcessors() * 4;
+	private static final int DEFAULT_CHANNEL_STRIPES = 256;
+	private static final int DEFAULT_EVENT_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+	private static final int DEFAULT_EVENT_QUEUE_CAPACITY = 10000;
+	private static final int DEFAULT_CHAT_QUEUE_CAPACITY = 1000;
+	private static final int DEFAULT_MAX_COMMANDS_PER_MESSAGE = 5;
+	private static final ActivityLimitConfig DEFAULT_ACTIVITY_LIMIT = new ActivityLimitConfig(32, 60000L);
+
+	private final int maxMessageLength;
+	private final int maxTokens;
+	private final int activityThreads;
+	private final int channelStripes;
+	private final ActivityExecutorType activityExecutor;
+	private final Map<String, ActivityLimitConfig> activityLimits;
+	private final ActivityLimitConfig defaultActivityLimit;
+	private final int eventThreads;
+	private final int eventQueueCapacity;
+	private final int chatQueueCapacity;
+	private final String commandSeparator;
+	private final int maxCommandsPerMessage;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxMessageLength
+	 *            Messages longer than this number of characters are ignored.
+	 *            Nullable.
+	 * @param maxTokens
+	 *            Messages with more than this number of whitespace separated
+	 *            tokens are ignored. The default is only reached by abusive
+	 *            messages, since ordinary prose of the maximum length has far
+	 *            fewer words. Nullable.
+	 * @param activityThreads
+	 *            The number of platform threads which run activities. Unused by
+	 *            the virtual thread executor. Nullable.
+	 * @param channelStripes
+	 *            The number of stripes that channels are hashed onto. Activities
+	 *            in the same stripe run in order. Unused by the virtual thread
+	 *            executor, which queues each channel on its own. Must be a power
+	 *            of two. Nullable.
+	 * @param activityExecutor
+	 *            The kind of {@link ActivityExecutor} to run activities with.
+	 *            Nullable.
+	 * @param activityLimits
+	 *            The limits of activities, keyed by the fully qualified class name
+	 *            of the activity. Nullable.
+	 * @param defaultActivityLimit
+	 *            The limits of activities which aren't in {@code activityLimits}.
+	 *            Defaults to 32 concurrent invocations of up to a minute each.
+	 *            Nullable.
+	 * @param eventThreads
+	 *            The number of threads which deliver gateway events to the
+	 *            listeners. The events of a channel are always delivered by the
+	 *            same thread. Nullable.
+	 * @param eventQueueCapacity
+	 *            The number of command and chat events that may be waiting to be
+	 *            delivered, which is divided between the event threads. Nullable.
+	 * @param chatQueueCapacity
+	 *            The number of chat events that may be waiting to be delivered.
+	 *            Nullable.
+	 * @param commandSeparator
+	 *            The string which separates the commands of a message with more
+	 *            than one command, such as ";" or "\n". Nullable. Messages have
+	 *            only one command if it is null or empty.
+	 * @param maxCommandsPerMessage
+	 *            Messages with more than this number of commands are ignored.
+	 *            Nullable.
+	 */
+	@JsonCreator
+	public DispatchConfig(@JsonProperty("maxMessageLength") Integer maxMessageLength,
+			@JsonProperty("maxTokens") Integer maxTokens, @JsonProperty("activityThreads") Integer activityThreads,
+			@JsonProperty("channelStripes") Integer channelStripes,
+			@JsonProperty("activityExecutor") ActivityExecutorType activityExecutor,
+			@JsonProperty("activityLimits") Map<String, ActivityLimitConfig> activityLimits,
+			@JsonProperty("defaultActivityLimit") ActivityLimitConfig defaultActivityLimit,
+			@JsonProperty("eventThreads") Integer eventThreads,
+			@JsonProperty("eventQueueCapacity") Integer eventQueueCapacity,
+			@JsonProperty("chatQueueCapacity") Integer chatQueueCapacity,
+			@JsonProperty("commandSeparator") String commandSeparator,
+			@JsonProperty("maxCommandsPerMessage") Integer maxCommandsPerMessage) {
+		this.maxMessageLength = maxMessageLength != null ? maxMessageLength : DEFAULT_MAX_MESSAGE_LENGTH;
+		Preconditions.checkArgument(this.maxMessageLength > 0, "maxMessageLength must be positive.");
+
+		this.maxTokens = maxTokens != null ? maxTokens : DEFAULT_MAX_TOKENS;
+		Preconditions.checkArgument(this.maxTokens > 0, "maxTokens must be positive.");
+
+		this.activityThreads = activityThreads != null ? activityThreads : DEFAULT_ACTIVITY_THREADS;
+		Preconditions.checkArgument(this.activityThreads > 0, "activityThreads must be positive.");
+
+		this.channelStripes = channelStripes != null ? channelStripes : DEFAULT_CHANNEL_STRIPES;
+		Preconditions.checkArgument(this.channelStripes > 0 && Integer.bitCount(this.channelStripes) == 1,
+				"channelStripes must be a positive power of two.");
+
+		this.activityExecutor = activityExecutor != null ? activityExecutor : ActivityExecutorType.AUTO;
+
+		this.activityLimits = activityLimits != null ? ImmutableMap.copyOf(activityLimits) : ImmutableMap.of();
+
+		this.defaultActivityLimit = defaultActivityLimit != null ? defaultActivityLimit : DEFAULT_ACTIVITY_LIMIT;
+
+		this.eventThreads = eventThreads != null ? eventThreads : DEFAULT_EVENT_THREADS;
+		Preconditions.checkArgument(this.eventThreads > 0, "eventThreads must be positive.");
+
+		this.eventQueueCapacity = eventQueueCapacity != null ? eventQueueCapacity : DEFAULT_EVENT_QUEUE_CAPACITY;
+		Preconditions.checkArgument(this.eventQueueCapacity > 0, "eventQueueCapacity must be positive.");
+
+		this.chatQueueCapacity = chatQueueCapacity != null ? chatQueueCapacity : DEFAULT_CHAT_QUEUE_CAPACITY;
+		Preconditions.checkArgument(this.chatQueueCapacity > 0, "chatQueueCapacity must be positive.");
+
+		this.commandSeparator = StringUtils.isEmpty(commandSeparator) ? null : commandSeparator;
+
+		this.maxCommandsPerMessage = maxCommandsPerMessage != null ? maxCommandsPerMessage
+				: DEFAULT_MAX_COMMANDS_PER_MESSAGE;
+		Preconditions.checkArgument(this.maxCommandsPerMessage > 0, "maxCommandsPerMessage must be positive.");
+	}
+
+	/**
+	 * Creates a {@link DispatchConfig} where every property has its default value.
+	 *
+	 * @return A default {@link DispatchConfig}.
+	 */
+	public static DispatchConfig defaults() {
+		return new DispatchConfig(null, null, null, null, null, null, null, null, null, null, null, null);
+	}
+}
@@ -0,0 +1,153 @@
+package net.tonbot.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.apache.commons.lang3.NotImplementedException;
+import org.apache.commons.lang3.reflect.MethodUtils;
+
+import com.google.common.base.Preconditions;
+
+import lombok.Getter;
+import net.tonbot.common.Activity;
+import net.tonbot.common.Enactable;
+import net.tonbot.common.TonbotException;
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
+
+/**
+ * Invokes the {@link Enactable} method of an {@link Activity}. The method is
+ * found and validated once, and then bound to the activity as a
+ * {@link MethodHandle}.
+ */
+class EnactableInvoker {
+
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, MessageReceivedEvent.class,
+			Object.class);
+
+	@Getter
+	private final Activity activity;
+
+	@Getter
+	private final Enactable enactableAnnotation;
+
+	private final Class<?> requestType;
+	private final MethodHandle methodHandle;
+
+	private EnactableInvoker(Activity activity, Enactable enactableAnnotation, Class<?> requestType,
+			MethodHandle methodHandle) {
+		this.activity = activity;
+		this.enactableAnnotation = enactableAnnotation;
+		this.requestType = requestType;
+		this.methodHandle = methodHandle;
+	}
+
+	/**
+	 * Gets the type of request that the enactable method accepts.
+	 *
+	 * @return The request type, or null if the enactable method doesn't take a
+	 *         request.
+	 */
+	public Class<?> getRequestType() {
+		return requestType;
+	}
+
+	/**
+	 * Invokes the enactable method.
+	 *
+	 * @param event
+	 *            {@link MessageReceivedEvent}. Non-null.
+	 * @param request
+	 *            The request object. Must be null if and only if the method doesn't
+	 *            take a request.
+	 * @throws TonbotException
+	 *             if the enactable method threw one.
+	 * @throws RuntimeException
+	 *             if the enactable method threw any other exception.
+	 */
+	public void invoke(MessageReceivedEvent event, Object request) {
+		try {
+			methodHandle.invokeExact(event, request);
+		} catch (TonbotException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException("Unable to invoke Enactable method of class " + activity.getClass(), e);
+		}
+	}
+
+	/**
+	 * Finds and validates the {@link Enactable} method of an activity.
+	 *
+	 * @param activity
+	 *            {@link Activity}. Non-null.
+	 * @return An {@link EnactableInvoker} for the activity.
+	 * @throws IllegalStateException
+	 *             if the activity doesn't have a valid enactable method.
+	 */
+	public static EnactableInvoker resolve(Activity activity) {
+		Preconditions.checkNotNull(activity, "activity must be non-null.");
+
+		List<Method> annotatedMethods = MethodUtils.getMethodsListWithAnnotation(activity.getClass(), Enactable.class);
+		if (annotatedMethods.size() != 1) {
+			throw new IllegalStateException(
+					"Activity " + activity.getClass() + " must have exactly 1 method with @Enactable annotation.");
+		}
+
+		Method annotatedMethod = annotatedMethods.get(0);
+		// Check that this method takes in two arguments: MessageReceivedEvent and some
+		// Object
+		Class<?>[] parameterTypes = annotatedMethod.getParameterTypes();
+		if (parameterTypes.length < 1 || parameterTypes.length > 2) {
+			throw new IllegalStateException("Activity " + activity.getClass()
+					+ " method annotated with @Enactable must have 1 or 2 parameters. The first being a MessageReceivedEvent (required) and the second being any mappable object (if applicable).");
+		}
+
+		if (!(MessageReceivedEvent.class.isAssignableFrom(parameterTypes[0]))) {
+			throw new IllegalStateException("Activity " + activity.getClass()
+					+ " method annotated with @Enactable must have the first parameter be a MessageReceivedEvent.");
+		}
+
+		Class<?> requestType;
+		if (parameterTypes.length == 2) {
+			Type genericRequestType = annotatedMethod.getGenericParameterTypes()[1];
+
+			if (genericRequestType instanceof Class) {
+				requestType = parameterTypes[1];
+			} else {
+				try {
+					requestType = activity.getRequestType();
+				} catch (NotImplementedException e) {
+					throw new IllegalStateException("Activity " + activity.getClass()
+							+ " getRequestType() method must return a requestType if the @Enactable method uses a generic type for its request.");
+				}
+			}
+		} else {
+			requestType = null;
+		}
+
+		annotatedMethod.setAccessible(true);
+
+		MethodHandle methodHandle;
+		try {
+			methodHandle = MethodHandles.lookup().unreflect(annotatedMethod).bindTo(activity);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(
+					"Unable to access Enactable method " + annotatedMethod + " of class " + activity.getClass(), e);
+		}
+
+		if (requestType == null) {
+			// Accept and ignore the (always null) request so that every invoker has the
+			// same type.
+			methodHandle = MethodHandles.dropArguments(methodHandle, 1, Object.class);
+		}
+
+		methodHandle = methodHandle.asType(INVOKER_TYPE);
+
+		Enactable enactableAnnotation = annotatedMethod.getAnnotation(Enactable.class);
+
+		return new EnactableInvoker(activity, enactableAnnotation, requestType, methodHandle);
+	}
+}
@@ -0,0 +1,54 @@
+package net.tonbot.core;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+
+import net.tonbot.common.Activity;
+
+/**
+ * A registry of {@link EnactableInvoker}s. Every activity's enactable method is
+ * resolved upon construction so that misconfigured activities are found at
+ * startup rather than on first use.
+ */
+class EnactableInvokers {
+
+	private final Map<Activity, EnactableInvoker> invokers;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param activities
+	 *            All activities. Non-null.
+	 * @throws IllegalStateException
+	 *             if any activity doesn't have a valid enactable method.
+	 */
+	@Inject
+	public EnactableInvokers(Set<Activity> activities) {
+		Preconditions.checkNotNull(activities, "activities must be non-null.");
+
+		this.invokers = new IdentityHashMap<>();
+		for (Activity activity : activities) {
+			invokers.put(activity, EnactableInvoker.resolve(activity));
+		}
+	}
+
+	/**
+	 * Gets the invoker of an activity.
+	 *
+	 * @param activity
+	 *            {@link Activity}. Non-null.
+	 * @return The {@link EnactableInvoker} of the activity.
+	 * @throws IllegalArgumentException
+	 *             if the activity isn't known to this registry.
+	 */
+	public EnactableInvoker get(Activity activity) {
+		EnactableInvoker invoker = invokers.get(activity);
+		Preconditions.checkArgument(invoker != null, "Unknown activity %s", activity);
+
+		return invoker;
+	}
+}
@@ -1,38 +1,31 @@
 package net.tonbot.core;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Type;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.reflect.MethodUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
-import lombok.Data;
-import lombok.NonNull;
 import net.tonbot.common.Activity;
 import net.tonbot.common.ActivityDescriptor;
 import net.tonbot.common.ActivityUsageException;
 import net.tonbot.common.BotUtils;
-import net.tonbot.common.Enactable;
 import net.tonbot.common.Prefix;
 import net.tonbot.common.Route;
 import net.tonbot.common.TonbotBusinessException;
-import net.tonbot.common.TonbotException;
 import net.tonbot.core.permission.PermissionManager;
 import net.tonbot.core.request.Context;
 import net.tonbot.core.request.RequestMapper;
 import net.tonbot.core.request.RequestMappingException;
+import net.tonbot.core.request.parsing.CommandSplitter;
 import sx.blah.discord.api.events.EventSubscriber;
 import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
 import sx.blah.discord.handle.obj.IChannel;
@@ -42,7 +35,10 @@ import sx.blah.discord.handle.obj.IChannel;
  * set of activities is registered with this dispatcher. Each activity has a
  * route. This class will check the message event's contents, tokenize the
  * words, and attempt to find the best activity to run. The best activity is the
- * one that has the longest token prefix.
+ * one that has the longest token prefix.<br/>
+ *
+ * If a command separator is configured, a message may hold several commands.
+ * They are admitted once, enacted in order, and their text replies are merged.
  */
 class EventDispatcher {
 
@@ -50,8 +46,6 @@ class EventDispatcher {
 	private static final long ERROR_TTL = 15000;
 	private static final TimeUnit ERROR_TTL_UNIT = TimeUnit.MILLISECONDS;
 
-	private static final String TOKENIZATION_DELIMITER = " ";
-
 	private final BotUtils botUtils;
 	private final String prefix;
 
@@ -59,17 +53,45 @@ class EventDispatcher {
 	private final ActivityPrinter activityPrinter;
 	private final RequestMapper requestMapper;
 	private final ActivityMatcher activityMatcher;
+	private final EnactableInvokers enactableInvokers;
+	private final DispatchConfig dispatchConfig;
+	private final ActivityExecutor activityExecutor;
+	private final Set<Activity> coreActivities;
+	private final ActivityExecutor coreActivityExecutor;
+	private final ActivityGuard activityGuard;
+	private final AdmissionController admissionController;
+	private final PipelineMetrics pipelineMetrics;
+	private final CommandLogSampler commandLogSampler;
+	private final CommandJournal commandJournal;
+	private final RouteSuggester routeSuggester;
 
 	@Inject
 	public EventDispatcher(BotUtils botUtils, @Prefix String prefix, Set<Activity> activities, Aliases aliases,
 			PermissionManager permissionManager, ActivityPrinter activityPrinter, RequestMapper requestMapper,
-			ActivityMatcher activityMatcher) {
+			ActivityMatcher activityMatcher, EnactableInvokers enactableInvokers,
+			DispatchConfig dispatchConfig, ActivityExecutor activityExecutor,
+			@CoreActivities Set<Activity> coreActivities, @CoreActivities ActivityExecutor coreActivityExecutor,
+			ActivityGuard activityGuard, AdmissionController admissionController, PipelineMetrics pipelineMetrics,
+			CommandLogSampler commandLogSampler, CommandJournal commandJournal, RouteSuggester routeSuggester) {
 		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
 		this.prefix = Preconditions.checkNotNull(prefix, "prefix must be non-null.");
 		this.permissionManager = Preconditions.checkNotNull(permissionManager, "permissionManager must be non-null.");
 		this.activityPrinter = Preconditions.checkNotNull(activityPrinter, "activityPrinter must be non-null.");
 		this.requestMapper = Preconditions.checkNotNull(requestMapper, "requestMapper must be non-null.");
 		this.activityMatcher = Preconditions.checkNotNull(activityMatcher, "activityMatcher must be non-null.");
+		this.enactableInvokers = Preconditions.checkNotNull(enactableInvokers, "enactableInvokers must be non-null.");
+		this.dispatchConfig = Preconditions.checkNotNull(dispatchConfig, "dispatchConfig must be non-null.");
+		this.activityExecutor = Preconditions.checkNotNull(activityExecutor, "activityExecutor must be non-null.");
+		this.coreActivities = Preconditions.checkNotNull(coreActivities, "coreActivities must be non-null.");
+		this.coreActivityExecutor = Preconditions.checkNotNull(coreActivityExecutor,
+				"coreActivityExecutor must be non-null.");
+		this.activityGuard = Preconditions.checkNotNull(activityGuard, "activityGuard must be non-null.");
+		this.admissionController = Preconditions.checkNotNull(admissionController,
+				"admissionController must be non-null.");
+		this.pipelineMetrics = Preconditions.checkNotNull(pipelineMetrics, "pipelineMetrics must be non-null.");
+		this.commandLogSampler = Preconditions.checkNotNull(commandLogSampler, "commandLogSampler must be non-null.");
+		this.commandJournal = Preconditions.checkNotNull(commandJournal, "commandJournal must be non-null.");
+		this.routeSuggester = Preconditions.checkNotNull(routeSuggester, "routeSuggester must be non-null.");
 	}
 
 	@EventSubscriber
@@ -86,165 +108,469 @@ class EventDispatcher {
 			return;
 		}
 
-		String messageWithoutPrefix = messageString.substring(prefix.length(), messageString.length()).trim();
-		List<String> tokens = Arrays.asList(messageWithoutPrefix.split(TOKENIZATION_DELIMITER)).stream()
-				.filter(token -> !StringUtils.isBlank(token))
-				.collect(Collectors.toList());
+		CommandTrace trace = commandJournal.isEnabled() ? new CommandTrace(event) : null;
+
+		// Shed spam before doing any work for it.
+		long admissionStart = System.nanoTime();
+		boolean admitted = admit(event);
+		recordStage(trace, PipelineStage.ADMISSION, System.nanoTime() - admissionStart);
+
+		if (!admitted) {
+			journal(trace, CommandOutcome.THROTTLED);
+			return;
+		}
+
+		if (messageString.length() > dispatchConfig.getMaxMessageLength()) {
+			LOG.debug("Ignoring message of length {} which exceeds the maximum of {}.", messageString.length(),
+					dispatchConfig.getMaxMessageLength());
+			journal(trace, CommandOutcome.TOO_LONG);
+			return;
+		}
+
+		List<String> commands = splitCommands(messageString);
+		if (commands == null) {
+			LOG.debug("Ignoring message with more than {} commands.", dispatchConfig.getMaxCommandsPerMessage());
+			journal(trace, CommandOutcome.TOO_MANY_COMMANDS);
+			return;
+		}
 
-		if (tokens.isEmpty()) {
+		if (commands.size() > 1) {
+			dispatchCommands(event, commands, trace);
 			return;
 		}
 
+		String command = commands.isEmpty() ? messageString : commands.get(0);
+		if (trace != null && !command.equals(messageString)) {
+			trace = copyTrace(trace, event, command);
+		}
+
+		ResolvedCommand resolvedCommand = resolve(event, command, trace);
+		if (resolvedCommand == null) {
+			return;
+		}
+
+		// Either all of the detail records of a command are logged or none are, so
+		// that sampled commands can be followed from start to end.
+		boolean logDetails = LOG.isInfoEnabled() && commandLogSampler.sample();
+		if (logDetails) {
+			logEnactment(event, resolvedCommand);
+		}
+
+		Activity activity = resolvedCommand.activityMatch.getMatchedActivity();
+
+		// Fail fast instead of queueing behind an activity that is already saturated.
+		ActivityGuard.Permit permit = activityGuard.tryAcquire(activity);
+		if (permit == null) {
+			rejectBusy(event, resolvedCommand);
+			return;
+		}
+
+		// Activities of the same channel run in order, but never on this thread.
+		ActivityExecutor executor = coreActivities.contains(activity) ? coreActivityExecutor : activityExecutor;
+		try {
+			executor.execute(event.getChannel().getLongID(), () -> {
+				try {
+					enactActivity(resolvedCommand, event, logDetails);
+				} finally {
+					permit.release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			permit.release();
+			LOG.warn("Activity '{}' was not enacted because the activity executor has been shut down.",
+					activity.getClass().getName());
+			journal(resolvedCommand.trace, CommandOutcome.REJECTED);
+		}
+	}
+
+	/**
+	 * Splits a message into its commands, if a command separator is configured.
+	 * Separators inside quoted arguments don't split the message. Each command is
+	 * given the prefix, so a command may repeat the prefix or not. Blank commands
+	 * are skipped.
+	 *
+	 * @return The commands, which are empty if the message has no separator. Null
+	 *         if there are too many commands.
+	 */
+	private List<String> splitCommands(String messageString) {
+		String separator = dispatchConfig.getCommandSeparator();
+		if (separator == null || !messageString.contains(separator)) {
+			return ImmutableList.of();
+		}
+
+		List<String> segments = CommandSplitter.split(messageString, prefix.length(), separator);
+		if (segments.size() == 1) {
+			// Every separator was quoted.
+			return ImmutableList.of();
+		}
+
+		List<String> commands = new ArrayList<>();
+		for (String segment : segments) {
+			String body = StringUtils.strip(segment);
+			if (body.startsWith(prefix)) {
+				body = body.substring(prefix.length());
+			}
+
+			if (body.isEmpty()) {
+				continue;
+			}
+
+			if (commands.size() == dispatchConfig.getMaxCommandsPerMessage()) {
+				return null;
+			}
+
+			commands.add(prefix + body);
+		}
+
+		return commands;
+	}
+
+	/**
+	 * Resolves every command of a multi-command message, then enacts the ones that
+	 * resolved in order, as a single task on the channel's lane. The commands share
+	 * the message's admission, and their text replies are batched.
+	 */
+	private void dispatchCommands(MessageReceivedEvent event, List<String> commands, CommandTrace messageTrace) {
+		List<ResolvedCommand> resolvedCommands = new ArrayList<>(commands.size());
+		for (String command : commands) {
+			CommandTrace trace = messageTrace != null ? copyTrace(messageTrace, event, command) : null;
+			ResolvedCommand resolvedCommand = resolve(event, command, trace);
+			if (resolvedCommand != null) {
+				resolvedCommands.add(resolvedCommand);
+			}
+		}
+
+		if (resolvedCommands.isEmpty()) {
+			return;
+		}
+
+		boolean logDetails = LOG.isInfoEnabled() && commandLogSampler.sample();
+		if (logDetails) {
+			for (ResolvedCommand resolvedCommand : resolvedCommands) {
+				logEnactment(event, resolvedCommand);
+			}
+		}
+
+		// The core executor is only used if it wouldn't be held up by other activities.
+		boolean allCore = resolvedCommands.stream()
+				.allMatch(c -> coreActivities.contains(c.activityMatch.getMatchedActivity()));
+		ActivityExecutor executor = allCore ? coreActivityExecutor : activityExecutor;
+		try {
+			executor.execute(event.getChannel().getLongID(),
+					() -> enactActivities(resolvedCommands, event, logDetails));
+		} catch (RejectedExecutionException e) {
+			LOG.warn("{} activities were not enacted because the activity executor has been shut down.",
+					resolvedCommands.size());
+			for (ResolvedCommand resolvedCommand : resolvedCommands) {
+				journal(resolvedCommand.trace, CommandOutcome.REJECTED);
+			}
+		}
+	}
+
+	/**
+	 * Enacts the commands of a message one after another, then sends their text
+	 * replies in as few messages as possible.
+	 */
+	private void enactActivities(List<ResolvedCommand> resolvedCommands, MessageReceivedEvent event,
+			boolean logDetails) {
+		List<String> replies;
+
+		ReplyBatch replyBatch = ReplyBatch.open(event.getChannel());
+		try {
+			for (ResolvedCommand resolvedCommand : resolvedCommands) {
+				ActivityGuard.Permit permit = activityGuard
+						.tryAcquire(resolvedCommand.activityMatch.getMatchedActivity());
+				if (permit == null) {
+					rejectBusy(event, resolvedCommand);
+					continue;
+				}
+
+				try {
+					enactActivity(resolvedCommand, event, logDetails);
+				} finally {
+					permit.release();
+				}
+			}
+		} finally {
+			replies = replyBatch.close();
+		}
+
+		for (String reply : replies) {
+			botUtils.sendMessage(event.getChannel(), reply);
+		}
+	}
+
+	/**
+	 * Finds the activity of a command and checks that the author may access it.
+	 *
+	 * @param command
+	 *            The command, starting with the prefix.
+	 * @return The {@link ResolvedCommand}, or null if the command was journaled
+	 *         because it won't be enacted.
+	 */
+	private ResolvedCommand resolve(MessageReceivedEvent event, String command, CommandTrace trace) {
+		long tokenizationStart = System.nanoTime();
+		int maxTokens = dispatchConfig.getMaxTokens();
+		boolean tooManyTokens = TokenizedMessage.countTokens(command, prefix.length(), maxTokens) > maxTokens;
+
+		// Only the tokens which could be part of a route need to be recorded.
+		TokenizedMessage tokens = tooManyTokens ? null
+				: TokenizedMessage.tokenize(command, prefix.length(),
+						Math.max(1, activityMatcher.getMaxRouteLength()));
+		recordStage(trace, PipelineStage.TOKENIZATION, System.nanoTime() - tokenizationStart);
+
+		if (tooManyTokens) {
+			LOG.debug("Ignoring message with more than {} tokens.", maxTokens);
+			journal(trace, CommandOutcome.TOO_MANY_TOKENS);
+			return null;
+		}
+
+		if (tokens.getTokenCount() == 0) {
+			journal(trace, CommandOutcome.UNMATCHED);
+			return null;
+		}
+
+		long matchingStart = System.nanoTime();
 		ActivityMatch activityMatch = activityMatcher.matchActivity(tokens).orElse(null);
+		recordStage(trace, PipelineStage.MATCHING, System.nanoTime() - matchingStart);
 
 		if (activityMatch == null) {
-			return;
+			suggestRoutes(event, tokens);
+			journal(trace, CommandOutcome.UNMATCHED);
+			return null;
 		}
 
-		if (!permissionManager.checkAccessibility(activityMatch.getMatchedActivity(), event.getAuthor(),
-				event.getGuild())) {
+		if (trace != null) {
+			trace.setActivity(activityMatch.getMatchedActivity());
+		}
+
+		long permissionCheckStart = System.nanoTime();
+		boolean accessible = permissionManager.checkAccessibility(activityMatch.getMatchedActivity(),
+				event.getAuthor(), event.getGuild());
+		recordStage(trace, PipelineStage.PERMISSION_CHECK, activityMatch.getMatchedActivity(),
+				System.nanoTime() - permissionCheckStart);
+
+		if (!accessible) {
 			LOG.debug("Activity '{}' was denied to user '{}' in guild '{}'",
 					activityMatch.getMatchedActivity().getClass(), 
 					event.getAuthor().getName(), 
 					event.getGuild().getName());
+			journal(trace, CommandOutcome.DENIED);
+			return null;
+		}
+
+		// The arguments start right after the last token of the route.
+		int routeLength = activityMatch.getMatchedRoute().getPath().size();
+		int argsStart = routeLength == 0 ? prefix.length() : tokens.getEnd(routeLength - 1);
+
+		return new ResolvedCommand(command, activityMatch, argsStart, trace);
+	}
+
+	/**
+	 * Tells the author about the routes which are close to an unmatched command,
+	 * if there are any that they may access and the channel hasn't been sent a
+	 * suggestion too recently.
+	 */
+	private void suggestRoutes(MessageReceivedEvent event, TokenizedMessage tokens) {
+		// Searching and checking permissions is wasted if the reply would be
+		// suppressed, such as while a channel is being spammed with typos.
+		if (!admissionController.canSuggest(event.getChannel().getLongID())) {
 			return;
 		}
 
-		List<String> routePath = tokens.subList(0, activityMatch.getMatchedRoute().getPath().size());
-		int routeChars = (routePath.size() * TOKENIZATION_DELIMITER.length())
-				+ routePath.stream().mapToInt(String::length).sum();
+		List<String> suggestions = new ArrayList<>();
+		for (ActivityMatch suggestion : routeSuggester.suggest(tokens)) {
+			if (permissionManager.checkAccessibility(suggestion.getMatchedActivity(), event.getAuthor(),
+					event.getGuild())) {
+				suggestions.add("``" + prefix + suggestion.getMatchedRoute() + "``");
+			}
+		}
 
-		// remainingMessage is the part of the message that doesn't contain the prefix
-		// or route.
-		String remainingMessage;
-		if (routeChars > messageWithoutPrefix.length()) {
-			remainingMessage = "";
-		} else {
-			remainingMessage = messageWithoutPrefix.substring(routeChars, messageWithoutPrefix.length());
+		if (suggestions.isEmpty() || !admissionController.admitSuggestion(event.getChannel().getLongID())) {
+			return;
 		}
 
+		botUtils.sendMessage(event.getChannel(), "Did you mean " + String.join(" or ", suggestions) + "? :thinking:",
+				ERROR_TTL, ERROR_TTL_UNIT);
+	}
+
+	private void logEnactment(MessageReceivedEvent event, ResolvedCommand resolvedCommand) {
 		LOG.info(
 				"Activity enacted by message.\n" + "Author: {} (ID {})\n" + "Guild: {} (ID {})\n"
 						+ "Message: {} (ID: {})\n" + "Matched Activity: {}",
 				event.getAuthor().getName(), event.getAuthor().getLongID(), event.getGuild().getName(),
-				event.getGuild().getLongID(), event.getMessage().getContent(), event.getMessage().getLongID(),
-				activityMatch.getMatchedActivity().getClass().getName());
+				event.getGuild().getLongID(), resolvedCommand.command, event.getMessage().getLongID(),
+				resolvedCommand.activityMatch.getMatchedActivity().getClass().getName());
+	}
+
+	private void rejectBusy(MessageReceivedEvent event, ResolvedCommand resolvedCommand) {
+		LOG.info("Activity '{}' was not enacted because it is at its concurrency limit.",
+				resolvedCommand.activityMatch.getMatchedActivity().getClass().getName());
 
-		enactActivity(activityMatch, event, remainingMessage);
+		// An overloaded activity must not also cause a notice for every rejection.
+		if (admissionController.admitBusyNotice(event.getChannel().getLongID())) {
+			botUtils.sendMessage(event.getChannel(), "I'm busy right now. Please try again in a bit. :hourglass:",
+					ERROR_TTL, ERROR_TTL_UNIT);
+		}
+		journal(resolvedCommand.trace, CommandOutcome.BUSY);
 	}
 
-	private void enactActivity(ActivityMatch activityMatch, MessageReceivedEvent event, String args) {
+	/**
+	 * Starts the trace of one command of a message, with the stages that the
+	 * whole message has been through so far.
+	 */
+	private CommandTrace copyTrace(CommandTrace messageTrace, MessageReceivedEvent event, String command) {
+		CommandTrace trace = new CommandTrace(event, command);
+		long admissionNanos = messageTrace.getStageNanos()[PipelineStage.ADMISSION.ordinal()];
+		if (admissionNanos >= 0) {
+			trace.setStageNanos(PipelineStage.ADMISSION, admissionNanos);
+		}
+		return trace;
+	}
+
+	/**
+	 * Applies the rate limits of the message's author and guild.
+	 * 
+	 * @return True if the message may be processed.
+	 */
+	private boolean admit(MessageReceivedEvent event) {
+		long userId = event.getAuthor().getLongID();
+		long guildId = event.getGuild() != null ? event.getGuild().getLongID() : 0;
+
+		AdmissionController.Admission admission = admissionController.admit(userId, guildId);
+		if (admission == AdmissionController.Admission.ADMITTED) {
+			return true;
+		}
+
+		LOG.debug("Throttled message from user {} in guild {}.", userId, guildId);
+
+		if (admission == AdmissionController.Admission.THROTTLED_WITH_NOTICE) {
+			botUtils.sendMessage(event.getChannel(), "You're sending commands too quickly. Please slow down. :snail:",
+					ERROR_TTL, ERROR_TTL_UNIT);
+		}
+
+		return false;
+	}
+
+	private void enactActivity(ResolvedCommand resolvedCommand, MessageReceivedEvent event, boolean logDetails) {
+		ActivityMatch activityMatch = resolvedCommand.activityMatch;
+		CommandTrace trace = resolvedCommand.trace;
 
 		Long latency = Long.MIN_VALUE;
-		
-		EnactableMethod enactableMethod = null;
+		boolean timedOut = false;
+		CommandOutcome outcome = CommandOutcome.FAILED;
+
+		EnactableInvoker invoker = enactableInvokers.get(activityMatch.getMatchedActivity());
+		boolean requestMapped = false;
 		try {
-			enactableMethod = getEnactableMethod(activityMatch.getMatchedActivity(), event, args);
-			
+			long mappingStart = System.nanoTime();
+			Object request;
+			try {
+				request = mapRequest(invoker, event, resolvedCommand.command, resolvedCommand.argsStart);
+			} finally {
+				recordStage(trace, PipelineStage.REQUEST_MAPPING, activityMatch.getMatchedActivity(),
+						System.nanoTime() - mappingStart);
+			}
+			requestMapped = true;
+
+			if (logDetails) {
+				// The request is only formatted when the record is actually written.
+				LOG.info("Request: {}", request);
+			}
+
 			long start = System.nanoTime();
+			ActivityGuard.Deadline deadline = activityGuard.startDeadline(activityMatch.getMatchedActivity());
 			try {
-				enactableMethod.getRunnable().run();
+				invoker.invoke(event, request);
+				outcome = CommandOutcome.ENACTED;
 			} finally {
 				latency = System.nanoTime() - start;
+				timedOut = deadline.finish();
+				recordStage(trace, PipelineStage.ENACTMENT, activityMatch.getMatchedActivity(), latency);
 			}
 		} catch (ActivityUsageException e) {
+			outcome = CommandOutcome.USAGE_ERROR;
 			sendUsageMessage(e.getMessage(), activityMatch.getMatchedRoute(),
 					activityMatch.getMatchedActivity().getDescriptor(), event.getChannel());
 		} catch (TonbotBusinessException e) {
+			outcome = CommandOutcome.BUSINESS_ERROR;
 			botUtils.sendMessage(event.getChannel(), e.getMessage(), ERROR_TTL, ERROR_TTL_UNIT);
 		} catch (Exception e) {
-			botUtils.sendMessage(event.getChannel(), "Something bad happened. :confounded:", ERROR_TTL, ERROR_TTL_UNIT);
-			LOG.error("Uncaught exception received from activity.", e);
+			if (timedOut) {
+				botUtils.sendMessage(event.getChannel(), "That took too long, so I gave up. :hourglass:", ERROR_TTL,
+						ERROR_TTL_UNIT);
+				LOG.debug("Exception thrown by activity after it passed its deadline.", e);
+			} else {
+				botUtils.sendMessage(event.getChannel(), "Something bad happened. :confounded:", ERROR_TTL,
+						ERROR_TTL_UNIT);
+				LOG.error("Uncaught exception received from activity.", e);
+			}
 		} finally {
-			LOG.info("Activity {} latency: {} ms", activityMatch.getMatchedActivity().getClass().getName(),
-					latency / 1_000_000);
-			
-			if (enactableMethod != null && enactableMethod.getEnactableAnnotation().deleteCommand()) {
+			if (timedOut) {
+				LOG.warn("Activity {} passed its deadline. It has timed out {} times.",
+						activityMatch.getMatchedActivity().getClass().getName(),
+						activityGuard.getTimeoutCount(activityMatch.getMatchedActivity()));
+			}
+
+			if (logDetails) {
+				LOG.info("Activity {} latency: {} ms", activityMatch.getMatchedActivity().getClass().getName(),
+						latency / 1_000_000);
+			}
+
+			if (requestMapped && invoker.getEnactableAnnotation().deleteCommand()) {
 				botUtils.deleteMessagesQuietly(event.getMessage());
 			}
+
+			journal(trace, timedOut ? CommandOutcome.TIMED_OUT : outcome);
 		}
 	}
 
-	private EnactableMethod getEnactableMethod(Activity activity, MessageReceivedEvent event, String args) {
-
-		List<Method> annotatedMethods = MethodUtils.getMethodsListWithAnnotation(activity.getClass(), Enactable.class);
-		if (annotatedMethods.size() != 1) {
-			throw new IllegalStateException(
-					"Activity " + activity.getClass() + " must have exactly 1 method with @Enactable annotation.");
+	private void recordStage(CommandTrace trace, PipelineStage stage, long nanos) {
+		pipelineMetrics.record(stage, nanos);
+		if (trace != null) {
+			trace.setStageNanos(stage, nanos);
 		}
+	}
 
-		Method annotatedMethod = annotatedMethods.get(0);
-		// Check that this method takes in two arguments: MessageReceivedEvent and some
-		// Object
-		Class<?>[] parameterTypes = annotatedMethod.getParameterTypes();
-		if (parameterTypes.length < 1 || parameterTypes.length > 2) {
-			throw new IllegalStateException("Activity " + activity.getClass()
-					+ " method annotated with @Enactable must have 1 or 2 parameters. The first being a MessageReceivedEvent (required) and the second being any mappable object (if applicable).");
+	private void recordStage(CommandTrace trace, PipelineStage stage, Activity activity, long nanos) {
+		pipelineMetrics.record(stage, activity, nanos);
+		if (trace != null) {
+			trace.setStageNanos(stage, nanos);
 		}
+	}
 
-		if (!(MessageReceivedEvent.class.isAssignableFrom(parameterTypes[0]))) {
-			throw new IllegalStateException("Activity " + activity.getClass()
-					+ " method annotated with @Enactable must have the first parameter be a MessageReceivedEvent.");
+	/**
+	 * Journals a command which has reached its outcome, if it is being traced.
+	 */
+	private void journal(CommandTrace trace, CommandOutcome outcome) {
+		if (trace != null) {
+			trace.setOutcome(outcome);
+			commandJournal.append(trace);
 		}
+	}
 
-		Object requestObj;
-
-		if (parameterTypes.length == 2) {
-			Type requestType = annotatedMethod.getGenericParameterTypes()[1];
-
-			Class<?> requestClass;
-			if (requestType instanceof Class) {
-				requestClass = parameterTypes[1];
-			} else {
-				try {
-					requestClass = activity.getRequestType();
-				} catch (NotImplementedException e) {
-					throw new IllegalStateException(
-							"The activity's getRequestType() method must return a requestType if the @Enactable method uses a generic type for its request.");
-				}
-			}
-
-			Context context = new Context(event.getGuild());
-
-			try {
-				requestObj = requestMapper.map(args, requestClass, context);
-				LOG.info("Request: {}", requestObj);
-			} catch (RequestMappingException e) {
-				throw new ActivityUsageException(e.getMessage(), e);
-			}
-
-		} else {
-			requestObj = null;
+	/**
+	 * Maps the arguments of the message, which start at {@code argsStart}, to the
+	 * request type of the invoker.
+	 * 
+	 * @return The request object, or null if the invoker doesn't take a request.
+	 * @throws ActivityUsageException
+	 *             if the arguments couldn't be mapped.
+	 */
+	private Object mapRequest(EnactableInvoker invoker, MessageReceivedEvent event, String message,
+			int argsStart) {
+		Class<?> requestType = invoker.getRequestType();
+		if (requestType == null) {
+			return null;
 		}
 
-		annotatedMethod.setAccessible(true);
+		Context context = new Context(event.getGuild());
 
-		Enactable enactableAnnotation = annotatedMethod.getAnnotation(Enactable.class);
-		
-		Runnable runnable = () -> {
-			try {
-				if (requestObj == null) {
-					annotatedMethod.invoke(activity, event);
-				} else {
-					annotatedMethod.invoke(activity, event, requestObj);
-				}
-
-			} catch (IllegalAccessException | IllegalArgumentException e) {
-				throw new RuntimeException(
-						"Unable to invoke Enactable method " + annotatedMethod + " of class " + activity.getClass(), e);
-			} catch (InvocationTargetException e) {
-				Throwable cause = e.getCause();
-				if (cause instanceof TonbotException) {
-					throw (TonbotException) cause;
-				} else {
-					throw new RuntimeException(
-							"Unable to invoke Enactable method " + annotatedMethod + " of class " + activity.getClass(),
-							e);
-				}
-			}
-		};
-		
-		return new EnactableMethod(enactableAnnotation, runnable);
+		try {
+			return requestMapper.map(message, argsStart, requestType, context);
+		} catch (RequestMappingException e) {
+			throw new ActivityUsageException(e.getMessage(), e);
+		}
 	}
 
 	private void sendUsageMessage(String errorMessage, Route route, ActivityDescriptor descriptor, IChannel channel) {
@@ -253,14 +579,21 @@ class EventDispatcher {
 
 		botUtils.sendMessage(channel, usageMessage);
 	}
-	
-	@Data
-	private class EnactableMethod {
-		
-		@NonNull
-		Enactable enactableAnnotation;
-		
-		@NonNull
-		Runnable runnable;
+
+	/**
+	 * A command whose activity was found and may be enacted.
+	 */
+	private static class ResolvedCommand {
+		private final String command;
+		private final ActivityMatch activityMatch;
+		private final int argsStart;
+		private final CommandTrace trace;
+
+		private ResolvedCommand(String command, ActivityMatch activityMatch, int argsStart, CommandTrace trace) {
+			this.command = command;
+			this.activityMatch = activityMatch;
+			this.argsStart = argsStart;
+			this.trace = trace;
+		}
 	}
 }
@@ -0,0 +1,25 @@
+package net.tonbot.core;
+
+/**
+ * How important it is that a gateway event is handled. Lower ordinals are more
+ * important.
+ */
+enum EventPriority {
+
+	/**
+	 * Events which change the state of guilds, channels, roles or members, such as
+	 * {@code GuildCreateEvent}. These are never dropped.
+	 */
+	STATE,
+
+	/**
+	 * Messages which start with the prefix.
+	 */
+	COMMAND,
+
+	/**
+	 * Ordinary chat messages, reactions, typing and presence updates. These are
+	 * the first to be shed under load.
+	 */
+	CHAT
+}
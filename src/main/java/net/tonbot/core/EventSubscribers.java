@@ -0,0 +1,179 @@
+package net.tonbot.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.reflect.MethodUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import sx.blah.discord.api.events.Event;
+import sx.blah.discord.api.events.EventSubscriber;
+import sx.blah.discord.api.events.IListener;
+
+/**
+ * Delivers events to a fixed set of listeners, the same way that Discord4J's
+ * own event dispatcher would. A listener is either an {@link IListener} or an
+ * object with {@link EventSubscriber} methods.<br/>
+ *
+ * The handler methods are resolved once upon construction, and the handlers
+ * of each event class are resolved once upon its first dispatch.
+ */
+class EventSubscribers {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EventSubscribers.class);
+
+	private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Event.class);
+
+	private final List<Handler> handlers;
+
+	private final ClassValue<Handler[]> handlersByEventClass = new ClassValue<Handler[]>() {
+		@Override
+		protected Handler[] computeValue(Class<?> eventClass) {
+			return handlers.stream().filter(h -> h.eventType.isAssignableFrom(eventClass)).toArray(Handler[]::new);
+		}
+	};
+
+	/**
+	 * Constructor.
+	 *
+	 * @param listeners
+	 *            The listeners. Non-null.
+	 * @throws IllegalArgumentException
+	 *             if a listener has a malformed {@link EventSubscriber} method.
+	 */
+	public EventSubscribers(List<Object> listeners) {
+		Preconditions.checkNotNull(listeners, "listeners must be non-null.");
+
+		ImmutableList.Builder<Handler> handlersBuilder = ImmutableList.builder();
+		for (Object listener : listeners) {
+			handlersBuilder.addAll(resolveHandlers(listener));
+		}
+		this.handlers = handlersBuilder.build();
+	}
+
+	/**
+	 * Delivers an event to every handler which accepts it. Exceptions thrown by
+	 * handlers are logged, and don't stop the remaining handlers from running.
+	 *
+	 * @param event
+	 *            The event. Non-null.
+	 */
+	public void dispatch(Event event) {
+		Preconditions.checkNotNull(event, "event must be non-null.");
+
+		for (Handler handler : handlersByEventClass.get(event.getClass())) {
+			try {
+				handler.methodHandle.invokeExact(event);
+			} catch (Throwable e) {
+				LOG.error("Uncaught exception thrown by event listener {}.", handler.listenerName, e);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether any handler accepts events of exactly the given class. Cheap
+	 * enough to call for every event.
+	 *
+	 * @param eventClass
+	 *            The event class. Non-null.
+	 * @return True if {@link #dispatch(Event)} would deliver such events anywhere.
+	 */
+	public boolean accepts(Class<? extends Event> eventClass) {
+		Preconditions.checkNotNull(eventClass, "eventClass must be non-null.");
+
+		return handlersByEventClass.get(eventClass).length > 0;
+	}
+
+	/**
+	 * Checks whether any listener would receive events of the given type, or of a
+	 * subtype of it.
+	 *
+	 * @param eventType
+	 *            The event type. Non-null.
+	 * @return True if any listener would receive such events.
+	 */
+	public boolean isSubscribed(Class<? extends Event> eventType) {
+		Preconditions.checkNotNull(eventType, "eventType must be non-null.");
+
+		return handlers.stream()
+				.anyMatch(h -> h.eventType.isAssignableFrom(eventType) || eventType.isAssignableFrom(h.eventType));
+	}
+
+	private static List<Handler> resolveHandlers(Object listener) {
+		String listenerName = listener.getClass().getName();
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		List<Handler> handlers = new ArrayList<>();
+		try {
+			if (listener instanceof IListener) {
+				MethodHandle methodHandle = lookup
+						.findVirtual(IListener.class, "handle", MethodType.methodType(void.class, Event.class))
+						.bindTo(listener);
+				handlers.add(new Handler(resolveListenerEventType(listener.getClass()), methodHandle, listenerName));
+			}
+
+			for (Method method : MethodUtils.getMethodsListWithAnnotation(listener.getClass(), EventSubscriber.class)) {
+				Preconditions.checkArgument(
+						method.getParameterCount() == 1 && Event.class.isAssignableFrom(method.getParameterTypes()[0])
+								&& !Modifier.isStatic(method.getModifiers()),
+						"Event subscriber %s of %s must be an instance method with a single Event parameter.",
+						method.getName(), listenerName);
+
+				// Listener classes need not be public.
+				method.setAccessible(true);
+				MethodHandle methodHandle = lookup.unreflect(method).bindTo(listener).asType(HANDLER_TYPE);
+				handlers.add(new Handler(method.getParameterTypes()[0], methodHandle, listenerName));
+			}
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalArgumentException("Unable to access the event handlers of " + listenerName, e);
+		}
+
+		if (handlers.isEmpty()) {
+			LOG.warn("Listener {} doesn't handle any events.", listenerName);
+		}
+
+		return handlers;
+	}
+
+	/**
+	 * Finds the type argument that the listener class gives to {@link IListener},
+	 * falling back to {@link Event} if it can't be determined.
+	 */
+	private static Class<?> resolveListenerEventType(Class<?> listenerClass) {
+		for (Class<?> c = listenerClass; c != null; c = c.getSuperclass()) {
+			for (Type type : c.getGenericInterfaces()) {
+				if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == IListener.class) {
+					Type eventType = ((ParameterizedType) type).getActualTypeArguments()[0];
+					if (eventType instanceof Class) {
+						return (Class<?>) eventType;
+					}
+				}
+			}
+		}
+
+		return Event.class;
+	}
+
+	private static class Handler {
+		private final Class<?> eventType;
+		private final MethodHandle methodHandle;
+		private final String listenerName;
+
+		private Handler(Class<?> eventType, MethodHandle methodHandle, String listenerName) {
+			this.eventType = eventType;
+			this.methodHandle = methodHandle;
+			this.listenerName = listenerName;
+		}
+	}
+}
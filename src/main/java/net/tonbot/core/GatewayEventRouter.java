@@ -0,0 +1,301 @@
+package net.tonbot.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+
+import net.tonbot.common.Prefix;
+import net.tonbot.common.TonbotPlugin;
+import net.tonbot.core.request.EntityCache;
+import sx.blah.discord.api.events.Event;
+import sx.blah.discord.api.events.IListener;
+import sx.blah.discord.handle.impl.events.guild.GuildEvent;
+import sx.blah.discord.handle.impl.events.guild.channel.ChannelEvent;
+import sx.blah.discord.handle.impl.events.guild.channel.TypingEvent;
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageEvent;
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
+import sx.blah.discord.handle.impl.events.user.PresenceUpdateEvent;
+import sx.blah.discord.handle.obj.IGuild;
+
+/**
+ * The only listener registered with Discord4J. It classifies every gateway
+ * event by {@link EventPriority} and queues it in a {@link PriorityEventQueue},
+ * from which its own threads deliver the events to the {@link EntityCache} and
+ * the {@link EventDispatcher}, neither of which blocks. The raw listeners of the
+ * plugins may block, so the router threads hand the events to a
+ * {@link ChannelOrderedExecutor} of their own instead, where a slow listener
+ * only holds up the events of other raw listeners.<br/>
+ *
+ * Each thread has a queue of its own. The messages of a channel always go to
+ * the same queue, as do the state events of a guild, so that they are delivered
+ * in the order that they arrived. The raw listeners receive them in the same
+ * order, since their executor keys the events the same way. The capacities are
+ * divided between the queues.<br/>
+ *
+ * Messages which aren't commands are discarded on the calling thread, before
+ * they are ever queued, unless a raw listener subscribes to messages. Under
+ * load, ordinary chat is shed first, then commands. State events, such as
+ * {@code GuildCreateEvent}, are never dropped.
+ */
+class GatewayEventRouter implements IListener<Event>, GatewayEventRouterMXBean {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GatewayEventRouter.class);
+
+	static final String OBJECT_NAME = "net.tonbot:type=GatewayEventRouter";
+	private static final long POLL_TIMEOUT_MS = 1000;
+	private static final int LISTENER_STRIPES_PER_THREAD = 4;
+
+	private final String prefix;
+	private final DispatchConfig dispatchConfig;
+	private final RejectedExecutionHandlerImpl dispatchPoolRejectionHandler;
+	private final EventSubscribers coreSubscribers;
+	private final EventSubscribers listenerSubscribers;
+	private final PriorityEventQueue<Event>[] queues;
+	private final AtomicInteger nextQueue = new AtomicInteger();
+	private final boolean chatSubscribed;
+	private final LongAdder filteredCount = new LongAdder();
+
+	private ExecutorService workers;
+	private ChannelOrderedExecutor listenerExecutor;
+	private volatile boolean running = false;
+
+	@Inject
+	public GatewayEventRouter(@Prefix String prefix, DispatchConfig dispatchConfig,
+			RejectedExecutionHandlerImpl dispatchPoolRejectionHandler, EventDispatcher eventDispatcher,
+			EntityCache entityCache, List<TonbotPlugin> plugins) {
+		this.prefix = Preconditions.checkNotNull(prefix, "prefix must be non-null.");
+		this.dispatchConfig = Preconditions.checkNotNull(dispatchConfig, "dispatchConfig must be non-null.");
+		this.dispatchPoolRejectionHandler = Preconditions.checkNotNull(dispatchPoolRejectionHandler,
+				"dispatchPoolRejectionHandler must be non-null.");
+		Preconditions.checkNotNull(eventDispatcher, "eventDispatcher must be non-null.");
+		Preconditions.checkNotNull(entityCache, "entityCache must be non-null.");
+		Preconditions.checkNotNull(plugins, "plugins must be non-null.");
+
+		List<Object> rawListeners = plugins.stream().map(TonbotPlugin::getRawEventListeners)
+				.flatMap(Collection::stream).collect(Collectors.toList());
+		rawListeners.forEach(l -> LOG.debug("Registering raw listener {}", l.getClass().getName()));
+		this.coreSubscribers = new EventSubscribers(ImmutableList.of(entityCache, eventDispatcher));
+		this.listenerSubscribers = new EventSubscribers(rawListeners);
+
+		// Only the raw listeners can be interested in messages which aren't commands.
+		this.chatSubscribed = listenerSubscribers.isSubscribed(MessageReceivedEvent.class);
+		LOG.info("Messages which aren't commands will be {}.",
+				chatSubscribed ? "delivered to the raw listeners" : "discarded on arrival");
+
+		int threadCount = dispatchConfig.getEventThreads();
+		int capacity = Math.max(1, dispatchConfig.getEventQueueCapacity() / threadCount);
+		int chatCapacity = Math.max(1, dispatchConfig.getChatQueueCapacity() / threadCount);
+		this.queues = newQueues(threadCount, capacity, chatCapacity);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static PriorityEventQueue<Event>[] newQueues(int count, int capacity, int chatCapacity) {
+		PriorityEventQueue<Event>[] queues = new PriorityEventQueue[count];
+		for (int i = 0; i < count; i++) {
+			queues[i] = new PriorityEventQueue<>(capacity, chatCapacity);
+		}
+		return queues;
+	}
+
+	/**
+	 * Starts the threads which deliver events, and registers the metrics with the
+	 * platform MBean server.
+	 */
+	public synchronized void start() {
+		Preconditions.checkState(workers == null, "Router has already been started.");
+
+		running = true;
+
+		ThreadFactory tf = new ThreadFactoryBuilder().setNameFormat("Event Router Thread %d").build();
+		workers = Executors.newFixedThreadPool(queues.length, tf);
+
+		ThreadFactory listenerTf = new ThreadFactoryBuilder().setNameFormat("Raw Listener Thread %d").build();
+		int listenerStripes = Integer.highestOneBit(queues.length * LISTENER_STRIPES_PER_THREAD - 1) << 1;
+		listenerExecutor = new ChannelOrderedExecutor(Executors.newFixedThreadPool(queues.length, listenerTf),
+				listenerStripes);
+
+		for (PriorityEventQueue<Event> queue : queues) {
+			workers.execute(() -> deliverEvents(queue));
+		}
+
+		MBeans.register(this, OBJECT_NAME);
+	}
+
+	/**
+	 * Stops delivering events and waits a while for the events being delivered to
+	 * finish.
+	 *
+	 * @param timeout
+	 *            The maximum time to wait.
+	 * @param timeUnit
+	 *            The unit of {@code timeout}. Non-null.
+	 */
+	public synchronized void shutdown(long timeout, TimeUnit timeUnit) {
+		Preconditions.checkNotNull(timeUnit, "timeUnit must be non-null.");
+
+		if (workers == null) {
+			return;
+		}
+
+		running = false;
+		workers.shutdown();
+		try {
+			if (!workers.awaitTermination(timeout, timeUnit)) {
+				LOG.warn("Events were still being delivered after waiting {} {}.", timeout, timeUnit);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		listenerExecutor.shutdown(timeout, timeUnit);
+
+		MBeans.unregister(OBJECT_NAME);
+	}
+
+	@Override
+	public void handle(Event event) {
+		EventPriority priority = classify(event);
+
+		if (priority == EventPriority.CHAT && !chatSubscribed && event instanceof MessageReceivedEvent) {
+			filteredCount.increment();
+			return;
+		}
+
+		if (!queues[indexOf(keyOf(event, priority))].offer(event, priority)) {
+			LOG.debug("Dropped {} event {}.", priority, event.getClass().getSimpleName());
+		}
+	}
+
+	private EventPriority classify(Event event) {
+		if (event instanceof MessageReceivedEvent) {
+			MessageReceivedEvent messageEvent = (MessageReceivedEvent) event;
+
+			// Same as the checks done by the EventDispatcher, which ignores everything
+			// else.
+			if (messageEvent.getAuthor().isBot()
+					|| !StringUtils.startsWith(messageEvent.getMessage().getContent(), prefix)) {
+				return EventPriority.CHAT;
+			}
+
+			return EventPriority.COMMAND;
+		}
+
+		if (event instanceof MessageEvent || event instanceof TypingEvent || event instanceof PresenceUpdateEvent) {
+			return EventPriority.CHAT;
+		}
+
+		return EventPriority.STATE;
+	}
+
+	/**
+	 * Picks the key of an event, which decides its queue and its stripe of the
+	 * raw listeners' executor. The state events of a guild share a key, so that
+	 * the {@link EntityCache} never sees a deletion before the creation it undoes.
+	 * The other events of a channel share a key, while the remaining events are
+	 * spread out.
+	 */
+	private long keyOf(Event event, EventPriority priority) {
+		if (priority == EventPriority.STATE && event instanceof GuildEvent) {
+			IGuild guild = ((GuildEvent) event).getGuild();
+			if (guild != null) {
+				return guild.getLongID();
+			}
+		}
+
+		if (event instanceof MessageEvent) {
+			return ((MessageEvent) event).getChannel().getLongID();
+		} else if (event instanceof ChannelEvent) {
+			return ((ChannelEvent) event).getChannel().getLongID();
+		} else {
+			return nextQueue.getAndIncrement();
+		}
+	}
+
+	private int indexOf(long id) {
+		// Snowflake IDs have a timestamp in their upper bits and low entropy in their
+		// lower bits, so mix all of them.
+		long h = id * 0x9E3779B97F4A7C15L;
+		return Math.floorMod((int) (h ^ (h >>> 32)), queues.length);
+	}
+
+	private void deliverEvents(PriorityEventQueue<Event> queue) {
+		while (running) {
+			Event event;
+			try {
+				event = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			if (event != null) {
+				coreSubscribers.dispatch(event);
+				deliverToListeners(event);
+			}
+		}
+	}
+
+	private void deliverToListeners(Event event) {
+		if (!listenerSubscribers.accepts(event.getClass())) {
+			return;
+		}
+
+		try {
+			listenerExecutor.execute(keyOf(event, classify(event)), () -> listenerSubscribers.dispatch(event));
+		} catch (RejectedExecutionException e) {
+			LOG.debug("Dropped {} event for the raw listeners while shutting down.", event.getClass().getSimpleName());
+		}
+	}
+
+	@Override
+	public int getStateQueueDepth() {
+		return Arrays.stream(queues).mapToInt(q -> q.size(EventPriority.STATE)).sum();
+	}
+
+	@Override
+	public int getCommandQueueDepth() {
+		return Arrays.stream(queues).mapToInt(q -> q.size(EventPriority.COMMAND)).sum();
+	}
+
+	@Override
+	public int getChatQueueDepth() {
+		return Arrays.stream(queues).mapToInt(q -> q.size(EventPriority.CHAT)).sum();
+	}
+
+	@Override
+	public long getShedCount() {
+		return Arrays.stream(queues).mapToLong(PriorityEventQueue::getShedCount).sum();
+	}
+
+	@Override
+	public long getCommandRejectionCount() {
+		return Arrays.stream(queues).mapToLong(PriorityEventQueue::getRejectionCount).sum();
+	}
+
+	@Override
+	public long getFilteredCount() {
+		return filteredCount.sum();
+	}
+
+	@Override
+	public long getDispatchPoolRejectionCount() {
+		return dispatchPoolRejectionHandler.getRejectionCount();
+	}
+}
@@ -0,0 +1,45 @@
+package net.tonbot.core;
+
+/**
+ * The metrics of the {@link GatewayEventRouter}, as exposed over JMX.
+ */
+public interface GatewayEventRouterMXBean {
+
+	/**
+	 * @return The number of pending state events.
+	 */
+	int getStateQueueDepth();
+
+	/**
+	 * @return The number of pending command messages.
+	 */
+	int getCommandQueueDepth();
+
+	/**
+	 * @return The number of pending chat events.
+	 */
+	int getChatQueueDepth();
+
+	/**
+	 * @return The number of chat events that were shed.
+	 */
+	long getShedCount();
+
+	/**
+	 * @return The number of command messages that were rejected because the queue
+	 *         was full of other commands.
+	 */
+	long getCommandRejectionCount();
+
+	/**
+	 * @return The number of messages that were discarded on arrival because they
+	 *         weren't commands and no raw listener subscribes to messages.
+	 */
+	long getFilteredCount();
+
+	/**
+	 * @return The number of events that Discord4J's dispatch pool could not
+	 *         accept, and which were therefore run by the submitting thread.
+	 */
+	long getDispatchPoolRejectionCount();
+}
@@ -0,0 +1,72 @@
+package net.tonbot.core;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+
+/**
+ * Configuration of the {@link CommandJournal}. Every property is optional and
+ * falls back to a default when omitted from the config file.
+ */
+@Data
+class JournalConfig {
+
+	private static final int DEFAULT_MAX_FILE_SIZE_MB = 64;
+	private static final int DEFAULT_MAX_FILES = 20;
+	private static final int DEFAULT_BUFFER_SIZE_KB = 64;
+	private static final long DEFAULT_FLUSH_INTERVAL_MS = 1000;
+
+	private final boolean enabled;
+	private final int maxFileSizeMb;
+	private final int maxFiles;
+	private final int bufferSizeKb;
+	private final long flushIntervalMs;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param enabled
+	 *            Whether commands are journaled. Nullable. Defaults to false.
+	 * @param maxFileSizeMb
+	 *            The size in megabytes at which a new journal file is started.
+	 *            Nullable.
+	 * @param maxFiles
+	 *            The number of journal files to keep. Older files are deleted.
+	 *            Nullable.
+	 * @param bufferSizeKb
+	 *            The size in kilobytes of the buffer which records are batched
+	 *            in before they are written. Nullable.
+	 * @param flushIntervalMs
+	 *            The longest time in milliseconds that a record may wait in the
+	 *            buffer. Nullable.
+	 */
+	@JsonCreator
+	public JournalConfig(@JsonProperty("enabled") Boolean enabled, @JsonProperty("maxFileSizeMb") Integer maxFileSizeMb,
+			@JsonProperty("maxFiles") Integer maxFiles, @JsonProperty("bufferSizeKb") Integer bufferSizeKb,
+			@JsonProperty("flushIntervalMs") Long flushIntervalMs) {
+		this.enabled = enabled != null ? enabled : false;
+
+		this.maxFileSizeMb = maxFileSizeMb != null ? maxFileSizeMb : DEFAULT_MAX_FILE_SIZE_MB;
+		Preconditions.checkArgument(this.maxFileSizeMb > 0, "maxFileSizeMb must be positive.");
+
+		this.maxFiles = maxFiles != null ? maxFiles : DEFAULT_MAX_FILES;
+		Preconditions.checkArgument(this.maxFiles > 0, "maxFiles must be positive.");
+
+		this.bufferSizeKb = bufferSizeKb != null ? bufferSizeKb : DEFAULT_BUFFER_SIZE_KB;
+		Preconditions.checkArgument(this.bufferSizeKb > 0, "bufferSizeKb must be positive.");
+
+		this.flushIntervalMs = flushIntervalMs != null ? flushIntervalMs : DEFAULT_FLUSH_INTERVAL_MS;
+		Preconditions.checkArgument(this.flushIntervalMs > 0, "flushIntervalMs must be positive.");
+	}
+
+	/**
+	 * Creates a {@link JournalConfig} where every property has its default value.
+	 *
+	 * @return A default {@link JournalConfig}.
+	 */
+	public static JournalConfig defaults() {
+		return new JournalConfig(null, null, null, null, null);
+	}
+}
@@ -0,0 +1,40 @@
+package net.tonbot.core;
+
+import lombok.Data;
+
+/**
+ * A command read from a {@link CommandJournal}.
+ */
+@Data
+class JournalEntry {
+
+	private final long timestamp;
+	private final long guildId;
+	private final long channelId;
+	private final long userId;
+	private final long messageId;
+	private final String content;
+
+	/**
+	 * The class name of the matched activity. Null if no activity matched.
+	 */
+	private final String activityName;
+
+	/**
+	 * Null if the outcome is unknown to this version.
+	 */
+	private final CommandOutcome outcome;
+
+	private final long[] stageNanos;
+
+	/**
+	 * Gets the latency of a stage.
+	 *
+	 * @param stage
+	 *            {@link PipelineStage}. Non-null.
+	 * @return The latency in nanoseconds, or -1 if the stage wasn't reached.
+	 */
+	public long getStageNanos(PipelineStage stage) {
+		return stage.ordinal() < stageNanos.length ? stageNanos[stage.ordinal()] : -1;
+	}
+}
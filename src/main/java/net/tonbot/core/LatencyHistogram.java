@@ -0,0 +1,101 @@
+package net.tonbot.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, with log-linear buckets
+ * in the style of HdrHistogram.<br/>
+ *
+ * Latencies below 64 ns each get their own bucket. Above that, every power of
+ * two is split into 32 equally sized buckets, so the value reported for a
+ * percentile is never more than about 3% larger than the real one. Latencies
+ * above {@link #MAX_TRACKABLE_NANOS} are counted as that maximum.<br/>
+ *
+ * Recording is a single atomic increment, so many threads may record at once.
+ */
+class LatencyHistogram {
+
+	static final long MAX_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+
+	private static final int LINEAR_BITS = 6;
+	private static final int LINEAR_BUCKETS = 1 << LINEAR_BITS;
+	private static final int SUB_BUCKETS = LINEAR_BUCKETS / 2;
+
+	private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_TRACKABLE_NANOS) + 1);
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param nanos
+	 *            The latency in nanoseconds. Negative values are counted as 0.
+	 */
+	public void record(long nanos) {
+		long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+
+		counts.incrementAndGet(indexOf(value));
+		max.accumulate(value);
+	}
+
+	/**
+	 * Takes a snapshot of the recorded latencies. The snapshot isn't atomic with
+	 * respect to concurrent recordings, but every recording is either fully
+	 * included or not at all.
+	 *
+	 * @return A {@link LatencySnapshot}.
+	 */
+	public LatencySnapshot snapshot() {
+		long[] snapshotCounts = new long[counts.length()];
+		long total = 0;
+		for (int i = 0; i < snapshotCounts.length; i++) {
+			snapshotCounts[i] = counts.get(i);
+			total += snapshotCounts[i];
+		}
+
+		return new LatencySnapshot(total, valueAt(snapshotCounts, total, 0.5), valueAt(snapshotCounts, total, 0.99),
+				valueAt(snapshotCounts, total, 0.999), max.get());
+	}
+
+	private static long valueAt(long[] counts, long total, double percentile) {
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return highestValueOf(i);
+			}
+		}
+
+		return MAX_TRACKABLE_NANOS;
+	}
+
+	static int indexOf(long value) {
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+
+		// Keep the LINEAR_BITS most significant bits of the value. The top one is
+		// always set, so the rest select one of SUB_BUCKETS buckets.
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - (LINEAR_BITS - 1);
+		int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+
+		return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long highestValueOf(int index) {
+		if (index < LINEAR_BUCKETS) {
+			return index;
+		}
+
+		int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+		long mantissa = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,28 @@
+package net.tonbot.core;
+
+import java.beans.ConstructorProperties;
+
+import lombok.Data;
+
+/**
+ * A summary of the latencies recorded by a {@link LatencyHistogram}. All
+ * latencies are in nanoseconds.
+ */
+@Data
+public class LatencySnapshot {
+
+	private final long count;
+	private final long p50Nanos;
+	private final long p99Nanos;
+	private final long p999Nanos;
+	private final long maxNanos;
+
+	@ConstructorProperties({ "count", "p50Nanos", "p99Nanos", "p999Nanos", "maxNanos" })
+	public LatencySnapshot(long count, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+		this.count = count;
+		this.p50Nanos = p50Nanos;
+		this.p99Nanos = p99Nanos;
+		this.p999Nanos = p999Nanos;
+		this.maxNanos = maxNanos;
+	}
+}
@@ -3,10 +3,18 @@ package net.tonbot.core;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
 import org.apache.logging.log4j.core.appender.FileAppender;
+import org.apache.logging.log4j.core.appender.RollingRandomAccessFileAppender;
+import org.apache.logging.log4j.core.appender.rolling.DefaultRolloverStrategy;
+import org.apache.logging.log4j.core.appender.rolling.SizeBasedTriggeringPolicy;
+import org.apache.logging.log4j.core.config.AppenderRef;
 import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Configurator;
 import org.apache.logging.log4j.core.layout.PatternLayout;
 
 import com.google.common.base.Preconditions;
@@ -14,18 +22,25 @@ import com.google.common.base.Preconditions;
 class LoggerConfigurator {
 
 	private static final String APPLICATION_LOG_NAME = "application.log";
+	private static final String ROLLED_APPLICATION_LOG_PATTERN = "application-%i.log";
+	private static final String FILE_APPENDER_NAME = "File Appender";
+	private static final String ASYNC_APPENDER_NAME = "Async File Appender";
 
 	/**
 	 * Configures Log4j 2 by adding a file appender to the root logger. The file
 	 * named {@code application.log} will be located in a directory specified by
-	 * {@code logRootPath}.
+	 * {@code logRootPath}. In the {@link LoggingMode#ASYNC} mode, the file is
+	 * written by a background thread and rolled over once it gets too big.
 	 * 
 	 * @param logRootPath
 	 *            A path to a directory which will contain logs. Directory will be
 	 *            created if it doesn't exist. Non-null.
+	 * @param loggingConfig
+	 *            The {@link LoggingConfig}. Non-null.
 	 */
-	public static void configureLog4j(Path logRootPath) {
+	public static void configureLog4j(Path logRootPath, LoggingConfig loggingConfig) {
 		Preconditions.checkNotNull(logRootPath, "logRootPath must be non-null.");
+		Preconditions.checkNotNull(loggingConfig, "loggingConfig must be non-null.");
 
 		LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
 		Configuration config = ctx.getConfiguration();
@@ -34,11 +49,36 @@ class LoggerConfigurator {
 
 		Path applicationLogPath = Paths.get(logRootPath.toString(), APPLICATION_LOG_NAME);
 
-		FileAppender appender = FileAppender.newBuilder().withFileName(applicationLogPath.toString())
-				.withImmediateFlush(true).withLayout(layout).withAppend(true).withName("File Appender").build();
+		Appender appender;
+		if (loggingConfig.getMode() == LoggingMode.ASYNC) {
+			// Async appenders flush at the end of each batch, so there's no need to
+			// flush every record.
+			RollingRandomAccessFileAppender fileAppender = RollingRandomAccessFileAppender.newBuilder()
+					.withFileName(applicationLogPath.toString())
+					.withFilePattern(Paths.get(logRootPath.toString(), ROLLED_APPLICATION_LOG_PATTERN).toString())
+					.withPolicy(SizeBasedTriggeringPolicy.createPolicy(loggingConfig.getMaxFileSizeMb() + " MB"))
+					.withStrategy(DefaultRolloverStrategy.newBuilder()
+							.withMax(Integer.toString(loggingConfig.getMaxFiles())).withConfig(config).build())
+					.withImmediateFlush(false).withAppend(true).withLayout(layout).withName(FILE_APPENDER_NAME)
+					.setConfiguration(config).build();
+			fileAppender.start();
+			config.addAppender(fileAppender);
+
+			appender = AsyncAppender.newBuilder()
+					.setAppenderRefs(new AppenderRef[] { AppenderRef.createAppenderRef(FILE_APPENDER_NAME, null, null) })
+					.setBufferSize(loggingConfig.getBufferSize()).setBlocking(true).setIncludeLocation(false)
+					.setName(ASYNC_APPENDER_NAME).setConfiguration(config).build();
+		} else {
+			appender = FileAppender.newBuilder().withFileName(applicationLogPath.toString()).withImmediateFlush(true)
+					.withLayout(layout).withAppend(true).withName(FILE_APPENDER_NAME).build();
+		}
+
 		appender.start();
 		config.addAppender(appender);
 		ctx.getRootLogger().addAppender(appender);
 
+		if (loggingConfig.getLevel() != null) {
+			Configurator.setRootLevel(Level.toLevel(loggingConfig.getLevel()));
+		}
 	}
 }
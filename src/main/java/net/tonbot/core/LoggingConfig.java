@@ -0,0 +1,78 @@
+package net.tonbot.core;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+
+/**
+ * Configuration of the application log. Every property is optional and falls
+ * back to a default when omitted from the config file.
+ */
+@Data
+class LoggingConfig {
+
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	private static final int DEFAULT_MAX_FILE_SIZE_MB = 100;
+	private static final int DEFAULT_MAX_FILES = 10;
+	private static final int DEFAULT_COMMAND_LOG_SAMPLING = 1;
+
+	private final LoggingMode mode;
+	private final String level;
+	private final int bufferSize;
+	private final int maxFileSizeMb;
+	private final int maxFiles;
+	private final int commandLogSampling;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param mode
+	 *            The {@link LoggingMode}. Nullable.
+	 * @param level
+	 *            The level of the root logger, such as {@code info}. If null, the
+	 *            level in {@code log4j2.xml} is kept.
+	 * @param bufferSize
+	 *            The number of records that may wait to be written in the
+	 *            {@link LoggingMode#ASYNC} mode. Nullable.
+	 * @param maxFileSizeMb
+	 *            The size in megabytes at which the log file is rolled over in the
+	 *            {@link LoggingMode#ASYNC} mode. Nullable.
+	 * @param maxFiles
+	 *            The number of rolled over log files to keep in the
+	 *            {@link LoggingMode#ASYNC} mode. Nullable.
+	 * @param commandLogSampling
+	 *            One in this many commands has its details logged at INFO level.
+	 *            1 means that every command is logged. Nullable.
+	 */
+	@JsonCreator
+	public LoggingConfig(@JsonProperty("mode") LoggingMode mode, @JsonProperty("level") String level,
+			@JsonProperty("bufferSize") Integer bufferSize,
+			@JsonProperty("maxFileSizeMb") Integer maxFileSizeMb, @JsonProperty("maxFiles") Integer maxFiles,
+			@JsonProperty("commandLogSampling") Integer commandLogSampling) {
+		this.mode = mode != null ? mode : LoggingMode.SYNC;
+		this.level = level;
+
+		this.bufferSize = bufferSize != null ? bufferSize : DEFAULT_BUFFER_SIZE;
+		Preconditions.checkArgument(this.bufferSize > 0, "bufferSize must be positive.");
+
+		this.maxFileSizeMb = maxFileSizeMb != null ? maxFileSizeMb : DEFAULT_MAX_FILE_SIZE_MB;
+		Preconditions.checkArgument(this.maxFileSizeMb > 0, "maxFileSizeMb must be positive.");
+
+		this.maxFiles = maxFiles != null ? maxFiles : DEFAULT_MAX_FILES;
+		Preconditions.checkArgument(this.maxFiles > 0, "maxFiles must be positive.");
+
+		this.commandLogSampling = commandLogSampling != null ? commandLogSampling : DEFAULT_COMMAND_LOG_SAMPLING;
+		Preconditions.checkArgument(this.commandLogSampling > 0, "commandLogSampling must be positive.");
+	}
+
+	/**
+	 * Creates a {@link LoggingConfig} where every property has its default value.
+	 *
+	 * @return A default {@link LoggingConfig}.
+	 */
+	public static LoggingConfig defaults() {
+		return new LoggingConfig(null, null, null, null, null, null);
+	}
+}
@@ -0,0 +1,23 @@
+package net.tonbot.core;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * How the application log is written.
+ */
+enum LoggingMode {
+
+	/**
+	 * Every record is written and flushed to a single file by the thread which
+	 * logged it.
+	 */
+	@JsonProperty("sync")
+	SYNC,
+
+	/**
+	 * Records are handed to a bounded buffer and written by a background thread
+	 * to a rolling random access file, which is flushed once per batch of records.
+	 */
+	@JsonProperty("async")
+	ASYNC
+}
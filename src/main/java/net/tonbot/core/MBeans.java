@@ -0,0 +1,66 @@
+package net.tonbot.core;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Registers metrics with the platform MBean server. Metrics are only ever for
+ * monitoring, so failures are logged rather than thrown.
+ */
+class MBeans {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MBeans.class);
+
+	private MBeans() {
+	}
+
+	/**
+	 * Registers an MBean, replacing any MBean already registered with the same
+	 * name.
+	 *
+	 * @param mBean
+	 *            The MBean. Non-null.
+	 * @param objectName
+	 *            The object name. Non-null.
+	 */
+	public static void register(Object mBean, String objectName) {
+		Preconditions.checkNotNull(mBean, "mBean must be non-null.");
+		Preconditions.checkNotNull(objectName, "objectName must be non-null.");
+
+		try {
+			ObjectName name = new ObjectName(objectName);
+			if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+			}
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mBean, name);
+		} catch (JMException e) {
+			LOG.warn("Unable to register MBean {}.", objectName, e);
+		}
+	}
+
+	/**
+	 * Unregisters an MBean, if it is registered.
+	 *
+	 * @param objectName
+	 *            The object name. Non-null.
+	 */
+	public static void unregister(String objectName) {
+		Preconditions.checkNotNull(objectName, "objectName must be non-null.");
+
+		try {
+			ObjectName name = new ObjectName(objectName);
+			if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			LOG.debug("Unable to unregister MBean {}.", objectName, e);
+		}
+	}
+}
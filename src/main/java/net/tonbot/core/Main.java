@@ -28,15 +28,17 @@ public class Main {
 		String configDir = cmd.getOptionValue(CONFIG_DIR_LONG_OPT);
 		ConfigManager configMgr = new ConfigManager(configDir);
 
+		// The config decides how logs are written, so it has to be read before the
+		// log file is set up.
+		configMgr.initConfigDir();
+		Config config = configMgr.readConfig();
+
 		Path logsDirPath = Paths.get(configMgr.getConfigDirPath().toString(), LOGS_DIR_NAME);
-		LoggerConfigurator.configureLog4j(logsDirPath);
+		LoggerConfigurator.configureLog4j(logsDirPath, config.getLogging());
 
 		LOG.info("Tonbot initializing...");
 
-		LOG.info("Reading config from {}", configMgr.getConfigDirPath().toString());
-		configMgr.initConfigDir();
-
-		Config config = configMgr.readConfig();
+		LOG.info("Read config from {}", configMgr.getConfigDirPath().toString());
 
 		String botUserToken = config.getDiscordBotToken();
 
@@ -49,7 +51,9 @@ public class Main {
 
 		Tonbot bot = Guice
 				.createInjector(new TonbotModule(botUserToken, config.getPrefix(), config.getPluginNames(),
-						configMgr.getConfigDirPath().toString(), config.getAliases(), config.getColor()))
+						configMgr.getConfigDirPath().toString(), config.getAliases(), config.getColor(),
+						config.getDispatch(), config.getRateLimits(), config.getLogging(),
+						config.getJournal()))
 				.getInstance(Tonbot.class);
 
 		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -0,0 +1,123 @@
+package net.tonbot.core;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+
+import net.tonbot.common.Activity;
+
+/**
+ * Latency histograms of each {@link PipelineStage}, overall and per activity.
+ * The histograms are created upon construction, so recording a latency never
+ * allocates or locks.
+ */
+class PipelineMetrics implements PipelineMetricsMXBean {
+
+	static final String OBJECT_NAME = "net.tonbot:type=PipelineMetrics";
+
+	private final Map<PipelineStage, LatencyHistogram> stageHistograms;
+	private final Map<Activity, Map<PipelineStage, LatencyHistogram>> activityHistograms;
+	private final Map<Activity, String> activityNames;
+
+	@Inject
+	public PipelineMetrics(Set<Activity> activities) {
+		Preconditions.checkNotNull(activities, "activities must be non-null.");
+
+		this.stageHistograms = new EnumMap<>(PipelineStage.class);
+		for (PipelineStage stage : PipelineStage.values()) {
+			stageHistograms.put(stage, new LatencyHistogram());
+		}
+
+		this.activityHistograms = new IdentityHashMap<>();
+		this.activityNames = new IdentityHashMap<>();
+		Set<String> takenNames = new HashSet<>();
+		for (Activity activity : activities) {
+			Map<PipelineStage, LatencyHistogram> histograms = new EnumMap<>(PipelineStage.class);
+			for (PipelineStage stage : PipelineStage.values()) {
+				if (stage.isPerActivity()) {
+					histograms.put(stage, new LatencyHistogram());
+				}
+			}
+
+			activityHistograms.put(activity, histograms);
+			activityNames.put(activity, uniqueName(activity, takenNames));
+		}
+	}
+
+	/**
+	 * Names an activity by its class and route, since a plugin may configure
+	 * several instances of the same class. Should two activities still have the
+	 * same name, the later one is numbered.
+	 */
+	private static String uniqueName(Activity activity, Set<String> takenNames) {
+		String name = activity.getClass().getName() + "[" + activity.getDescriptor().getRoute() + "]";
+
+		String uniqueName = name;
+		for (int i = 2; !takenNames.add(uniqueName); i++) {
+			uniqueName = name + "#" + i;
+		}
+
+		return uniqueName;
+	}
+
+	/**
+	 * Records the latency of a stage which doesn't depend on the activity.
+	 *
+	 * @param stage
+	 *            {@link PipelineStage}. Non-null.
+	 * @param nanos
+	 *            The latency in nanoseconds.
+	 */
+	public void record(PipelineStage stage, long nanos) {
+		stageHistograms.get(stage).record(nanos);
+	}
+
+	/**
+	 * Records the latency of a stage for an activity.
+	 *
+	 * @param stage
+	 *            A per-activity {@link PipelineStage}. Non-null.
+	 * @param activity
+	 *            The {@link Activity}. Non-null.
+	 * @param nanos
+	 *            The latency in nanoseconds.
+	 */
+	public void record(PipelineStage stage, Activity activity, long nanos) {
+		stageHistograms.get(stage).record(nanos);
+
+		Map<PipelineStage, LatencyHistogram> histograms = activityHistograms.get(activity);
+		if (histograms != null && stage.isPerActivity()) {
+			histograms.get(stage).record(nanos);
+		}
+	}
+
+	@Override
+	public Map<String, LatencySnapshot> getStageLatencies() {
+		Map<String, LatencySnapshot> snapshots = new TreeMap<>();
+		for (Entry<PipelineStage, LatencyHistogram> entry : stageHistograms.entrySet()) {
+			snapshots.put(entry.getKey().name(), entry.getValue().snapshot());
+		}
+
+		return snapshots;
+	}
+
+	@Override
+	public Map<String, LatencySnapshot> getActivityLatencies() {
+		Map<String, LatencySnapshot> snapshots = new TreeMap<>();
+		for (Entry<Activity, Map<PipelineStage, LatencyHistogram>> activityEntry : activityHistograms.entrySet()) {
+			String activityName = activityNames.get(activityEntry.getKey());
+			for (Entry<PipelineStage, LatencyHistogram> entry : activityEntry.getValue().entrySet()) {
+				snapshots.put(activityName + " " + entry.getKey().name(), entry.getValue().snapshot());
+			}
+		}
+
+		return snapshots;
+	}
+}
@@ -0,0 +1,23 @@
+package net.tonbot.core;
+
+import java.util.Map;
+
+/**
+ * The latencies of the command pipeline, as exposed over JMX.
+ */
+public interface PipelineMetricsMXBean {
+
+	/**
+	 * @return The latencies of each {@link PipelineStage}, keyed by the stage's
+	 *         name.
+	 */
+	Map<String, LatencySnapshot> getStageLatencies();
+
+	/**
+	 * @return The latencies of each per-activity {@link PipelineStage}, keyed by
+	 *         the activity's class name followed by its route in brackets, and
+	 *         the stage's name, separated by a space. For example,
+	 *         {@code net.tonbot.core.HelpActivity[help] ENACTMENT}.
+	 */
+	Map<String, LatencySnapshot> getActivityLatencies();
+}
@@ -0,0 +1,51 @@
+package net.tonbot.core;
+
+/**
+ * The stages that a command goes through in the {@link EventDispatcher}.
+ */
+enum PipelineStage {
+
+	/**
+	 * Applying the rate limits of the author and guild.
+	 */
+	ADMISSION(false),
+
+	/**
+	 * Checking the message's limits and splitting it into tokens.
+	 */
+	TOKENIZATION(false),
+
+	/**
+	 * Finding the activity whose route matches the tokens.
+	 */
+	MATCHING(false),
+
+	/**
+	 * Checking whether the author may use the activity.
+	 */
+	PERMISSION_CHECK(true),
+
+	/**
+	 * Mapping the arguments to the activity's request.
+	 */
+	REQUEST_MAPPING(true),
+
+	/**
+	 * Running the activity.
+	 */
+	ENACTMENT(true);
+
+	private final boolean perActivity;
+
+	private PipelineStage(boolean perActivity) {
+		this.perActivity = perActivity;
+	}
+
+	/**
+	 * @return True if the activity is known by the time this stage runs, so its
+	 *         latencies are also broken down by activity.
+	 */
+	public boolean isPerActivity() {
+		return perActivity;
+	}
+}
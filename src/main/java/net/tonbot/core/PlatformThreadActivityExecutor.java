@@ -0,0 +1,46 @@
+package net.tonbot.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * An {@link ActivityExecutor} which runs activities on a fixed number of
+ * platform threads.
+ */
+class PlatformThreadActivityExecutor implements ActivityExecutor {
+
+	private final ChannelOrderedExecutor executor;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threadCount
+	 *            The number of threads. Must be positive.
+	 * @param channelStripes
+	 *            The number of stripes that channels are hashed onto. Must be a
+	 *            positive power of two.
+	 */
+	public PlatformThreadActivityExecutor(int threadCount, int channelStripes) {
+		Preconditions.checkArgument(threadCount > 0, "threadCount must be positive.");
+
+		ThreadFactory tf = new ThreadFactoryBuilder().setNameFormat("Activity Thread %d").build();
+		ExecutorService workers = Executors.newFixedThreadPool(threadCount, tf);
+
+		this.executor = new ChannelOrderedExecutor(workers, channelStripes);
+	}
+
+	@Override
+	public void execute(long channelId, Runnable activity) {
+		executor.execute(channelId, activity);
+	}
+
+	@Override
+	public void shutdown(long timeout, TimeUnit timeUnit) {
+		executor.shutdown(timeout, timeUnit);
+	}
+}
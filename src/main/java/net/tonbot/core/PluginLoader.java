@@ -124,7 +124,15 @@ class PluginLoader {
 		return plugin;
 	}
 
-	private TonbotPluginArgs getPluginArgs(String pluginClassName, String prefix, IDiscordClient discordClient,
+	/**
+	 * Creates the arguments of a plugin, whose files are kept in a directory named
+	 * after the plugin's class.
+	 *
+	 * @param pluginClassName
+	 *            The fully qualified {@link TonbotPlugin} class name. Non-null.
+	 * @return The {@link TonbotPluginArgs}. Non-null.
+	 */
+	TonbotPluginArgs getPluginArgs(String pluginClassName, String prefix, IDiscordClient discordClient,
 			BotUtils botUtils, Color color) {
 
 		File configFile = new File(configDir + "/plugins/" + pluginClassName + "/config.json");
@@ -0,0 +1,193 @@
+package net.tonbot.core;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A queue of pending events with one lane per {@link EventPriority}. Events are
+ * taken from the most important non-empty lane.<br/>
+ *
+ * The {@link EventPriority#STATE} lane is unbounded. The
+ * {@link EventPriority#COMMAND} and {@link EventPriority#CHAT} lanes share a
+ * capacity, and the chat lane has a smaller capacity of its own. When the
+ * shared capacity is used up, a new command sheds the oldest chat event. Chat
+ * events are shed on arrival when there is no room for them.
+ */
+class PriorityEventQueue<E> {
+
+	private final int capacity;
+	private final int chatCapacity;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+
+	// Guarded by lock.
+	private final Map<EventPriority, ArrayDeque<E>> lanes;
+	private int boundedSize = 0;
+
+	private final LongAdder shedCount = new LongAdder();
+	private final LongAdder rejectionCount = new LongAdder();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            The number of command and chat events that may be pending at
+	 *            once. Must be positive.
+	 * @param chatCapacity
+	 *            The number of chat events that may be pending at once. Must be
+	 *            positive.
+	 */
+	public PriorityEventQueue(int capacity, int chatCapacity) {
+		Preconditions.checkArgument(capacity > 0, "capacity must be positive.");
+		Preconditions.checkArgument(chatCapacity > 0, "chatCapacity must be positive.");
+
+		this.capacity = capacity;
+		this.chatCapacity = chatCapacity;
+
+		this.lanes = new EnumMap<>(EventPriority.class);
+		for (EventPriority priority : EventPriority.values()) {
+			lanes.put(priority, new ArrayDeque<>());
+		}
+	}
+
+	/**
+	 * Adds an event to the lane of its priority. Never blocks.
+	 *
+	 * @param event
+	 *            The event. Non-null.
+	 * @param priority
+	 *            The {@link EventPriority}. Non-null.
+	 * @return True if the event was added. False if it was rejected, which never
+	 *         happens to {@link EventPriority#STATE} events.
+	 */
+	public boolean offer(E event, EventPriority priority) {
+		Preconditions.checkNotNull(event, "event must be non-null.");
+		Preconditions.checkNotNull(priority, "priority must be non-null.");
+
+		lock.lock();
+		try {
+			ArrayDeque<E> chatLane = lanes.get(EventPriority.CHAT);
+
+			switch (priority) {
+			case STATE:
+				break;
+			case COMMAND:
+				if (boundedSize >= capacity) {
+					if (chatLane.isEmpty()) {
+						rejectionCount.increment();
+						return false;
+					}
+
+					chatLane.pollFirst();
+					boundedSize--;
+					shedCount.increment();
+				}
+				boundedSize++;
+				break;
+			case CHAT:
+				if (boundedSize >= capacity || chatLane.size() >= chatCapacity) {
+					shedCount.increment();
+					return false;
+				}
+				boundedSize++;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown priority " + priority);
+			}
+
+			lanes.get(priority).addLast(event);
+			notEmpty.signal();
+
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes the oldest event of the most important non-empty lane, waiting up to
+	 * the given time for one to arrive.
+	 *
+	 * @param timeout
+	 *            The maximum time to wait.
+	 * @param timeUnit
+	 *            The unit of {@code timeout}. Non-null.
+	 * @return The event, or null if none arrived in time.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting.
+	 */
+	public E poll(long timeout, TimeUnit timeUnit) throws InterruptedException {
+		Preconditions.checkNotNull(timeUnit, "timeUnit must be non-null.");
+
+		long remainingNanos = timeUnit.toNanos(timeout);
+
+		lock.lockInterruptibly();
+		try {
+			while (true) {
+				for (EventPriority priority : EventPriority.values()) {
+					E event = lanes.get(priority).pollFirst();
+					if (event != null) {
+						if (priority != EventPriority.STATE) {
+							boundedSize--;
+						}
+						return event;
+					}
+				}
+
+				if (remainingNanos <= 0) {
+					return null;
+				}
+
+				remainingNanos = notEmpty.awaitNanos(remainingNanos);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of pending events of a priority.
+	 *
+	 * @param priority
+	 *            The {@link EventPriority}. Non-null.
+	 * @return The number of pending events.
+	 */
+	public int size(EventPriority priority) {
+		Preconditions.checkNotNull(priority, "priority must be non-null.");
+
+		lock.lock();
+		try {
+			return lanes.get(priority).size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of chat events that were shed, either on arrival or to make
+	 * room for commands.
+	 *
+	 * @return The number of shed events.
+	 */
+	public long getShedCount() {
+		return shedCount.sum();
+	}
+
+	/**
+	 * Gets the number of commands that were rejected because the queue was full of
+	 * other commands.
+	 *
+	 * @return The number of rejected commands.
+	 */
+	public long getRejectionCount() {
+		return rejectionCount.sum();
+	}
+}
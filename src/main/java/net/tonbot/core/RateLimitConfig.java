@@ -0,0 +1,83 @@
+package net.tonbot.core;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+
+/**
+ * Configuration of the per-user and per-guild rate limits on commands. Every
+ * property is optional and falls back to a default when omitted from the config
+ * file.
+ */
+@Data
+class RateLimitConfig {
+
+	private static final TokenBucketConfig DEFAULT_USER_BUCKET = new TokenBucketConfig(5, 0.5);
+	private static final TokenBucketConfig DEFAULT_GUILD_BUCKET = new TokenBucketConfig(30, 5);
+	private static final long DEFAULT_NOTICE_INTERVAL_MS = 30000;
+	private static final long DEFAULT_IDLE_EVICTION_MS = 600000;
+	private static final long DEFAULT_SUGGESTION_INTERVAL_MS = 10000;
+
+	private final boolean enabled;
+	private final TokenBucketConfig userBucket;
+	private final TokenBucketConfig guildBucket;
+	private final long noticeIntervalMs;
+	private final long idleEvictionMs;
+	private final long suggestionIntervalMs;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param enabled
+	 *            Whether commands are rate limited at all. Nullable.
+	 * @param userBucket
+	 *            The bucket of each user. Nullable.
+	 * @param guildBucket
+	 *            The bucket of each guild. Nullable.
+	 * @param noticeIntervalMs
+	 *            The minimum number of milliseconds between two notices to the
+	 *            same user that they are being rate limited, and between two
+	 *            notices to the same channel that an activity is busy. If 0, no
+	 *            notices are sent. Nullable.
+	 * @param idleEvictionMs
+	 *            The number of milliseconds after which a full bucket is
+	 *            forgotten. Nullable.
+	 * @param suggestionIntervalMs
+	 *            The minimum number of milliseconds between two "did you mean"
+	 *            suggestions in the same channel. If 0, no suggestions are sent.
+	 *            Nullable.
+	 */
+	@JsonCreator
+	public RateLimitConfig(@JsonProperty("enabled") Boolean enabled,
+			@JsonProperty("userBucket") TokenBucketConfig userBucket,
+			@JsonProperty("guildBucket") TokenBucketConfig guildBucket,
+			@JsonProperty("noticeIntervalMs") Long noticeIntervalMs,
+			@JsonProperty("idleEvictionMs") Long idleEvictionMs,
+			@JsonProperty("suggestionIntervalMs") Long suggestionIntervalMs) {
+		this.enabled = enabled != null ? enabled : true;
+		this.userBucket = userBucket != null ? userBucket : DEFAULT_USER_BUCKET;
+		this.guildBucket = guildBucket != null ? guildBucket : DEFAULT_GUILD_BUCKET;
+
+		this.noticeIntervalMs = noticeIntervalMs != null ? noticeIntervalMs : DEFAULT_NOTICE_INTERVAL_MS;
+		Preconditions.checkArgument(this.noticeIntervalMs >= 0, "noticeIntervalMs must be non-negative.");
+
+		this.idleEvictionMs = idleEvictionMs != null ? idleEvictionMs : DEFAULT_IDLE_EVICTION_MS;
+		Preconditions.checkArgument(this.idleEvictionMs >= 0, "idleEvictionMs must be non-negative.");
+
+		this.suggestionIntervalMs = suggestionIntervalMs != null ? suggestionIntervalMs
+				: DEFAULT_SUGGESTION_INTERVAL_MS;
+		Preconditions.checkArgument(this.suggestionIntervalMs >= 0, "suggestionIntervalMs must be non-negative.");
+	}
+
+	/**
+	 * Creates a {@link RateLimitConfig} where every property has its default
+	 * value.
+	 *
+	 * @return A default {@link RateLimitConfig}.
+	 */
+	public static RateLimitConfig defaults() {
+		return new RateLimitConfig(null, null, null, null, null, null);
+	}
+}
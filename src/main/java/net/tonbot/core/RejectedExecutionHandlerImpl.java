@@ -3,23 +3,51 @@ package net.tonbot.core;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Handles Discord4J's dispatch pool overflowing. Tonbot's own listeners are
+ * delivered to by the {@link GatewayEventRouter} rather than by this pool, so
+ * the pool should rarely fill up. If it does, the task is run by the submitting
+ * thread instead of being dropped. This slows down the gateway reader a little,
+ * which is the backpressure we want, and guarantees that no event is lost.
+ */
 class RejectedExecutionHandlerImpl implements RejectedExecutionHandler {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RejectedExecutionHandlerImpl.class);
 
+	private final LongAdder rejectionCount = new LongAdder();
+
 	@Override
 	public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-		BlockingQueue<Runnable> queue = executor.getQueue();
+		if (executor.isShutdown()) {
+			LOG.debug("Dropped an event because the dispatch pool has been shut down.");
+			return;
+		}
+
+		rejectionCount.increment();
 
-		LOG.error(
-				"Unable to handle event because thread pool is full.\n"
-						+ "Core pool size: {}, Maximum: {}, Current: {}, Active: {}, Queue size: {}/{}",
-				executor.getCorePoolSize(), executor.getMaximumPoolSize(), executor.getPoolSize(),
-				executor.getActiveCount(), queue.size(), queue.size() + queue.remainingCapacity());
+		if (LOG.isDebugEnabled()) {
+			BlockingQueue<Runnable> queue = executor.getQueue();
+			LOG.debug(
+					"Dispatch pool is full, so the event will be handled by the submitting thread.\n"
+							+ "Core pool size: {}, Maximum: {}, Current: {}, Active: {}, Queue size: {}/{}",
+					executor.getCorePoolSize(), executor.getMaximumPoolSize(), executor.getPoolSize(),
+					executor.getActiveCount(), queue.size(), queue.size() + queue.remainingCapacity());
+		}
+
+		r.run();
 	}
 
+	/**
+	 * Gets the number of tasks that the dispatch pool rejected.
+	 *
+	 * @return The number of rejected tasks.
+	 */
+	public long getRejectionCount() {
+		return rejectionCount.sum();
+	}
 }
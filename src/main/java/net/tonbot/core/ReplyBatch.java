@@ -0,0 +1,139 @@
+package net.tonbot.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import sx.blah.discord.handle.obj.IChannel;
+
+/**
+ * Collects the plain text replies that activities send to a channel while the
+ * commands of a multi-command message are enacted on the current thread, so
+ * that they can be merged into as few messages as Discord allows. Replies to
+ * other channels are sent as usual. So are embeds, files and replies which are
+ * deleted after a delay, but only after the replies collected so far, which
+ * {@link #drain(IChannel)} hands over, so that the replies to a message keep
+ * their order.
+ */
+class ReplyBatch {
+
+	/**
+	 * The most characters that Discord allows in a message.
+	 */
+	static final int MAX_MESSAGE_LENGTH = 2000;
+
+	private static final ThreadLocal<ReplyBatch> CURRENT = new ThreadLocal<>();
+
+	private final IChannel channel;
+	private final List<String> replies = new ArrayList<>();
+
+	private ReplyBatch(IChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Starts collecting the replies to a channel on the current thread.
+	 *
+	 * @param channel
+	 *            The channel. Non-null.
+	 * @return The {@link ReplyBatch}, which must be closed on the same thread.
+	 * @throws IllegalStateException
+	 *             if the current thread is already collecting replies.
+	 */
+	public static ReplyBatch open(IChannel channel) {
+		Preconditions.checkNotNull(channel, "channel must be non-null.");
+		Preconditions.checkState(CURRENT.get() == null, "A reply batch is already open on this thread.");
+
+		ReplyBatch batch = new ReplyBatch(channel);
+		CURRENT.set(batch);
+		return batch;
+	}
+
+	/**
+	 * Adds a reply to the batch of the current thread, if there is one for the
+	 * channel.
+	 *
+	 * @param channel
+	 *            The channel that the reply is for. Non-null.
+	 * @param message
+	 *            The reply. Non-null.
+	 * @return True if the reply was added, in which case it must not be sent.
+	 */
+	public static boolean offer(IChannel channel, String message) {
+		ReplyBatch batch = CURRENT.get();
+		if (batch == null || !batch.channel.equals(channel)) {
+			return false;
+		}
+
+		batch.replies.add(message);
+		return true;
+	}
+
+	/**
+	 * Takes the replies collected so far by the batch of the current thread, if
+	 * there is one for the channel, so that they can be sent ahead of a message
+	 * which can't be batched. The batch stays open.
+	 *
+	 * @param channel
+	 *            The channel that the message is for. Non-null.
+	 * @return The collected replies, merged into as few messages as possible.
+	 *         Empty if there are none.
+	 */
+	public static List<String> drain(IChannel channel) {
+		ReplyBatch batch = CURRENT.get();
+		if (batch == null || !batch.channel.equals(channel) || batch.replies.isEmpty()) {
+			return ImmutableList.of();
+		}
+
+		List<String> merged = merge(batch.replies, MAX_MESSAGE_LENGTH);
+		batch.replies.clear();
+		return merged;
+	}
+
+	/**
+	 * Stops collecting replies.
+	 *
+	 * @return The collected replies, merged into as few messages as possible.
+	 */
+	public List<String> close() {
+		Preconditions.checkState(CURRENT.get() == this, "This reply batch isn't open on this thread.");
+		CURRENT.remove();
+
+		return merge(replies, MAX_MESSAGE_LENGTH);
+	}
+
+	/**
+	 * Joins replies with line breaks, starting a new message whenever the next
+	 * reply wouldn't fit. A reply which is too long by itself is left as is.
+	 *
+	 * @param replies
+	 *            The replies. Non-null.
+	 * @param maxLength
+	 *            The most characters in a merged message.
+	 * @return The merged messages.
+	 */
+	static List<String> merge(List<String> replies, int maxLength) {
+		ImmutableList.Builder<String> merged = ImmutableList.builder();
+
+		StringBuilder sb = new StringBuilder();
+		for (String reply : replies) {
+			if (sb.length() > 0 && sb.length() + 1 + reply.length() > maxLength) {
+				merged.add(sb.toString());
+				sb.setLength(0);
+			}
+
+			if (sb.length() > 0) {
+				sb.append('\n');
+			}
+			sb.append(reply);
+		}
+
+		if (sb.length() > 0) {
+			merged.add(sb.toString());
+		}
+
+		return merged.build();
+	}
+}
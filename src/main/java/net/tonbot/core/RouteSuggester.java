@@ -0,0 +1,250 @@
+package net.tonbot.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+
+import net.tonbot.common.Activity;
+import net.tonbot.common.Route;
+
+/**
+ * Suggests the routes which are closest to a command that didn't match any
+ * route. The natural routes and the aliases are indexed into one BK-tree per
+ * number of tokens once upon construction, so a lookup only measures the edit
+ * distance to the few routes that could be close enough instead of to every
+ * route. Edit distances ignore case.
+ */
+class RouteSuggester {
+
+	/**
+	 * The most routes that are suggested for one command.
+	 */
+	static final int MAX_SUGGESTIONS = 3;
+
+	private final BkTree[] treesByTokenCount;
+
+	@Inject
+	public RouteSuggester(Set<Activity> activities, Aliases aliases) {
+		this(collectRoutes(activities, aliases));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param routes
+	 *            The routes to suggest, and the activities they lead to. Where
+	 *            two routes are equal, the first is kept. Non-null.
+	 */
+	RouteSuggester(List<ActivityMatch> routes) {
+		Preconditions.checkNotNull(routes, "routes must be non-null.");
+
+		int maxTokenCount = routes.stream().mapToInt(r -> r.getMatchedRoute().getPath().size()).max().orElse(0);
+		this.treesByTokenCount = new BkTree[maxTokenCount + 1];
+		for (ActivityMatch route : routes) {
+			int tokenCount = route.getMatchedRoute().getPath().size();
+			if (tokenCount == 0) {
+				continue;
+			}
+
+			if (treesByTokenCount[tokenCount] == null) {
+				treesByTokenCount[tokenCount] = new BkTree();
+			}
+			treesByTokenCount[tokenCount].add(normalize(route.getMatchedRoute().getPath()), route);
+		}
+	}
+
+	/**
+	 * Finds the routes within a small edit distance of the leading tokens of a
+	 * command. Each route is compared to as many tokens as it has. A route is
+	 * close enough if it's at most 1 edit away, or 2 edits if the compared tokens
+	 * have more than 3 characters.
+	 *
+	 * @param tokens
+	 *            The tokens of the command. Non-null.
+	 * @return Up to {@link #MAX_SUGGESTIONS} matches, the closest first, with at
+	 *         most one route per activity.
+	 */
+	public List<ActivityMatch> suggest(TokenizedMessage tokens) {
+		Preconditions.checkNotNull(tokens, "tokens must be non-null.");
+
+		List<Candidate> candidates = new ArrayList<>();
+
+		StringBuilder query = new StringBuilder();
+		int maxTokenCount = Math.min(tokens.getTokenCount(), treesByTokenCount.length - 1);
+		for (int i = 0; i < maxTokenCount; i++) {
+			if (i > 0) {
+				query.append(' ');
+			}
+			for (int c = tokens.getStart(i); c < tokens.getEnd(i); c++) {
+				query.append(Character.toLowerCase(tokens.getContent().charAt(c)));
+			}
+
+			BkTree tree = treesByTokenCount[i + 1];
+			if (tree != null) {
+				String queryString = query.toString();
+				tree.search(queryString, queryString.length() > 3 ? 2 : 1, candidates);
+			}
+		}
+
+		candidates.sort(Comparator.<Candidate> comparingInt(c -> c.distance)
+				.thenComparing(c -> c.match.getMatchedRoute().toString()));
+
+		Map<Activity, ActivityMatch> bestByActivity = new HashMap<>();
+		ImmutableList.Builder<ActivityMatch> suggestions = ImmutableList.builder();
+		for (Candidate candidate : candidates) {
+			if (bestByActivity.size() == MAX_SUGGESTIONS) {
+				break;
+			}
+
+			if (bestByActivity.putIfAbsent(candidate.match.getMatchedActivity(), candidate.match) == null) {
+				suggestions.add(candidate.match);
+			}
+		}
+
+		return suggestions.build();
+	}
+
+	private static List<ActivityMatch> collectRoutes(Set<Activity> activities, Aliases aliases) {
+		Preconditions.checkNotNull(activities, "activities must be non-null.");
+		Preconditions.checkNotNull(aliases, "aliases must be non-null.");
+
+		List<ActivityMatch> routes = new ArrayList<>();
+		for (Activity activity : activities) {
+			routes.add(new ActivityMatch(activity, activity.getDescriptor().getRoute()));
+		}
+		for (Entry<Route, Activity> aliasEntry : aliases.getAliasMap().entrySet()) {
+			routes.add(new ActivityMatch(aliasEntry.getValue(), aliasEntry.getKey()));
+		}
+
+		return routes;
+	}
+
+	private static String normalize(List<String> path) {
+		return String.join(" ", path).toLowerCase();
+	}
+
+	/**
+	 * Computes the Levenshtein distance between two strings.
+	 */
+	static int editDistance(String a, String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			char ca = a.charAt(i - 1);
+			for (int j = 1; j <= b.length(); j++) {
+				int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+			}
+
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		return previous[b.length()];
+	}
+
+	/**
+	 * A tree in which each child is keyed by its edit distance to its parent.
+	 * Since edit distance obeys the triangle inequality, a search only needs to
+	 * visit the children whose distance to their parent is within the maximum
+	 * distance of the query's distance to that parent.
+	 */
+	private static class BkTree {
+		private Node root;
+
+		private void add(String key, ActivityMatch match) {
+			if (root == null) {
+				root = new Node(key, match);
+				return;
+			}
+
+			Node node = root;
+			while (true) {
+				int distance = editDistance(key, node.key);
+				if (distance == 0) {
+					return;
+				}
+
+				Node child = node.child(distance);
+				if (child == null) {
+					node.setChild(distance, new Node(key, match));
+					return;
+				}
+				node = child;
+			}
+		}
+
+		private void search(String query, int maxDistance, List<Candidate> candidates) {
+			if (root == null) {
+				return;
+			}
+
+			List<Node> pending = new ArrayList<>();
+			pending.add(root);
+			while (!pending.isEmpty()) {
+				Node node = pending.remove(pending.size() - 1);
+				int distance = editDistance(query, node.key);
+				if (distance <= maxDistance) {
+					candidates.add(new Candidate(node.match, distance));
+				}
+
+				int last = Math.min(distance + maxDistance, node.children.length - 1);
+				for (int d = Math.max(1, distance - maxDistance); d <= last; d++) {
+					if (node.children[d] != null) {
+						pending.add(node.children[d]);
+					}
+				}
+			}
+		}
+	}
+
+	private static class Node {
+		private final String key;
+		private final ActivityMatch match;
+
+		// Indexed by edit distance to this node.
+		private Node[] children = new Node[0];
+
+		private Node(String key, ActivityMatch match) {
+			this.key = key;
+			this.match = match;
+		}
+
+		private Node child(int distance) {
+			return distance < children.length ? children[distance] : null;
+		}
+
+		private void setChild(int distance, Node child) {
+			if (distance >= children.length) {
+				Node[] grown = new Node[distance + 1];
+				System.arraycopy(children, 0, grown, 0, children.length);
+				children = grown;
+			}
+			children[distance] = child;
+		}
+	}
+
+	private static class Candidate {
+		private final ActivityMatch match;
+		private final int distance;
+
+		private Candidate(ActivityMatch match, int distance) {
+			this.match = match;
+			this.distance = distance;
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package net.tonbot.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+
+import com.google.common.base.Preconditions;
+
+import net.tonbot.common.Activity;
+import net.tonbot.common.Route;
+
+/**
+ * An immutable trie of route tokens. Each node which terminates a route holds a
+ * precomputed {@link ActivityMatch}, so a lookup walks at most one node per
+ * token and allocates nothing.<br/>
+ *
+ * Child nodes are stored in an open addressing table keyed by the token's
+ * characters. This allows tokens to be looked up directly from a region of a
+ * larger {@link CharSequence} without creating a substring.
+ */
+class RouteTrie {
+
+	private final Node root;
+	private final int maxDepth;
+
+	private RouteTrie(Node root, int maxDepth) {
+		this.root = root;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Gets the number of tokens in the longest route of this trie.
+	 *
+	 * @return The number of tokens in the longest route.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Finds the longest route which prefixes the recorded tokens of a message.
+	 *
+	 * @param tokens
+	 *            {@link TokenizedMessage}. Non-null.
+	 * @return The match of the longest route that prefixes the tokens, or empty if
+	 *         no route matched.
+	 */
+	public Optional<ActivityMatch> findLongestPrefix(TokenizedMessage tokens) {
+		Preconditions.checkNotNull(tokens, "tokens must be non-null.");
+
+		String content = tokens.getContent();
+		Node node = root;
+		Optional<ActivityMatch> best = root.match;
+
+		int depth = Math.min(tokens.getTokenCount(), maxDepth);
+		for (int i = 0; i < depth; i++) {
+			node = node.child(content, tokens.getStart(i), tokens.getEnd(i));
+			if (node == null) {
+				break;
+			}
+
+			if (node.match.isPresent()) {
+				best = node.match;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Creates a new {@link Builder}.
+	 *
+	 * @return A new {@link Builder}.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	static class Builder {
+
+		private final MutableNode root = new MutableNode();
+		private int maxDepth = 0;
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds a route. If the route was already added, the existing entry is kept.
+		 *
+		 * @param route
+		 *            The {@link Route}. Non-null.
+		 * @param activity
+		 *            The {@link Activity} which the route leads to. Non-null.
+		 * @return This builder.
+		 */
+		public Builder add(Route route, Activity activity) {
+			Preconditions.checkNotNull(route, "route must be non-null.");
+			Preconditions.checkNotNull(activity, "activity must be non-null.");
+
+			MutableNode node = root;
+			for (String token : route.getPath()) {
+				node = node.children.computeIfAbsent(token, t -> new MutableNode());
+			}
+
+			if (node.match == null) {
+				node.match = new ActivityMatch(activity, route);
+			}
+
+			maxDepth = Math.max(maxDepth, route.getPath().size());
+
+			return this;
+		}
+
+		public RouteTrie build() {
+			return new RouteTrie(root.compile(), maxDepth);
+		}
+	}
+
+	private static class MutableNode {
+		private final Map<String, MutableNode> children = new HashMap<>();
+		private ActivityMatch match;
+
+		private Node compile() {
+			// Keep the load factor at or below 0.5 so that probe sequences stay short.
+			int capacity = Integer.highestOneBit(Math.max(1, children.size() * 2 - 1)) << 1;
+
+			String[] keys = new String[capacity];
+			Node[] values = new Node[capacity];
+			int mask = capacity - 1;
+
+			for (Entry<String, MutableNode> entry : children.entrySet()) {
+				String key = entry.getKey();
+				int slot = hash(key, 0, key.length()) & mask;
+				while (keys[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+
+				keys[slot] = key;
+				values[slot] = entry.getValue().compile();
+			}
+
+			return new Node(keys, values, Optional.ofNullable(match));
+		}
+	}
+
+	private static class Node {
+		private final String[] keys;
+		private final Node[] values;
+		private final int mask;
+		private final Optional<ActivityMatch> match;
+
+		private Node(String[] keys, Node[] values, Optional<ActivityMatch> match) {
+			this.keys = keys;
+			this.values = values;
+			this.mask = keys.length - 1;
+			this.match = match;
+		}
+
+		/**
+		 * Gets the child node whose token equals {@code content} between
+		 * {@code start} (inclusive) and {@code end} (exclusive).
+		 */
+		private Node child(CharSequence content, int start, int end) {
+			int slot = hash(content, start, end) & mask;
+
+			String key;
+			while ((key = keys[slot]) != null) {
+				if (regionEquals(key, content, start, end)) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			return null;
+		}
+	}
+
+	private static int hash(CharSequence content, int start, int end) {
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + content.charAt(i);
+		}
+
+		// Spread the higher bits downwards since the table is indexed by the lower
+		// bits.
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean regionEquals(String key, CharSequence content, int start, int end) {
+		if (key.length() != end - start) {
+			return false;
+		}
+
+		for (int i = 0; i < key.length(); i++) {
+			if (key.charAt(i) != content.charAt(start + i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
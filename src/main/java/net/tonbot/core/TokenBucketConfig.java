@@ -0,0 +1,37 @@
+package net.tonbot.core;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+
+/**
+ * The parameters of a token bucket.
+ */
+@Data
+class TokenBucketConfig {
+
+	private final int capacity;
+	private final double refillPerSecond;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            The maximum number of tokens in the bucket, which is the largest
+	 *            burst that is let through. Must be positive.
+	 * @param refillPerSecond
+	 *            The number of tokens added to the bucket per second, which is the
+	 *            sustained rate that is let through. Must be positive.
+	 */
+	@JsonCreator
+	public TokenBucketConfig(@JsonProperty("capacity") int capacity,
+			@JsonProperty("refillPerSecond") double refillPerSecond) {
+		Preconditions.checkArgument(capacity > 0, "capacity must be positive.");
+		Preconditions.checkArgument(refillPerSecond > 0, "refillPerSecond must be positive.");
+
+		this.capacity = capacity;
+		this.refillPerSecond = refillPerSecond;
+	}
+}
@@ -0,0 +1,291 @@
+package net.tonbot.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+
+/**
+ * A set of token buckets keyed by primitive longs, such as Discord IDs.<br/>
+ *
+ * Each bucket is stored as a single theoretical arrival time (the generic cell
+ * rate algorithm), which is advanced with a CAS, so taking a token never
+ * blocks. Buckets are kept in a fixed number of stripes of open addressing
+ * tables. Looking up an existing bucket is an optimistic read, while inserting
+ * a new bucket locks only its stripe.<br/>
+ *
+ * A bucket which has been full for longer than the idle timeout is
+ * indistinguishable from a new bucket, so such buckets are evicted whenever a
+ * stripe is rebuilt. A stripe is rebuilt when it grows, or when a bucket is
+ * added to it at least one idle timeout after its last rebuild.
+ */
+class TokenBucketLimiter {
+
+	private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+	private final Ticker ticker;
+	private final long emissionIntervalNanos;
+	private final long burstToleranceNanos;
+	private final long idleTimeoutNanos;
+	private final Stripe[] stripes;
+	private final int stripeMask;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            The maximum number of tokens in a bucket. Must be positive.
+	 * @param refillPerSecond
+	 *            The number of tokens added to a bucket per second. Must be
+	 *            positive.
+	 * @param idleTimeout
+	 *            How long a bucket must have been full before it may be evicted.
+	 *            Must be non-negative.
+	 * @param idleTimeoutUnit
+	 *            The unit of {@code idleTimeout}. Non-null.
+	 * @param stripeCount
+	 *            The number of stripes. Must be a positive power of two.
+	 * @param ticker
+	 *            The source of time. Non-null.
+	 */
+	public TokenBucketLimiter(int capacity, double refillPerSecond, long idleTimeout, TimeUnit idleTimeoutUnit,
+			int stripeCount, Ticker ticker) {
+		Preconditions.checkArgument(capacity > 0, "capacity must be positive.");
+		Preconditions.checkArgument(refillPerSecond > 0, "refillPerSecond must be positive.");
+		Preconditions.checkArgument(idleTimeout >= 0, "idleTimeout must be non-negative.");
+		Preconditions.checkNotNull(idleTimeoutUnit, "idleTimeoutUnit must be non-null.");
+		Preconditions.checkArgument(stripeCount > 0 && Integer.bitCount(stripeCount) == 1,
+				"stripeCount must be a positive power of two.");
+		this.ticker = Preconditions.checkNotNull(ticker, "ticker must be non-null.");
+
+		this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+		this.burstToleranceNanos = emissionIntervalNanos * capacity;
+		this.idleTimeoutNanos = idleTimeoutUnit.toNanos(idleTimeout);
+
+		this.stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe();
+		}
+		this.stripeMask = stripeCount - 1;
+	}
+
+	/**
+	 * Tries to take a token from the bucket of the given key.
+	 *
+	 * @param key
+	 *            The key of the bucket.
+	 * @return True if a token was taken. False if the bucket was empty.
+	 */
+	public boolean tryAcquire(long key) {
+		long now = ticker.read();
+		AtomicLong arrivalTime = stripes[stripeOf(key)].getOrCreate(key, now);
+
+		while (true) {
+			long tat = arrivalTime.get();
+			long newTat = Math.max(tat, now) + emissionIntervalNanos;
+			if (newTat - now > burstToleranceNanos) {
+				return false;
+			}
+
+			if (arrivalTime.compareAndSet(tat, newTat)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a token could be taken from the bucket of the given key,
+	 * without taking it. A bucket which doesn't exist yet isn't created.
+	 *
+	 * @param key
+	 *            The key of the bucket.
+	 * @return True if the bucket isn't empty.
+	 */
+	public boolean canAcquire(long key) {
+		long now = ticker.read();
+		AtomicLong arrivalTime = stripes[stripeOf(key)].get(key);
+		if (arrivalTime == null) {
+			return true;
+		}
+
+		return Math.max(arrivalTime.get(), now) + emissionIntervalNanos - now <= burstToleranceNanos;
+	}
+
+	/**
+	 * Gives back a token taken with {@link #tryAcquire(long)}, such as when the
+	 * work it was taken for was rejected by another limit. A bucket which has
+	 * been evicted in the meantime was full, and is left alone.
+	 *
+	 * @param key
+	 *            The key of the bucket.
+	 */
+	public void release(long key) {
+		AtomicLong arrivalTime = stripes[stripeOf(key)].get(key);
+		if (arrivalTime != null) {
+			// A bucket whose arrival time is in the past is full, however far in the past
+			// it is.
+			arrivalTime.addAndGet(-emissionIntervalNanos);
+		}
+	}
+
+	/**
+	 * Gets the number of buckets currently held, including idle ones that haven't
+	 * been evicted yet.
+	 *
+	 * @return The number of buckets.
+	 */
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			size += stripe.size();
+		}
+
+		return size;
+	}
+
+	private int stripeOf(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & stripeMask;
+	}
+
+	private static int slotOf(long key, int mask) {
+		long h = key * 0xC2B2AE3D27D4EB4FL;
+		return (int) (h ^ (h >>> 29)) & mask;
+	}
+
+	private class Stripe {
+
+		private final StampedLock lock = new StampedLock();
+
+		// Guarded by lock. Keys are only meaningful where values are non-null.
+		private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+		private AtomicLong[] values = new AtomicLong[INITIAL_STRIPE_CAPACITY];
+		private int size = 0;
+		private long lastRebuild = ticker.read();
+
+		private AtomicLong get(long key) {
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0) {
+				AtomicLong value = find(keys, values, key);
+				if (lock.validate(stamp)) {
+					return value;
+				}
+			}
+
+			stamp = lock.readLock();
+			try {
+				return find(keys, values, key);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		private AtomicLong getOrCreate(long key, long now) {
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0) {
+				AtomicLong value = find(keys, values, key);
+				if (lock.validate(stamp) && value != null) {
+					return value;
+				}
+			}
+
+			stamp = lock.writeLock();
+			try {
+				AtomicLong value = find(keys, values, key);
+				if (value != null) {
+					return value;
+				}
+
+				if ((size + 1) * 2 > values.length || now - lastRebuild >= idleTimeoutNanos) {
+					rebuild(now);
+				}
+
+				value = new AtomicLong(now);
+				insert(keys, values, key, value);
+				size++;
+
+				return value;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		private int size() {
+			long stamp = lock.readLock();
+			try {
+				return size;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		/**
+		 * Copies the live buckets into new tables, dropping idle buckets and growing
+		 * the tables if they would still be over half full after an insertion.
+		 */
+		private void rebuild(long now) {
+			int live = 0;
+			for (AtomicLong value : values) {
+				if (value != null && !isIdle(value, now)) {
+					live++;
+				}
+			}
+
+			int capacity = values.length;
+			while ((live + 1) * 2 > capacity) {
+				capacity <<= 1;
+			}
+
+			long[] newKeys = new long[capacity];
+			AtomicLong[] newValues = new AtomicLong[capacity];
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != null && !isIdle(values[i], now)) {
+					insert(newKeys, newValues, keys[i], values[i]);
+				}
+			}
+
+			this.keys = newKeys;
+			this.values = newValues;
+			this.size = live;
+			this.lastRebuild = now;
+		}
+
+		private boolean isIdle(AtomicLong arrivalTime, long now) {
+			return now - arrivalTime.get() >= idleTimeoutNanos;
+		}
+	}
+
+	private static AtomicLong find(long[] keys, AtomicLong[] values, long key) {
+		// The arrays may be read while another thread replaces them. A stale read
+		// only ever finds nothing or a bucket of the right key, and the caller
+		// validates the read afterwards.
+		int mask = values.length - 1;
+		if (keys.length != values.length) {
+			return null;
+		}
+
+		int slot = slotOf(key, mask);
+		AtomicLong value;
+		while ((value = values[slot]) != null) {
+			if (keys[slot] == key) {
+				return value;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return null;
+	}
+
+	private static void insert(long[] keys, AtomicLong[] values, long key, AtomicLong value) {
+		int mask = values.length - 1;
+		int slot = slotOf(key, mask);
+		while (values[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+	}
+}
@@ -0,0 +1,140 @@
+package net.tonbot.core;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The leading tokens of a message, recorded as offsets into the original
+ * content. Tokens are separated by whitespace. No substrings are created, so
+ * the remainder of the message can be cut at any token boundary by index.
+ */
+class TokenizedMessage {
+
+	private final String content;
+	private final int[] starts;
+	private final int[] ends;
+	private final int tokenCount;
+
+	private TokenizedMessage(String content, int[] starts, int[] ends, int tokenCount) {
+		this.content = content;
+		this.starts = starts;
+		this.ends = ends;
+		this.tokenCount = tokenCount;
+	}
+
+	/**
+	 * Records the offsets of up to {@code maxRecordedTokens} tokens of
+	 * {@code content}, starting at {@code fromIndex}.
+	 *
+	 * @param content
+	 *            The content. Non-null.
+	 * @param fromIndex
+	 *            The index to start tokenizing from.
+	 * @param maxRecordedTokens
+	 *            The maximum number of tokens to record. Non-negative.
+	 * @return A {@link TokenizedMessage}.
+	 */
+	public static TokenizedMessage tokenize(String content, int fromIndex, int maxRecordedTokens) {
+		Preconditions.checkNotNull(content, "content must be non-null.");
+		Preconditions.checkPositionIndex(fromIndex, content.length(), "fromIndex");
+		Preconditions.checkArgument(maxRecordedTokens >= 0, "maxRecordedTokens must be non-negative.");
+
+		int[] starts = new int[maxRecordedTokens];
+		int[] ends = new int[maxRecordedTokens];
+
+		int count = 0;
+		int cursor = skipWhitespace(content, fromIndex);
+		while (count < maxRecordedTokens && cursor < content.length()) {
+			starts[count] = cursor;
+			cursor = skipToken(content, cursor);
+			ends[count] = cursor;
+			count++;
+
+			cursor = skipWhitespace(content, cursor);
+		}
+
+		return new TokenizedMessage(content, starts, ends, count);
+	}
+
+	/**
+	 * Counts the tokens of {@code content}, starting at {@code fromIndex}. Stops
+	 * counting once {@code limit} is exceeded, so at most {@code limit + 1} tokens
+	 * are scanned.
+	 *
+	 * @param content
+	 *            The content. Non-null.
+	 * @param fromIndex
+	 *            The index to start counting from.
+	 * @param limit
+	 *            The number of tokens after which counting stops.
+	 * @return The number of tokens, or {@code limit + 1} if there are more than
+	 *         {@code limit} tokens.
+	 */
+	public static int countTokens(String content, int fromIndex, int limit) {
+		Preconditions.checkNotNull(content, "content must be non-null.");
+
+		int count = 0;
+		int cursor = skipWhitespace(content, fromIndex);
+		while (count <= limit && cursor < content.length()) {
+			cursor = skipWhitespace(content, skipToken(content, cursor));
+			count++;
+		}
+
+		return count;
+	}
+
+	private static int skipWhitespace(String content, int index) {
+		while (index < content.length() && Character.isWhitespace(content.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	private static int skipToken(String content, int index) {
+		while (index < content.length() && !Character.isWhitespace(content.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the original content.
+	 *
+	 * @return The original content.
+	 */
+	public String getContent() {
+		return content;
+	}
+
+	/**
+	 * Gets the number of recorded tokens.
+	 *
+	 * @return The number of recorded tokens.
+	 */
+	public int getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * Gets the index of the first character of a token.
+	 *
+	 * @param tokenIndex
+	 *            The index of the token.
+	 * @return The start index (inclusive) of the token in the content.
+	 */
+	public int getStart(int tokenIndex) {
+		Preconditions.checkElementIndex(tokenIndex, tokenCount);
+		return starts[tokenIndex];
+	}
+
+	/**
+	 * Gets the index after the last character of a token.
+	 *
+	 * @param tokenIndex
+	 *            The index of the token.
+	 * @return The end index (exclusive) of the token in the content.
+	 */
+	public int getEnd(int tokenIndex) {
+		Preconditions.checkElementIndex(tokenIndex, tokenCount);
+		return ends[tokenIndex];
+	}
+}
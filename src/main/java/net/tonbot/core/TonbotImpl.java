@@ -2,6 +2,7 @@ package net.tonbot.core;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -9,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import net.tonbot.common.TonbotPlugin;
 import sx.blah.discord.api.IDiscordClient;
@@ -18,29 +20,43 @@ class TonbotImpl implements Tonbot {
 
 	private static final Logger LOG = LoggerFactory.getLogger(TonbotImpl.class);
 
+	private static final long ACTIVITY_SHUTDOWN_TIMEOUT_SECONDS = 10;
+
 	private final IDiscordClient discordClient;
 	private final PlayingTextSetter playingTextSetter;
 	private final List<TonbotPlugin> plugins;
-	private final EventDispatcher eventDispatcher;
+	private final GatewayEventRouter gatewayEventRouter;
+	private final ActivityExecutor activityExecutor;
+	private final ActivityExecutor coreActivityExecutor;
+	private final PipelineMetrics pipelineMetrics;
+	private final CommandJournal commandJournal;
 
 	@Inject
 	public TonbotImpl(final IDiscordClient discordClient, final PlayingTextSetter playingTextSetter,
-			final List<TonbotPlugin> plugins, final EventDispatcher eventDispatcher) {
+			final List<TonbotPlugin> plugins, final GatewayEventRouter gatewayEventRouter,
+			final ActivityExecutor activityExecutor, @CoreActivities final ActivityExecutor coreActivityExecutor,
+			final PipelineMetrics pipelineMetrics, final CommandJournal commandJournal) {
 		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
 		this.playingTextSetter = Preconditions.checkNotNull(playingTextSetter, "playingTextSetter must be non-null.");
 		this.plugins = Preconditions.checkNotNull(plugins, "plugins must be non-null.");
-		this.eventDispatcher = Preconditions.checkNotNull(eventDispatcher, "eventDispatcher must be non-null.");
+		this.gatewayEventRouter = Preconditions.checkNotNull(gatewayEventRouter,
+				"gatewayEventRouter must be non-null.");
+		this.activityExecutor = Preconditions.checkNotNull(activityExecutor, "activityExecutor must be non-null.");
+		this.coreActivityExecutor = Preconditions.checkNotNull(coreActivityExecutor,
+				"coreActivityExecutor must be non-null.");
+		this.pipelineMetrics = Preconditions.checkNotNull(pipelineMetrics, "pipelineMetrics must be non-null.");
+		this.commandJournal = Preconditions.checkNotNull(commandJournal, "commandJournal must be non-null.");
 	}
 
 	public void run() {
 
-		discordClient.getDispatcher().registerListener(eventDispatcher);
-
-		// Raw Listeners
-		plugins.stream().map(TonbotPlugin::getRawEventListeners).flatMap(Collection::stream).forEach(eventListener -> {
-			LOG.debug("Registering raw listener {}", eventListener.getClass().getName());
-			discordClient.getDispatcher().registerListener(eventListener);
-		});
+		// The router delivers events to the event dispatcher, and hands them to the
+		// raw listeners of the plugins on threads of its own. It never blocks, so it
+		// runs directly on the thread which receives the events from the gateway
+		// rather than on Discord4J's dispatch pool.
+		MBeans.register(pipelineMetrics, PipelineMetrics.OBJECT_NAME);
+		gatewayEventRouter.start();
+		discordClient.getDispatcher().registerListener(MoreExecutors.newDirectExecutorService(), gatewayEventRouter);
 
 		try {
 			discordClient.login();
@@ -68,6 +84,13 @@ class TonbotImpl implements Tonbot {
 
 	@Override
 	public void destroy() {
+		// Let running activities finish before their plugins are destroyed.
+		gatewayEventRouter.shutdown(ACTIVITY_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		activityExecutor.shutdown(ACTIVITY_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		coreActivityExecutor.shutdown(ACTIVITY_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		MBeans.unregister(PipelineMetrics.OBJECT_NAME);
+		commandJournal.close();
+
 		plugins.forEach(plugin -> {
 			try {
 				plugin.destroy();
@@ -1,6 +1,7 @@
 package net.tonbot.core;
 
 import java.awt.Color;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -25,8 +26,10 @@ import net.tonbot.common.Activity;
 import net.tonbot.common.BotUtils;
 import net.tonbot.common.Prefix;
 import net.tonbot.common.TonbotPlugin;
+import net.tonbot.common.TonbotPluginArgs;
 import net.tonbot.core.permission.PermissionManager;
 import net.tonbot.core.permission.PermissionPlugin;
+import net.tonbot.core.request.EntityCache;
 import net.tonbot.core.request.parsing.ParserModule;
 import sx.blah.discord.api.ClientBuilder;
 import sx.blah.discord.api.IDiscordClient;
@@ -35,12 +38,20 @@ class TonbotModule extends AbstractModule {
 
 	private static final Logger LOG = LoggerFactory.getLogger(TonbotModule.class);
 
+	private static final int CORE_ACTIVITY_THREADS = 2;
+	private static final int CORE_ACTIVITY_CHANNEL_STRIPES = 16;
+	private static final String JOURNAL_DIR_NAME = "journal";
+
 	private final String botUserToken;
 	private final String prefix;
 	private final List<String> pluginFqns;
 	private final String configDir;
 	private final Map<String, String> aliasToCanonicalRoutes;
 	private final Color color;
+	private final DispatchConfig dispatchConfig;
+	private final RateLimitConfig rateLimitConfig;
+	private final LoggingConfig loggingConfig;
+	private final JournalConfig journalConfig;
 
 	/**
 	 * Constructor.
@@ -60,9 +71,18 @@ class TonbotModule extends AbstractModule {
 	 *            A map of command alias routes to canonical routes. Non-null.
 	 * @param color
 	 *            A color to be used by the plugins. Non-null.
+	 * @param dispatchConfig
+	 *            The {@link DispatchConfig}. Non-null.
+	 * @param rateLimitConfig
+	 *            The {@link RateLimitConfig}. Non-null.
+	 * @param loggingConfig
+	 *            The {@link LoggingConfig}. Non-null.
+	 * @param journalConfig
+	 *            The {@link JournalConfig}. Non-null.
 	 */
 	public TonbotModule(String botUserToken, String prefix, List<String> pluginFqns, String configDir,
-			Map<String, String> aliasToCanonicalRoutes, Color color) {
+			Map<String, String> aliasToCanonicalRoutes, Color color, DispatchConfig dispatchConfig,
+			RateLimitConfig rateLimitConfig, LoggingConfig loggingConfig, JournalConfig journalConfig) {
 		this.botUserToken = Preconditions.checkNotNull(botUserToken, "botUserToken must be non-null.");
 		this.prefix = Preconditions.checkNotNull(prefix, "prefix must be non-null.");
 		this.pluginFqns = Preconditions.checkNotNull(pluginFqns, "pluginFqns must be non-null.");
@@ -70,6 +90,10 @@ class TonbotModule extends AbstractModule {
 		this.aliasToCanonicalRoutes = Preconditions.checkNotNull(aliasToCanonicalRoutes,
 				"aliasToCanonicalRoutes must be non-null.");
 		this.color = Preconditions.checkNotNull(color, "color must be non-null.");
+		this.dispatchConfig = Preconditions.checkNotNull(dispatchConfig, "dispatchConfig must be non-null.");
+		this.rateLimitConfig = Preconditions.checkNotNull(rateLimitConfig, "rateLimitConfig must be non-null.");
+		this.loggingConfig = Preconditions.checkNotNull(loggingConfig, "loggingConfig must be non-null.");
+		this.journalConfig = Preconditions.checkNotNull(journalConfig, "journalConfig must be non-null.");
 	}
 
 	public void configure() {
@@ -80,7 +104,17 @@ class TonbotModule extends AbstractModule {
 		bind(new TypeLiteral<Map<String, String>>() {
 		}).toInstance(aliasToCanonicalRoutes);
 		bind(Color.class).toInstance(color);
+		bind(DispatchConfig.class).toInstance(dispatchConfig);
+		bind(RateLimitConfig.class).toInstance(rateLimitConfig);
+		bind(LoggingConfig.class).toInstance(loggingConfig);
+		bind(JournalConfig.class).toInstance(journalConfig);
+		bind(AdmissionController.class).in(Scopes.SINGLETON);
 		bind(Aliases.class).to(AliasesImpl.class).in(Scopes.SINGLETON);
+		bind(EnactableInvokers.class).in(Scopes.SINGLETON);
+		bind(RejectedExecutionHandlerImpl.class).in(Scopes.SINGLETON);
+		bind(GatewayEventRouter.class).in(Scopes.SINGLETON);
+		bind(PipelineMetrics.class).in(Scopes.SINGLETON);
+		bind(CommandLogSampler.class).in(Scopes.SINGLETON);
 
 		install(new ParserModule());
 	}
@@ -115,12 +149,50 @@ class TonbotModule extends AbstractModule {
 
 	@Provides
 	@Singleton
-	PermissionPlugin permissionPlugin(PluginLoader pluginLoader, IDiscordClient discordClient, BotUtils botUtils) {
+	CommandJournal commandJournal() {
+		return new CommandJournal(Paths.get(configDir, JOURNAL_DIR_NAME), journalConfig);
+	}
 
-		PermissionPlugin permissionPlugin = (PermissionPlugin) pluginLoader
-				.instantiatePlugin(PermissionPlugin.class.getName(), prefix, discordClient, botUtils, color);
+	@Provides
+	@Singleton
+	ActivityExecutor activityExecutor() {
+		// Activities run on their own threads so that slow activities never hold up
+		// the Discord event dispatch threads.
+		ActivityExecutorType type = dispatchConfig.getActivityExecutor();
+		if (type == ActivityExecutorType.AUTO) {
+			type = VirtualThreads.isSupported() ? ActivityExecutorType.VIRTUAL : ActivityExecutorType.PLATFORM;
+		}
+
+		LOG.info("Activities will be run by the {} activity executor.", type);
+
+		if (type == ActivityExecutorType.VIRTUAL) {
+			return new VirtualThreadActivityExecutor();
+		} else {
+			return new PlatformThreadActivityExecutor(dispatchConfig.getActivityThreads(),
+					dispatchConfig.getChannelStripes());
+		}
+	}
 
-		return permissionPlugin;
+	@Provides
+	@Singleton
+	@CoreActivities
+	ActivityExecutor coreActivityExecutor() {
+		// Core activities get a small executor of their own so that they stay
+		// responsive even when plugin activities saturate the main one.
+		return new PlatformThreadActivityExecutor(CORE_ACTIVITY_THREADS, CORE_ACTIVITY_CHANNEL_STRIPES);
+	}
+
+	@Provides
+	@Singleton
+	PermissionPlugin permissionPlugin(PluginLoader pluginLoader, IDiscordClient discordClient, BotUtils botUtils,
+			EntityCache entityCache) {
+
+		// Created here rather than by the plugin loader, so that it shares the core's
+		// entity cache.
+		TonbotPluginArgs pluginArgs = pluginLoader.getPluginArgs(PermissionPlugin.class.getName(), prefix,
+				discordClient, botUtils, color);
+
+		return new PermissionPlugin(pluginArgs, entityCache);
 	}
 
 	@Provides
@@ -161,6 +233,15 @@ class TonbotModule extends AbstractModule {
 		return ImmutableSet.copyOf(activities);
 	}
 
+	@Provides
+	@Singleton
+	@CoreActivities
+	Set<Activity> coreActivities(PermissionPlugin permissionPlugin, InfoActivity infoActivity,
+			HelpActivity helpActivity) {
+		return ImmutableSet.<Activity>builder().addAll(permissionPlugin.getActivities()).add(infoActivity)
+				.add(helpActivity).build();
+	}
+
 	@Provides
 	@Singleton
 	HelpActivity helpActivity(ActivityPrinter activityPrinter, BotUtils botUtils, String prefix,
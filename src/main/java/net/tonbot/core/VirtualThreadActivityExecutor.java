@@ -0,0 +1,39 @@
+package net.tonbot.core;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An {@link ActivityExecutor} which runs the activities of each channel on a
+ * virtual thread of its own, which lives for as long as the channel has
+ * activities queued. Since blocking a virtual thread is cheap, the number of
+ * activities that can wait on I/O at the same time is only bounded by the
+ * number of channels with activities. Requires Java 21 or later.
+ */
+class VirtualThreadActivityExecutor implements ActivityExecutor {
+
+	private final ChannelQueueExecutor executor;
+
+	/**
+	 * Constructor.
+	 *
+	 * @throws IllegalStateException
+	 *             if the runtime doesn't support virtual threads.
+	 */
+	public VirtualThreadActivityExecutor() {
+		Preconditions.checkState(VirtualThreads.isSupported(), "Virtual threads require Java 21 or later.");
+
+		this.executor = new ChannelQueueExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor("Activity Thread "));
+	}
+
+	@Override
+	public void execute(long channelId, Runnable activity) {
+		executor.execute(channelId, activity);
+	}
+
+	@Override
+	public void shutdown(long timeout, TimeUnit timeUnit) {
+		executor.shutdown(timeout, timeUnit);
+	}
+}
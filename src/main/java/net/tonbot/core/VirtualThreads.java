@@ -0,0 +1,37 @@
+package net.tonbot.core;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Access to virtual threads. This is the implementation for runtimes without
+ * virtual threads. A Java 21 implementation of this class is packaged under
+ * {@code META-INF/versions/21} of the multi-release jar and replaces this one
+ * on Java 21 or later.
+ */
+final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Determines whether if the runtime supports virtual threads.
+	 *
+	 * @return True iff virtual threads are supported.
+	 */
+	static boolean isSupported() {
+		return false;
+	}
+
+	/**
+	 * Creates an executor which starts a new virtual thread for each task.
+	 *
+	 * @param namePrefix
+	 *            The prefix of the names of the threads. Non-null.
+	 * @return An {@link ExecutorService}.
+	 * @throws UnsupportedOperationException
+	 *             if the runtime doesn't support virtual threads.
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+		throw new UnsupportedOperationException("Virtual threads require Java 21 or later.");
+	}
+}
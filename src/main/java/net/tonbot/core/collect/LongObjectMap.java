@@ -0,0 +1,211 @@
+package net.tonbot.core.collect;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A hash map from primitive longs to objects, with open addressing and linear
+ * probing, so that lookups neither box their keys nor chase entry nodes. The
+ * table doubles whenever it becomes half full, so adding a key takes amortized
+ * constant time.<br/>
+ *
+ * Writers must be serialized by the caller. {@link #get(long)} may run
+ * concurrently with {@link #put(long, Object)} without locking, and sees each
+ * entry either before or after the put. {@link #remove(long)} moves entries
+ * around, so it must exclude readers as well as other writers.
+ */
+public class LongObjectMap<V> {
+
+	private static final int MIN_CAPACITY = 8;
+
+	private volatile Table table;
+	private int size = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param expectedSize
+	 *            The number of entries to make room for. Must be non-negative.
+	 */
+	public LongObjectMap(int expectedSize) {
+		Preconditions.checkArgument(expectedSize >= 0, "expectedSize must be non-negative.");
+
+		int capacity = MIN_CAPACITY;
+		while (expectedSize * 2 > capacity) {
+			capacity <<= 1;
+		}
+
+		this.table = new Table(capacity);
+	}
+
+	/**
+	 * Gets the value of a key.
+	 *
+	 * @param key
+	 *            The key.
+	 * @return The value, or null if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		Table current = table;
+		int mask = current.mask;
+		int slot = slotOf(key, mask);
+
+		Object value;
+		while ((value = current.values.get(slot)) != null) {
+			if (current.keys[slot] == key) {
+				return (V) value;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Sets the value of a key.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param value
+	 *            The value. Non-null.
+	 */
+	public void put(long key, V value) {
+		Preconditions.checkNotNull(value, "value must be non-null.");
+
+		Table current = table;
+		int mask = current.mask;
+		int slot = slotOf(key, mask);
+		while (current.values.get(slot) != null) {
+			if (current.keys[slot] == key) {
+				current.values.set(slot, value);
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if ((size + 1) * 2 > current.values.length()) {
+			// Fill the new table before publishing it, so readers never see it half
+			// copied.
+			Table next = copy(current, current.values.length() << 1);
+			next.insert(key, value);
+			this.table = next;
+		} else {
+			// The key is written before the value, so a reader who finds the value
+			// also finds the key.
+			current.keys[slot] = key;
+			current.values.set(slot, value);
+		}
+		size++;
+	}
+
+	/**
+	 * Removes a key.
+	 *
+	 * @param key
+	 *            The key.
+	 */
+	public void remove(long key) {
+		Table current = table;
+		long[] keys = current.keys;
+		AtomicReferenceArray<Object> values = current.values;
+		int mask = current.mask;
+
+		int slot = slotOf(key, mask);
+		while (values.get(slot) != null && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+
+		if (values.get(slot) == null) {
+			return;
+		}
+
+		values.set(slot, null);
+		size--;
+
+		// Shift the entries which follow back into the gap, unless that would put
+		// them before their home slot.
+		int gap = slot;
+		for (int i = (gap + 1) & mask; values.get(i) != null; i = (i + 1) & mask) {
+			int home = slotOf(keys[i], mask);
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = keys[i];
+				values.set(gap, values.get(i));
+				values.set(i, null);
+				gap = i;
+			}
+		}
+	}
+
+	/**
+	 * Calls an action with every key and its value. If it runs concurrently with
+	 * a put, the entry being put may be skipped.
+	 *
+	 * @param action
+	 *            The action. Non-null.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<Long, ? super V> action) {
+		Preconditions.checkNotNull(action, "action must be non-null.");
+
+		Table current = table;
+		for (int i = 0; i < current.values.length(); i++) {
+			Object value = current.values.get(i);
+			if (value != null) {
+				action.accept(current.keys[i], (V) value);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of entries. Only meaningful to writers.
+	 *
+	 * @return The number of entries.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private static Table copy(Table table, int capacity) {
+		Table copy = new Table(capacity);
+		for (int i = 0; i < table.values.length(); i++) {
+			Object value = table.values.get(i);
+			if (value != null) {
+				copy.insert(table.keys[i], value);
+			}
+		}
+		return copy;
+	}
+
+	private static int slotOf(long key, int mask) {
+		// Discord IDs are snowflakes whose lower bits are mostly a sequence number,
+		// so mix the timestamp bits in.
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private static class Table {
+		// Keys are only meaningful where values are non-null.
+		private final long[] keys;
+		private final AtomicReferenceArray<Object> values;
+		private final int mask;
+
+		private Table(int capacity) {
+			this.keys = new long[capacity];
+			this.values = new AtomicReferenceArray<>(capacity);
+			this.mask = capacity - 1;
+		}
+
+		private void insert(long key, Object value) {
+			int slot = slotOf(key, mask);
+			while (values.get(slot) != null) {
+				slot = (slot + 1) & mask;
+			}
+
+			keys[slot] = key;
+			values.set(slot, value);
+		}
+	}
+}
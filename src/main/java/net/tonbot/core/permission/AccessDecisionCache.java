@@ -0,0 +1,165 @@
+package net.tonbot.core.permission;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.tonbot.common.Activity;
+import sx.blah.discord.api.events.EventSubscriber;
+import sx.blah.discord.handle.impl.events.guild.GuildLeaveEvent;
+import sx.blah.discord.handle.impl.events.guild.GuildTransferOwnershipEvent;
+import sx.blah.discord.handle.impl.events.guild.role.RoleDeleteEvent;
+import sx.blah.discord.handle.impl.events.guild.role.RoleUpdateEvent;
+import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IRole;
+
+/**
+ * Remembers whether members with a given set of roles may access an activity in
+ * a guild. Decisions are keyed by the guild, the IDs of the roles and the
+ * activity, so a member whose roles change is simply looked up under a
+ * different key. Guild owners are expected to be let through before the cache
+ * is consulted.<br/>
+ *
+ * Each guild has a generation, which is part of every key. Invalidating a guild
+ * increments its generation, which makes all of its decisions unreachable until
+ * they are evicted. A key must be created before its decision is evaluated, so
+ * that a decision which is evaluated while its guild is invalidated is never
+ * found.
+ */
+class AccessDecisionCache {
+
+	private static final long MAX_DECISIONS = 100_000;
+
+	private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+	private final Cache<Key, Boolean> decisions = CacheBuilder.newBuilder()
+			.maximumSize(MAX_DECISIONS)
+			.build();
+
+	/**
+	 * Creates the key of a decision in the current generation of a guild.
+	 *
+	 * @param guild
+	 *            The guild. Non-null.
+	 * @param roles
+	 *            The roles of the member in the guild. Non-null.
+	 * @param activity
+	 *            The activity. Non-null.
+	 * @return The {@link Key}.
+	 */
+	public Key key(IGuild guild, List<IRole> roles, Activity activity) {
+		Preconditions.checkNotNull(guild, "guild must be non-null.");
+		Preconditions.checkNotNull(roles, "roles must be non-null.");
+		Preconditions.checkNotNull(activity, "activity must be non-null.");
+
+		long guildId = guild.getLongID();
+
+		long[] roleIds = new long[roles.size()];
+		for (int i = 0; i < roleIds.length; i++) {
+			roleIds[i] = roles.get(i).getLongID();
+		}
+		Arrays.sort(roleIds);
+
+		return new Key(guildId, generations.getOrDefault(guildId, 0L), roleIds, activity);
+	}
+
+	/**
+	 * Gets a decision.
+	 *
+	 * @param key
+	 *            The {@link Key}. Non-null.
+	 * @return Whether the activity may be accessed, or null if the decision isn't
+	 *         known.
+	 */
+	public Boolean get(Key key) {
+		Preconditions.checkNotNull(key, "key must be non-null.");
+
+		return decisions.getIfPresent(key);
+	}
+
+	/**
+	 * Remembers a decision.
+	 *
+	 * @param key
+	 *            The {@link Key}, which was created before the decision was
+	 *            evaluated. Non-null.
+	 * @param accessible
+	 *            Whether the activity may be accessed.
+	 */
+	public void put(Key key, boolean accessible) {
+		Preconditions.checkNotNull(key, "key must be non-null.");
+
+		decisions.put(key, accessible);
+	}
+
+	/**
+	 * Forgets the decisions of a guild.
+	 *
+	 * @param guildId
+	 *            The ID of the guild.
+	 */
+	public void invalidate(long guildId) {
+		generations.merge(guildId, 1L, Long::sum);
+	}
+
+	@EventSubscriber
+	public void onRoleUpdate(RoleUpdateEvent event) {
+		// The role may have gained or lost the administrator permission.
+		invalidate(event.getGuild().getLongID());
+	}
+
+	@EventSubscriber
+	public void onRoleDelete(RoleDeleteEvent event) {
+		invalidate(event.getGuild().getLongID());
+	}
+
+	@EventSubscriber
+	public void onGuildTransferOwnership(GuildTransferOwnershipEvent event) {
+		invalidate(event.getGuild().getLongID());
+	}
+
+	@EventSubscriber
+	public void onGuildLeave(GuildLeaveEvent event) {
+		invalidate(event.getGuild().getLongID());
+	}
+
+	static class Key {
+		private final long guildId;
+		private final long generation;
+		private final long[] roleIds;
+		private final Activity activity;
+		private final int hashCode;
+
+		private Key(long guildId, long generation, long[] roleIds, Activity activity) {
+			this.guildId = guildId;
+			this.generation = generation;
+			this.roleIds = roleIds;
+			this.activity = activity;
+			this.hashCode = 31 * (31 * (31 * Long.hashCode(guildId) + Long.hashCode(generation))
+					+ Arrays.hashCode(roleIds)) + System.identityHashCode(activity);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key) obj;
+			return guildId == other.guildId && generation == other.generation && activity == other.activity
+					&& Arrays.equals(roleIds, other.roleIds);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
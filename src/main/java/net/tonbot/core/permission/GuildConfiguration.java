@@ -5,18 +5,68 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 
 import lombok.Data;
 
+/**
+ * The rules of a guild. Immutable, so that a configuration can be read without
+ * locking while a changed copy of it is being made. Each change of a guild's
+ * configuration increments its version, so that the newest of two
+ * configurations of a guild can be told apart when they are recovered.
+ */
 @Data
 class GuildConfiguration {
 
 	private final List<Rule> rules;
-	private boolean defaultAllow;
+	private final boolean defaultAllow;
+	private final long version;
+
+	GuildConfiguration(List<Rule> rules, boolean defaultAllow) {
+		this(rules, defaultAllow, null);
+	}
 
 	@JsonCreator
-	GuildConfiguration(@JsonProperty("rules") List<Rule> rules, @JsonProperty("defaultAllow") boolean defaultAllow) {
-		this.rules = Preconditions.checkNotNull(rules, "rules must be non-null.");
+	GuildConfiguration(@JsonProperty("rules") List<Rule> rules, @JsonProperty("defaultAllow") boolean defaultAllow,
+			@JsonProperty("version") Long version) {
+		Preconditions.checkNotNull(rules, "rules must be non-null.");
+
+		this.rules = ImmutableList.copyOf(rules);
 		this.defaultAllow = defaultAllow;
+		// Configurations saved before versions were introduced are the oldest.
+		this.version = version != null ? version : 0;
+	}
+
+	/**
+	 * Creates a copy of this configuration with other rules.
+	 *
+	 * @param rules
+	 *            The rules. Non-null.
+	 * @return A new {@link GuildConfiguration}.
+	 */
+	GuildConfiguration withRules(List<Rule> rules) {
+		return new GuildConfiguration(rules, defaultAllow, version);
+	}
+
+	/**
+	 * Creates a copy of this configuration with another default allowability.
+	 *
+	 * @param defaultAllow
+	 *            Whether activities are allowed when no rule applies.
+	 * @return A new {@link GuildConfiguration}.
+	 */
+	GuildConfiguration withDefaultAllow(boolean defaultAllow) {
+		return new GuildConfiguration(rules, defaultAllow, version);
+	}
+
+	/**
+	 * Creates a copy of this configuration with another version.
+	 *
+	 * @param version
+	 *            The version.
+	 * @return A new {@link GuildConfiguration}.
+	 */
+	GuildConfiguration withVersion(long version) {
+		return new GuildConfiguration(rules, defaultAllow, version);
 	}
 }
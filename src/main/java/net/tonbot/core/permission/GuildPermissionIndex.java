@@ -0,0 +1,219 @@
+package net.tonbot.core.permission;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.common.base.Preconditions;
+
+import sx.blah.discord.handle.obj.IRole;
+import sx.blah.discord.handle.obj.IUser;
+
+/**
+ * The rules of a guild, compiled for lookups. {@link RoleRule}s are indexed by
+ * their path expressions in a trie with wildcard and double wildcard branches,
+ * and then by their role IDs. Finding the rule which applies to a route costs a
+ * walk down the trie and one binary search per role of the user, rather than a
+ * check of every rule.<br/>
+ *
+ * Each rule keeps its position in the guild's rule list, so the first rule that
+ * applies still wins. An index is never modified after construction, so it must
+ * be rebuilt whenever the rules change.
+ */
+class GuildPermissionIndex {
+
+	private final Node root;
+
+	// Rules which aren't role rules, with their positions. They're checked one by
+	// one.
+	private final List<Rule> otherRules;
+	private final int[] otherRuleOrdinals;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param rules
+	 *            The guild's rules, in order. Non-null.
+	 */
+	public GuildPermissionIndex(List<Rule> rules) {
+		Preconditions.checkNotNull(rules, "rules must be non-null.");
+
+		MutableNode mutableRoot = new MutableNode();
+		List<Rule> otherRules = new ArrayList<>();
+		List<Integer> otherRuleOrdinals = new ArrayList<>();
+
+		for (int ordinal = 0; ordinal < rules.size(); ordinal++) {
+			Rule rule = rules.get(ordinal);
+			if (!(rule instanceof RoleRule)) {
+				otherRules.add(rule);
+				otherRuleOrdinals.add(ordinal);
+				continue;
+			}
+
+			RoleRule roleRule = (RoleRule) rule;
+			MutableNode node = mutableRoot;
+			boolean doubleWildcarded = false;
+			for (String component : roleRule.getPathExp().components()) {
+				if (component.equals(PathExpression.DOUBLE_WILDCARD)) {
+					doubleWildcarded = true;
+				} else if (component.equals(PathExpression.WILDCARD)) {
+					node = node.wildcard != null ? node.wildcard : (node.wildcard = new MutableNode());
+				} else {
+					node = node.children.computeIfAbsent(component, c -> new MutableNode());
+				}
+			}
+
+			Map<Long, Integer> ordinalsByRole = doubleWildcarded ? node.doubleWildcardRules : node.terminalRules;
+			ordinalsByRole.putIfAbsent(roleRule.getRoleId(), ordinal);
+		}
+
+		this.root = mutableRoot.compile(rules);
+		this.otherRules = otherRules;
+		this.otherRuleOrdinals = otherRuleOrdinals.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Checks whether every rule is a {@link RoleRule}, in which case the rule
+	 * which applies to a user only depends on the user's roles.
+	 *
+	 * @return True if every rule is a {@link RoleRule}.
+	 */
+	public boolean isRoleBased() {
+		return otherRules.isEmpty();
+	}
+
+	/**
+	 * Finds the first rule which applies to a route and a user.
+	 *
+	 * @param route
+	 *            The route. Non-null.
+	 * @param user
+	 *            The user. Non-null.
+	 * @param roles
+	 *            The roles of the user in the guild. Non-null.
+	 * @return The first rule which applies, or null if none do.
+	 */
+	public Rule findFirstRule(List<String> route, IUser user, List<IRole> roles) {
+		Preconditions.checkNotNull(route, "route must be non-null.");
+		Preconditions.checkNotNull(user, "user must be non-null.");
+		Preconditions.checkNotNull(roles, "roles must be non-null.");
+
+		long[] roleIds = new long[roles.size()];
+		for (int i = 0; i < roleIds.length; i++) {
+			roleIds[i] = roles.get(i).getLongID();
+		}
+
+		Search search = new Search();
+		search(root, route, 0, roleIds, search);
+
+		for (int i = 0; i < otherRules.size() && otherRuleOrdinals[i] < search.bestOrdinal; i++) {
+			if (otherRules.get(i).appliesTo(route, user)) {
+				search.offer(otherRuleOrdinals[i], otherRules.get(i));
+				break;
+			}
+		}
+
+		return search.bestRule;
+	}
+
+	private static void search(Node node, List<String> route, int depth, long[] roleIds, Search search) {
+		// A double wildcard also matches zero components.
+		node.doubleWildcardRules.collect(roleIds, search);
+
+		if (depth == route.size()) {
+			node.terminalRules.collect(roleIds, search);
+			return;
+		}
+
+		Node child = node.children.get(route.get(depth));
+		if (child != null) {
+			search(child, route, depth + 1, roleIds, search);
+		}
+
+		if (node.wildcard != null) {
+			search(node.wildcard, route, depth + 1, roleIds, search);
+		}
+	}
+
+	private static class Search {
+		private int bestOrdinal = Integer.MAX_VALUE;
+		private Rule bestRule;
+
+		private void offer(int ordinal, Rule rule) {
+			if (ordinal < bestOrdinal) {
+				bestOrdinal = ordinal;
+				bestRule = rule;
+			}
+		}
+	}
+
+	private static class MutableNode {
+		private final Map<String, MutableNode> children = new HashMap<>();
+		private MutableNode wildcard;
+		private final Map<Long, Integer> terminalRules = new TreeMap<>();
+		private final Map<Long, Integer> doubleWildcardRules = new TreeMap<>();
+
+		private Node compile(List<Rule> rules) {
+			Map<String, Node> compiledChildren = new HashMap<>();
+			children.forEach((component, child) -> compiledChildren.put(component, child.compile(rules)));
+
+			return new Node(compiledChildren, wildcard != null ? wildcard.compile(rules) : null,
+					new RoleRules(terminalRules, rules), new RoleRules(doubleWildcardRules, rules));
+		}
+	}
+
+	private static class Node {
+		private final Map<String, Node> children;
+		private final Node wildcard;
+		private final RoleRules terminalRules;
+		private final RoleRules doubleWildcardRules;
+
+		private Node(Map<String, Node> children, Node wildcard, RoleRules terminalRules,
+				RoleRules doubleWildcardRules) {
+			this.children = children;
+			this.wildcard = wildcard;
+			this.terminalRules = terminalRules;
+			this.doubleWildcardRules = doubleWildcardRules;
+		}
+	}
+
+	/**
+	 * The first rule of each role among the rules that end at a node, sorted by
+	 * role ID.
+	 */
+	private static class RoleRules {
+		private final long[] roleIds;
+		private final int[] ordinals;
+		private final Rule[] rules;
+
+		private RoleRules(Map<Long, Integer> ordinalsByRole, List<Rule> allRules) {
+			this.roleIds = new long[ordinalsByRole.size()];
+			this.ordinals = new int[ordinalsByRole.size()];
+			this.rules = new Rule[ordinalsByRole.size()];
+
+			int i = 0;
+			for (Map.Entry<Long, Integer> entry : ordinalsByRole.entrySet()) {
+				roleIds[i] = entry.getKey();
+				ordinals[i] = entry.getValue();
+				rules[i] = allRules.get(entry.getValue());
+				i++;
+			}
+		}
+
+		private void collect(long[] userRoleIds, Search search) {
+			if (roleIds.length == 0) {
+				return;
+			}
+
+			for (long userRoleId : userRoleIds) {
+				int i = Arrays.binarySearch(roleIds, userRoleId);
+				if (i >= 0) {
+					search.offer(ordinals[i], rules[i]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package net.tonbot.core.permission;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import net.tonbot.core.collect.LongObjectMap;
+
+/**
+ * A map from primitive longs to {@link AtomicReference} slots. Looking up a
+ * slot never locks, since the {@link LongObjectMap} that holds the slots may be
+ * read while a key is being added. Keys are added under a lock, and are
+ * expected to be added rarely, such as once per guild, while the values in the
+ * slots may be replaced as often as needed without contending on anything but
+ * their own slot. Keys are never removed.
+ */
+class LongReferenceMap<V> {
+
+	private static final int EXPECTED_SIZE = 8;
+
+	// Written while holding this object's monitor.
+	private final LongObjectMap<AtomicReference<V>> slots = new LongObjectMap<>(EXPECTED_SIZE);
+
+	/**
+	 * Gets the slot of a key.
+	 *
+	 * @param key
+	 *            The key.
+	 * @return The slot, or null if the key hasn't been added.
+	 */
+	public AtomicReference<V> get(long key) {
+		return slots.get(key);
+	}
+
+	/**
+	 * Gets the slot of a key, adding the key with an empty slot if needed.
+	 *
+	 * @param key
+	 *            The key.
+	 * @return The slot. Non-null.
+	 */
+	public AtomicReference<V> getOrCreate(long key) {
+		AtomicReference<V> slot = slots.get(key);
+		if (slot != null) {
+			return slot;
+		}
+
+		synchronized (this) {
+			slot = slots.get(key);
+			if (slot == null) {
+				slot = new AtomicReference<>();
+				slots.put(key, slot);
+			}
+			return slot;
+		}
+	}
+
+	/**
+	 * Calls an action with every key and its slot, whether or not the slot is
+	 * empty. Keys which are added during the call may be skipped.
+	 *
+	 * @param action
+	 *            The action. Non-null.
+	 */
+	public void forEachSlot(BiConsumer<Long, AtomicReference<V>> action) {
+		slots.forEach(action);
+	}
+}
@@ -12,8 +12,8 @@ import com.google.common.collect.ImmutableList;
 
 class PathExpression {
 
-	private static final String WILDCARD = "*";
-	private static final String DOUBLE_WILDCARD = "**";
+	static final String WILDCARD = "*";
+	static final String DOUBLE_WILDCARD = "**";
 
 	@JsonProperty("pathExp")
 	private final List<String> pathExp;
@@ -124,6 +124,15 @@ class PathExpression {
 		return true;
 	}
 
+	/**
+	 * Gets the components of this path expression.
+	 * 
+	 * @return The components. Non-null.
+	 */
+	List<String> components() {
+		return pathExp;
+	}
+
 	@Override
 	public String toString() {
 		return StringUtils.join(this.pathExp, " ");
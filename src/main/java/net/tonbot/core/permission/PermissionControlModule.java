@@ -17,19 +17,26 @@ import com.google.inject.TypeLiteral;
 
 import net.tonbot.common.Activity;
 import net.tonbot.common.BotUtils;
+import net.tonbot.core.request.EntityCache;
 import sx.blah.discord.api.IDiscordClient;
 
 class PermissionControlModule extends AbstractModule {
 
 	private final BotUtils botUtils;
 	private final IDiscordClient discordClient;
+	private final EntityCache entityCache;
 	private final File permissionsFile;
+	private final long guildIdleTimeoutMs;
 	private final List<Activity> publicActivities;
 
-	public PermissionControlModule(BotUtils botUtils, IDiscordClient discordClient, File permissionsFile) {
+	public PermissionControlModule(BotUtils botUtils, IDiscordClient discordClient, EntityCache entityCache,
+			File permissionsFile, long guildIdleTimeoutMs) {
 		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
 		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
+		this.entityCache = Preconditions.checkNotNull(entityCache, "entityCache must be non-null.");
 		this.permissionsFile = Preconditions.checkNotNull(permissionsFile, "permissionsFile must be non-null.");
+		Preconditions.checkArgument(guildIdleTimeoutMs > 0, "guildIdleTimeoutMs must be positive.");
+		this.guildIdleTimeoutMs = guildIdleTimeoutMs;
 		this.publicActivities = new ArrayList<>();
 	}
 
@@ -40,7 +47,10 @@ class PermissionControlModule extends AbstractModule {
 		bind(new TypeLiteral<List<Activity>>() {
 		}).annotatedWith(PublicActivities.class).toInstance(publicActivities);
 		bind(PermissionManager.class).to(PermissionManagerImpl.class).in(Scopes.SINGLETON);
+		bind(EntityCache.class).toInstance(entityCache);
+		bind(AccessDecisionCache.class).in(Scopes.SINGLETON);
 		bind(File.class).toInstance(permissionsFile);
+		bindConstant().annotatedWith(GuildIdleTimeout.class).to(guildIdleTimeoutMs);
 	}
 
 	@Provides
@@ -63,8 +73,9 @@ class PermissionControlModule extends AbstractModule {
 
 	@Provides
 	@Singleton
-	Set<Object> eventListeners(PermissionsManagerListener listener) {
-		return ImmutableSet.of(listener);
+	Set<Object> eventListeners(PermissionsManagerListener listener, AccessDecisionCache decisionCache) {
+		// The entity cache is the core's, which gets its events from the core.
+		return ImmutableSet.of(listener, decisionCache);
 	}
 
 	@Provides
@@ -1,93 +1,193 @@
 package net.tonbot.core.permission;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 
 import net.tonbot.common.Activity;
 import net.tonbot.common.Route;
 import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IRole;
 import sx.blah.discord.handle.obj.IUser;
 import sx.blah.discord.handle.obj.Permissions;
 
 class PermissionManagerImpl implements PermissionManager {
 
-	private Map<Long, GuildConfiguration> guildConfigs;
+	private static final long TOUCH_GRANULARITY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	// Each guild's slot holds an immutable GuildState. Readers never lock, and
+	// writers publish a new state with a compare-and-set on the guild's own slot,
+	// so they only contend with writers of the same guild. A slot is empty until
+	// its guild is loaded from the store, and again once the guild is evicted for
+	// being idle. Loads and evictions lock the slot, so neither can publish a
+	// state that an update has already replaced.
+	private final LongReferenceMap<GuildState> guildStates;
 
 	private final List<Activity> publicActivities;
 	private final List<Activity> restrictedActivities;
-	private final ObjectMapper objectMapper;
-	private final File permissionsFile;
-
-	private final ReadWriteLock lock;
+	private final PermissionStore permissionStore;
+	private final AccessDecisionCache decisionCache;
+	private final long guildIdleTimeoutNanos;
+	private final ScheduledExecutorService evictor;
 
 	@Inject
 	public PermissionManagerImpl(
 			@PublicActivities List<Activity> publicActivities,
 			@RestrictedActivities List<Activity> restrictedActivities, 
 			File permissionsFile,
-			ObjectMapper objectMapper) {
+			ObjectMapper objectMapper,
+			AccessDecisionCache decisionCache,
+			@GuildIdleTimeout long guildIdleTimeoutMs) {
 		
-		this.guildConfigs = new HashMap<>();
+		this.guildStates = new LongReferenceMap<>();
 		// Activities that should always be accessible to everyone.
 		Preconditions.checkNotNull(publicActivities, "publicActivities must be non-null.");
-		this.publicActivities = new ArrayList<>(publicActivities);
+		this.publicActivities = new CopyOnWriteArrayList<>(publicActivities);
 
 		// Activities that should should not be accessible to everyone by default.
 		Preconditions.checkNotNull(restrictedActivities, "restrictedActivities must be non-null.");
 		this.restrictedActivities = new ArrayList<>(restrictedActivities);
 
-		this.permissionsFile = Preconditions.checkNotNull(permissionsFile, "permissionsFile must be non-null.");
-		this.objectMapper = Preconditions.checkNotNull(objectMapper, "objectMapper must be non-null.");
+		Preconditions.checkNotNull(permissionsFile, "permissionsFile must be non-null.");
+		Preconditions.checkNotNull(objectMapper, "objectMapper must be non-null.");
+		this.decisionCache = Preconditions.checkNotNull(decisionCache, "decisionCache must be non-null.");
+
+		Preconditions.checkArgument(guildIdleTimeoutMs > 0, "guildIdleTimeoutMs must be positive.");
+		this.guildIdleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(guildIdleTimeoutMs);
+
+		this.permissionStore = new PermissionStore(permissionsFile, objectMapper);
+		permissionStore.open();
 
-		this.lock = new ReentrantReadWriteLock();
+		this.evictor = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactoryBuilder().setNameFormat("Permissions Evictor").setDaemon(true).build());
+		long evictionIntervalMs = Math.max(guildIdleTimeoutMs / 2, 1);
+		evictor.scheduleWithFixedDelay(this::evictIdleGuilds, evictionIntervalMs, evictionIntervalMs,
+				TimeUnit.MILLISECONDS);
+	}
 
-		if (permissionsFile.exists()) {
-			load();
-		} else {
-			save();
+	/**
+	 * Gets the state of a guild, loading it from the store if it isn't in memory.
+	 *
+	 * @param guildId
+	 *            The ID of the guild.
+	 * @return The state. Non-null, but its configuration is null if the guild has
+	 *         none.
+	 */
+	private GuildState getState(long guildId) {
+		AtomicReference<GuildState> slot = guildStates.getOrCreate(guildId);
+
+		GuildState state = slot.get();
+		if (state == null) {
+			synchronized (slot) {
+				state = slot.get();
+				if (state == null) {
+					state = new GuildState(permissionStore.load(guildId), true);
+					slot.set(state);
+				}
+			}
 		}
+
+		state.touch();
+		return state;
 	}
 
-	private void load() {
-		lock.writeLock().lock();
-		try {
-			this.guildConfigs = objectMapper.readValue(permissionsFile,
-					new TypeReference<Map<Long, GuildConfiguration>>() {
-					});
-		} catch (IOException e) {
-			throw new UncheckedIOException("Unable to read permissions file.", e);
-		} finally {
-			lock.writeLock().unlock();
+	/**
+	 * Empties the slots of the guilds which haven't been used for the idle
+	 * timeout. Their configurations are only kept in the store, and their access
+	 * decisions stay cached, since they are still valid.
+	 */
+	void evictIdleGuilds() {
+		long now = System.nanoTime();
+
+		guildStates.forEachSlot((guildId, slot) -> {
+			GuildState state = slot.get();
+			if (state == null || !state.persisted || now - state.lastAccessNanos < guildIdleTimeoutNanos) {
+				return;
+			}
+
+			synchronized (slot) {
+				// Fails if the guild was updated in the meantime.
+				slot.compareAndSet(state, null);
+			}
+		});
+	}
+
+	/**
+	 * Publishes a new state of a guild, retrying until no other writer of the
+	 * guild got in the way. Then forgets the guild's access decisions, logs the
+	 * new configuration and waits until the log has been synced, so that a change
+	 * which returns survives a crash.
+	 *
+	 * @param guildId
+	 *            The ID of the guild.
+	 * @param update
+	 *            Creates the new configuration from the current one, which is null
+	 *            if the guild has none. It may be called more than once, so it
+	 *            must not have side effects. Returning the current configuration
+	 *            leaves the guild as it is.
+	 * @return The previous configuration, or null if there was none.
+	 */
+	private GuildConfiguration update(long guildId, UnaryOperator<GuildConfiguration> update) {
+		AtomicReference<GuildState> slot = guildStates.getOrCreate(guildId);
+
+		while (true) {
+			GuildState current = getState(guildId);
+			GuildConfiguration currentConfig = current.configuration;
+
+			GuildConfiguration nextConfig = update.apply(currentConfig);
+			if (nextConfig == currentConfig) {
+				return currentConfig;
+			}
+			nextConfig = nextConfig.withVersion(currentConfig != null ? currentConfig.getVersion() + 1 : 1);
+
+			// The new state can't be evicted until the store has its configuration.
+			GuildState next = new GuildState(nextConfig, false);
+			if (slot.compareAndSet(current, next)) {
+				decisionCache.invalidate(guildId);
+				CompletableFuture<Void> synced = permissionStore.append(guildId, nextConfig);
+				next.persisted = true;
+				awaitSynced(guildId, synced);
+				return currentConfig;
+			}
 		}
 	}
 
-	private void save() {
-		lock.readLock().lock();
+	private void awaitSynced(long guildId, CompletableFuture<Void> synced) {
 		try {
-			permissionsFile.createNewFile();
-			objectMapper.writeValue(permissionsFile, guildConfigs);
-		} catch (IOException e) {
-			throw new UncheckedIOException("Unable to save permissions file.", e);
-		} finally {
-			lock.readLock().unlock();
+			synced.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while saving the permissions of guild " + guildId + ".", e);
+		} catch (ExecutionException e) {
+			// The change is in effect, and the store keeps trying to log it.
+			throw new IllegalStateException("The permissions of guild " + guildId + " were changed, but couldn't be saved.",
+					e.getCause());
 		}
 	}
 
+	private GuildConfiguration getConfiguration(IGuild guild) {
+		return getState(guild.getLongID()).configuration;
+	}
+
 	@Override
 	public void add(Rule... inputRules) {
 		Preconditions.checkNotNull(inputRules, "inputRules must be non-null.");
@@ -95,12 +195,7 @@ class PermissionManagerImpl implements PermissionManager {
 			return;
 		}
 
-		lock.writeLock().lock();
-		try {
-			addAllInternal(Arrays.asList(inputRules));
-		} finally {
-			lock.writeLock().unlock();
-		}
+		addAllInternal(Arrays.asList(inputRules));
 	}
 
 	@Override
@@ -110,136 +205,114 @@ class PermissionManagerImpl implements PermissionManager {
 			return;
 		}
 
-		lock.writeLock().lock();
-		try {
-			addAllInternal(inputRules);
-		} finally {
-			lock.writeLock().unlock();
-		}
+		addAllInternal(inputRules);
 	}
 
 	@Override
 	public void add(int index, Rule rule) {
 		Preconditions.checkNotNull(rule, "rule must be non-null.");
 
-		lock.writeLock().lock();
-		try {
-			long guildId = rule.getGuildId();
-			GuildConfiguration guildConfig = guildConfigs.computeIfAbsent(guildId,
-					k -> new GuildConfiguration(new ArrayList<>(), true));
-			guildConfig.getRules().add(index, rule);
-		} finally {
-			lock.writeLock().unlock();
-		}
+		update(rule.getGuildId(), guildConfig -> {
+			GuildConfiguration config = guildConfig != null ? guildConfig
+					: new GuildConfiguration(ImmutableList.of(), true);
+
+			List<Rule> rules = new ArrayList<>(config.getRules());
+			rules.add(index, rule);
+			return config.withRules(rules);
+		});
 	}
 
 	private void addAllInternal(Collection<Rule> inputRules) {
-		for (Rule rule : inputRules) {
-			long guildId = rule.getGuildId();
-			GuildConfiguration guildConfig = guildConfigs.computeIfAbsent(guildId,
-					k -> new GuildConfiguration(new ArrayList<>(), true));
-			guildConfig.getRules().add(rule);
-		}
+		// Rules of different guilds are published separately.
+		Map<Long, List<Rule>> rulesByGuild = inputRules.stream()
+				.collect(Collectors.groupingBy(Rule::getGuildId, LinkedHashMap::new, Collectors.toList()));
+
+		rulesByGuild.forEach((guildId, guildRules) -> update(guildId, guildConfig -> {
+			GuildConfiguration config = guildConfig != null ? guildConfig
+					: new GuildConfiguration(ImmutableList.of(), true);
+
+			return config.withRules(ImmutableList.<Rule> builder()
+					.addAll(config.getRules())
+					.addAll(guildRules)
+					.build());
+		}));
 	}
 
 	@Override
 	public Rule remove(IGuild guild, int index) {
-		lock.writeLock().lock();
-		try {
-			GuildConfiguration guildConfig = guildConfigs.get(guild.getLongID());
+		GuildConfiguration previous = update(guild.getLongID(), guildConfig -> {
 			if (guildConfig == null) {
 				throw new IllegalStateException("No guild configuration found.");
 			}
-			return guildConfig.getRules().remove(index);
-		} finally {
-			lock.writeLock().unlock();
-		}
+
+			List<Rule> rules = new ArrayList<>(guildConfig.getRules());
+			rules.remove(index);
+			return guildConfig.withRules(rules);
+		});
+
+		return previous.getRules().get(index);
 	}
 
 	@Override
 	public List<Rule> getRulesForGuild(IGuild guild) {
-		lock.readLock().lock();
-		try {
-			GuildConfiguration guildConfig = guildConfigs.get(guild.getLongID());
-			if (guildConfig != null) {
-				return ImmutableList.copyOf(guildConfig.getRules());
-			} else {
-				return ImmutableList.of();
-			}
-
-		} finally {
-			lock.readLock().unlock();
-		}
+		GuildConfiguration guildConfig = getConfiguration(guild);
+		return guildConfig != null ? guildConfig.getRules() : ImmutableList.of();
 	}
 
 	@Override
 	public boolean getDefaultAllowForGuild(IGuild guild) {
-		lock.readLock().lock();
-		try {
-			GuildConfiguration guildConfig = guildConfigs.get(guild.getLongID());
-			return guildConfig.isDefaultAllow();
-		} finally {
-			lock.readLock().unlock();
+		GuildConfiguration guildConfig = getConfiguration(guild);
+		if (guildConfig == null) {
+			throw new IllegalStateException("No guild configuration found.");
 		}
+		return guildConfig.isDefaultAllow();
 	}
 
 	@Override
 	public void setDefaultAllowForGuild(IGuild guild, boolean defaultAllow) {
-		lock.writeLock().lock();
-		try {
-			GuildConfiguration guildConfig = guildConfigs.get(guild.getLongID());
+		update(guild.getLongID(), guildConfig -> {
 			if (guildConfig == null) {
 				throw new IllegalStateException("No guild configuration found.");
 			}
-			guildConfig.setDefaultAllow(defaultAllow);
-		} finally {
-			lock.writeLock().unlock();
-		}
+			return guildConfig.isDefaultAllow() == defaultAllow ? guildConfig
+					: guildConfig.withDefaultAllow(defaultAllow);
+		});
 	}
 
 	@Override
 	public void initializeForGuild(IGuild guild) {
 		Preconditions.checkNotNull(guild, "guild must be non-null.");
 
-		boolean isInitialized;
-		lock.readLock().lock();
-		try {
-			isInitialized = guildConfigs.containsKey(guild.getLongID());
-		} finally {
-			lock.readLock().unlock();
+		if (getConfiguration(guild) != null) {
+			return;
 		}
 
-		if (!isInitialized) {
-			List<Rule> rules = new ArrayList<>();
-
-			for (Activity publicActivity : publicActivities) {
-				Route route = publicActivity.getDescriptor().getRoute();
-				Rule rule = new RoleRule(
-						route.getPath(), 
-						guild.getLongID(), 
-						guild.getEveryoneRole().getLongID(), 
-						true);
-				rules.add(rule);
-			}
+		List<Rule> rules = new ArrayList<>();
 
-			for (Activity restrictedActivity : restrictedActivities) {
-				Route route = restrictedActivity.getDescriptor().getRoute();
-				Rule rule = new RoleRule(
-						route.getPath(), 
-						guild.getLongID(), 
-						guild.getEveryoneRole()
-						.getLongID(),
-						false);
-				rules.add(rule);
-			}
+		for (Activity publicActivity : publicActivities) {
+			Route route = publicActivity.getDescriptor().getRoute();
+			Rule rule = new RoleRule(
+					route.getPath(), 
+					guild.getLongID(), 
+					guild.getEveryoneRole().getLongID(), 
+					true);
+			rules.add(rule);
+		}
 
-			lock.writeLock().lock();
-			try {
-				this.addAllInternal(rules);
-			} finally {
-				lock.writeLock().unlock();
-			}
+		for (Activity restrictedActivity : restrictedActivities) {
+			Route route = restrictedActivity.getDescriptor().getRoute();
+			Rule rule = new RoleRule(
+					route.getPath(), 
+					guild.getLongID(), 
+					guild.getEveryoneRole()
+					.getLongID(),
+					false);
+			rules.add(rule);
 		}
+
+		// Another thread may have initialized the guild in the meantime.
+		update(guild.getLongID(), guildConfig -> guildConfig != null ? guildConfig
+				: new GuildConfiguration(rules, true));
 	}
 
 	@Override
@@ -248,55 +321,88 @@ class PermissionManagerImpl implements PermissionManager {
 		Preconditions.checkNotNull(user, "user must be non-null.");
 		Preconditions.checkNotNull(guild, "guild must be non-null.");
 
-		// The guild owner and the administrators can always access an activity.
-		boolean userIsAdmin = user.getLongID() == guild.getOwnerLongID() || user.getRolesForGuild(guild).stream()
+		// The guild owner can always access an activity.
+		if (user.getLongID() == guild.getOwnerLongID()) {
+			return true;
+		}
+
+		List<IRole> roles = user.getRolesForGuild(guild);
+
+		// Decisions only depend on the member's roles, so members with the same roles
+		// share them.
+		AccessDecisionCache.Key decisionKey = decisionCache.key(guild, roles, activity);
+		Boolean decision = decisionCache.get(decisionKey);
+		if (decision != null) {
+			return decision;
+		}
+
+		// The administrators can always access an activity.
+		boolean userIsAdmin = roles.stream()
 				.filter(role -> role.getPermissions().contains(Permissions.ADMINISTRATOR))
 				.findAny()
 				.isPresent();
 		
 		if (userIsAdmin) {
+			decisionCache.put(decisionKey, true);
 			return true;
 		}
 
 		Route route = activity.getDescriptor().getRoute();
 
-		lock.readLock().lock();
-		try {
-			GuildConfiguration guildConfig = guildConfigs.get(guild.getLongID());
-			if (guildConfig == null) {
-				return false;
-			}
+		GuildState state = getState(guild.getLongID());
+		if (state.configuration == null) {
+			return false;
+		}
 
-			Rule bestRule = guildConfig.getRules().stream()
-					.filter(rule -> rule.appliesTo(route.getPath(), user))
-					.findFirst()
-					.orElse(null);
+		Rule bestRule = state.index.findFirstRule(route.getPath(), user, roles);
 
-			if (bestRule != null) {
-				return bestRule.isAllow();
-			} else {
-				return guildConfig.isDefaultAllow();
-			}
-		} finally {
-			lock.readLock().unlock();
+		boolean accessible = bestRule != null ? bestRule.isAllow() : state.configuration.isDefaultAllow();
+		if (state.index.isRoleBased()) {
+			decisionCache.put(decisionKey, accessible);
 		}
+
+		return accessible;
 	}
 
 	@Override
 	public void addPublicActivity(Activity publicActivity) {
 		Preconditions.checkNotNull(publicActivity, "publicActivity must be non-null.");
 
-		lock.writeLock().lock();
-		try {
-			this.publicActivities.add(publicActivity);
-		} finally {
-			lock.writeLock().unlock();
-		}
-
+		this.publicActivities.add(publicActivity);
 	}
 
 	@Override
 	public void destroy() {
-		save();
+		evictor.shutdownNow();
+		permissionStore.close();
+	}
+
+	/**
+	 * A configuration and the index of its rules, which are published together.
+	 * The configuration is null if the guild has none.
+	 */
+	private static class GuildState {
+		private final GuildConfiguration configuration;
+		private final GuildPermissionIndex index;
+
+		// Whether the store has the configuration, which makes the state evictable.
+		private volatile boolean persisted;
+		private volatile long lastAccessNanos;
+
+		private GuildState(GuildConfiguration configuration, boolean persisted) {
+			this.configuration = configuration;
+			this.index = configuration != null ? new GuildPermissionIndex(configuration.getRules()) : null;
+			this.persisted = persisted;
+			this.lastAccessNanos = System.nanoTime();
+		}
+
+		private void touch() {
+			// Only write when the time has visibly moved on, so that threads which check
+			// the same busy guild don't keep invalidating each other's caches.
+			long now = System.nanoTime();
+			if (now - lastAccessNanos > TOUCH_GRANULARITY_NANOS) {
+				lastAccessNanos = now;
+			}
+		}
 	}
 }
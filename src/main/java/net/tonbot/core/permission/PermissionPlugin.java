@@ -1,6 +1,7 @@
 package net.tonbot.core.permission;
 
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -10,17 +11,33 @@ import com.google.inject.TypeLiteral;
 import net.tonbot.common.Activity;
 import net.tonbot.common.TonbotPlugin;
 import net.tonbot.common.TonbotPluginArgs;
+import net.tonbot.core.request.EntityCache;
 
 public class PermissionPlugin extends TonbotPlugin {
 
+	// Plugins don't get a config of their own, and this plugin's config file holds
+	// the permissions, so the idle timeout is a system property.
+	private static final String GUILD_IDLE_TIMEOUT_PROPERTY = "tonbot.permissions.guildIdleTimeoutMs";
+	private static final long DEFAULT_GUILD_IDLE_TIMEOUT_MS = TimeUnit.HOURS.toMillis(1);
+
 	private final Injector injector;
 	private final PermissionManager permissionManagerInstance;
 
-	public PermissionPlugin(TonbotPluginArgs pluginArgs) {
+	/**
+	 * Constructor.
+	 *
+	 * @param pluginArgs
+	 *            {@link TonbotPluginArgs}. Non-null.
+	 * @param entityCache
+	 *            The core's {@link EntityCache}, which already receives the
+	 *            gateway events. Non-null.
+	 */
+	public PermissionPlugin(TonbotPluginArgs pluginArgs, EntityCache entityCache) {
 		super(pluginArgs);
 
 		this.injector = Guice.createInjector(new PermissionControlModule(pluginArgs.getBotUtils(),
-				pluginArgs.getDiscordClient(), pluginArgs.getConfigFile()));
+				pluginArgs.getDiscordClient(), entityCache, pluginArgs.getConfigFile(),
+				Long.getLong(GUILD_IDLE_TIMEOUT_PROPERTY, DEFAULT_GUILD_IDLE_TIMEOUT_MS)));
 		this.permissionManagerInstance = injector.getInstance(PermissionManager.class);
 	}
 
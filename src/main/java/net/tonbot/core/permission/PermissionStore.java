@@ -0,0 +1,505 @@
+package net.tonbot.core.permission;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Data;
+
+/**
+ * Persists guild configurations as one shard file per guild plus an
+ * append-only log of the configurations which changed since their shards were
+ * written. Shards are only read when their guild is loaded, so nothing is read
+ * upon startup but the log.<br/>
+ *
+ * Changed configurations are queued and written to the log in batches by a
+ * background thread, with one fsync per batch. Each change's future completes
+ * once its batch has been synced, so a caller who waits for it knows the change
+ * survives a crash. Changes queued while a batch is being written are written
+ * together in the next one. A batch which fails is cut back off the log, so
+ * that retrying it never leaves a torn record in front of later ones.<br/>
+ *
+ * Once the log grows past {@link #MAX_LOG_SIZE}, it is compacted: the shard of
+ * every guild which changed since the last compaction is written to a temporary
+ * file, synced and atomically renamed over the old shard, and then the log is
+ * emptied.<br/>
+ *
+ * Each line of the log is a JSON record of a guild ID and the guild's whole
+ * configuration. The newest version of each guild's configuration wins,
+ * whichever file it's in. This makes replaying a log over shards which already
+ * include some of its records harmless, such as after a crash between writing
+ * the shards and emptying the log.<br/>
+ *
+ * A permissions file from before shards were introduced, which holds every
+ * guild, is split into shards upon opening and then renamed.
+ */
+class PermissionStore implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PermissionStore.class);
+
+	static final long MAX_LOG_SIZE = 1024 * 1024;
+	private static final long FLUSH_INTERVAL_MS = 200;
+
+	private final Path legacyFile;
+	private final Path shardDirectory;
+	private final Path logFile;
+	private final ObjectMapper objectMapper;
+	private final ObjectWriter logWriter;
+
+	private final Queue<QueuedRecord> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+	// The newest configuration of each guild whose shard is out of date. Loads
+	// prefer these over the shards.
+	private final Map<Long, GuildConfiguration> unsharded = new ConcurrentHashMap<>();
+
+	private volatile ScheduledExecutorService flusher;
+	private volatile boolean closed = false;
+
+	// Guarded by this.
+	private FileChannel logChannel;
+	private List<QueuedRecord> unwritten = new ArrayList<>();
+	// The length of the log up to the end of the last batch that was synced.
+	private long logLength = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param permissionsFile
+	 *            The permissions file of old, which names the shard directory
+	 *            and the log, which are kept next to it with ".guilds" and ".log"
+	 *            suffixes. Non-null.
+	 * @param objectMapper
+	 *            The {@link ObjectMapper}. Non-null.
+	 */
+	public PermissionStore(File permissionsFile, ObjectMapper objectMapper) {
+		Preconditions.checkNotNull(permissionsFile, "permissionsFile must be non-null.");
+		this.objectMapper = Preconditions.checkNotNull(objectMapper, "objectMapper must be non-null.");
+
+		this.legacyFile = permissionsFile.toPath();
+		this.shardDirectory = legacyFile.resolveSibling(legacyFile.getFileName() + ".guilds");
+		this.logFile = legacyFile.resolveSibling(legacyFile.getFileName() + ".log");
+		this.logWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+	}
+
+	/**
+	 * Splits the permissions file of old into shards if needed, replays the log
+	 * into the shards, empties it and starts writing changed configurations to
+	 * it.
+	 *
+	 * @throws UncheckedIOException
+	 *             if the files couldn't be read or written.
+	 */
+	public synchronized void open() {
+		Preconditions.checkState(logChannel == null, "The store is already open.");
+
+		try {
+			Files.createDirectories(shardDirectory);
+			migrateLegacyFile();
+
+			this.logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			replayLog();
+			compact();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open the permissions store.", e);
+		}
+
+		this.flusher = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactoryBuilder().setNameFormat("Permissions Log Flusher").setDaemon(true).build());
+		flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Loads the newest configuration of a guild.
+	 *
+	 * @param guildId
+	 *            The ID of the guild.
+	 * @return The configuration, or null if the guild has none.
+	 * @throws UncheckedIOException
+	 *             if the guild's shard couldn't be read.
+	 */
+	public GuildConfiguration load(long guildId) {
+		// Read this before the shard, since the shard is written before this is
+		// cleared.
+		GuildConfiguration logged = unsharded.get(guildId);
+
+		GuildConfiguration sharded;
+		try {
+			sharded = readShard(guildId);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read the permissions of guild " + guildId + ".", e);
+		}
+
+		return newer(sharded, logged);
+	}
+
+	/**
+	 * Queues a changed configuration to be written to the log, and asks the
+	 * background thread to write it. Never blocks. Once this returns,
+	 * {@link #load(long)} returns the configuration or a newer one.
+	 *
+	 * @param guildId
+	 *            The ID of the guild.
+	 * @param configuration
+	 *            The guild's new configuration. Non-null.
+	 * @return A future which completes once the configuration has been synced to
+	 *         the log. It fails if the batch couldn't be written, in which case
+	 *         the configuration is still tried again upon the next flush, or if
+	 *         the store was closed first. Non-null.
+	 */
+	public CompletableFuture<Void> append(long guildId, GuildConfiguration configuration) {
+		Preconditions.checkNotNull(configuration, "configuration must be non-null.");
+
+		unsharded.merge(guildId, configuration, PermissionStore::newer);
+		QueuedRecord queued = new QueuedRecord(new LogRecord(guildId, configuration));
+		pending.add(queued);
+
+		if (closed) {
+			// The store may have been closed before the record was queued.
+			failPending();
+		} else {
+			requestFlush();
+		}
+
+		return queued.synced;
+	}
+
+	/**
+	 * Writes the queued configurations to the log and syncs it, then compacts the
+	 * log if it has grown too large. Failures are logged, the failed batch is cut
+	 * off the log, and its records are tried again upon the next flush.
+	 */
+	public synchronized void flush() {
+		flushRequested.set(false);
+		if (logChannel == null) {
+			return;
+		}
+
+		QueuedRecord queued;
+		while ((queued = pending.poll()) != null) {
+			unwritten.add(queued);
+		}
+
+		List<QueuedRecord> batch = unwritten;
+		try {
+			if (!batch.isEmpty()) {
+				rewindLog();
+
+				ByteBuffer bytes = encode(batch);
+				while (bytes.hasRemaining()) {
+					logChannel.write(bytes);
+				}
+				logChannel.force(false);
+				logLength = logChannel.position();
+
+				unwritten = new ArrayList<>();
+				batch.forEach(record -> record.synced.complete(null));
+			}
+
+			if (logChannel.size() > MAX_LOG_SIZE) {
+				compact();
+			}
+		} catch (IOException e) {
+			LOG.error("Unable to write the permissions log.", e);
+			batch.forEach(record -> record.synced.completeExceptionally(e));
+
+			try {
+				rewindLog();
+			} catch (IOException rewindException) {
+				// The next flush tries again before writing.
+				LOG.error("Unable to cut a failed batch off the permissions log.", rewindException);
+			}
+		}
+	}
+
+	/**
+	 * Flushes the queued configurations, writes the shards of every changed guild
+	 * and stops. The futures of configurations appended afterwards fail.
+	 */
+	@Override
+	public void close() {
+		ScheduledExecutorService flusher;
+		synchronized (this) {
+			flusher = this.flusher;
+		}
+
+		if (flusher != null) {
+			flusher.shutdown();
+			try {
+				flusher.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		synchronized (this) {
+			if (logChannel != null) {
+				flush();
+				try {
+					compact();
+					logChannel.close();
+				} catch (IOException e) {
+					LOG.error("Unable to write the permissions shards.", e);
+				}
+				logChannel = null;
+			}
+			closed = true;
+		}
+
+		// Whatever was queued after the last flush wasn't logged.
+		failPending();
+	}
+
+	private void requestFlush() {
+		ScheduledExecutorService flusher = this.flusher;
+		if (flusher == null || !flushRequested.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			flusher.execute(this::flush);
+		} catch (RejectedExecutionException e) {
+			// The store is closing, and close() flushes or fails the record.
+			flushRequested.set(false);
+		}
+	}
+
+	private void failPending() {
+		QueuedRecord queued;
+		while ((queued = pending.poll()) != null) {
+			queued.synced.completeExceptionally(new IllegalStateException("The permissions store is closed."));
+		}
+	}
+
+	/**
+	 * Cuts off anything past the end of the last synced batch, which is left
+	 * behind when a batch fails partway.
+	 */
+	private void rewindLog() throws IOException {
+		if (logChannel.size() != logLength || logChannel.position() != logLength) {
+			logChannel.truncate(logLength);
+			logChannel.position(logLength);
+		}
+	}
+
+	/**
+	 * Writes the shards of the guilds which changed since the last compaction,
+	 * then empties the log. Every record in the log is older than or equal to the
+	 * configuration of its guild in {@link #unsharded}, since it was added there
+	 * before it was written.
+	 */
+	private void compact() throws IOException {
+		for (Map.Entry<Long, GuildConfiguration> entry : unsharded.entrySet()) {
+			writeShard(entry.getKey(), entry.getValue());
+			// Keep the entry if the guild changed again in the meantime.
+			unsharded.remove(entry.getKey(), entry.getValue());
+		}
+
+		// The renames of the shards must be durable before the log records they
+		// replace are dropped. This also covers shards renamed by an earlier
+		// compaction which failed before it got here.
+		syncShardDirectory();
+
+		logChannel.truncate(0);
+		logLength = 0;
+		logChannel.position(0);
+		logChannel.force(true);
+	}
+
+	private void replayLog() throws IOException {
+		Map<Long, GuildConfiguration> newestByGuild = new HashMap<>();
+
+		int replayed = 0;
+		try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				LogRecord record;
+				try {
+					record = objectMapper.readValue(line, LogRecord.class);
+				} catch (IOException e) {
+					// Only the last batch can be torn, and none of it was acknowledged.
+					LOG.warn("Ignoring the rest of the permissions log after a malformed record.", e);
+					break;
+				}
+
+				newestByGuild.merge(record.getGuildId(), record.getConfiguration(), PermissionStore::newer);
+				replayed++;
+			}
+		}
+
+		for (Map.Entry<Long, GuildConfiguration> entry : newestByGuild.entrySet()) {
+			GuildConfiguration sharded = readShard(entry.getKey());
+			if (newer(sharded, entry.getValue()) != sharded) {
+				unsharded.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		if (replayed > 0) {
+			LOG.info("Replayed {} records of the permissions log.", replayed);
+		}
+	}
+
+	private void migrateLegacyFile() throws IOException {
+		if (!Files.exists(legacyFile)) {
+			return;
+		}
+
+		Map<Long, GuildConfiguration> guildConfigs = objectMapper.readValue(legacyFile.toFile(),
+				new TypeReference<Map<Long, GuildConfiguration>>() {
+				});
+		for (Map.Entry<Long, GuildConfiguration> entry : guildConfigs.entrySet()) {
+			// A shard could only exist if a previous migration was interrupted, in which
+			// case it may be newer.
+			GuildConfiguration sharded = readShard(entry.getKey());
+			if (newer(sharded, entry.getValue()) != sharded) {
+				writeShard(entry.getKey(), entry.getValue());
+			}
+		}
+
+		// The legacy file is only set aside once its shards are durable.
+		syncShardDirectory();
+		Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".migrated"),
+				StandardCopyOption.REPLACE_EXISTING);
+		LOG.info("Split the permissions of {} guilds into shards in {}", guildConfigs.size(), shardDirectory);
+	}
+
+	private GuildConfiguration readShard(long guildId) throws IOException {
+		Path shard = shardOf(guildId);
+		if (!Files.exists(shard)) {
+			return null;
+		}
+
+		return objectMapper.readValue(shard.toFile(), GuildConfiguration.class);
+	}
+
+	private void writeShard(long guildId, GuildConfiguration configuration) throws IOException {
+		Path shard = shardOf(guildId);
+		Path temporaryFile = shard.resolveSibling(shard.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer bytes = ByteBuffer.wrap(objectMapper.writeValueAsBytes(configuration));
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			channel.force(true);
+		}
+
+		try {
+			Files.move(temporaryFile, shard, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temporaryFile, shard, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Syncs the shard directory, so that the shards renamed into it survive a
+	 * crash. Some platforms, such as Windows, can't open a directory, in which
+	 * case the file system is left to order the renames.
+	 */
+	private void syncShardDirectory() throws IOException {
+		try (FileChannel directory = FileChannel.open(shardDirectory, StandardOpenOption.READ)) {
+			directory.force(true);
+		} catch (AccessDeniedException e) {
+			LOG.debug("Unable to sync the permissions shard directory on this platform.", e);
+		}
+	}
+
+	private Path shardOf(long guildId) {
+		return shardDirectory.resolve(guildId + ".json");
+	}
+
+	private ByteBuffer encode(List<QueuedRecord> records) throws IOException {
+		List<byte[]> lines = new ArrayList<>(records.size());
+		int size = 0;
+		for (QueuedRecord record : records) {
+			byte[] line = logWriter.writeValueAsBytes(record.record);
+			lines.add(line);
+			size += line.length + 1;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		for (byte[] line : lines) {
+			buffer.put(line).put((byte) '\n');
+		}
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * Picks the newer of two configurations of a guild, either of which may be
+	 * null. The first one wins a tie.
+	 */
+	private static GuildConfiguration newer(GuildConfiguration a, GuildConfiguration b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		return b.getVersion() > a.getVersion() ? b : a;
+	}
+
+	@Data
+	static class LogRecord {
+		private final long guildId;
+		private final GuildConfiguration configuration;
+
+		@JsonCreator
+		LogRecord(@JsonProperty("guildId") long guildId,
+				@JsonProperty("configuration") GuildConfiguration configuration) {
+			this.guildId = guildId;
+			this.configuration = Preconditions.checkNotNull(configuration, "configuration must be non-null.");
+		}
+	}
+
+	/**
+	 * A record waiting to be written, and the future of its caller.
+	 */
+	private static class QueuedRecord {
+		private final LogRecord record;
+		private final CompletableFuture<Void> synced = new CompletableFuture<>();
+
+		private QueuedRecord(LogRecord record) {
+			this.record = record;
+		}
+	}
+}
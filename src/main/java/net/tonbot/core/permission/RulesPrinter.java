@@ -9,7 +9,8 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 
-import sx.blah.discord.api.IDiscordClient;
+import net.tonbot.core.request.EntityCache;
+
 import sx.blah.discord.handle.obj.IGuild;
 import sx.blah.discord.handle.obj.IRole;
 
@@ -18,12 +19,12 @@ class RulesPrinter {
 	private static final Logger LOG = LoggerFactory.getLogger(RulesPrinter.class);
 
 	private final PermissionManager permissionManager;
-	private final IDiscordClient discordClient;
+	private final EntityCache entityCache;
 
 	@Inject
-	public RulesPrinter(PermissionManager permissionManager, IDiscordClient discordClient) {
+	public RulesPrinter(PermissionManager permissionManager, EntityCache entityCache) {
 		this.permissionManager = Preconditions.checkNotNull(permissionManager, "permissionManager must be non-null.");
-		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
+		this.entityCache = Preconditions.checkNotNull(entityCache, "entityCache must be non-null.");
 	}
 
 	/**
@@ -44,7 +45,7 @@ class RulesPrinter {
 			sb.append("[``").append(i + 1).append("``] ");
 			Rule rule = rules.get(i);
 			if (rule instanceof RoleRule) {
-				sb.append(renderRoleRule((RoleRule) rule));
+				sb.append(renderRoleRule(guild, (RoleRule) rule));
 			} else {
 				LOG.warn("Unknown rule type " + rule.getClass() + " found.");
 				sb.append("Unknown rule.");
@@ -66,7 +67,7 @@ class RulesPrinter {
 		return result;
 	}
 
-	private String renderRoleRule(RoleRule roleRule) {
+	private String renderRoleRule(IGuild guild, RoleRule roleRule) {
 		StringBuffer sb = new StringBuffer();
 
 		String routeStr = roleRule.getPathExp().toString();
@@ -79,7 +80,7 @@ class RulesPrinter {
 		}
 
 		sb.append("** be used by ``");
-		IRole role = discordClient.getRoleByID(roleRule.getRoleId());
+		IRole role = entityCache.getRole(guild, roleRule.getRoleId());
 		sb.append(role != null ? role.getName() : "<deleted role>").append("``");
 
 		return sb.toString();
@@ -0,0 +1,344 @@
+package net.tonbot.core.request;
+
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+
+import net.tonbot.core.collect.LongObjectMap;
+import sx.blah.discord.api.IDiscordClient;
+import sx.blah.discord.api.events.EventSubscriber;
+import sx.blah.discord.handle.impl.events.guild.GuildCreateEvent;
+import sx.blah.discord.handle.impl.events.guild.GuildLeaveEvent;
+import sx.blah.discord.handle.impl.events.guild.channel.ChannelCreateEvent;
+import sx.blah.discord.handle.impl.events.guild.channel.ChannelDeleteEvent;
+import sx.blah.discord.handle.impl.events.guild.channel.ChannelUpdateEvent;
+import sx.blah.discord.handle.impl.events.guild.member.UserJoinEvent;
+import sx.blah.discord.handle.impl.events.guild.member.UserLeaveEvent;
+import sx.blah.discord.handle.impl.events.guild.role.RoleCreateEvent;
+import sx.blah.discord.handle.impl.events.guild.role.RoleDeleteEvent;
+import sx.blah.discord.handle.impl.events.guild.role.RoleUpdateEvent;
+import sx.blah.discord.handle.obj.IChannel;
+import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IIDLinkedObject;
+import sx.blah.discord.handle.obj.IRole;
+import sx.blah.discord.handle.obj.IUser;
+
+/**
+ * Resolves the IDs of users, roles and channels to the entities of a guild.
+ * Each kind of entity of a guild is copied into a {@link LongObjectMap} the
+ * first time one of them is asked for, and is then kept current by the events
+ * which create, update and delete them. This object must receive the gateway
+ * events to do so, and the events of each guild must be delivered in the order
+ * that they arrived, or a deleted entity could be brought back.<br/>
+ *
+ * An ID which isn't in the map is looked up through the {@link IDiscordClient}
+ * instead, so users who aren't members of the guild, and entities of other
+ * guilds, resolve as they would without the cache.
+ */
+public class EntityCache {
+
+	private static final int MAX_LOAD_ATTEMPTS = 3;
+
+	private final IDiscordClient discordClient;
+
+	private final StampedLock guildsLock = new StampedLock();
+
+	// Guarded by guildsLock.
+	private final LongObjectMap<GuildEntities> guilds = new LongObjectMap<>(0);
+
+	@Inject
+	public EntityCache(IDiscordClient discordClient) {
+		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
+	}
+
+	/**
+	 * Gets a user.
+	 * 
+	 * @param guild
+	 *            The guild of the context in which the user was mentioned.
+	 *            Non-null.
+	 * @param userId
+	 *            The user ID.
+	 * @return The {@link IUser}, or null if there is no such user.
+	 */
+	public IUser getUser(IGuild guild, long userId) {
+		Preconditions.checkNotNull(guild, "guild must be non-null.");
+		return getOrCreate(guild).users.get(guild, userId);
+	}
+
+	/**
+	 * Gets a role.
+	 * 
+	 * @param guild
+	 *            The guild of the context in which the role was mentioned.
+	 *            Non-null.
+	 * @param roleId
+	 *            The role ID.
+	 * @return The {@link IRole}, or null if there is no such role.
+	 */
+	public IRole getRole(IGuild guild, long roleId) {
+		Preconditions.checkNotNull(guild, "guild must be non-null.");
+		return getOrCreate(guild).roles.get(guild, roleId);
+	}
+
+	/**
+	 * Gets a channel.
+	 * 
+	 * @param guild
+	 *            The guild of the context in which the channel was mentioned.
+	 *            Non-null.
+	 * @param channelId
+	 *            The channel ID.
+	 * @return The {@link IChannel}, or null if there is no such channel.
+	 */
+	public IChannel getChannel(IGuild guild, long channelId) {
+		Preconditions.checkNotNull(guild, "guild must be non-null.");
+		return getOrCreate(guild).channels.get(guild, channelId);
+	}
+
+	@EventSubscriber
+	public void onGuildCreate(GuildCreateEvent event) {
+		// The guild may have changed while it was unavailable.
+		forget(event.getGuild());
+	}
+
+	@EventSubscriber
+	public void onGuildLeave(GuildLeaveEvent event) {
+		forget(event.getGuild());
+	}
+
+	@EventSubscriber
+	public void onUserJoin(UserJoinEvent event) {
+		GuildEntities entities = getIfPresent(event.getGuild());
+		if (entities != null) {
+			entities.users.put(event.getUser());
+		}
+	}
+
+	@EventSubscriber
+	public void onUserLeave(UserLeaveEvent event) {
+		GuildEntities entities = getIfPresent(event.getGuild());
+		if (entities != null) {
+			entities.users.remove(event.getUser());
+		}
+	}
+
+	@EventSubscriber
+	public void onRoleCreate(RoleCreateEvent event) {
+		GuildEntities entities = getIfPresent(event.getGuild());
+		if (entities != null) {
+			entities.roles.put(event.getRole());
+		}
+	}
+
+	@EventSubscriber
+	public void onRoleUpdate(RoleUpdateEvent event) {
+		GuildEntities entities = getIfPresent(event.getGuild());
+		if (entities != null) {
+			entities.roles.put(event.getNewRole());
+		}
+	}
+
+	@EventSubscriber
+	public void onRoleDelete(RoleDeleteEvent event) {
+		GuildEntities entities = getIfPresent(event.getGuild());
+		if (entities != null) {
+			entities.roles.remove(event.getRole());
+		}
+	}
+
+	@EventSubscriber
+	public void onChannelCreate(ChannelCreateEvent event) {
+		GuildEntities entities = getIfPresent(event.getGuild());
+		if (entities != null) {
+			entities.channels.put(event.getChannel());
+		}
+	}
+
+	@EventSubscriber
+	public void onChannelUpdate(ChannelUpdateEvent event) {
+		GuildEntities entities = getIfPresent(event.getGuild());
+		if (entities != null) {
+			entities.channels.put(event.getNewChannel());
+		}
+	}
+
+	@EventSubscriber
+	public void onChannelDelete(ChannelDeleteEvent event) {
+		GuildEntities entities = getIfPresent(event.getGuild());
+		if (entities != null) {
+			entities.channels.remove(event.getChannel());
+		}
+	}
+
+	private GuildEntities getIfPresent(IGuild guild) {
+		if (guild == null) {
+			return null;
+		}
+
+		long stamp = guildsLock.readLock();
+		try {
+			return guilds.get(guild.getLongID());
+		} finally {
+			guildsLock.unlockRead(stamp);
+		}
+	}
+
+	private GuildEntities getOrCreate(IGuild guild) {
+		GuildEntities entities = getIfPresent(guild);
+		if (entities != null) {
+			return entities;
+		}
+
+		long stamp = guildsLock.writeLock();
+		try {
+			entities = guilds.get(guild.getLongID());
+			if (entities == null) {
+				entities = new GuildEntities();
+				guilds.put(guild.getLongID(), entities);
+			}
+			return entities;
+		} finally {
+			guildsLock.unlockWrite(stamp);
+		}
+	}
+
+	private void forget(IGuild guild) {
+		if (guild == null) {
+			return;
+		}
+
+		long stamp = guildsLock.writeLock();
+		try {
+			guilds.remove(guild.getLongID());
+		} finally {
+			guildsLock.unlockWrite(stamp);
+		}
+	}
+
+	private class GuildEntities {
+		private final EntityTable<IUser> users = new EntityTable<>(IGuild::getUsers, discordClient::getUserByID);
+		private final EntityTable<IRole> roles = new EntityTable<>(IGuild::getRoles, discordClient::getRoleByID);
+		private final EntityTable<IChannel> channels = new EntityTable<>(IGuild::getChannels,
+				discordClient::getChannelByID);
+	}
+
+	/**
+	 * One kind of entity of one guild. The map is loaded on first use. Events
+	 * which arrive while it is being loaded make the load start over, since the
+	 * list it was loaded from may not include them.
+	 */
+	private static class EntityTable<T extends IIDLinkedObject> {
+
+		private final Function<IGuild, List<T>> loader;
+		private final LongFunction<T> fallback;
+		private final StampedLock lock = new StampedLock();
+
+		// Guarded by lock. Null until loaded.
+		private LongObjectMap<T> entities;
+		private long modifications = 0;
+
+		private EntityTable(Function<IGuild, List<T>> loader, LongFunction<T> fallback) {
+			this.loader = loader;
+			this.fallback = fallback;
+		}
+
+		private T get(IGuild guild, long id) {
+			T entity = null;
+			boolean loaded = false;
+			while (!loaded) {
+				long stamp = lock.readLock();
+				try {
+					loaded = entities != null;
+					if (loaded) {
+						entity = entities.get(id);
+					}
+				} finally {
+					lock.unlockRead(stamp);
+				}
+
+				if (!loaded && !load(guild)) {
+					break;
+				}
+			}
+
+			return entity != null ? entity : fallback.apply(id);
+		}
+
+		/**
+		 * Loads the map, unless it has been loaded already.
+		 * 
+		 * @return False if events kept interrupting the load, and it gave up.
+		 */
+		private boolean load(IGuild guild) {
+			for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+				long modificationsBefore;
+				long stamp = lock.readLock();
+				try {
+					if (entities != null) {
+						return true;
+					}
+					modificationsBefore = modifications;
+				} finally {
+					lock.unlockRead(stamp);
+				}
+
+				List<T> list = loader.apply(guild);
+				LongObjectMap<T> loadedEntities = new LongObjectMap<>(list.size());
+				for (T entity : list) {
+					loadedEntities.put(entity.getLongID(), entity);
+				}
+
+				stamp = lock.writeLock();
+				try {
+					if (entities != null) {
+						return true;
+					} else if (modifications == modificationsBefore) {
+						this.entities = loadedEntities;
+						return true;
+					}
+				} finally {
+					lock.unlockWrite(stamp);
+				}
+			}
+
+			return false;
+		}
+
+		private void put(T entity) {
+			if (entity == null) {
+				return;
+			}
+
+			long stamp = lock.writeLock();
+			try {
+				modifications++;
+				if (entities != null) {
+					entities.put(entity.getLongID(), entity);
+				}
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		private void remove(T entity) {
+			if (entity == null) {
+				return;
+			}
+
+			long stamp = lock.writeLock();
+			try {
+				modifications++;
+				if (entities != null) {
+					entities.remove(entity.getLongID());
+				}
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+	}
+}
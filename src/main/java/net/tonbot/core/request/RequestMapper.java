@@ -1,15 +1,14 @@
 package net.tonbot.core.request;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Parameter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
@@ -21,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 import lombok.Data;
@@ -28,12 +28,29 @@ import net.tonbot.common.Param;
 import net.tonbot.core.request.parsing.LineParser;
 import net.tonbot.core.request.parsing.ParseException;
 
-@SuppressWarnings("rawtypes")
+/**
+ * Maps lines of arguments to request objects, whose fields or setter methods
+ * are annotated with {@link Param}.<br/>
+ *
+ * The first time a request class is seen, its constructor and setters are
+ * resolved to {@link MethodHandle}s and its params are validated, so that
+ * mapping a line does no reflective lookups.
+ */
 public class RequestMapper {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RequestMapper.class);
 
-	private final Map<Class<?>, List<ParamInfo>> cachedParamInfos = new ConcurrentHashMap<>();
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private final ClassValue<CompiledMapper> compiledMappers = new ClassValue<CompiledMapper>() {
+		@Override
+		protected CompiledMapper computeValue(Class<?> target) {
+			return compile(target);
+		}
+	};
+
 	private final LineParser lineParser;
 
 	@Inject
@@ -58,70 +75,80 @@ public class RequestMapper {
 	 *             if the arguments couldn't be parsed according to the target's
 	 *             params.
 	 */
-	@SuppressWarnings("unchecked")
 	public <T> T map(String args, Class<T> target, Context context) {
-		Preconditions.checkNotNull(args, "args must be non-null.");
+		return map(args, 0, target, context);
+	}
+
+	/**
+	 * Maps the arguments in a line, starting from a given index, to a Java object.
+	 * 
+	 * @param line
+	 *            The line containing the arguments. Non-null.
+	 * @param argsStart
+	 *            The index in {@code line} where the arguments start.
+	 * @param target
+	 *            The target Java object class. Must have a zero-argument
+	 *            constructor. Non-null.
+	 * @param context
+	 *            {@link Context}. Non-null.
+	 * @return An instance of <T> with all fields mapped.
+	 * @throws RequestMappingException
+	 *             if there was an mapping error caused by the input.
+	 * @throws ParseException
+	 *             if the arguments couldn't be parsed according to the target's
+	 *             params.
+	 */
+	public <T> T map(String line, int argsStart, Class<T> target, Context context) {
+		Preconditions.checkNotNull(line, "line must be non-null.");
 		Preconditions.checkNotNull(target, "target must be non-null.");
 		Preconditions.checkNotNull(context, "context must be non-null.");
 
-		List<ParamInfo> paramInfos = getAndCacheParamInfos(target);
-
-		try {
-			T targetObj = instantiate(target);
+		CompiledMapper mapper = compiledMappers.get(target);
 
-			if (paramInfos.isEmpty()) {
-				return targetObj;
-			}
+		T targetObj = target.cast(mapper.instantiate());
 
-			ParamInfo lastParamInfo = paramInfos.get(paramInfos.size() - 1);
+		if (mapper.paramInfos.length == 0) {
+			return targetObj;
+		}
 
-			List<Class<?>> argTypes = paramInfos.stream().map(pi -> (Class<?>) pi.getType())
-					.collect(Collectors.toList());
+		List<Object> parsedValues;
+		try {
+			parsedValues = lineParser.parse(line, argsStart, mapper.argTypes, mapper.captureRemaining, context);
+		} catch (ParseException e) {
+			throw new RequestMappingException("Incorrect usage.", e);
+		}
 
-			List<Object> parsedValues = lineParser.parse(args, argTypes, lastParamInfo.getParam().captureRemaining(),
-					context);
+		for (int i = 0; i < parsedValues.size(); i++) {
+			ParamInfo pi = mapper.paramInfos[i];
+			Object parsedValue = parsedValues.get(i);
 
-			for (int i = 0; i < parsedValues.size(); i++) {
-				ParamInfo pi = paramInfos.get(i);
-				Object parsedValue = parsedValues.get(i);
+			if (parsedValue == null && !pi.isNullable()) {
+				throw new RequestMappingException(pi.getMissingMessage());
+			}
 
-				if (parsedValue == null && !pi.isNullable()) {
-					StringBuilder sb = new StringBuilder();
-					sb.append("Missing argument ``").append(pi.getParam().name()).append("``");
+			pi.set(targetObj, parsedValue);
+		}
 
-					if (!StringUtils.isBlank(pi.getParam().description())) {
-						sb.append(": ").append(pi.getParam().description());
-					} else {
-						sb.append(".");
-					}
-					throw new RequestMappingException(sb.toString());
-				}
-
-				try {
-					pi.getSetter().apply(targetObj, parsedValue);
-				} catch (IllegalArgumentException e) {
-					throw new RequestMappingException(e.getMessage(), e);
-				}
-			}
+		return targetObj;
+	}
 
-			return targetObj;
+	private CompiledMapper compile(Class<?> target) {
+		List<ParamInfo> paramInfos = validate(extractParamInfos(target));
 
-		} catch (ParseException e) {
-			throw new RequestMappingException("Incorrect usage.", e);
-		}
+		return new CompiledMapper(findConstructor(target), paramInfos.toArray(new ParamInfo[paramInfos.size()]));
 	}
 
 	/**
-	 * Instantiates the given class using its default constructor. Works even if the
-	 * constructor isn't normally accessible.
+	 * Finds the zero-argument constructor of the given class, as a handle that
+	 * returns an Object. Works even if the constructor isn't normally accessible.
 	 * 
 	 * @param targetObjClass
 	 *            The class to instantiate.
-	 * @return The instantiated class.
+	 * @return The constructor's {@link MethodHandle}.
 	 */
-	private <T> T instantiate(Class<T> targetObjClass) {
+	private static MethodHandle findConstructor(Class<?> targetObjClass) {
 
-		Constructor<T> zeroArgConstructor;
+		Constructor<?> zeroArgConstructor;
 		try {
 			zeroArgConstructor = targetObjClass.getDeclaredConstructor(new Class<?>[0]);
 		} catch (NoSuchMethodException e) {
@@ -131,24 +158,11 @@ public class RequestMapper {
 
 		zeroArgConstructor.setAccessible(true);
 
-		T targetObj;
 		try {
-			targetObj = zeroArgConstructor.newInstance();
-		} catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-			throw new IllegalStateException(
-					"An error occurred during construction of the class " + targetObjClass + ".", e);
+			return LOOKUP.unreflectConstructor(zeroArgConstructor).asType(CONSTRUCTOR_TYPE);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("The constructor of " + targetObjClass + " is inaccessible.", e);
 		}
-
-		return targetObj;
-	}
-
-	private List<ParamInfo> getAndCacheParamInfos(Class<?> target) {
-		return cachedParamInfos.computeIfAbsent(target, t -> {
-			List<ParamInfo> paramInfos = extractParamInfos(t);
-			paramInfos = validate(paramInfos);
-
-			return paramInfos;
-		});
 	}
 
 	/**
@@ -210,14 +224,14 @@ public class RequestMapper {
 
 			field.setAccessible(true);
 
-			return new ParamInfo<>(paramAnnotation, field.getType(), (obj, val) -> {
-				try {
-					field.set(obj, val);
-				} catch (IllegalArgumentException | IllegalAccessException e) {
-					throw new IllegalStateException("Failed to set field " + field + " with data.", e);
-				}
-				return null;
-			}, nullable);
+			MethodHandle setter;
+			try {
+				setter = LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+			} catch (IllegalAccessException e) {
+				throw new IllegalArgumentException("Field " + field + " is inaccessible.", e);
+			}
+
+			return new ParamInfo(paramAnnotation, field.getType(), setter, field.toString(), nullable);
 		}).collect(Collectors.toList());
 
 		return paramInfos;
@@ -246,35 +260,86 @@ public class RequestMapper {
 					boolean nullable = methodParameter.getAnnotation(Nonnull.class) == null;
 
 					method.setAccessible(true);
-					
-					return new ParamInfo<>(paramAnnotation, methodParameter.getType(), (obj, val) -> {
-						try {
-							method.invoke(obj, val);
-						} catch (IllegalAccessException | IllegalArgumentException e) {
-							throw new IllegalStateException("Failed to call method " + method + " to set data.", e);
-						} catch (InvocationTargetException e) {
-							// Setter threw an exception.
-							// The messages in any IllegalArgumentException and NullPointerExceptions thrown
-							// by these setter methods should be sent back to the user.
-							if (e.getTargetException() instanceof IllegalArgumentException) {
-								throw (IllegalArgumentException) e.getTargetException();
-							} else {
-								throw new IllegalStateException("Failed to call method " + method + " to set data.", e);
-							}
-						}
-						return null;
-					}, nullable);
+
+					MethodHandle setter;
+					try {
+						setter = LOOKUP.unreflect(method).asType(SETTER_TYPE);
+					} catch (IllegalAccessException e) {
+						throw new IllegalArgumentException("Method " + method + " is inaccessible.", e);
+					}
+
+					return new ParamInfo(paramAnnotation, methodParameter.getType(), setter, method.toString(),
+							nullable);
 
 				}).collect(Collectors.toList());
 
 		return paramInfos;
 	}
 
+	/**
+	 * Everything needed to map arguments to one request class, resolved once.
+	 */
+	private static class CompiledMapper {
+		private final MethodHandle constructor;
+		private final ParamInfo[] paramInfos;
+		private final List<Class<?>> argTypes;
+		private final boolean captureRemaining;
+
+		private CompiledMapper(MethodHandle constructor, ParamInfo[] paramInfos) {
+			this.constructor = constructor;
+			this.paramInfos = paramInfos;
+			this.argTypes = Arrays.stream(paramInfos).map(ParamInfo::getType).collect(ImmutableList.toImmutableList());
+			this.captureRemaining = paramInfos.length > 0
+					&& paramInfos[paramInfos.length - 1].getParam().captureRemaining();
+		}
+
+		private Object instantiate() {
+			try {
+				return (Object) constructor.invokeExact();
+			} catch (Throwable e) {
+				throw new IllegalStateException("An error occurred during construction of the class "
+						+ constructor.type().returnType() + ".", e);
+			}
+		}
+	}
+
 	@Data
-	private static class ParamInfo<OT, FT> {
+	private static class ParamInfo {
 		private final Param param;
-		private final Class<FT> type;
-		private final BiFunction<OT, FT, Void> setter;
+		private final Class<?> type;
+		private final MethodHandle setter;
+		private final String setterName;
 		private final boolean isNullable;
+		private final String missingMessage;
+
+		private ParamInfo(Param param, Class<?> type, MethodHandle setter, String setterName, boolean isNullable) {
+			this.param = param;
+			this.type = type;
+			this.setter = setter;
+			this.setterName = setterName;
+			this.isNullable = isNullable;
+
+			StringBuilder sb = new StringBuilder();
+			sb.append("Missing argument ``").append(param.name()).append("``");
+
+			if (!StringUtils.isBlank(param.description())) {
+				sb.append(": ").append(param.description());
+			} else {
+				sb.append(".");
+			}
+			this.missingMessage = sb.toString();
+		}
+
+		private void set(Object obj, Object value) {
+			try {
+				setter.invokeExact(obj, value);
+			} catch (IllegalArgumentException e) {
+				// The messages in any IllegalArgumentException thrown by setter methods should
+				// be sent back to the user.
+				throw new RequestMappingException(e.getMessage(), e);
+			} catch (Throwable e) {
+				throw new IllegalStateException("Failed to set data with " + setterName + ".", e);
+			}
+		}
 	}
 }
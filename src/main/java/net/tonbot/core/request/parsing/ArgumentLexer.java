@@ -0,0 +1,274 @@
+package net.tonbot.core.request.parsing;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Splits an argument line into {@link Token}s. The lexer moves a cursor
+ * forward through the line, and each character is looked at a bounded number
+ * of times, so lexing a whole line takes linear time.<br/>
+ *
+ * Tokens are separated by whitespace, except that a quoted string ends at its
+ * closing quote. A quote which is never closed on the same line starts an
+ * ordinary word.
+ */
+class ArgumentLexer {
+
+	private static final String EVERYONE = "@everyone";
+	private static final int MIN_EMOJI_NAME_LENGTH = 2;
+
+	private final String line;
+	private final Token token = new Token();
+	private int cursor;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param line
+	 *            The line. Non-null.
+	 * @param fromIndex
+	 *            The index in {@code line} where the arguments start.
+	 */
+	public ArgumentLexer(String line, int fromIndex) {
+		this.line = Preconditions.checkNotNull(line, "line must be non-null.");
+		Preconditions.checkPositionIndex(fromIndex, line.length(), "fromIndex");
+		this.cursor = fromIndex;
+	}
+
+	/**
+	 * Checks whether there is anything other than whitespace left.
+	 * 
+	 * @return True if there is another token.
+	 */
+	public boolean hasNext() {
+		skipWhitespace();
+		return cursor < line.length();
+	}
+
+	/**
+	 * Moves to the next token.
+	 * 
+	 * @return The next {@link Token}, which is reused by the following call.
+	 * @throws IllegalStateException
+	 *             if there are no more tokens.
+	 */
+	public Token next() {
+		Preconditions.checkState(hasNext(), "There are no more tokens.");
+
+		int start = cursor;
+		char c = line.charAt(start);
+
+		if (c == '"' || c == '\'') {
+			int closingQuote = findClosingQuote(start, c);
+			if (closingQuote != -1) {
+				token.set(line, TokenType.QUOTED_STRING, start, closingQuote + 1, start + 1, closingQuote);
+				cursor = closingQuote + 1;
+				return token;
+			}
+		}
+
+		int end = start;
+		while (end < line.length() && !isWhitespace(line.charAt(end))) {
+			end++;
+		}
+		cursor = end;
+
+		classify(start, end);
+		return token;
+	}
+
+	/**
+	 * Takes everything which is left of the line, without its surrounding
+	 * whitespace. There are no more tokens afterwards.
+	 * 
+	 * @return The rest of the line.
+	 */
+	public String remaining() {
+		skipWhitespace();
+
+		int end = line.length();
+		while (end > cursor && isWhitespace(line.charAt(end - 1))) {
+			end--;
+		}
+
+		String remaining = line.substring(cursor, end);
+		cursor = line.length();
+		return remaining;
+	}
+
+	/**
+	 * Moves past the next occurrence of a separator which isn't inside a quoted
+	 * string. Quoted strings are recognized the same way that {@link #next()}
+	 * recognizes them, so a separator inside a token that would be lexed as a
+	 * {@link TokenType#QUOTED_STRING} is skipped.
+	 * 
+	 * @param separator
+	 *            The separator. Non-null and non-empty.
+	 * @return The index of the separator, or -1 if there are no more separators,
+	 *         in which case there are no more tokens either.
+	 */
+	public int skipPastSeparator(String separator) {
+		Preconditions.checkNotNull(separator, "separator must be non-null.");
+		Preconditions.checkArgument(!separator.isEmpty(), "separator must be non-empty.");
+
+		// A quote only starts a quoted string at the start of a token.
+		boolean tokenStart = true;
+		while (cursor < line.length()) {
+			if (line.startsWith(separator, cursor)) {
+				int separatorStart = cursor;
+				cursor += separator.length();
+				return separatorStart;
+			}
+
+			char c = line.charAt(cursor);
+			if (tokenStart && (c == '"' || c == '\'')) {
+				int closingQuote = findClosingQuote(cursor, c);
+				if (closingQuote != -1) {
+					cursor = closingQuote + 1;
+					tokenStart = false;
+					continue;
+				}
+			}
+
+			tokenStart = isWhitespace(c);
+			cursor++;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Finds the quote which closes the one at {@code start}, skipping quotes which
+	 * are escaped with a backslash.
+	 * 
+	 * @return The index of the closing quote, or -1 if there is none on the same
+	 *         line.
+	 */
+	private int findClosingQuote(int start, char quote) {
+		for (int i = start + 1; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '\\' && i + 1 < line.length() && line.charAt(i + 1) == quote) {
+				i++;
+			} else if (c == quote) {
+				return i;
+			} else if (c == '\n' || c == '\r') {
+				return -1;
+			}
+		}
+
+		return -1;
+	}
+
+	private void classify(int start, int end) {
+		char first = line.charAt(start);
+
+		if (first == '<' && line.charAt(end - 1) == '>' && end - start > 3) {
+			char second = line.charAt(start + 1);
+			if (second == '@') {
+				if (line.charAt(start + 2) == '&') {
+					if (setIfDigits(TokenType.ROLE_MENTION, start, end, start + 3, end - 1)) {
+						return;
+					}
+				} else if (setIfDigits(TokenType.USER_MENTION, start, end, start + 2, end - 1)) {
+					return;
+				}
+			} else if (second == '#') {
+				if (setIfDigits(TokenType.CHANNEL_MENTION, start, end, start + 2, end - 1)) {
+					return;
+				}
+			} else if (second == ':' || (second == 'a' && line.charAt(start + 2) == ':')) {
+				if (classifyCustomEmoji(start, end, second == ':' ? start + 2 : start + 3)) {
+					return;
+				}
+			}
+		} else if (first == '@' && line.regionMatches(start, EVERYONE, 0, EVERYONE.length())
+				&& end - start == EVERYONE.length()) {
+			token.set(line, TokenType.EVERYONE_MENTION, start, end, start, end);
+			return;
+		} else if (first == '-' || first == '.' || isDigit(first)) {
+			if (classifyNumber(start, end)) {
+				return;
+			}
+		} else if (end - start == 4 && line.regionMatches(true, start, "true", 0, 4)
+				|| end - start == 5 && line.regionMatches(true, start, "false", 0, 5)) {
+			token.set(line, TokenType.BOOLEAN, start, end, start, end);
+			return;
+		}
+
+		token.set(line, TokenType.WORD, start, end, start, end);
+	}
+
+	/**
+	 * Classifies {@code <a?:name:id>}, where {@code nameStart} is the index after
+	 * the first colon.
+	 */
+	private boolean classifyCustomEmoji(int start, int end, int nameStart) {
+		int i = nameStart;
+		while (i < end - 1 && isEmojiNameChar(line.charAt(i))) {
+			i++;
+		}
+
+		if (i - nameStart < MIN_EMOJI_NAME_LENGTH || line.charAt(i) != ':') {
+			return false;
+		}
+
+		return setIfDigits(TokenType.CUSTOM_EMOJI, start, end, i + 1, end - 1);
+	}
+
+	private boolean classifyNumber(int start, int end) {
+		int i = line.charAt(start) == '-' ? start + 1 : start;
+
+		int digits = 0;
+		int dots = 0;
+		for (; i < end; i++) {
+			char c = line.charAt(i);
+			if (isDigit(c)) {
+				digits++;
+			} else if (c == '.') {
+				dots++;
+			} else {
+				return false;
+			}
+		}
+
+		if (digits == 0 || dots > 1) {
+			return false;
+		}
+
+		token.set(line, dots == 0 ? TokenType.INTEGER : TokenType.DECIMAL, start, end, start, end);
+		return true;
+	}
+
+	private boolean setIfDigits(TokenType type, int start, int end, int valueStart, int valueEnd) {
+		if (valueStart >= valueEnd) {
+			return false;
+		}
+
+		for (int i = valueStart; i < valueEnd; i++) {
+			if (!isDigit(line.charAt(i))) {
+				return false;
+			}
+		}
+
+		token.set(line, type, start, end, valueStart, valueEnd);
+		return true;
+	}
+
+	private void skipWhitespace() {
+		while (cursor < line.length() && isWhitespace(line.charAt(cursor))) {
+			cursor++;
+		}
+	}
+
+	private static boolean isWhitespace(char c) {
+		// The same characters that String.trim() removes.
+		return c <= ' ';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isEmojiNameChar(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || isDigit(c) || c == '_';
+	}
+}
@@ -1,24 +1,19 @@
 package net.tonbot.core.request.parsing;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 
 import net.tonbot.core.request.Context;
-import sx.blah.discord.api.IDiscordClient;
+import net.tonbot.core.request.EntityCache;
 import sx.blah.discord.handle.obj.IChannel;
 
 class ChannelMentionParser implements Parser {
 
-	private static final Pattern CHANNEL_MENTION_PATTERN = Pattern.compile("^<#(\\d+)>");
-
-	private final IDiscordClient discordClient;
+	private final EntityCache entityCache;
 
 	@Inject
-	public ChannelMentionParser(IDiscordClient discordClient) {
-		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
+	public ChannelMentionParser(EntityCache entityCache) {
+		this.entityCache = Preconditions.checkNotNull(entityCache, "entityCache must be non-null.");
 	}
 
 	@Override
@@ -28,26 +23,15 @@ class ChannelMentionParser implements Parser {
 	}
 
 	@Override
-	public ParseResult parse(String content, Class<?> targetType, Context context) {
-		Preconditions.checkNotNull(content, "content must be non-null.");
-
-		Matcher matcher = CHANNEL_MENTION_PATTERN.matcher(content);
-		if (matcher.find()) {
-			// Since the CHANNEL_MENTION_PATTERN must match at the beginning of the string,
-			// we
-			// can
-			// assume that matcher.start() is 0.
-			String remainingArgs = content.substring(matcher.end(), content.length());
-			String matchedValue = matcher.group(1);
+	public Object parse(Token token, Class<?> targetType, Context context) {
+		Preconditions.checkNotNull(token, "token must be non-null.");
+		Preconditions.checkNotNull(context, "context must be non-null.");
 
-			long channelId = Long.parseLong(matchedValue);
-
-			IChannel channel = discordClient.getChannelByID(channelId);
-
-			return new ParseResult(channel, remainingArgs);
-		} else {
+		if (token.getType() != TokenType.CHANNEL_MENTION) {
 			throw new ParseException(
 					"Line parser encountered unexpected input which could not be parsed as a channel mention.");
 		}
+
+		return entityCache.getChannel(context.getGuild(), token.getValueAsLong());
 	}
 }
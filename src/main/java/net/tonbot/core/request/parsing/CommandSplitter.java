@@ -0,0 +1,48 @@
+package net.tonbot.core.request.parsing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Splits a message which holds several commands at its command separators. A
+ * separator inside a quoted string, as lexed by the argument parsers, belongs
+ * to the argument and doesn't split the message.
+ */
+public final class CommandSplitter {
+
+	private CommandSplitter() {
+	}
+
+	/**
+	 * Splits a message at its separators.
+	 * 
+	 * @param message
+	 *            The message. Non-null.
+	 * @param fromIndex
+	 *            The index in {@code message} where the first command starts.
+	 * @param separator
+	 *            The separator. Non-null and non-empty.
+	 * @return The segments between the separators, in order and untrimmed. A
+	 *         message without separators has a single segment.
+	 */
+	public static List<String> split(String message, int fromIndex, String separator) {
+		Preconditions.checkNotNull(message, "message must be non-null.");
+
+		List<String> segments = new ArrayList<>();
+
+		ArgumentLexer lexer = new ArgumentLexer(message, fromIndex);
+		int segmentStart = fromIndex;
+		while (true) {
+			int separatorStart = lexer.skipPastSeparator(separator);
+			if (separatorStart == -1) {
+				segments.add(message.substring(segmentStart));
+				return segments;
+			}
+
+			segments.add(message.substring(segmentStart, separatorStart));
+			segmentStart = separatorStart + separator.length();
+		}
+	}
+}
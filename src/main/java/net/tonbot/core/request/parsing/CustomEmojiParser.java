@@ -1,8 +1,5 @@
 package net.tonbot.core.request.parsing;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import com.google.common.base.Preconditions;
 
 import net.tonbot.core.request.Context;
@@ -13,8 +10,6 @@ import sx.blah.discord.handle.obj.IEmoji;
  */
 class CustomEmojiParser implements Parser {
 
-	private static final Pattern CUSTOM_EMOJI_PATTERN = Pattern.compile("<a?:[A-Za-z0-9_]{2,}:(\\d+)>");
-
 	@Override
 	public boolean supports(Class<?> type) {
 		Preconditions.checkNotNull(type, "type must be non-null.");
@@ -22,27 +17,17 @@ class CustomEmojiParser implements Parser {
 	}
 
 	@Override
-	public ParseResult parse(String content, Class<?> targetType, Context context) {
-		Preconditions.checkNotNull(content, "content must be non-null.");
-
-		Matcher matcher = CUSTOM_EMOJI_PATTERN.matcher(content);
-		if (matcher.find()) {
-			// Since the CUSTOM_EMOJI_PATTERN must match at the beginning of the string, we
-			// can
-			// assume that matcher.start() is 0.
-			String remainingArgs = content.substring(matcher.end(), content.length());
-			String matchedValue = matcher.group(1);
+	public Object parse(Token token, Class<?> targetType, Context context) {
+		Preconditions.checkNotNull(token, "token must be non-null.");
+		Preconditions.checkNotNull(context, "context must be non-null.");
 
-			long emojiId = Long.parseLong(matchedValue);
-
-			// Warning: emoji may be null if the custom emoji doesn't belong to the
-			// context's guild!
-			IEmoji emoji = context.getGuild().getEmojiByID(emojiId);
-
-			return new ParseResult(emoji, remainingArgs);
-		} else {
+		if (token.getType() != TokenType.CUSTOM_EMOJI) {
 			throw new ParseException(
 					"Line parser encountered unexpected input which could not be parsed as a custom emoji.");
 		}
+
+		// Warning: emoji may be null if the custom emoji doesn't belong to the
+		// context's guild!
+		return context.getGuild().getEmojiByID(token.getValueAsLong());
 	}
 }
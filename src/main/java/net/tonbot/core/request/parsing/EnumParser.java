@@ -1,21 +1,28 @@
 package net.tonbot.core.request.parsing;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import org.apache.commons.lang3.StringUtils;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 
 import net.tonbot.core.request.Context;
 
 class EnumParser implements Parser {
 
-	private static final Pattern SINGLE_WORD_PATTERN = Pattern.compile("^(?<content>\\S+)");
+	// The constants of each enum type, by lower case name.
+	private static final ClassValue<Map<String, Object>> CONSTANTS_BY_NAME = new ClassValue<Map<String, Object>>() {
+		@Override
+		protected Map<String, Object> computeValue(Class<?> enumType) {
+			Map<String, Object> constantsByName = new HashMap<>();
+			for (Object constant : enumType.getEnumConstants()) {
+				// If names differ only by case, the first constant wins.
+				constantsByName.putIfAbsent(((Enum<?>) constant).name().toLowerCase(Locale.ROOT), constant);
+			}
+			return ImmutableMap.copyOf(constantsByName);
+		}
+	};
 
 	@Override
 	public boolean supports(Class<?> type) {
@@ -24,43 +31,17 @@ class EnumParser implements Parser {
 	}
 
 	@Override
-	public ParseResult parse(String content, Class<?> targetType, Context context) {
-		Preconditions.checkNotNull(content, "content must be non-null.");
+	public Object parse(Token token, Class<?> targetType, Context context) {
+		Preconditions.checkNotNull(token, "token must be non-null.");
 		Preconditions.checkNotNull(targetType, "targetType must be non-null.");
 		Preconditions.checkArgument(targetType.isEnum(), "Supplied targetType class isn't really an enum class.");
 
-		Matcher matcher = SINGLE_WORD_PATTERN.matcher(content);
-
-		if (matcher.find()) {
-			String remainingArgs = content.substring(matcher.end(), content.length());
-			String matchedValue = matcher.group("content");
-
-			// All enum values should have a name() method
-			Method nameMethod;
-			try {
-				nameMethod = targetType.getMethod("name");
-			} catch (NoSuchMethodException | SecurityException e1) {
-				// Since parseEnum is always called with an enumeration class, this should never
-				// happen.
-				throw new IllegalStateException("Couldn't find the name() method of an enum value!");
-			}
-
-			List<Object> enumValues = Arrays.asList(targetType.getEnumConstants());
-			Object enumValue = enumValues.stream().filter(ev -> {
-				try {
-					return StringUtils.equalsIgnoreCase((CharSequence) nameMethod.invoke(ev), matchedValue);
-				} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-					throw new IllegalStateException("Couldn't call the enum value's name() method.", e);
-				}
-			}).findFirst()
-					.orElseThrow(() -> new ParseException(
-							"Line parser encountered unexpected input which could not be parsed as an enum "
-									+ targetType + "."));
-
-			return new ParseResult(enumValue, remainingArgs);
-		} else {
+		Object enumValue = CONSTANTS_BY_NAME.get(targetType).get(token.getValue().toLowerCase(Locale.ROOT));
+		if (enumValue == null) {
 			throw new ParseException("Line parser encountered unexpected input which could not be parsed as an enum "
 					+ targetType + ".");
 		}
+
+		return enumValue;
 	}
 }
@@ -1,25 +1,25 @@
 package net.tonbot.core.request.parsing;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
-import org.apache.commons.lang3.StringUtils;
-
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 import net.tonbot.core.request.Context;
 
+/**
+ * Parses a line of arguments into objects of the expected types. The line is
+ * split into tokens by an {@link ArgumentLexer} in a single pass, and each
+ * token is handed to the {@link Parser} of its type.
+ */
 public class LineParser {
 
-	private final List<Parser> parsers;
+	private final ParserRegistry parserRegistry;
 
 	@Inject
-	public LineParser(List<Parser> parsers) {
-		Preconditions.checkNotNull(parsers, "parsers must be non-null.");
-		this.parsers = ImmutableList.copyOf(parsers);
+	public LineParser(ParserRegistry parserRegistry) {
+		this.parserRegistry = Preconditions.checkNotNull(parserRegistry, "parserRegistry must be non-null.");
 	}
 
 	/**
@@ -40,7 +40,32 @@ public class LineParser {
 	 *             incorrectly formatted content.
 	 */
 	public List<Object> parse(String args, List<Class<?>> types, boolean readRemaining, Context context) {
-		Preconditions.checkNotNull(args, "args must be non-null.");
+		return parse(args, 0, types, readRemaining, context);
+	}
+
+	/**
+	 * Parses the given line, starting from a given index.
+	 * 
+	 * @param line
+	 *            The line to be parsed. Non-null.
+	 * @param fromIndex
+	 *            The index in {@code line} to start parsing from.
+	 * @param types
+	 *            The expected types. Non-null.
+	 * @param readRemaining
+	 *            For the last object (which must be a string), just read whatever
+	 *            is left.
+	 * @param context
+	 *            {@link Context}. Non-null.
+	 * @return A list of parsed objects of the same size as {@code types}.
+	 * @throws ParseException
+	 *             If there was an error parsing some of the content due to
+	 *             incorrectly formatted content.
+	 */
+	public List<Object> parse(String line, int fromIndex, List<Class<?>> types, boolean readRemaining,
+			Context context) {
+		Preconditions.checkNotNull(line, "line must be non-null.");
+		Preconditions.checkPositionIndex(fromIndex, line.length(), "fromIndex");
 		Preconditions.checkNotNull(types, "types must be non-null.");
 
 		if (readRemaining) {
@@ -49,29 +74,19 @@ public class LineParser {
 					"When readRemaining is true, the last type must be assignable from a CharSequence.");
 		}
 
-		String remainingArgs = args.trim();
-
-		List<Object> parsedValues = new ArrayList<>(Collections.nCopies(types.size(), null));
+		ArgumentLexer lexer = new ArgumentLexer(line, fromIndex);
+		Object[] parsedValues = new Object[types.size()];
 
-		int i = 0;
-		while (!remainingArgs.isEmpty() && i < types.size()) {
+		for (int i = 0; i < types.size() && lexer.hasNext(); i++) {
 			Class<?> typeToParse = types.get(i);
 
-			ParseResult pr;
 			if (i == types.size() - 1 && readRemaining && CharSequence.class.isAssignableFrom(typeToParse)) {
-				pr = new ParseResult(remainingArgs, StringUtils.EMPTY);
+				parsedValues[i] = lexer.remaining();
 			} else {
-				Parser suitableParser = parsers.stream().filter(parser -> parser.supports(typeToParse)).findFirst()
-						.orElseThrow(() -> new IllegalArgumentException("Unsupported type " + typeToParse + "."));
-
-				pr = suitableParser.parse(remainingArgs, typeToParse, context);
+				parsedValues[i] = parserRegistry.getParser(typeToParse).parse(lexer.next(), typeToParse, context);
 			}
-
-			parsedValues.set(i, pr.getParsedValue());
-			remainingArgs = pr.getRemainingArgs().trim();
-			i++;
 		}
 
-		return parsedValues;
+		return Arrays.asList(parsedValues);
 	}
 }
@@ -2,7 +2,17 @@ package net.tonbot.core.request.parsing;
 
 import net.tonbot.core.request.Context;
 
-interface Parser {
+/**
+ * Parses one argument of a command, which the {@link ArgumentLexer} has already
+ * split off as a {@link Token}, into an object of a given type.<br/>
+ *
+ * Plugins may add parsers for their own types by implementing this interface
+ * with a public zero-argument constructor and listing the implementation in
+ * {@code META-INF/services/net.tonbot.core.request.parsing.Parser}, as
+ * described by {@link java.util.ServiceLoader}. Tonbot's own parsers are asked
+ * first, so a plugin's parser can't replace them.
+ */
+public interface Parser {
 
 	/**
 	 * Checks whether if this parser supports parsing objects to the given class.
@@ -14,18 +24,18 @@ interface Parser {
 	boolean supports(Class<?> type);
 
 	/**
-	 * Parses the content from the beginning.
+	 * Parses a token.
 	 * 
-	 * @param content
-	 *            The content to parse. Non-null.
+	 * @param token
+	 *            The {@link Token} to parse. It is only valid until this method
+	 *            returns. Non-null.
 	 * @param targetType
 	 *            The class that is being asked for. Non-null.
 	 * @param context
 	 *            {@link Context}. Non-null.
-	 * @return A {@link ParseResult} containing an object that was parsed, and
-	 *         whatever is remaining of the {@code content}.
+	 * @return The parsed object.
 	 * @throws ParseException
-	 *             if the content couldn't be parsed.
+	 *             if the token couldn't be parsed.
 	 */
-	ParseResult parse(String content, Class<?> targetType, Context context);
+	Object parse(Token token, Class<?> targetType, Context context);
 }
@@ -1,17 +1,26 @@
 package net.tonbot.core.request.parsing;
 
 import java.util.List;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.google.inject.Scopes;
 import com.google.inject.Singleton;
 
+import net.tonbot.core.request.EntityCache;
+
 public class ParserModule extends AbstractModule {
 
+	private static final Logger LOG = LoggerFactory.getLogger(ParserModule.class);
+
 	@Override
 	protected void configure() {
-
+		bind(EntityCache.class).in(Scopes.SINGLETON);
 	}
 
 	@Provides
@@ -20,8 +29,21 @@ public class ParserModule extends AbstractModule {
 			FloatParser floatParser, DoubleParser doubleParser, StringParser stringParser, EnumParser enumParser,
 			RoleMentionParser roleMentionParser, UserMentionParser userMentionParser,
 			ChannelMentionParser channelMentionParser, CustomEmojiParser customEmojiParser) {
-		return ImmutableList.of(intParser, longParser, shortParser, floatParser, doubleParser, stringParser, enumParser,
-				roleMentionParser, userMentionParser, channelMentionParser, customEmojiParser);
+		ImmutableList.Builder<Parser> parsers = ImmutableList.<Parser>builder().add(intParser, longParser, shortParser,
+				floatParser, doubleParser, stringParser, enumParser, roleMentionParser, userMentionParser,
+				channelMentionParser, customEmojiParser);
+
+		for (Parser pluginParser : ServiceLoader.load(Parser.class)) {
+			LOG.info("Registered parser {}", pluginParser.getClass().getName());
+			parsers.add(pluginParser);
+		}
+
+		return parsers.build();
 	}
 
+	@Provides
+	@Singleton
+	ParserRegistry parserRegistry(List<Parser> parsers) {
+		return new ParserRegistry(parsers);
+	}
 }
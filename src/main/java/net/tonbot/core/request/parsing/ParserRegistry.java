@@ -0,0 +1,64 @@
+package net.tonbot.core.request.parsing;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Finds the {@link Parser} for a type. The parsers are asked in order whether
+ * they support a type the first time that it is looked up, and the answer is
+ * remembered, so later lookups are a single map hit.
+ */
+public class ParserRegistry {
+
+	private final List<Parser> parsers;
+
+	private final ClassValue<Optional<Parser>> parsersByType = new ClassValue<Optional<Parser>>() {
+		@Override
+		protected Optional<Parser> computeValue(Class<?> type) {
+			return parsers.stream().filter(parser -> parser.supports(type)).findFirst();
+		}
+	};
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param parsers
+	 *            The parsers, from most to least preferred. Non-null.
+	 */
+	public ParserRegistry(List<Parser> parsers) {
+		Preconditions.checkNotNull(parsers, "parsers must be non-null.");
+		this.parsers = ImmutableList.copyOf(parsers);
+	}
+
+	/**
+	 * Gets the parser for a type.
+	 * 
+	 * @param type
+	 *            The type. Non-null.
+	 * @return The first {@link Parser} which supports the type.
+	 * @throws IllegalArgumentException
+	 *             if no parser supports the type.
+	 */
+	public Parser getParser(Class<?> type) {
+		Preconditions.checkNotNull(type, "type must be non-null.");
+
+		return parsersByType.get(type)
+				.orElseThrow(() -> new IllegalArgumentException("Unsupported type " + type + "."));
+	}
+
+	/**
+	 * Checks whether any parser supports a type.
+	 * 
+	 * @param type
+	 *            The type. Non-null.
+	 * @return True if a parser supports the type.
+	 */
+	public boolean supports(Class<?> type) {
+		Preconditions.checkNotNull(type, "type must be non-null.");
+
+		return parsersByType.get(type).isPresent();
+	}
+}
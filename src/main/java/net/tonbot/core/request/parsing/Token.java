@@ -0,0 +1,129 @@
+package net.tonbot.core.request.parsing;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A token of an argument line, identified by its offsets in the line, so that
+ * nothing is copied out of the line unless a {@link Parser} asks for it.<br/>
+ *
+ * A token is owned by its {@link ArgumentLexer}, which reuses it for the next
+ * token. It must not be kept after {@link Parser#parse} returns.
+ */
+public final class Token {
+
+	private String line;
+	private TokenType type;
+	private int start;
+	private int end;
+	private int valueStart;
+	private int valueEnd;
+
+	Token() {
+	}
+
+	void set(String line, TokenType type, int start, int end, int valueStart, int valueEnd) {
+		this.line = line;
+		this.type = type;
+		this.start = start;
+		this.end = end;
+		this.valueStart = valueStart;
+		this.valueEnd = valueEnd;
+	}
+
+	/**
+	 * Gets the type of the token.
+	 * 
+	 * @return {@link TokenType}.
+	 */
+	public TokenType getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the index in the line where the token starts.
+	 * 
+	 * @return The start index, inclusive.
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * Gets the index in the line where the token ends.
+	 * 
+	 * @return The end index, exclusive.
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Gets the token as it appears in the line, such as {@code "hello"} with its
+	 * quotes, or {@code <@1234>}.
+	 * 
+	 * @return The text of the token.
+	 */
+	public String getText() {
+		return line.substring(start, end);
+	}
+
+	/**
+	 * Gets the value of the token, which is the string inside the quotes of a
+	 * {@link TokenType#QUOTED_STRING}, the ID of a mention or custom emoji, and
+	 * the whole text of anything else.
+	 * 
+	 * @return The value of the token.
+	 */
+	public String getValue() {
+		return line.substring(valueStart, valueEnd);
+	}
+
+	/**
+	 * Parses the value of the token as a decimal long, without copying it out of
+	 * the line.
+	 * 
+	 * @return The value as a long.
+	 * @throws ParseException
+	 *             if the value isn't a number, or doesn't fit in a long.
+	 */
+	public long getValueAsLong() {
+		Preconditions.checkState(line != null, "There is no token.");
+
+		int i = valueStart;
+		boolean negative = i < valueEnd && line.charAt(i) == '-';
+		if (negative) {
+			i++;
+		}
+
+		if (i == valueEnd) {
+			throw new ParseException("Line parser encountered unexpected input which could not be parsed as a number.");
+		}
+
+		// Accumulated as a negative number, whose range is larger.
+		long result = 0;
+		for (; i < valueEnd; i++) {
+			int digit = line.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				throw new ParseException(
+						"Line parser encountered unexpected input which could not be parsed as a number.");
+			}
+			if (result < (Long.MIN_VALUE + digit) / 10) {
+				throw new ParseException("Line parser encountered a number which is too large.");
+			}
+			result = result * 10 - digit;
+		}
+
+		if (negative) {
+			return result;
+		} else if (result == Long.MIN_VALUE) {
+			throw new ParseException("Line parser encountered a number which is too large.");
+		}
+
+		return -result;
+	}
+
+	@Override
+	public String toString() {
+		return type + "[" + start + ", " + end + ")";
+	}
+}
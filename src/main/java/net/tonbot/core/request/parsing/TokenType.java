@@ -0,0 +1,60 @@
+package net.tonbot.core.request.parsing;
+
+/**
+ * The kinds of {@link Token} that the {@link ArgumentLexer} recognizes.
+ */
+public enum TokenType {
+
+	/**
+	 * A user mention, such as {@code <@1234>}. The value is the user ID.
+	 */
+	USER_MENTION,
+
+	/**
+	 * A channel mention, such as {@code <#1234>}. The value is the channel ID.
+	 */
+	CHANNEL_MENTION,
+
+	/**
+	 * A role mention, such as {@code <@&1234>}. The value is the role ID.
+	 */
+	ROLE_MENTION,
+
+	/**
+	 * {@code @everyone}.
+	 */
+	EVERYONE_MENTION,
+
+	/**
+	 * A custom emoji, such as {@code <:tonbot:1234>} or {@code <a:tonbot:1234>}.
+	 * The value is the emoji ID.
+	 */
+	CUSTOM_EMOJI,
+
+	/**
+	 * An integer, such as {@code -42}.
+	 */
+	INTEGER,
+
+	/**
+	 * A number with a decimal point, such as {@code 3.14}, {@code .5} or
+	 * {@code 2.}.
+	 */
+	DECIMAL,
+
+	/**
+	 * {@code true} or {@code false}, in any case.
+	 */
+	BOOLEAN,
+
+	/**
+	 * A string in double or single quotes. Quotes of the same kind may be escaped
+	 * with a backslash. The value is the string without its quotes.
+	 */
+	QUOTED_STRING,
+
+	/**
+	 * Anything else that isn't whitespace.
+	 */
+	WORD
+}
@@ -1,24 +1,19 @@
 package net.tonbot.core.request.parsing;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 
 import net.tonbot.core.request.Context;
-import sx.blah.discord.api.IDiscordClient;
+import net.tonbot.core.request.EntityCache;
 import sx.blah.discord.handle.obj.IUser;
 
 class UserMentionParser implements Parser {
 
-	private static final Pattern USER_MENTION_PATTERN = Pattern.compile("^<@(\\d+)>");
-
-	private final IDiscordClient discordClient;
+	private final EntityCache entityCache;
 
 	@Inject
-	public UserMentionParser(IDiscordClient discordClient) {
-		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
+	public UserMentionParser(EntityCache entityCache) {
+		this.entityCache = Preconditions.checkNotNull(entityCache, "entityCache must be non-null.");
 	}
 
 	@Override
@@ -28,25 +23,15 @@ class UserMentionParser implements Parser {
 	}
 
 	@Override
-	public ParseResult parse(String content, Class<?> targetType, Context context) {
-		Preconditions.checkNotNull(content, "content must be non-null.");
-
-		Matcher matcher = USER_MENTION_PATTERN.matcher(content);
-		if (matcher.find()) {
-			// Since the USER_MENTION_PATTERN must match at the beginning of the string, we
-			// can
-			// assume that matcher.start() is 0.
-			String remainingArgs = content.substring(matcher.end(), content.length());
-			String matchedValue = matcher.group(1);
+	public Object parse(Token token, Class<?> targetType, Context context) {
+		Preconditions.checkNotNull(token, "token must be non-null.");
+		Preconditions.checkNotNull(context, "context must be non-null.");
 
-			long userId = Long.parseLong(matchedValue);
-
-			IUser user = discordClient.getUserByID(userId);
-
-			return new ParseResult(user, remainingArgs);
-		} else {
+		if (token.getType() != TokenType.USER_MENTION) {
 			throw new ParseException(
 					"Line parser encountered unexpected input which could not be parsed as a user mention.");
 		}
+
+		return entityCache.getUser(context.getGuild(), token.getValueAsLong());
 	}
 }
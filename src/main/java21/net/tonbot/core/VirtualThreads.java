@@ -0,0 +1,36 @@
+package net.tonbot.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads. This is the Java 21 implementation, which is
+ * packaged under {@code META-INF/versions/21} of the multi-release jar.
+ */
+final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Determines whether if the runtime supports virtual threads.
+	 *
+	 * @return True iff virtual threads are supported.
+	 */
+	static boolean isSupported() {
+		return true;
+	}
+
+	/**
+	 * Creates an executor which starts a new virtual thread for each task.
+	 *
+	 * @param namePrefix
+	 *            The prefix of the names of the threads. Non-null.
+	 * @return An {@link ExecutorService}.
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+		ThreadFactory factory = Thread.ofVirtual().name(namePrefix, 0).factory();
+		return Executors.newThreadPerTaskExecutor(factory);
+	}
+}
@@ -0,0 +1,68 @@
+package net.tonbot.core
+
+import net.tonbot.common.Activity
+import spock.lang.Specification
+
+class ActivityGuardTest extends Specification {
+
+	Activity limitedActivity = Mock(Activity)
+	Activity coreActivity = Mock(Activity)
+
+	ActivityGuard activityGuard = new ActivityGuard([limitedActivity, coreActivity] as Set, [coreActivity] as Set,
+		new DispatchConfig(null, null, null, null, null, null, new ActivityLimitConfig(1, 50L), null, null, null, null,
+			null))
+
+	def "a full bulkhead rejects until a permit is released"() {
+		when:
+		ActivityGuard.Permit first = activityGuard.tryAcquire(limitedActivity)
+		ActivityGuard.Permit second = activityGuard.tryAcquire(limitedActivity)
+
+		then:
+		first != null
+		second == null
+		activityGuard.getRejectionCount(limitedActivity) == 1
+
+		when:
+		first.release()
+
+		then:
+		activityGuard.tryAcquire(limitedActivity) != null
+	}
+
+	def "core activities are never limited"() {
+		expect:
+		(0..<10).every({ activityGuard.tryAcquire(coreActivity) != null })
+	}
+
+	def "a passed deadline interrupts the thread and is counted"() {
+		given:
+		ActivityGuard.Deadline deadline = activityGuard.startDeadline(limitedActivity)
+
+		when:
+		Thread.sleep(5000)
+
+		then:
+		thrown(InterruptedException)
+
+		when:
+		boolean expired = deadline.finish()
+
+		then:
+		expired
+		!Thread.currentThread().isInterrupted()
+		activityGuard.getTimeoutCount(limitedActivity) == 1
+	}
+
+	def "a deadline which is finished in time does not interrupt"() {
+		given:
+		ActivityGuard.Deadline deadline = activityGuard.startDeadline(limitedActivity)
+
+		when:
+		boolean expired = deadline.finish()
+		Thread.sleep(100)
+
+		then:
+		!expired
+		activityGuard.getTimeoutCount(limitedActivity) == 0
+	}
+}
@@ -0,0 +1,39 @@
+package net.tonbot.core
+
+import java.util.concurrent.TimeUnit
+
+import com.google.common.base.Ticker
+
+import net.tonbot.core.AdmissionController.Admission
+import spock.lang.Specification
+
+class AdmissionControllerTest extends Specification {
+
+	long nanos = 0
+	Ticker ticker = new Ticker() {
+		long read() {
+			return nanos
+		}
+	}
+
+	def "a command rejected by its guild's bucket doesn't use up its author's bucket"() {
+		given:
+		RateLimitConfig config = new RateLimitConfig(true, new TokenBucketConfig(2, 1), new TokenBucketConfig(1, 1),
+				0L, TimeUnit.MINUTES.toMillis(1), 0L)
+		AdmissionController admissionController = new AdmissionController(config, ticker)
+
+		expect:
+		admissionController.admit(1L, 100L) == Admission.ADMITTED
+
+		and: "the guild is out of tokens, so a flood of commands by another user is rejected"
+		(0..<10).every({ admissionController.admit(2L, 100L) == Admission.THROTTLED })
+
+		when:
+		nanos += TimeUnit.SECONDS.toNanos(1)
+
+		then: "the other user still has a full bucket once the guild refills"
+		admissionController.admit(2L, 100L) == Admission.ADMITTED
+		admissionController.admit(2L, 200L) == Admission.ADMITTED
+		admissionController.admit(2L, 300L) == Admission.THROTTLED
+	}
+}
@@ -0,0 +1,70 @@
+package net.tonbot.core
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+
+class ChannelOrderedExecutorTest extends Specification {
+
+	def "tasks of the same channel run in submission order"() {
+		given:
+		ChannelOrderedExecutor executor = new ChannelOrderedExecutor(Executors.newFixedThreadPool(8), 4)
+		Map<Long, List<Integer>> runOrders = new ConcurrentHashMap<>()
+		CountDownLatch latch = new CountDownLatch(10 * 100)
+
+		when:
+		for (int i = 0; i < 100; i++) {
+			for (long channelId = 0; channelId < 10; channelId++) {
+				int taskNumber = i
+				long channel = channelId
+				executor.execute(channel, {
+					runOrders.computeIfAbsent(channel, { k -> new CopyOnWriteArrayList<>() }).add(taskNumber)
+					latch.countDown()
+				})
+			}
+		}
+		latch.await(10, TimeUnit.SECONDS)
+		executor.shutdown(1, TimeUnit.SECONDS)
+
+		then:
+		runOrders.size() == 10
+		runOrders.values().every({ order -> order == (0..<100).toList() })
+	}
+
+	def "a failing task does not stop the tasks after it"() {
+		given:
+		ChannelOrderedExecutor executor = new ChannelOrderedExecutor(Executors.newSingleThreadExecutor(), 1)
+		CountDownLatch latch = new CountDownLatch(1)
+
+		when:
+		executor.execute(1L, { throw new IllegalStateException("boom") })
+		executor.execute(1L, { latch.countDown() })
+
+		then:
+		latch.await(5, TimeUnit.SECONDS)
+
+		cleanup:
+		executor.shutdown(1, TimeUnit.SECONDS)
+	}
+
+	def "a task which throws an error does not stall its stripe"() {
+		given:
+		ChannelOrderedExecutor executor = new ChannelOrderedExecutor(Executors.newSingleThreadExecutor(), 1)
+		CountDownLatch latch = new CountDownLatch(2)
+
+		when:
+		executor.execute(1L, { throw new AssertionError("boom") })
+		executor.execute(1L, { latch.countDown() })
+		executor.execute(2L, { latch.countDown() })
+
+		then:
+		latch.await(5, TimeUnit.SECONDS)
+
+		cleanup:
+		executor.shutdown(1, TimeUnit.SECONDS)
+	}
+}
@@ -0,0 +1,82 @@
+package net.tonbot.core
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+
+class ChannelQueueExecutorTest extends Specification {
+
+	ChannelQueueExecutor executor = new ChannelQueueExecutor(Executors.newCachedThreadPool())
+
+	def cleanup() {
+		executor.shutdown(1, TimeUnit.SECONDS)
+	}
+
+	def "tasks of the same channel run in submission order"() {
+		given:
+		Map<Long, List<Integer>> runOrders = new ConcurrentHashMap<>()
+		CountDownLatch latch = new CountDownLatch(10 * 100)
+
+		when:
+		for (int i = 0; i < 100; i++) {
+			for (long channelId = 0; channelId < 10; channelId++) {
+				int taskNumber = i
+				long channel = channelId
+				executor.execute(channel, {
+					runOrders.computeIfAbsent(channel, { k -> new CopyOnWriteArrayList<>() }).add(taskNumber)
+					latch.countDown()
+				})
+			}
+		}
+
+		then:
+		latch.await(10, TimeUnit.SECONDS)
+		runOrders.size() == 10
+		runOrders.values().every({ order -> order == (0..<100).toList() })
+	}
+
+	def "slow tasks of different channels run at the same time"() {
+		given:
+		CountDownLatch bothStarted = new CountDownLatch(2)
+		CountDownLatch bothFinished = new CountDownLatch(2)
+
+		when:
+		// Each task only finishes once the other one has started.
+		[1L, 2L].each({ channelId ->
+			executor.execute(channelId, {
+				bothStarted.countDown()
+				if (bothStarted.await(5, TimeUnit.SECONDS)) {
+					bothFinished.countDown()
+				}
+			})
+		})
+
+		then:
+		bothFinished.await(5, TimeUnit.SECONDS)
+	}
+
+	def "a channel's queue is removed once it drains, even after an error"() {
+		given:
+		CountDownLatch latch = new CountDownLatch(1)
+
+		when:
+		executor.execute(1L, { throw new AssertionError("boom") })
+		executor.execute(1L, { latch.countDown() })
+
+		then:
+		latch.await(5, TimeUnit.SECONDS)
+
+		when:
+		long deadline = System.currentTimeMillis() + 5000
+		while (executor.getActiveChannelCount() != 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10)
+		}
+
+		then:
+		executor.getActiveChannelCount() == 0
+	}
+}
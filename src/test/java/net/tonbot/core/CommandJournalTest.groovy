@@ -0,0 +1,119 @@
+package net.tonbot.core
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent
+import sx.blah.discord.handle.obj.IChannel
+import sx.blah.discord.handle.obj.IGuild
+import sx.blah.discord.handle.obj.IMessage
+import sx.blah.discord.handle.obj.IUser
+
+class CommandJournalTest extends Specification {
+
+	Path directory = Files.createTempDirectory("command-journal-test")
+
+	def cleanup() {
+		directory.toFile().deleteDir()
+	}
+
+	def "appended commands are read back in order"() {
+		given:
+		CommandJournal journal = new CommandJournal(directory, new JournalConfig(true, null, null, null, null))
+		CommandTrace matched = trace(1L, "t, roll 6")
+		matched.setStageNanos(PipelineStage.values()[0], 1234L)
+		matched.setActivityName("net.example.RollActivity")
+		matched.setOutcome(CommandOutcome.ENACTED)
+		CommandTrace unmatched = trace(2L, "t, héllo")
+		unmatched.setOutcome(CommandOutcome.UNMATCHED)
+
+		when:
+		journal.append(matched)
+		journal.append(unmatched)
+		journal.close()
+		List<JournalEntry> entries = readAll(CommandJournal.listFiles(directory))
+
+		then:
+		entries.size() == 2
+
+		entries[0].messageId == 1L
+		entries[0].guildId == 10L
+		entries[0].content == "t, roll 6"
+		entries[0].activityName == "net.example.RollActivity"
+		entries[0].outcome == CommandOutcome.ENACTED
+		entries[0].getStageNanos(PipelineStage.values()[0]) == 1234L
+		entries[0].getStageNanos(PipelineStage.values()[1]) == -1L
+
+		entries[1].messageId == 2L
+		entries[1].content == "t, héllo"
+		entries[1].activityName == null
+		entries[1].outcome == CommandOutcome.UNMATCHED
+	}
+
+	def "full files are rotated and the oldest are deleted"() {
+		given:
+		CommandJournal journal = new CommandJournal(directory, new JournalConfig(true, 1, 2, 16, null))
+		String content = "t, echo " + "x" * 100000
+
+		when:
+		(1L..30L).each({ long id ->
+			CommandTrace trace = trace(id, content)
+			trace.setOutcome(CommandOutcome.ENACTED)
+			journal.append(trace)
+		})
+		journal.close()
+		List<Path> files = CommandJournal.listFiles(directory)
+		List<JournalEntry> entries = readAll(files)
+
+		then:
+		files.size() == 2
+		files.every({ Files.size(it) <= 1024 * 1024 })
+		entries.size() < 30
+		entries*.messageId == ((30L - entries.size() + 1)..30L).toList()
+	}
+
+	def "a disabled journal writes nothing"() {
+		given:
+		CommandJournal journal = new CommandJournal(directory, JournalConfig.defaults())
+
+		when:
+		journal.append(trace(1L, "t, ping"))
+		journal.close()
+
+		then:
+		!journal.isEnabled()
+		CommandJournal.listFiles(directory).isEmpty()
+	}
+
+	private CommandTrace trace(long messageId, String content) {
+		IGuild guild = Mock(IGuild) { getLongID() >> 10L }
+		IChannel channel = Mock(IChannel) { getLongID() >> 20L }
+		IUser author = Mock(IUser) { getLongID() >> 30L }
+		IMessage message = Mock(IMessage) {
+			getLongID() >> messageId
+			getContent() >> content
+		}
+		MessageReceivedEvent event = Mock(MessageReceivedEvent) {
+			getGuild() >> guild
+			getChannel() >> channel
+			getAuthor() >> author
+			getMessage() >> message
+		}
+
+		return new CommandTrace(event)
+	}
+
+	private static List<JournalEntry> readAll(List<Path> files) {
+		List<JournalEntry> entries = []
+		files.each({ Path file ->
+			new CommandJournalReader(file).withCloseable({ CommandJournalReader reader ->
+				JournalEntry entry
+				while ((entry = reader.read()) != null) {
+					entries << entry
+				}
+			})
+		})
+		return entries
+	}
+}
@@ -0,0 +1,25 @@
+package net.tonbot.core
+
+import spock.lang.Specification
+import sx.blah.discord.handle.obj.IRole
+import sx.blah.discord.handle.obj.Permissions
+
+/**
+ * Base class of specifications which mock Discord objects.
+ */
+abstract class DiscordSpecification extends Specification {
+
+	/**
+	 * Mocks a role without any Discord permissions.
+	 *
+	 * @param id
+	 *            The role's ID.
+	 * @return The mocked {@link IRole}. Non-null.
+	 */
+	protected IRole role(long id) {
+		return Mock(IRole) {
+			getLongID() >> id
+			getPermissions() >> EnumSet.noneOf(Permissions)
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package net.tonbot.core
+
+import java.nio.file.Files
+import java.util.concurrent.TimeUnit
+
+import net.tonbot.common.Activity
+import net.tonbot.common.ActivityDescriptor
+import net.tonbot.common.BotUtils
+import net.tonbot.common.Enactable
+import net.tonbot.common.Route
+import net.tonbot.common.TonbotBusinessException
+import net.tonbot.core.permission.PermissionManager
+import net.tonbot.core.request.Context
+import net.tonbot.core.request.RequestMapper
+import spock.lang.Specification
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent
+import sx.blah.discord.handle.obj.IChannel
+import sx.blah.discord.handle.obj.IGuild
+import sx.blah.discord.handle.obj.IMessage
+import sx.blah.discord.handle.obj.IUser
+
+class EventDispatcherTest extends Specification {
+
+	IChannel channel = Mock(IChannel) {
+		getLongID() >> 10L
+	}
+	IGuild guild = Mock(IGuild)
+	IUser author = Mock(IUser)
+
+	// Stands in for BotUtilsImpl, which hands replies to the open batch, if any,
+	// and sends the batched replies ahead of messages which can't be batched.
+	List<String> sent = []
+	BotUtils botUtils = Mock(BotUtils) {
+		sendMessage(_, _) >> { IChannel c, String message ->
+			if (!ReplyBatch.offer(c, message)) {
+				sent << message
+			}
+		}
+		sendMessage(_, _, _, _) >> { IChannel c, String message, long delay, TimeUnit timeUnit ->
+			sent.addAll(ReplyBatch.drain(c))
+			sent << message
+		}
+	}
+
+	RequestMapper requestMapper = Mock(RequestMapper) {
+		map(_, _, String, _) >> { String line, int argsStart, Class<?> target, Context context ->
+			line.substring(argsStart).trim()
+		}
+	}
+
+	Set<Activity> activities = [
+		new PingActivity(descriptor("ping"), botUtils),
+		new SayActivity(descriptor("say"), botUtils),
+		new FailActivity(descriptor("fail"))
+	] as Set
+
+	def "commands are split at separators outside of quotes, and their replies are merged"() {
+		given:
+		EventDispatcher dispatcher = newDispatcher(";", 5)
+
+		when:
+		dispatcher.onMessageReceived(message('t,say "a; b"; ping;t,say c'))
+
+		then:
+		sent == ['"a; b"\npong\nc']
+	}
+
+	def "a message with only quoted separators is a single command"() {
+		given:
+		EventDispatcher dispatcher = newDispatcher(";", 5)
+
+		when:
+		dispatcher.onMessageReceived(message('t,say "a; b"'))
+
+		then:
+		sent == ['"a; b"']
+	}
+
+	def "an error of a later command is sent after the replies to earlier ones"() {
+		given:
+		EventDispatcher dispatcher = newDispatcher(";", 5)
+
+		when:
+		dispatcher.onMessageReceived(message("t,ping; say a; fail; ping"))
+
+		then:
+		sent == ["pong\na", "failed", "pong"]
+	}
+
+	def "a message with too many commands is ignored"() {
+		given:
+		EventDispatcher dispatcher = newDispatcher(";", 2)
+
+		when:
+		dispatcher.onMessageReceived(message("t,ping; ping; ping"))
+
+		then:
+		sent.isEmpty()
+
+		when:
+		dispatcher.onMessageReceived(message("t,ping; ; ping"))
+
+		then:
+		sent == ["pong\npong"]
+	}
+
+	private EventDispatcher newDispatcher(String separator, int maxCommandsPerMessage) {
+		DispatchConfig dispatchConfig = new DispatchConfig(null, null, null, null, null, null, null, null, null, null,
+			separator, maxCommandsPerMessage)
+		Aliases aliases = new AliasesImpl([:], activities)
+		PermissionManager permissionManager = Mock(PermissionManager) {
+			checkAccessibility(_, _, _) >> true
+		}
+		ActivityExecutor executor = new ActivityExecutor() {
+			void execute(long channelId, Runnable activity) {
+				activity.run()
+			}
+
+			void shutdown(long timeout, TimeUnit timeUnit) {
+			}
+		}
+
+		return new EventDispatcher(botUtils, "t,", activities, aliases, permissionManager, new ActivityPrinter("t,"),
+			requestMapper, new ActivityMatcher(activities, aliases), new EnactableInvokers(activities), dispatchConfig,
+			executor, [] as Set, executor, new ActivityGuard(activities, [] as Set, dispatchConfig),
+			new AdmissionController(new RateLimitConfig(false, null, null, null, null, 0L)),
+			new PipelineMetrics(activities), new CommandLogSampler(LoggingConfig.defaults()),
+			new CommandJournal(Files.createTempDirectory("journal"), JournalConfig.defaults()),
+			new RouteSuggester(activities, aliases))
+	}
+
+	private MessageReceivedEvent message(String content) {
+		IMessage message = Mock(IMessage) {
+			getContent() >> content
+		}
+		return Mock(MessageReceivedEvent) {
+			getAuthor() >> author
+			getMessage() >> message
+			getChannel() >> channel
+			getGuild() >> guild
+		}
+	}
+
+	private ActivityDescriptor descriptor(String route) {
+		return Mock(ActivityDescriptor) {
+			getRoute() >> Route.from(route)
+		}
+	}
+
+	static class PingActivity implements Activity {
+		final ActivityDescriptor descriptor
+		final BotUtils botUtils
+
+		PingActivity(ActivityDescriptor descriptor, BotUtils botUtils) {
+			this.descriptor = descriptor
+			this.botUtils = botUtils
+		}
+
+		@Enactable
+		void enact(MessageReceivedEvent event) {
+			botUtils.sendMessage(event.getChannel(), "pong")
+		}
+	}
+
+	static class SayActivity implements Activity {
+		final ActivityDescriptor descriptor
+		final BotUtils botUtils
+
+		SayActivity(ActivityDescriptor descriptor, BotUtils botUtils) {
+			this.descriptor = descriptor
+			this.botUtils = botUtils
+		}
+
+		@Enactable
+		void enact(MessageReceivedEvent event, String text) {
+			botUtils.sendMessage(event.getChannel(), text)
+		}
+	}
+
+	static class FailActivity implements Activity {
+		final ActivityDescriptor descriptor
+
+		FailActivity(ActivityDescriptor descriptor) {
+			this.descriptor = descriptor
+		}
+
+		@Enactable
+		void enact(MessageReceivedEvent event) {
+			throw new TonbotBusinessException("failed")
+		}
+	}
+}
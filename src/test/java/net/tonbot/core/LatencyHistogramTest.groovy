@@ -0,0 +1,42 @@
+package net.tonbot.core
+
+import spock.lang.Specification
+
+class LatencyHistogramTest extends Specification {
+
+	def "every value falls in a bucket whose highest value is within 1/32 of it"() {
+		expect:
+		[0L, 1L, 63L, 64L, 65L, 1000L, 123456789L, LatencyHistogram.MAX_TRACKABLE_NANOS].every({ long value ->
+			long highest = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value))
+			highest >= value && highest - value <= value / 32
+		})
+	}
+
+	def "bucket indexes follow the order of the values"() {
+		expect:
+		(0L..<100000L).every({ long value ->
+			LatencyHistogram.indexOf(value) <= LatencyHistogram.indexOf(value + 1)
+		})
+	}
+
+	def "percentiles are taken from the recorded latencies"() {
+		given:
+		LatencyHistogram histogram = new LatencyHistogram()
+		(1..1000).each({ histogram.record(it * 1000L) })
+
+		when:
+		LatencySnapshot snapshot = histogram.snapshot()
+
+		then:
+		snapshot.count == 1000
+		Math.abs(snapshot.p50Nanos - 500_000) <= 500_000 / 32
+		Math.abs(snapshot.p99Nanos - 990_000) <= 990_000 / 32
+		Math.abs(snapshot.p999Nanos - 999_000) <= 999_000 / 32
+		snapshot.maxNanos == 1_000_000
+	}
+
+	def "an empty histogram reports zeroes"() {
+		expect:
+		new LatencyHistogram().snapshot() == new LatencySnapshot(0, 0, 0, 0, 0)
+	}
+}
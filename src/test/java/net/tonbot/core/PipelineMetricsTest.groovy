@@ -0,0 +1,47 @@
+package net.tonbot.core
+
+import net.tonbot.common.Activity
+import net.tonbot.common.ActivityDescriptor
+import net.tonbot.common.Route
+import spock.lang.Specification
+
+class PipelineMetricsTest extends Specification {
+
+	def "activities of the same class keep latencies of their own"() {
+		given:
+		Activity first = new ConfiguredActivity(descriptor("say hi"))
+		Activity second = new ConfiguredActivity(descriptor("say bye"))
+		Activity duplicate = new ConfiguredActivity(descriptor("say bye"))
+		PipelineMetrics metrics = new PipelineMetrics([first, second, duplicate] as Set)
+
+		when:
+		metrics.record(PipelineStage.ENACTMENT, first, 1000)
+		metrics.record(PipelineStage.ENACTMENT, second, 2000)
+		metrics.record(PipelineStage.ENACTMENT, second, 3000)
+		Map<String, LatencySnapshot> latencies = metrics.getActivityLatencies().findAll({ it.key.endsWith(" ENACTMENT") })
+
+		then:
+		String name = ConfiguredActivity.class.getName()
+		latencies.keySet() == [
+			"${name}[say hi] ENACTMENT",
+			"${name}[say bye] ENACTMENT",
+			"${name}[say bye]#2 ENACTMENT"
+		].collect({ it.toString() }) as Set
+		latencies["${name}[say hi] ENACTMENT".toString()].getCount() == 1
+		latencies.findAll({ it.key.contains("[say bye]") }).values()*.getCount().sum() == 2
+	}
+
+	private ActivityDescriptor descriptor(String route) {
+		return Mock(ActivityDescriptor) {
+			getRoute() >> Route.from(route)
+		}
+	}
+
+	static class ConfiguredActivity implements Activity {
+		final ActivityDescriptor descriptor
+
+		ConfiguredActivity(ActivityDescriptor descriptor) {
+			this.descriptor = descriptor
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package net.tonbot.core
+
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+
+class PriorityEventQueueTest extends Specification {
+
+	def "events are taken from the most important lane first"() {
+		given:
+		PriorityEventQueue<String> queue = new PriorityEventQueue<>(10, 10)
+		queue.offer("chat", EventPriority.CHAT)
+		queue.offer("command", EventPriority.COMMAND)
+		queue.offer("state", EventPriority.STATE)
+
+		expect:
+		queue.poll(0, TimeUnit.MILLISECONDS) == "state"
+		queue.poll(0, TimeUnit.MILLISECONDS) == "command"
+		queue.poll(0, TimeUnit.MILLISECONDS) == "chat"
+		queue.poll(0, TimeUnit.MILLISECONDS) == null
+	}
+
+	def "commands shed chat when the queue is full"() {
+		given:
+		PriorityEventQueue<String> queue = new PriorityEventQueue<>(2, 2)
+		queue.offer("chat1", EventPriority.CHAT)
+		queue.offer("chat2", EventPriority.CHAT)
+
+		when:
+		boolean commandAccepted = queue.offer("command", EventPriority.COMMAND)
+		boolean chatAccepted = queue.offer("chat3", EventPriority.CHAT)
+
+		then:
+		commandAccepted
+		!chatAccepted
+		queue.getShedCount() == 2
+		queue.size(EventPriority.CHAT) == 1
+		queue.size(EventPriority.COMMAND) == 1
+	}
+
+	def "commands are rejected only when there is no chat left to shed"() {
+		given:
+		PriorityEventQueue<String> queue = new PriorityEventQueue<>(1, 1)
+		queue.offer("command1", EventPriority.COMMAND)
+
+		expect:
+		!queue.offer("command2", EventPriority.COMMAND)
+		queue.getRejectionCount() == 1
+	}
+
+	def "state events are never rejected"() {
+		given:
+		PriorityEventQueue<String> queue = new PriorityEventQueue<>(1, 1)
+		queue.offer("command", EventPriority.COMMAND)
+
+		expect:
+		(0..<100).every({ queue.offer("state" + it, EventPriority.STATE) })
+		queue.size(EventPriority.STATE) == 100
+	}
+}
@@ -0,0 +1,57 @@
+package net.tonbot.core
+
+import spock.lang.Specification
+import sx.blah.discord.handle.obj.IChannel
+
+class ReplyBatchTest extends Specification {
+
+	IChannel channel = Mock(IChannel)
+	IChannel otherChannel = Mock(IChannel)
+
+	def "replies are joined until the next one would not fit"() {
+		expect:
+		ReplyBatch.merge(["aaa", "bbb", "cc", "dddd"], 7) == ["aaa\nbbb", "cc\ndddd"]
+	}
+
+	def "a reply which is too long by itself is left as is"() {
+		expect:
+		ReplyBatch.merge(["a", "bbbbbbbbbb", "c"], 5) == ["a", "bbbbbbbbbb", "c"]
+	}
+
+	def "only replies to the batch's channel are collected, and only while it is open"() {
+		given:
+		ReplyBatch batch = ReplyBatch.open(channel)
+
+		when:
+		boolean first = ReplyBatch.offer(channel, "first")
+		boolean other = ReplyBatch.offer(otherChannel, "other")
+		boolean second = ReplyBatch.offer(channel, "second")
+		List<String> replies = batch.close()
+
+		then:
+		first
+		!other
+		second
+		replies == ["first\nsecond"]
+		!ReplyBatch.offer(channel, "after")
+	}
+
+	def "draining a batch hands over the replies so far and keeps collecting"() {
+		given:
+		ReplyBatch batch = ReplyBatch.open(channel)
+		ReplyBatch.offer(channel, "first")
+		ReplyBatch.offer(channel, "second")
+
+		when:
+		List<String> drained = ReplyBatch.drain(channel)
+		List<String> drainedOther = ReplyBatch.drain(otherChannel)
+		ReplyBatch.offer(channel, "third")
+		List<String> replies = batch.close()
+
+		then:
+		drained == ["first\nsecond"]
+		drainedOther.isEmpty()
+		replies == ["third"]
+		ReplyBatch.drain(channel).isEmpty()
+	}
+}
@@ -0,0 +1,65 @@
+package net.tonbot.core
+
+import net.tonbot.common.Activity
+import net.tonbot.common.Route
+import spock.lang.Specification
+
+class RouteSuggesterTest extends Specification {
+
+	Activity help = Mock(Activity)
+	Activity play = Mock(Activity)
+	Activity queue = Mock(Activity)
+	Activity perms = Mock(Activity)
+
+	RouteSuggester suggester = new RouteSuggester([
+		new ActivityMatch(help, Route.from("help")),
+		new ActivityMatch(play, Route.from("music play")),
+		new ActivityMatch(queue, Route.from("music queue")),
+		new ActivityMatch(perms, Route.from("permissions list")),
+		new ActivityMatch(play, Route.from("play")),
+	])
+
+	def "close routes are suggested, closest first"(String command, List<String> expectedRoutes) {
+		given:
+		TokenizedMessage tokens = TokenizedMessage.tokenize(command, 0, 2)
+
+		expect:
+		suggester.suggest(tokens).collect({ m -> m.getMatchedRoute().toString() }) == expectedRoutes
+
+		where:
+		command                 || expectedRoutes
+		"hlep"                  || ["help"]
+		"HELP me"               || ["help"]
+		"music pley something"  || ["music play"]
+		"musci queue"           || ["music queue"]
+		"permisions lst"        || ["permissions list"]
+		"pla"                   || ["play"]
+		"xyz"                   || []
+		"ab"                    || []
+	}
+
+	def "only the closest route of each activity is suggested"() {
+		given:
+		TokenizedMessage tokens = TokenizedMessage.tokenize("plya music ply", 0, 2)
+
+		when:
+		List<ActivityMatch> suggestions = suggester.suggest(tokens)
+
+		then:
+		suggestions.size() == 1
+		suggestions[0].getMatchedActivity() == play
+	}
+
+	def "edit distance"(String a, String b, int expectedDistance) {
+		expect:
+		RouteSuggester.editDistance(a, b) == expectedDistance
+
+		where:
+		a        | b         || expectedDistance
+		""       | ""        || 0
+		"abc"    | ""        || 3
+		"kitten" | "sitting" || 3
+		"help"   | "hlep"    || 2
+		"play"   | "play"    || 0
+	}
+}
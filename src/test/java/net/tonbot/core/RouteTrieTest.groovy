@@ -0,0 +1,54 @@
+package net.tonbot.core
+
+import net.tonbot.common.Activity
+import net.tonbot.common.Route
+import spock.lang.Specification
+
+class RouteTrieTest extends Specification {
+
+	def "longest prefix matching"(String tokens, String expectedRoute) {
+		given:
+		RouteTrie trie = RouteTrie.builder()
+				.add(Route.from("foo"), Mock(Activity))
+				.add(Route.from("foo bar"), Mock(Activity))
+				.add(Route.from("foo bar baz qux"), Mock(Activity))
+				.add(Route.from("x"), Mock(Activity))
+				.build()
+
+		when:
+		Optional<ActivityMatch> match = trie.findLongestPrefix(TokenizedMessage.tokenize(tokens, 0, trie.getMaxDepth()))
+
+		then:
+		match.map({ m -> m.getMatchedRoute().toString() }).orElse(null) == expectedRoute
+
+		where:
+		tokens              || expectedRoute
+		"foo"               || "foo"
+		"foo bar"           || "foo bar"
+		"foo bar baz"       || "foo bar"
+		"foo bar baz qux"   || "foo bar baz qux"
+		"foo bar baz qux z" || "foo bar baz qux"
+		"foo x"             || "foo"
+		"x foo"             || "x"
+		"fo"                || null
+		"bar"               || null
+		""                  || null
+	}
+
+	def "the first activity added for a route is kept"() {
+		given:
+		Activity first = Mock(Activity)
+		Activity second = Mock(Activity)
+		RouteTrie trie = RouteTrie.builder()
+				.add(Route.from("foo"), first)
+				.add(Route.from("foo"), second)
+				.build()
+
+		when:
+		Optional<ActivityMatch> match = trie.findLongestPrefix(TokenizedMessage.tokenize("foo", 0, 1))
+
+		then:
+		match.get().getMatchedActivity().is(first)
+		trie.getMaxDepth() == 1
+	}
+}
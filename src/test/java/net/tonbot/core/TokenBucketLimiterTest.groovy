@@ -0,0 +1,102 @@
+package net.tonbot.core
+
+import java.util.concurrent.TimeUnit
+
+import com.google.common.base.Ticker
+
+import spock.lang.Specification
+
+class TokenBucketLimiterTest extends Specification {
+
+	long nanos = 0
+	Ticker ticker = new Ticker() {
+		long read() {
+			return nanos
+		}
+	}
+
+	def "a bucket lets a burst of its capacity through and then refills"() {
+		given:
+		TokenBucketLimiter limiter = new TokenBucketLimiter(3, 1, 1, TimeUnit.MINUTES, 4, ticker)
+
+		expect:
+		(0..<3).every({ limiter.tryAcquire(42L) })
+		!limiter.tryAcquire(42L)
+
+		when:
+		nanos += TimeUnit.SECONDS.toNanos(1)
+
+		then:
+		limiter.tryAcquire(42L)
+		!limiter.tryAcquire(42L)
+	}
+
+	def "checking a bucket does not take a token or create the bucket"() {
+		given:
+		TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 1, TimeUnit.MINUTES, 4, ticker)
+
+		expect:
+		limiter.canAcquire(42L)
+		limiter.size() == 0
+		limiter.tryAcquire(42L)
+		!limiter.canAcquire(42L)
+
+		when:
+		nanos += TimeUnit.SECONDS.toNanos(1)
+
+		then:
+		limiter.canAcquire(42L)
+		limiter.canAcquire(42L)
+		limiter.tryAcquire(42L)
+	}
+
+	def "a released token can be taken again, but a bucket never overfills"() {
+		given:
+		TokenBucketLimiter limiter = new TokenBucketLimiter(2, 1, 1, TimeUnit.MINUTES, 4, ticker)
+
+		expect:
+		limiter.tryAcquire(42L)
+		limiter.tryAcquire(42L)
+		!limiter.tryAcquire(42L)
+
+		when:
+		limiter.release(42L)
+
+		then:
+		limiter.tryAcquire(42L)
+		!limiter.tryAcquire(42L)
+
+		when:
+		nanos += TimeUnit.SECONDS.toNanos(2)
+		limiter.release(42L)
+		limiter.release(42L)
+
+		then:
+		limiter.tryAcquire(42L)
+		limiter.tryAcquire(42L)
+		!limiter.tryAcquire(42L)
+	}
+
+	def "buckets of different keys are independent"() {
+		given:
+		TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 1, TimeUnit.MINUTES, 4, ticker)
+
+		expect:
+		(0L..<1000L).every({ limiter.tryAcquire(it) })
+		(0L..<1000L).every({ !limiter.tryAcquire(it) })
+		limiter.size() == 1000
+	}
+
+	def "idle buckets are evicted"() {
+		given:
+		TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 1, TimeUnit.MINUTES, 1, ticker)
+		(0L..<100L).each({ limiter.tryAcquire(it) })
+
+		when:
+		nanos += TimeUnit.MINUTES.toNanos(2)
+		limiter.tryAcquire(1000L)
+
+		then:
+		limiter.size() == 1
+	}
+}
@@ -0,0 +1,46 @@
+package net.tonbot.core
+
+import spock.lang.Specification
+
+class TokenizedMessageTest extends Specification {
+
+	def "tokens are recorded as offsets"(String content, int fromIndex, int maxRecordedTokens, List<String> expectedTokens) {
+		when:
+		TokenizedMessage tokens = TokenizedMessage.tokenize(content, fromIndex, maxRecordedTokens)
+
+		then:
+		tokens.getTokenCount() == expectedTokens.size()
+		(0..<tokens.getTokenCount()).collect({ i -> content.substring(tokens.getStart(i), tokens.getEnd(i)) }) == expectedTokens
+
+		where:
+		content                | fromIndex | maxRecordedTokens || expectedTokens
+		"t, foo bar"           | 2         | 5                 || ["foo", "bar"]
+		"t,foo   bar  baz"     | 2         | 5                 || ["foo", "bar", "baz"]
+		"t, foo bar baz"       | 2         | 2                 || ["foo", "bar"]
+		"t,  foo\nbar\tbaz  "  | 2         | 5                 || ["foo", "bar", "baz"]
+		"t,   "                | 2         | 5                 || []
+		"t,"                   | 2         | 5                 || []
+		"t, foo"               | 2         | 0                 || []
+	}
+
+	def "the remainder can be cut at a token boundary"() {
+		given:
+		String content = "t, foo  bar   some args"
+		TokenizedMessage tokens = TokenizedMessage.tokenize(content, 2, 2)
+
+		expect:
+		content.substring(tokens.getEnd(1)) == "   some args"
+	}
+
+	def "token counting stops after the limit"(String content, int limit, int expectedCount) {
+		expect:
+		TokenizedMessage.countTokens(content, 0, limit) == expectedCount
+
+		where:
+		content       | limit || expectedCount
+		""            | 3     || 0
+		"a b"         | 3     || 2
+		"a b c"       | 3     || 3
+		"a  b c d e"  | 3     || 4
+	}
+}
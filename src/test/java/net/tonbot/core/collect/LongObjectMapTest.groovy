@@ -0,0 +1,78 @@
+package net.tonbot.core.collect
+
+import java.util.concurrent.atomic.AtomicLong
+
+import spock.lang.Specification
+
+class LongObjectMapTest extends Specification {
+
+	def "the long map survives many insertions and removals"() {
+		given:
+		LongObjectMap<Long> map = new LongObjectMap<>(0)
+		Map<Long, Long> expected = [:]
+		Random random = new Random(42)
+
+		when:
+		10000.times({
+			long key = random.nextInt(500) * 0x100000001L
+			if (random.nextBoolean()) {
+				map.put(key, key)
+				expected[key] = key
+			} else {
+				map.remove(key)
+				expected.remove(key)
+			}
+		})
+
+		then:
+		map.size() == expected.size()
+		(0L..<500L).every({ long i ->
+			long key = i * 0x100000001L
+			map.get(key) == expected[key]
+		})
+	}
+
+	def "a reader sees every key that was put before it looked, while the map grows"() {
+		given:
+		LongObjectMap<Long> map = new LongObjectMap<>(0)
+		int count = 100000
+		AtomicLong published = new AtomicLong(-1)
+		boolean missed = false
+
+		Thread reader = Thread.start({
+			while (published.get() < count - 1) {
+				long last = published.get()
+				for (long i = Math.max(0, last - 64); i <= last; i++) {
+					if (map.get(i << 22) != i) {
+						missed = true
+					}
+				}
+			}
+		})
+
+		when:
+		for (long i = 0; i < count; i++) {
+			map.put(i << 22, i)
+			published.set(i)
+		}
+		reader.join()
+
+		then:
+		!missed
+		map.size() == count
+	}
+
+	def "forEach visits every entry once"() {
+		given:
+		LongObjectMap<String> map = new LongObjectMap<>(0)
+		(1L..100L).each({ long i -> map.put(i, "v" + i) })
+		Map<Long, String> visited = [:]
+
+		when:
+		map.forEach({ Long key, String value -> visited[key] = value })
+
+		then:
+		visited.size() == 100
+		visited.every({ key, value -> value == "v" + key })
+	}
+}
@@ -0,0 +1,50 @@
+package net.tonbot.core.permission
+
+import net.tonbot.common.Activity
+import net.tonbot.core.DiscordSpecification
+import sx.blah.discord.handle.obj.IGuild
+
+class AccessDecisionCacheTest extends DiscordSpecification {
+
+	AccessDecisionCache cache = new AccessDecisionCache()
+
+	IGuild guild = Mock(IGuild) { getLongID() >> 1L }
+	IGuild otherGuild = Mock(IGuild) { getLongID() >> 2L }
+	Activity activity = Mock(Activity)
+
+	def "members with the same roles share decisions, regardless of role order"() {
+		when:
+		cache.put(cache.key(guild, [role(10), role(20)], activity), true)
+
+		then:
+		cache.get(cache.key(guild, [role(20), role(10)], activity)) == true
+		cache.get(cache.key(guild, [role(10)], activity)) == null
+		cache.get(cache.key(guild, [role(10), role(20)], Mock(Activity))) == null
+		cache.get(cache.key(otherGuild, [role(10), role(20)], activity)) == null
+	}
+
+	def "invalidating a guild forgets only its decisions"() {
+		given:
+		cache.put(cache.key(guild, [role(10)], activity), false)
+		cache.put(cache.key(otherGuild, [role(10)], activity), true)
+
+		when:
+		cache.invalidate(guild.getLongID())
+
+		then:
+		cache.get(cache.key(guild, [role(10)], activity)) == null
+		cache.get(cache.key(otherGuild, [role(10)], activity)) == true
+	}
+
+	def "a decision evaluated while its guild was invalidated is never found"() {
+		given:
+		AccessDecisionCache.Key key = cache.key(guild, [role(10)], activity)
+
+		when:
+		cache.invalidate(guild.getLongID())
+		cache.put(key, true)
+
+		then:
+		cache.get(cache.key(guild, [role(10)], activity)) == null
+	}
+}
@@ -0,0 +1,57 @@
+package net.tonbot.core.permission
+
+import net.tonbot.core.DiscordSpecification
+import sx.blah.discord.handle.obj.IUser
+
+class GuildPermissionIndexTest extends DiscordSpecification {
+
+	static final long GUILD_ID = 1
+	static final long EVERYONE = 1
+	static final long MODS = 2
+	static final long DJS = 3
+
+	IUser user = Mock(IUser)
+
+	def "the first rule which applies wins"(String route, List<Long> roleIds, Integer expectedRuleIndex) {
+		given:
+		List<Rule> rules = [
+			new RoleRule(["music", "**"], GUILD_ID, DJS, true),
+			new RoleRule(["music", "skip"], GUILD_ID, EVERYONE, false),
+			new RoleRule(["*", "list"], GUILD_ID, EVERYONE, true),
+			new RoleRule(["permissions", "**"], GUILD_ID, MODS, true),
+			new RoleRule(["**"], GUILD_ID, EVERYONE, false),
+			new RoleRule(["help"], GUILD_ID, EVERYONE, true),
+		]
+		GuildPermissionIndex index = new GuildPermissionIndex(rules)
+
+		when:
+		Rule rule = index.findFirstRule(route.tokenize(" "), user, roleIds.collect({ id -> role(id) }))
+
+		then:
+		rule == (expectedRuleIndex != null ? rules[expectedRuleIndex] : null)
+
+		where:
+		route                 | roleIds           || expectedRuleIndex
+		"music skip"          | [EVERYONE, DJS]   || 0
+		"music"               | [DJS]             || 0
+		"music skip"          | [EVERYONE]        || 1
+		"music list"          | [EVERYONE]        || 2
+		"permissions list"    | [MODS, EVERYONE]  || 2
+		"permissions add"     | [MODS, EVERYONE]  || 3
+		"permissions add"     | [EVERYONE]        || 4
+		"help"                | [EVERYONE]        || 4
+		"help"                | [MODS]            || null
+		""                    | [EVERYONE]        || 4
+	}
+
+	def "rules without a double wildcard only match routes of their length"() {
+		given:
+		List<Rule> rules = [new RoleRule(["a", "*"], GUILD_ID, EVERYONE, true)]
+		GuildPermissionIndex index = new GuildPermissionIndex(rules)
+
+		expect:
+		index.findFirstRule(["a", "b"], user, [role(EVERYONE)]) == rules[0]
+		index.findFirstRule(["a"], user, [role(EVERYONE)]) == null
+		index.findFirstRule(["a", "b", "c"], user, [role(EVERYONE)]) == null
+	}
+}
@@ -0,0 +1,143 @@
+package net.tonbot.core.permission
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CountDownLatch
+
+import com.fasterxml.jackson.databind.ObjectMapper
+
+import net.tonbot.common.Activity
+import net.tonbot.common.ActivityDescriptor
+import net.tonbot.common.Route
+import net.tonbot.core.DiscordSpecification
+import sx.blah.discord.handle.obj.IGuild
+import sx.blah.discord.handle.obj.IUser
+
+class PermissionManagerImplTest extends DiscordSpecification {
+
+	static final long GUILD_ID = 100
+	static final long OWNER_ID = 1
+	static final long MEMBER_ID = 2
+	static final long EVERYONE = 100
+
+	Path directory
+	File permissionsFile
+	IGuild guild = Mock(IGuild) {
+		getLongID() >> GUILD_ID
+		getOwnerLongID() >> OWNER_ID
+	}
+	IUser member = Mock(IUser) {
+		getLongID() >> MEMBER_ID
+		getRolesForGuild(_) >> [role(EVERYONE)]
+	}
+	Activity activity = activity("music play")
+
+	def setup() {
+		directory = Files.createTempDirectory("permissions")
+		permissionsFile = directory.resolve("permissions.json").toFile()
+	}
+
+	def cleanup() {
+		directory.toFile().deleteDir()
+	}
+
+	def "each change is seen by the next check"() {
+		given:
+		PermissionManagerImpl permissionManager = newPermissionManager()
+
+		when:
+		permissionManager.add(new RoleRule(["music", "**"], GUILD_ID, EVERYONE, false))
+
+		then:
+		!permissionManager.checkAccessibility(activity, member, guild)
+
+		when:
+		permissionManager.add(0, new RoleRule(["music", "play"], GUILD_ID, EVERYONE, true))
+
+		then:
+		permissionManager.checkAccessibility(activity, member, guild)
+
+		when:
+		Rule removed = permissionManager.remove(guild, 0)
+
+		then:
+		removed.isAllow()
+		!permissionManager.checkAccessibility(activity, member, guild)
+
+		when:
+		permissionManager.remove(guild, 0)
+		permissionManager.setDefaultAllowForGuild(guild, false)
+
+		then:
+		permissionManager.getRulesForGuild(guild).isEmpty()
+		!permissionManager.getDefaultAllowForGuild(guild)
+		!permissionManager.checkAccessibility(activity, member, guild)
+	}
+
+	def "guilds are saved and loaded"() {
+		given:
+		PermissionManagerImpl permissionManager = newPermissionManager()
+		permissionManager.add(new RoleRule(["music", "**"], GUILD_ID, EVERYONE, false))
+		permissionManager.setDefaultAllowForGuild(guild, false)
+
+		when:
+		permissionManager.destroy()
+		PermissionManagerImpl reloaded = newPermissionManager()
+
+		then:
+		reloaded.getRulesForGuild(guild)*.toString() == permissionManager.getRulesForGuild(guild)*.toString()
+		!reloaded.getDefaultAllowForGuild(guild)
+	}
+
+	def "idle guilds are evicted and loaded again on demand"() {
+		given:
+		PermissionManagerImpl permissionManager = newPermissionManager(1)
+		permissionManager.add(new RoleRule(["music", "**"], GUILD_ID, EVERYONE, false))
+		Thread.sleep(10)
+
+		when:
+		permissionManager.evictIdleGuilds()
+
+		then:
+		permissionManager.guildStates.get(GUILD_ID).get() == null
+
+		when:
+		boolean accessible = permissionManager.checkAccessibility(activity, member, guild)
+
+		then:
+		!accessible
+		permissionManager.getRulesForGuild(guild).size() == 1
+	}
+
+	def "concurrent additions to a guild are not lost"() {
+		given:
+		PermissionManagerImpl permissionManager = newPermissionManager()
+		CountDownLatch start = new CountDownLatch(1)
+
+		when:
+		List<Thread> threads = (0..<4).collect({ t ->
+			Thread.start {
+				start.await()
+				(0..<100).each({ i -> permissionManager.add(new RoleRule(["a" + t, "b" + i], GUILD_ID, EVERYONE, true)) })
+			}
+		})
+		start.countDown()
+		threads.each({ thread -> thread.join() })
+
+		then:
+		permissionManager.getRulesForGuild(guild).size() == 400
+	}
+
+	private PermissionManagerImpl newPermissionManager(long guildIdleTimeoutMs = 3600000) {
+		return new PermissionManagerImpl([], [], permissionsFile, new ObjectMapper(), new AccessDecisionCache(),
+			guildIdleTimeoutMs)
+	}
+
+	private Activity activity(String route) {
+		ActivityDescriptor descriptor = Mock(ActivityDescriptor)
+		descriptor.getRoute() >> Route.from(route)
+		Activity activity = Mock(Activity)
+		activity.getDescriptor() >> descriptor
+		return activity
+	}
+}
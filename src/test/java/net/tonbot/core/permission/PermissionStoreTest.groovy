@@ -0,0 +1,167 @@
+package net.tonbot.core.permission
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+import com.fasterxml.jackson.databind.ObjectMapper
+
+import spock.lang.Specification
+
+class PermissionStoreTest extends Specification {
+
+	Path directory = Files.createTempDirectory("permissions")
+	File permissionsFile = directory.resolve("permissions.json").toFile()
+	File shardDirectory = directory.resolve("permissions.json.guilds").toFile()
+	File logFile = directory.resolve("permissions.json.log").toFile()
+	ObjectMapper objectMapper = new ObjectMapper()
+
+	def cleanup() {
+		directory.toFile().deleteDir()
+	}
+
+	def "appended changes are loaded at once and survive a crash"() {
+		given:
+		PermissionStore store = newStore()
+
+		when:
+		store.append(1L, configuration(1, true))
+		store.append(2L, configuration(1, false))
+		store.append(1L, configuration(2, false))
+
+		then:
+		store.load(1L).getVersion() == 2
+		store.load(3L) == null
+
+		when:
+		store.flush()
+
+		// Reopen without closing the first store, as if the process had died.
+		PermissionStore reopened = newStore()
+
+		then:
+		reopened.load(1L).getVersion() == 2
+		!reopened.load(1L).isDefaultAllow()
+		reopened.load(2L).getVersion() == 1
+		logFile.length() == 0
+		new File(shardDirectory, "1.json").exists()
+	}
+
+	def "a log record older than the shard is ignored"() {
+		given:
+		PermissionStore store = newStore()
+		store.append(1L, configuration(5, true))
+		store.close()
+
+		store = newStore()
+		store.append(1L, configuration(4, false))
+		store.flush()
+
+		when:
+		PermissionStore reopened = newStore()
+
+		then:
+		reopened.load(1L).getVersion() == 5
+		reopened.load(1L).isDefaultAllow()
+	}
+
+	def "closing writes the changed shards and empties the log"() {
+		given:
+		PermissionStore store = newStore()
+		store.append(1L, configuration(1, false))
+
+		when:
+		store.close()
+
+		then:
+		logFile.length() == 0
+		shardDirectory.list() as Set == ["1.json"] as Set
+		newStore().load(1L).getVersion() == 1
+	}
+
+	def "a torn record at the end of the log is ignored"() {
+		given:
+		PermissionStore store = newStore()
+		store.append(1L, configuration(1, false))
+		store.flush()
+		logFile << '{"guildId":1,"configuration":{"ru'
+
+		when:
+		PermissionStore reopened = newStore()
+
+		then:
+		reopened.load(1L).getVersion() == 1
+	}
+
+	def "an appended change is synced by the time its future completes"() {
+		given:
+		PermissionStore store = newStore()
+
+		when:
+		store.append(1L, configuration(1, false)).get(10, TimeUnit.SECONDS)
+
+		// Reopen without flushing or closing the first store, as if the process had died.
+		PermissionStore reopened = newStore()
+
+		then:
+		reopened.load(1L).getVersion() == 1
+	}
+
+	def "what a failed batch left in the log is cut off before the next batch"() {
+		given:
+		PermissionStore store = newStore()
+		store.append(1L, configuration(1, false))
+		store.flush()
+
+		// As if the write of a batch had failed partway.
+		logFile << '{"guildId":2,"configuration":{"ru'
+
+		when:
+		store.append(3L, configuration(1, true))
+		store.flush()
+		PermissionStore reopened = newStore()
+
+		then:
+		reopened.load(1L).getVersion() == 1
+		reopened.load(2L) == null
+		reopened.load(3L).isDefaultAllow()
+	}
+
+	def "a change appended after closing fails"() {
+		given:
+		PermissionStore store = newStore()
+		store.close()
+
+		when:
+		store.append(1L, configuration(1, false)).get(10, TimeUnit.SECONDS)
+
+		then:
+		ExecutionException e = thrown()
+		e.getCause() instanceof IllegalStateException
+	}
+
+	def "a permissions file of old is split into shards"() {
+		given:
+		objectMapper.writeValue(permissionsFile, [1L: configuration(3, false), 2L: configuration(1, true)])
+
+		when:
+		PermissionStore store = newStore()
+
+		then:
+		!permissionsFile.exists()
+		directory.resolve("permissions.json.migrated").toFile().exists()
+		store.load(1L).getVersion() == 3
+		store.load(2L).isDefaultAllow()
+	}
+
+	private PermissionStore newStore() {
+		PermissionStore store = new PermissionStore(permissionsFile, objectMapper)
+		store.open()
+		return store
+	}
+
+	private static GuildConfiguration configuration(long version, boolean defaultAllow) {
+		return new GuildConfiguration([new RoleRule(["a", "**"], 1L, 1L, true)], defaultAllow, version)
+	}
+}
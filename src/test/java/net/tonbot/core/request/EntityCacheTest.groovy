@@ -0,0 +1,75 @@
+package net.tonbot.core.request
+
+import net.tonbot.core.DiscordSpecification
+import sx.blah.discord.api.IDiscordClient
+import sx.blah.discord.handle.impl.events.guild.GuildLeaveEvent
+import sx.blah.discord.handle.impl.events.guild.role.RoleCreateEvent
+import sx.blah.discord.handle.impl.events.guild.role.RoleDeleteEvent
+import sx.blah.discord.handle.obj.IGuild
+import sx.blah.discord.handle.obj.IRole
+
+class EntityCacheTest extends DiscordSpecification {
+
+	IDiscordClient discordClient = Mock(IDiscordClient)
+	EntityCache entityCache = new EntityCache(discordClient)
+
+	IGuild guild = Mock(IGuild) { getLongID() >> 1L }
+	IRole admins = role(10L)
+	IRole mods = role(11L)
+
+	def "a guild's roles are loaded once and then resolved from the cache"() {
+		when:
+		IRole first = entityCache.getRole(guild, 10L)
+		IRole second = entityCache.getRole(guild, 11L)
+
+		then:
+		1 * guild.getRoles() >> [admins, mods]
+		0 * discordClient.getRoleByID(_)
+		first.is(admins)
+		second.is(mods)
+	}
+
+	def "an unknown ID falls back to the client"() {
+		given:
+		IRole elsewhere = role(99L)
+		guild.getRoles() >> [admins]
+
+		when:
+		IRole resolved = entityCache.getRole(guild, 99L)
+
+		then:
+		1 * discordClient.getRoleByID(99L) >> elsewhere
+		resolved.is(elsewhere)
+	}
+
+	def "role events keep the cache current"() {
+		given:
+		guild.getRoles() >> [admins]
+		entityCache.getRole(guild, 10L)
+		IRole created = role(12L)
+
+		when:
+		entityCache.onRoleCreate(Mock(RoleCreateEvent) {
+			getGuild() >> guild
+			getRole() >> created
+		})
+		entityCache.onRoleDelete(Mock(RoleDeleteEvent) {
+			getGuild() >> guild
+			getRole() >> admins
+		})
+
+		then:
+		entityCache.getRole(guild, 12L).is(created)
+		entityCache.getRole(guild, 10L) == null
+	}
+
+	def "a guild which is left is loaded again when it is next used"() {
+		when:
+		entityCache.getRole(guild, 10L)
+		entityCache.onGuildLeave(Mock(GuildLeaveEvent) { getGuild() >> guild })
+		entityCache.getRole(guild, 10L)
+
+		then:
+		2 * guild.getRoles() >> [admins]
+	}
+}
@@ -0,0 +1,92 @@
+package net.tonbot.core.request
+
+import javax.annotation.Nonnull
+
+import net.tonbot.common.Param
+import net.tonbot.core.request.parsing.IntegerParser
+import net.tonbot.core.request.parsing.LineParser
+import net.tonbot.core.request.parsing.ParserRegistry
+import net.tonbot.core.request.parsing.StringParser
+import spock.lang.Specification
+import sx.blah.discord.handle.obj.IGuild
+
+class RequestMapperTest extends Specification {
+
+	RequestMapper requestMapper = new RequestMapper(
+		new LineParser(new ParserRegistry([new StringParser(), new IntegerParser()])))
+	Context context = new Context(Mock(IGuild))
+
+	def "fields and setter methods are mapped"() {
+		when:
+		RollRequest request = requestMapper.map("t, roll 20 for initiative", 8, RollRequest, context)
+
+		then:
+		request.sides == 20
+		request.reason == "for initiative"
+	}
+
+	def "a missing non-null argument is reported with its description"() {
+		when:
+		requestMapper.map("", RollRequest, context)
+
+		then:
+		RequestMappingException e = thrown()
+		e.message == "Missing argument ``sides``: The number of sides."
+	}
+
+	def "an IllegalArgumentException from a setter is reported to the user"() {
+		when:
+		requestMapper.map("0", RollRequest, context)
+
+		then:
+		RequestMappingException e = thrown()
+		e.message == "A die needs at least one side."
+	}
+
+	def "unparseable arguments are an incorrect usage"() {
+		when:
+		requestMapper.map("twenty", RollRequest, context)
+
+		then:
+		RequestMappingException e = thrown()
+		e.message == "Incorrect usage."
+	}
+
+	def "each mapping creates a new request"() {
+		expect:
+		!requestMapper.map("6", RollRequest, context).is(requestMapper.map("6", RollRequest, context))
+	}
+
+	def "a class with duplicate ordinals is rejected"() {
+		when:
+		requestMapper.map("a b", DuplicateOrdinalRequest, context)
+
+		then:
+		thrown(IllegalArgumentException)
+	}
+
+	static class RollRequest {
+
+		private Integer sides
+
+		@Param(name = "reason", ordinal = 1, captureRemaining = true)
+		private String reason
+
+		@Param(name = "sides", ordinal = 0, description = "The number of sides.")
+		void setSides(@Nonnull Integer sides) {
+			if (sides < 1) {
+				throw new IllegalArgumentException("A die needs at least one side.")
+			}
+			this.sides = sides
+		}
+	}
+
+	static class DuplicateOrdinalRequest {
+
+		@Param(name = "first", ordinal = 0)
+		private String first
+
+		@Param(name = "second", ordinal = 0)
+		private String second
+	}
+}
@@ -0,0 +1,81 @@
+package net.tonbot.core.request.parsing
+
+import spock.lang.Specification
+
+class ArgumentLexerTest extends Specification {
+
+	def "tokens are classified"() {
+		given:
+		ArgumentLexer lexer = new ArgumentLexer(input, 0)
+
+		when:
+		Token token = lexer.next()
+
+		then:
+		token.type == type
+		token.value == value
+		!lexer.hasNext()
+
+		where:
+		input                  | type                       | value
+		"<@1234>"              | TokenType.USER_MENTION     | "1234"
+		"<#1234>"              | TokenType.CHANNEL_MENTION  | "1234"
+		"<@&1234>"             | TokenType.ROLE_MENTION     | "1234"
+		"@everyone"            | TokenType.EVERYONE_MENTION | "@everyone"
+		"<:tonbot:1234>"       | TokenType.CUSTOM_EMOJI     | "1234"
+		"<a:tonbot:1234>"      | TokenType.CUSTOM_EMOJI     | "1234"
+		"-42"                  | TokenType.INTEGER          | "-42"
+		"3.14"                 | TokenType.DECIMAL          | "3.14"
+		".5"                   | TokenType.DECIMAL          | ".5"
+		"TRUE"                 | TokenType.BOOLEAN          | "TRUE"
+		'"hello there"'        | TokenType.QUOTED_STRING    | "hello there"
+		"'it\\'s'"             | TokenType.QUOTED_STRING    | "it\\'s"
+		"hello"                | TokenType.WORD             | "hello"
+		"<@12a4>"              | TokenType.WORD             | "<@12a4>"
+		"<:x:1234>"            | TokenType.WORD             | "<:x:1234>"
+		"1.2.3"                | TokenType.WORD             | "1.2.3"
+		"-"                    | TokenType.WORD             | "-"
+		"@everyoneelse"        | TokenType.WORD             | "@everyoneelse"
+		'"unterminated'        | TokenType.WORD             | '"unterminated'
+	}
+
+	def "tokens are separated by whitespace, and quoted strings end at their quote"() {
+		given:
+		ArgumentLexer lexer = new ArgumentLexer('  roll\t"two dice"and  <@1>  ', 0)
+		List<String> values = []
+
+		when:
+		while (lexer.hasNext()) {
+			values << lexer.next().value
+		}
+
+		then:
+		values == ["roll", "two dice", "and", "1"]
+	}
+
+	def "the rest of the line is taken without surrounding whitespace"() {
+		given:
+		ArgumentLexer lexer = new ArgumentLexer("t, say  hello   there  ", 2)
+
+		when:
+		String first = lexer.next().value
+		String rest = lexer.remaining()
+
+		then:
+		first == "say"
+		rest == "hello   there"
+		!lexer.hasNext()
+	}
+
+	def "long values are parsed in place, and overflow is rejected"() {
+		expect:
+		new ArgumentLexer(String.valueOf(Long.MAX_VALUE), 0).next().valueAsLong == Long.MAX_VALUE
+		new ArgumentLexer(String.valueOf(Long.MIN_VALUE), 0).next().valueAsLong == Long.MIN_VALUE
+
+		when:
+		new ArgumentLexer("9223372036854775808", 0).next().valueAsLong
+
+		then:
+		thrown(ParseException)
+	}
+}
@@ -0,0 +1,25 @@
+package net.tonbot.core.request.parsing
+
+import spock.lang.Specification
+
+class CommandSplitterTest extends Specification {
+
+	def "messages are split at separators outside of quoted strings"(String message, String separator,
+			List<String> segments) {
+		expect:
+		CommandSplitter.split(message, 2, separator) == segments
+
+		where:
+		message                        | separator || segments
+		't,ping'                       | ';'       || ['ping']
+		't,ping; pong'                 | ';'       || ['ping', ' pong']
+		't,say "a; b"; ping'           | ';'       || ['say "a; b"', ' ping']
+		"t,say 'a; b'"                 | ';'       || ["say 'a; b'"]
+		't,say "a \\" ; b"; ping'      | ';'       || ['say "a \\" ; b"', ' ping']
+		't,say x"a; b"'                | ';'       || ['say x"a', ' b"']
+		't,say "unterminated; ping'    | ';'       || ['say "unterminated', ' ping']
+		't,ping;"a; b"'                | ';'       || ['ping', '"a; b"']
+		't,say "a\nb"\nping'           | '\n'      || ['say "a', 'b"', 'ping']
+		't,ping && pong'               | '&&'      || ['ping ', ' pong']
+	}
+}
@@ -0,0 +1,62 @@
+package net.tonbot.core.request.parsing
+
+import java.util.concurrent.TimeUnit
+
+import net.tonbot.core.request.Context
+import spock.lang.Specification
+import sx.blah.discord.handle.obj.IGuild
+
+class ParserRegistryTest extends Specification {
+
+	Context context = new Context(Mock(IGuild))
+
+	def "the first parser which supports a type is used, and is only asked once"() {
+		given:
+		Parser first = Mock(Parser)
+		Parser second = Mock(Parser)
+		ParserRegistry registry = new ParserRegistry([first, second])
+
+		when:
+		Parser found = registry.getParser(Integer)
+		registry.getParser(Integer)
+
+		then:
+		1 * first.supports(Integer) >> false
+		1 * second.supports(Integer) >> true
+		found.is(second)
+	}
+
+	def "an unsupported type is rejected"() {
+		given:
+		ParserRegistry registry = new ParserRegistry([new IntegerParser()])
+
+		when:
+		registry.getParser(String)
+
+		then:
+		thrown(IllegalArgumentException)
+		!registry.supports(String)
+	}
+
+	def "enum constants are matched regardless of case"() {
+		given:
+		EnumParser enumParser = new EnumParser()
+
+		expect:
+		enumParser.parse(new ArgumentLexer(input, 0).next(), TimeUnit, context) == expected
+
+		where:
+		input           | expected
+		"SECONDS"       | TimeUnit.SECONDS
+		"minutes later" | TimeUnit.MINUTES
+		"nanoSeconds 1" | TimeUnit.NANOSECONDS
+	}
+
+	def "an unknown enum constant can't be parsed"() {
+		when:
+		new EnumParser().parse(new ArgumentLexer("fortnights", 0).next(), TimeUnit, context)
+
+		then:
+		thrown(ParseException)
+	}
+}